@@ -88,6 +88,11 @@ public interface IWebUtilsActionConstants
 	 * Action to fetch file as attachment.
 	 */
 	public String ACTION_TYPE_FETCH_ATTACHMENT = "fetch.attachment";
+	
+	/**
+	 * Action to fetch resized image.
+	 */
+	public String ACTION_TYPE_FETCH_IMAGE = "fetch.image";
 
 	/**
 	 * Action be be used for login operation.
@@ -165,6 +170,21 @@ public interface IWebUtilsActionConstants
 	 * Parameter with name "id".
 	 */
 	public String PARAM_ID = "id";
+	
+	/**
+	 * Parameter with name "width".
+	 */
+	public String PARAM_WIDTH = "width";
+	
+	/**
+	 * Parameter with name "height".
+	 */
+	public String PARAM_HEIGHT = "height";
+	
+	/**
+	 * Parameter with name "format".
+	 */
+	public String PARAM_FORMAT = "format";
 
 	/////////////////////////////////////////////////////////////////////////////
 	/**
@@ -27,6 +27,7 @@ import javax.validation.constraints.Min;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.yukthi.webutils.common.annotations.Model;
+import com.yukthi.webutils.common.models.search.SearchExportFormat;
 
 /**
  * Model used to execute search queries.
@@ -56,6 +57,24 @@ public class SearchExecutionModel
 	 */
 	private boolean fetchAll = false;
 	
+	/**
+	 * Format in which search results should be exported. Used only by export. Defaults to legacy
+	 * xls format, clients can opt in for streamed xlsx or csv formats.
+	 */
+	private SearchExportFormat exportFormat = SearchExportFormat.XLS;
+	
+	/**
+	 * If true, keyset pagination is used instead of page number. In this mode, next page is fetched
+	 * using continuation token returned with previous page.
+	 */
+	private boolean keysetPaging = false;
+	
+	/**
+	 * Continuation token returned with previous page. Used only with keyset pagination, and
+	 * should be null for the first page.
+	 */
+	private String continuationToken;
+	
 	/**
 	 * Instantiates a new search execution model.
 	 */
@@ -156,4 +175,64 @@ public class SearchExecutionModel
 	{
 		this.fetchAll = fetchAll;
 	}
+
+	/**
+	 * Gets the format in which search results should be exported.
+	 *
+	 * @return the format in which search results should be exported
+	 */
+	public SearchExportFormat getExportFormat()
+	{
+		return exportFormat;
+	}
+
+	/**
+	 * Sets the format in which search results should be exported.
+	 *
+	 * @param exportFormat the new format in which search results should be exported
+	 */
+	public void setExportFormat(SearchExportFormat exportFormat)
+	{
+		this.exportFormat = exportFormat;
+	}
+
+	/**
+	 * Checks if keyset pagination is used instead of page number.
+	 *
+	 * @return true, if keyset pagination is used
+	 */
+	public boolean isKeysetPaging()
+	{
+		return keysetPaging;
+	}
+
+	/**
+	 * Sets the flag indicating keyset pagination is used instead of page number.
+	 *
+	 * @param keysetPaging the new flag indicating keyset pagination is used
+	 */
+	public void setKeysetPaging(boolean keysetPaging)
+	{
+		this.keysetPaging = keysetPaging;
+	}
+
+	/**
+	 * Gets the continuation token returned with previous page.
+	 *
+	 * @return the continuation token returned with previous page
+	 */
+	public String getContinuationToken()
+	{
+		return continuationToken;
+	}
+
+	/**
+	 * Sets the continuation token returned with previous page.
+	 *
+	 * @param continuationToken the new continuation token returned with previous page
+	 */
+	public void setContinuationToken(String continuationToken)
+	{
+		this.continuationToken = continuationToken;
+	}
 }
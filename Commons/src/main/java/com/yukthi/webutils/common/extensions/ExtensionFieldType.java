@@ -95,7 +95,7 @@ public enum ExtensionFieldType
 		{
 			try
 			{
-				fieldConfiguration.getDateFormat().parse(value);
+				fieldConfiguration.getDateFormatter().parse(value);
 				return true;
 			}catch(Exception ex)
 			{
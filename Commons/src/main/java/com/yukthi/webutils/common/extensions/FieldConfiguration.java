@@ -24,6 +24,7 @@
 package com.yukthi.webutils.common.extensions;
 
 import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
 import java.util.Set;
 
 /**
@@ -33,9 +34,19 @@ import java.util.Set;
 public class FieldConfiguration
 {
 	/**
-	 * Date format to be used for fields
+	 * Numeric pattern letters whose two letter form can be relaxed to single letter form while parsing
 	 */
-	private SimpleDateFormat dateFormat;
+	private static final String RELAXABLE_PATTERN_LETTERS = "dMHhKkms";
+	
+	/**
+	 * Thread safe date formatter to be used for fields
+	 */
+	private DateTimeFormatter dateFormatter;
+	
+	/**
+	 * Date pattern of the formatter, if known. Used to build legacy {@link SimpleDateFormat}
+	 */
+	private String datePattern;
 	
 	/**
 	 * Configured LOV values
@@ -53,22 +64,101 @@ public class FieldConfiguration
 	 * @param dateFormat the date format
 	 * @param lovValues the lov values
 	 * @param maxLength the max length
+	 * @deprecated {@link SimpleDateFormat} is not thread safe, use {@link #FieldConfiguration(DateTimeFormatter, Set, int)} instead
 	 */
+	@Deprecated
 	public FieldConfiguration(SimpleDateFormat dateFormat, Set<String> lovValues, int maxLength)
 	{
-		this.dateFormat = dateFormat;
+		this(dateFormat.toPattern(), buildDateParser(dateFormat.toPattern()), lovValues, maxLength);
+	}
+
+	/**
+	 * Instantiates a new field configuration.
+	 *
+	 * @param dateFormatter the date formatter. For validation of user input, formatter built using {@link #buildDateParser(String)} should be used
+	 * @param lovValues the lov values
+	 * @param maxLength the max length
+	 */
+	public FieldConfiguration(DateTimeFormatter dateFormatter, Set<String> lovValues, int maxLength)
+	{
+		this(null, dateFormatter, lovValues, maxLength);
+	}
+
+	/**
+	 * Instantiates a new field configuration.
+	 *
+	 * @param datePattern the date pattern of the formatter, used by deprecated {@link #getDateFormat()}
+	 * @param dateFormatter the date formatter. For validation of user input, formatter built using {@link #buildDateParser(String)} should be used
+	 * @param lovValues the lov values
+	 * @param maxLength the max length
+	 */
+	public FieldConfiguration(String datePattern, DateTimeFormatter dateFormatter, Set<String> lovValues, int maxLength)
+	{
+		this.datePattern = datePattern;
+		this.dateFormatter = dateFormatter;
 		this.lovValues = lovValues;
 		this.maxLength = maxLength;
 	}
 
 	/**
-	 * Gets the date format to be used for fields.
+	 * Gets the date format to be used for fields. As {@link SimpleDateFormat} is not thread safe, new instance is 
+	 * returned on every call.
 	 *
-	 * @return the date format to be used for fields
+	 * @return the date format to be used for fields, null if date pattern is not specified during construction
+	 * @deprecated {@link SimpleDateFormat} is not thread safe, use {@link #getDateFormatter()} instead
 	 */
+	@Deprecated
 	public SimpleDateFormat getDateFormat()
 	{
-		return dateFormat;
+		return (datePattern != null) ? new SimpleDateFormat(datePattern) : null;
+	}
+
+	/**
+	 * Gets the thread safe date formatter to be used for fields.
+	 *
+	 * @return the thread safe date formatter to be used for fields
+	 */
+	public DateTimeFormatter getDateFormatter()
+	{
+		return dateFormatter;
+	}
+
+	/**
+	 * Builds thread safe date formatter for parsing field values in specified pattern. Similar to {@link SimpleDateFormat},
+	 * the parser accepts single digit values for two letter numeric fields, so that value like "1/2/2016" is accepted for
+	 * pattern "dd/MM/yyyy". Fields adjacent to another field are not relaxed, as their width is needed to
+	 * separate the values.
+	 * @param datePattern Date pattern
+	 * @return Lenient date parser
+	 */
+	public static DateTimeFormatter buildDateParser(String datePattern)
+	{
+		StringBuilder lenientPattern = new StringBuilder(datePattern.length());
+		boolean quoted = false;
+		int len = datePattern.length();
+		char ch = 0;
+		
+		for(int i = 0; i < len; i++)
+		{
+			ch = datePattern.charAt(i);
+			lenientPattern.append(ch);
+			
+			if(ch == '\'')
+			{
+				quoted = !quoted;
+				continue;
+			}
+			
+			//drop second letter of two letter numeric field, when it is not adjacent to another field
+			if(!quoted && RELAXABLE_PATTERN_LETTERS.indexOf(ch) >= 0 && i + 1 < len && datePattern.charAt(i + 1) == ch 
+					&& (i == 0 || !Character.isLetter(datePattern.charAt(i - 1)))
+					&& (i + 2 >= len || !Character.isLetter(datePattern.charAt(i + 2))))
+			{
+				i++;
+			}
+		}
+		
+		return DateTimeFormatter.ofPattern(lenientPattern.toString());
 	}
 
 	/**
@@ -50,10 +50,16 @@ public class ExecuteSearchResponse extends BaseResponse
 	private int pageNumber;
 	
 	/**
-	 * Total number of records.
+	 * Total number of records. -1, if count could not be fetched within configured time.
 	 */
 	private long totalCount;
 	
+	/**
+	 * Token to be used to fetch next page, when keyset pagination is used. Null, if 
+	 * there are no more results.
+	 */
+	private String continuationToken;
+	
 	/**
 	 * Instantiates a new execute search response.
 	 */
@@ -167,4 +173,24 @@ public class ExecuteSearchResponse extends BaseResponse
 	{
 		this.totalCount = totalCount;
 	}
+
+	/**
+	 * Gets the token to be used to fetch next page, when keyset pagination is used.
+	 *
+	 * @return the token to be used to fetch next page
+	 */
+	public String getContinuationToken()
+	{
+		return continuationToken;
+	}
+
+	/**
+	 * Sets the token to be used to fetch next page, when keyset pagination is used.
+	 *
+	 * @param continuationToken the new token to be used to fetch next page
+	 */
+	public void setContinuationToken(String continuationToken)
+	{
+		this.continuationToken = continuationToken;
+	}
 }
@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.common.models.search;
+
+/**
+ * Formats supported during export of search results.
+ *
+ * @author akiran
+ */
+public enum SearchExportFormat
+{
+	/**
+	 * Legacy excel format. The complete results are built in memory before export, so should
+	 * be avoided for large results.
+	 */
+	XLS(".xls", "application/vnd.ms-excel"),
+
+	/**
+	 * Office open xml excel format. Streamed directly to the client.
+	 */
+	XLSX(".xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+
+	/**
+	 * Comma separated values format. Streamed directly to the client.
+	 */
+	CSV(".csv", "text/csv");
+
+	/**
+	 * Extension of the exported file.
+	 */
+	private String extension;
+
+	/**
+	 * Content type of the exported file.
+	 */
+	private String contentType;
+
+	private SearchExportFormat(String extension, String contentType)
+	{
+		this.extension = extension;
+		this.contentType = contentType;
+	}
+
+	/**
+	 * Gets the extension of the exported file.
+	 *
+	 * @return the extension of the exported file
+	 */
+	public String getExtension()
+	{
+		return extension;
+	}
+
+	/**
+	 * Gets the content type of the exported file.
+	 *
+	 * @return the content type of the exported file
+	 */
+	public String getContentType()
+	{
+		return contentType;
+	}
+}
@@ -48,6 +48,11 @@ public interface IWebUtilsInternalConstants
 	 */
 	public String CONTEXT_ATTR_LOV_DEPENDENCY_VAL = "lovDependencyValue";
 	
+	/**
+	 * Context attribute name, that will be used to hold roles of current user loaded during current request.
+	 */
+	public String CONTEXT_ATTR_USER_ROLE_MAP = "userRoleMap";
+	
 	/**
 	 * Maximum length of the extension field.
 	 */
@@ -175,9 +175,10 @@ public class UserRoleKey
 	@Override
 	public int hashCode()
 	{
-		return (ownerType != null ? ownerType.hashCode() : 0) 
-				+ (role != null ? role.hashCode() : 0) 
-				+ (int)ownerId;
+		int hashCode = (ownerType != null ? ownerType.hashCode() : 0);
+		hashCode = 31 * hashCode + (role != null ? role.hashCode() : 0);
+		
+		return 31 * hashCode + Long.hashCode(ownerId);
 	}
 	
 	/* (non-Javadoc)
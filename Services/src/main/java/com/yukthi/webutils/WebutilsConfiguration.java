@@ -24,6 +24,10 @@
 package com.yukthi.webutils;
 
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +37,7 @@ import javax.annotation.PostConstruct;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import com.yukthi.webutils.common.extensions.FieldConfiguration;
 import com.yukthi.webutils.security.UserDetails;
 
 /**
@@ -83,9 +88,53 @@ public class WebutilsConfiguration
 	private int sessionExpiryInMin = -1;
 	
 	/**
-	 * Date format to be used for internal data exchange between client and server
+	 * Max number of verified auth tokens cached, to avoid decryption of tokens on every request. Zero or negative value disables the cache.
 	 */
-	private SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
+	private int authTokenCacheSize = 1000;
+	
+	/**
+	 * Flag indicating if auth tokens of older format should be accepted. Expected to be disabled once all older tokens are timed out.
+	 */
+	private boolean legacyAuthTokenEnabled = true;
+	
+	/**
+	 * Max number of authorization decisions cached. Zero or negative value disables the cache (default). Caching
+	 * should be enabled only when the security service bases its decisions only on the inputs that are part of the
+	 * cache key (see {@link com.yukthi.webutils.security.AuthorizationCache}).
+	 */
+	private int authorizationCacheSize = 0;
+	
+	/**
+	 * Time (in seconds) for which authorization decisions are cached. This limits the staleness of decisions, when roles are 
+	 * modified without using framework services.
+	 */
+	private int authorizationCacheTimeInSec = 60;
+	
+	/**
+	 * Max number of user role maps cached across requests. Zero or negative value disables the cache, in which case roles 
+	 * are loaded once per request.
+	 */
+	private int userRoleCacheSize = 0;
+	
+	/**
+	 * Time (in seconds) for which user role maps are cached across requests.
+	 */
+	private int userRoleCacheTimeInSec = 60;
+	
+	/**
+	 * Date format pattern to be used for internal data exchange between client and server
+	 */
+	private String datePattern = "dd/MM/yyyy";
+	
+	/**
+	 * Thread safe formatter of {@link #datePattern}, which can be shared across threads
+	 */
+	private DateTimeFormatter dateFormatter = buildDateFormatter(datePattern);
+	
+	/**
+	 * Thread safe lenient parser of {@link #datePattern}, used to validate date values provided by users
+	 */
+	private DateTimeFormatter dateParser = FieldConfiguration.buildDateParser(datePattern);
 	
 	/**
 	 * Javascript based date format
@@ -97,6 +146,104 @@ public class WebutilsConfiguration
 	 */
 	private Map<String, String> appConfigurations = new HashMap<>();
 	
+	/**
+	 * Number of threads used to execute search count queries in parallel to search data queries.
+	 */
+	private int searchCountThreadCount = 4;
+	
+	/**
+	 * Time to wait for search count query, after which search results are returned without count.
+	 */
+	private long searchCountTimeOutInMillis = 10000;
+	
+	/**
+	 * Time for which search counts are cached per query conditions. If zero or negative, counts are not cached.
+	 */
+	private int searchCountCacheTimeInSec = 0;
+	
+	/**
+	 * Folder in which file contents should be stored. If not specified, file contents are stored in db.
+	 */
+	private String fileStorePath;
+	
+	/**
+	 * Max size (in bytes) of multipart upload request. If negative, size is not limited.
+	 */
+	private long maxUploadSize = -1;
+	
+	/**
+	 * Max size (in bytes) of single file in multipart upload request. If negative, size is not limited.
+	 */
+	private long maxUploadFileSize = -1;
+	
+	/**
+	 * Max size (in bytes) of uploaded file which can be held in memory, beyond which files are spooled to disk.
+	 */
+	private int maxInMemoryUploadSize = 10240;
+	
+	/**
+	 * Folder in which uploaded files are spooled. If not specified, container temp folder is used.
+	 */
+	private String uploadTempPath;
+	
+	/**
+	 * Folder in which generated image derivatives (resized images) are cached. If not specified, a folder
+	 * in system temp folder is used.
+	 */
+	private String imageCachePath;
+	
+	/**
+	 * Max size (in MB) of image derivatives cache.
+	 */
+	private int imageCacheSizeInMb = 100;
+	
+	/**
+	 * Number of threads used to generate image derivatives.
+	 */
+	private int imageResizeThreadCount = 2;
+	
+	/**
+	 * Max number of image derivative requests that can wait for generation. Requests beyond this are rejected.
+	 */
+	private int imageResizeQueueSize = 50;
+	
+	/**
+	 * Max number of pixels (width x height) of images for which derivatives can be generated. Decoding
+	 * bigger images can exhaust the heap, hence they are rejected.
+	 */
+	private long imageMaxPixels = 40_000_000L;
+	
+	/**
+	 * Time (in minutes) after which temp files (files not attached to any owner) are deleted.
+	 */
+	private int tempFileTtlInMin = 720;
+	
+	/**
+	 * Max number of temp files deleted in single batch during cleanup.
+	 */
+	private int tempFileCleanupBatchSize = 200;
+	
+	/**
+	 * Time (in millis) to pause between temp file cleanup batches, to reduce load on db.
+	 */
+	private int tempFileCleanupPauseMillis = 100;
+	
+	/**
+	 * Max number of temp file cleanup batches executed in single cleanup run. Remaining files are deleted in next run.
+	 */
+	private int tempFileCleanupMaxBatches = 50;
+	
+	/**
+	 * Builds thread safe formatter for specified pattern. Formatter uses system default zone, so that
+	 * {@link java.util.Date} values can be formatted as instants.
+	 * @param pattern Date pattern
+	 * @return Date formatter
+	 */
+	private static DateTimeFormatter buildDateFormatter(String pattern)
+	{
+		return DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.systemDefault());
+	}
+	
 	/**
 	 * Validte.
 	 */
@@ -266,17 +413,64 @@ public class WebutilsConfiguration
 	 */
 	public void setDateFormat(String dateFormat)
 	{
-		this.dateFormat = new SimpleDateFormat(dateFormat);
+		this.dateFormatter = buildDateFormatter(dateFormat);
+		this.dateParser = FieldConfiguration.buildDateParser(dateFormat);
+		this.datePattern = dateFormat;
 	}
 	
 	/**
-	 * Gets the date format to be used for internal data exchange between client and server.
+	 * Gets the date format to be used for internal data exchange between client and server. As {@link SimpleDateFormat}
+	 * is not thread safe, new instance is returned on every call. For frequent formatting/parsing 
+	 * {@link #getDateFormatter()} should be used.
 	 *
 	 * @return the date format to be used for internal data exchange between client and server
 	 */
 	public SimpleDateFormat getDateFormat()
 	{
-		return dateFormat;
+		return new SimpleDateFormat(datePattern);
+	}
+	
+	/**
+	 * Gets the date format pattern to be used for internal data exchange between client and server.
+	 *
+	 * @return the date format pattern to be used for internal data exchange between client and server
+	 */
+	public String getDatePattern()
+	{
+		return datePattern;
+	}
+	
+	/**
+	 * Gets the thread safe formatter of date format, which can be shared across threads.
+	 *
+	 * @return the thread safe formatter of date format
+	 */
+	public DateTimeFormatter getDateFormatter()
+	{
+		return dateFormatter;
+	}
+	
+	/**
+	 * Gets the thread safe lenient parser of date format, which accepts single digit values for two letter
+	 * numeric fields (like "1/2/2016" for "dd/MM/yyyy").
+	 *
+	 * @return the thread safe lenient parser of date format
+	 */
+	public DateTimeFormatter getDateParser()
+	{
+		return dateParser;
+	}
+	
+	/**
+	 * Formats specified date using configured date format.
+	 *
+	 * @param date Date to be formatted
+	 * @return Formatted date string
+	 */
+	public String formatDate(Date date)
+	{
+		// instant is created from time, as java.sql.Date does not support toInstant()
+		return dateFormatter.format(Instant.ofEpochMilli(date.getTime()));
 	}
 
 	/**
@@ -299,6 +493,128 @@ public class WebutilsConfiguration
 		this.sessionExpiryInMin = sessionExpiryInMin;
 	}
 
+	/**
+	 * Gets the max number of verified auth tokens cached, to avoid decryption of tokens on every request.
+	 *
+	 * @return the max number of verified auth tokens cached
+	 */
+	public int getAuthTokenCacheSize()
+	{
+		return authTokenCacheSize;
+	}
+
+	/**
+	 * Sets the max number of verified auth tokens cached, to avoid decryption of tokens on every request. Zero or negative value disables the cache.
+	 *
+	 * @param authTokenCacheSize the new max number of verified auth tokens cached
+	 */
+	public void setAuthTokenCacheSize(int authTokenCacheSize)
+	{
+		this.authTokenCacheSize = authTokenCacheSize;
+	}
+
+	/**
+	 * Checks if auth tokens of older format should be accepted.
+	 *
+	 * @return true, if auth tokens of older format should be accepted
+	 */
+	public boolean isLegacyAuthTokenEnabled()
+	{
+		return legacyAuthTokenEnabled;
+	}
+
+	/**
+	 * Sets the flag indicating if auth tokens of older format should be accepted. Expected to be disabled once all older tokens are timed out.
+	 *
+	 * @param legacyAuthTokenEnabled the new flag indicating if auth tokens of older format should be accepted
+	 */
+	public void setLegacyAuthTokenEnabled(boolean legacyAuthTokenEnabled)
+	{
+		this.legacyAuthTokenEnabled = legacyAuthTokenEnabled;
+	}
+
+	/**
+	 * Gets the max number of authorization decisions cached.
+	 *
+	 * @return the max number of authorization decisions cached
+	 */
+	public int getAuthorizationCacheSize()
+	{
+		return authorizationCacheSize;
+	}
+
+	/**
+	 * Sets the max number of authorization decisions cached. Zero or negative value disables the cache (default).
+	 * Caching should be enabled only when the security service bases its decisions only on the inputs that are 
+	 * part of the cache key (see {@link com.yukthi.webutils.security.AuthorizationCache}).
+	 *
+	 * @param authorizationCacheSize the new max number of authorization decisions cached
+	 */
+	public void setAuthorizationCacheSize(int authorizationCacheSize)
+	{
+		this.authorizationCacheSize = authorizationCacheSize;
+	}
+
+	/**
+	 * Gets the time (in seconds) for which authorization decisions are cached.
+	 *
+	 * @return the time (in seconds) for which authorization decisions are cached
+	 */
+	public int getAuthorizationCacheTimeInSec()
+	{
+		return authorizationCacheTimeInSec;
+	}
+
+	/**
+	 * Sets the time (in seconds) for which authorization decisions are cached.
+	 *
+	 * @param authorizationCacheTimeInSec the new time (in seconds) for which authorization decisions are cached
+	 */
+	public void setAuthorizationCacheTimeInSec(int authorizationCacheTimeInSec)
+	{
+		this.authorizationCacheTimeInSec = authorizationCacheTimeInSec;
+	}
+
+	/**
+	 * Gets the max number of user role maps cached across requests.
+	 *
+	 * @return the max number of user role maps cached across requests
+	 */
+	public int getUserRoleCacheSize()
+	{
+		return userRoleCacheSize;
+	}
+
+	/**
+	 * Sets the max number of user role maps cached across requests. Zero or negative value disables the cache.
+	 *
+	 * @param userRoleCacheSize the new max number of user role maps cached across requests
+	 */
+	public void setUserRoleCacheSize(int userRoleCacheSize)
+	{
+		this.userRoleCacheSize = userRoleCacheSize;
+	}
+
+	/**
+	 * Gets the time (in seconds) for which user role maps are cached across requests.
+	 *
+	 * @return the time (in seconds) for which user role maps are cached across requests
+	 */
+	public int getUserRoleCacheTimeInSec()
+	{
+		return userRoleCacheTimeInSec;
+	}
+
+	/**
+	 * Sets the time (in seconds) for which user role maps are cached across requests.
+	 *
+	 * @param userRoleCacheTimeInSec the new time (in seconds) for which user role maps are cached across requests
+	 */
+	public void setUserRoleCacheTimeInSec(int userRoleCacheTimeInSec)
+	{
+		this.userRoleCacheTimeInSec = userRoleCacheTimeInSec;
+	}
+
 	/**
 	 * Gets the javascript based date format.
 	 *
@@ -338,4 +654,351 @@ public class WebutilsConfiguration
 	{
 		this.appConfigurations = appConfigurations;
 	}
+
+	/**
+	 * Gets the number of threads used to execute search count queries.
+	 *
+	 * @return the number of threads used to execute search count queries
+	 */
+	public int getSearchCountThreadCount()
+	{
+		return searchCountThreadCount;
+	}
+
+	/**
+	 * Sets the number of threads used to execute search count queries. Should be greater than zero.
+	 *
+	 * @param searchCountThreadCount the new number of threads used to execute search count queries
+	 */
+	public void setSearchCountThreadCount(int searchCountThreadCount)
+	{
+		if(searchCountThreadCount <= 0)
+		{
+			throw new IllegalArgumentException("Search count thread count should be greater than zero - " + searchCountThreadCount);
+		}
+		
+		this.searchCountThreadCount = searchCountThreadCount;
+	}
+
+	/**
+	 * Gets the time to wait for search count query.
+	 *
+	 * @return the time to wait for search count query
+	 */
+	public long getSearchCountTimeOutInMillis()
+	{
+		return searchCountTimeOutInMillis;
+	}
+
+	/**
+	 * Sets the time to wait for search count query, after which search results are returned without count.
+	 *
+	 * @param searchCountTimeOutInMillis the new time to wait for search count query
+	 */
+	public void setSearchCountTimeOutInMillis(long searchCountTimeOutInMillis)
+	{
+		this.searchCountTimeOutInMillis = searchCountTimeOutInMillis;
+	}
+
+	/**
+	 * Gets the time for which search counts are cached per query conditions.
+	 *
+	 * @return the time for which search counts are cached per query conditions
+	 */
+	public int getSearchCountCacheTimeInSec()
+	{
+		return searchCountCacheTimeInSec;
+	}
+
+	/**
+	 * Sets the time for which search counts are cached per query conditions. If zero or negative, counts are not cached.
+	 *
+	 * @param searchCountCacheTimeInSec the new time for which search counts are cached per query conditions
+	 */
+	public void setSearchCountCacheTimeInSec(int searchCountCacheTimeInSec)
+	{
+		this.searchCountCacheTimeInSec = searchCountCacheTimeInSec;
+	}
+
+	/**
+	 * Gets the folder in which file contents should be stored.
+	 *
+	 * @return the folder in which file contents should be stored
+	 */
+	public String getFileStorePath()
+	{
+		return fileStorePath;
+	}
+
+	/**
+	 * Sets the folder in which file contents should be stored. If not specified, file contents are stored in db.
+	 *
+	 * @param fileStorePath the new folder in which file contents should be stored
+	 */
+	public void setFileStorePath(String fileStorePath)
+	{
+		this.fileStorePath = fileStorePath;
+	}
+
+	/**
+	 * Gets the max size (in bytes) of multipart upload request.
+	 *
+	 * @return the max size (in bytes) of multipart upload request
+	 */
+	public long getMaxUploadSize()
+	{
+		return maxUploadSize;
+	}
+
+	/**
+	 * Sets the max size (in bytes) of multipart upload request. If negative, size is not limited.
+	 *
+	 * @param maxUploadSize the new max size (in bytes) of multipart upload request
+	 */
+	public void setMaxUploadSize(long maxUploadSize)
+	{
+		this.maxUploadSize = maxUploadSize;
+	}
+
+	/**
+	 * Gets the max size (in bytes) of single file in multipart upload request.
+	 *
+	 * @return the max size (in bytes) of single file in multipart upload request
+	 */
+	public long getMaxUploadFileSize()
+	{
+		return maxUploadFileSize;
+	}
+
+	/**
+	 * Sets the max size (in bytes) of single file in multipart upload request. If negative, size is not limited.
+	 *
+	 * @param maxUploadFileSize the new max size (in bytes) of single file in multipart upload request
+	 */
+	public void setMaxUploadFileSize(long maxUploadFileSize)
+	{
+		this.maxUploadFileSize = maxUploadFileSize;
+	}
+
+	/**
+	 * Gets the max size (in bytes) of uploaded file which can be held in memory.
+	 *
+	 * @return the max size (in bytes) of uploaded file which can be held in memory
+	 */
+	public int getMaxInMemoryUploadSize()
+	{
+		return maxInMemoryUploadSize;
+	}
+
+	/**
+	 * Sets the max size (in bytes) of uploaded file which can be held in memory, beyond which files are spooled to disk.
+	 *
+	 * @param maxInMemoryUploadSize the new max size (in bytes) of uploaded file which can be held in memory
+	 */
+	public void setMaxInMemoryUploadSize(int maxInMemoryUploadSize)
+	{
+		this.maxInMemoryUploadSize = maxInMemoryUploadSize;
+	}
+
+	/**
+	 * Gets the folder in which uploaded files are spooled.
+	 *
+	 * @return the folder in which uploaded files are spooled
+	 */
+	public String getUploadTempPath()
+	{
+		return uploadTempPath;
+	}
+
+	/**
+	 * Sets the folder in which uploaded files are spooled. If not specified, container temp folder is used.
+	 * For zero-copy uploads, this folder should be on same file system as {@link #getFileStorePath()}.
+	 *
+	 * @param uploadTempPath the new folder in which uploaded files are spooled
+	 */
+	public void setUploadTempPath(String uploadTempPath)
+	{
+		this.uploadTempPath = uploadTempPath;
+	}
+
+	/**
+	 * Gets the folder in which generated image derivatives are cached.
+	 *
+	 * @return the folder in which generated image derivatives are cached
+	 */
+	public String getImageCachePath()
+	{
+		return imageCachePath;
+	}
+
+	/**
+	 * Sets the folder in which generated image derivatives (resized images) are cached. If not specified, a folder
+	 * in system temp folder is used.
+	 *
+	 * @param imageCachePath the new folder in which generated image derivatives are cached
+	 */
+	public void setImageCachePath(String imageCachePath)
+	{
+		this.imageCachePath = imageCachePath;
+	}
+
+	/**
+	 * Gets the max size (in MB) of image derivatives cache.
+	 *
+	 * @return the max size (in MB) of image derivatives cache
+	 */
+	public int getImageCacheSizeInMb()
+	{
+		return imageCacheSizeInMb;
+	}
+
+	/**
+	 * Sets the max size (in MB) of image derivatives cache.
+	 *
+	 * @param imageCacheSizeInMb the new max size (in MB) of image derivatives cache
+	 */
+	public void setImageCacheSizeInMb(int imageCacheSizeInMb)
+	{
+		this.imageCacheSizeInMb = imageCacheSizeInMb;
+	}
+
+	/**
+	 * Gets the number of threads used to generate image derivatives.
+	 *
+	 * @return the number of threads used to generate image derivatives
+	 */
+	public int getImageResizeThreadCount()
+	{
+		return imageResizeThreadCount;
+	}
+
+	/**
+	 * Sets the number of threads used to generate image derivatives.
+	 *
+	 * @param imageResizeThreadCount the new number of threads used to generate image derivatives
+	 */
+	public void setImageResizeThreadCount(int imageResizeThreadCount)
+	{
+		this.imageResizeThreadCount = imageResizeThreadCount;
+	}
+
+	/**
+	 * Gets the max number of image derivative requests that can wait for generation.
+	 *
+	 * @return the max number of image derivative requests that can wait for generation
+	 */
+	public int getImageResizeQueueSize()
+	{
+		return imageResizeQueueSize;
+	}
+
+	/**
+	 * Sets the max number of image derivative requests that can wait for generation. Requests beyond this are rejected.
+	 *
+	 * @param imageResizeQueueSize the new max number of image derivative requests that can wait for generation
+	 */
+	public void setImageResizeQueueSize(int imageResizeQueueSize)
+	{
+		this.imageResizeQueueSize = imageResizeQueueSize;
+	}
+
+	/**
+	 * Gets the max number of pixels of images for which derivatives can be generated.
+	 *
+	 * @return the max number of pixels of images for which derivatives can be generated
+	 */
+	public long getImageMaxPixels()
+	{
+		return imageMaxPixels;
+	}
+
+	/**
+	 * Sets the max number of pixels (width x height) of images for which derivatives can be generated.
+	 *
+	 * @param imageMaxPixels the new max number of pixels of images for which derivatives can be generated
+	 */
+	public void setImageMaxPixels(long imageMaxPixels)
+	{
+		this.imageMaxPixels = imageMaxPixels;
+	}
+
+	/**
+	 * Gets the time (in minutes) after which temp files are deleted.
+	 *
+	 * @return the time (in minutes) after which temp files are deleted
+	 */
+	public int getTempFileTtlInMin()
+	{
+		return tempFileTtlInMin;
+	}
+
+	/**
+	 * Sets the time (in minutes) after which temp files are deleted.
+	 *
+	 * @param tempFileTtlInMin the new time (in minutes) after which temp files are deleted
+	 */
+	public void setTempFileTtlInMin(int tempFileTtlInMin)
+	{
+		this.tempFileTtlInMin = tempFileTtlInMin;
+	}
+
+	/**
+	 * Gets the max number of temp files deleted in single batch during cleanup.
+	 *
+	 * @return the max number of temp files deleted in single batch during cleanup
+	 */
+	public int getTempFileCleanupBatchSize()
+	{
+		return tempFileCleanupBatchSize;
+	}
+
+	/**
+	 * Sets the max number of temp files deleted in single batch during cleanup.
+	 *
+	 * @param tempFileCleanupBatchSize the new max number of temp files deleted in single batch during cleanup
+	 */
+	public void setTempFileCleanupBatchSize(int tempFileCleanupBatchSize)
+	{
+		this.tempFileCleanupBatchSize = tempFileCleanupBatchSize;
+	}
+
+	/**
+	 * Gets the time (in millis) to pause between temp file cleanup batches.
+	 *
+	 * @return the time (in millis) to pause between temp file cleanup batches
+	 */
+	public int getTempFileCleanupPauseMillis()
+	{
+		return tempFileCleanupPauseMillis;
+	}
+
+	/**
+	 * Sets the time (in millis) to pause between temp file cleanup batches.
+	 *
+	 * @param tempFileCleanupPauseMillis the new time (in millis) to pause between temp file cleanup batches
+	 */
+	public void setTempFileCleanupPauseMillis(int tempFileCleanupPauseMillis)
+	{
+		this.tempFileCleanupPauseMillis = tempFileCleanupPauseMillis;
+	}
+
+	/**
+	 * Gets the max number of temp file cleanup batches executed in single cleanup run.
+	 *
+	 * @return the max number of temp file cleanup batches executed in single cleanup run
+	 */
+	public int getTempFileCleanupMaxBatches()
+	{
+		return tempFileCleanupMaxBatches;
+	}
+
+	/**
+	 * Sets the max number of temp file cleanup batches executed in single cleanup run.
+	 *
+	 * @param tempFileCleanupMaxBatches the new max number of temp file cleanup batches executed in single cleanup run
+	 */
+	public void setTempFileCleanupMaxBatches(int tempFileCleanupMaxBatches)
+	{
+		this.tempFileCleanupMaxBatches = tempFileCleanupMaxBatches;
+	}
 }
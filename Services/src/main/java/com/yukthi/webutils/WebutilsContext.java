@@ -59,6 +59,15 @@ public class WebutilsContext
 		return context;
 	}
 	
+	/**
+	 * Removes the context of current thread. Expected to be invoked at the end of request processing, so that
+	 * request specific data is not carried over to other requests processed by the same thread.
+	 */
+	public static void clearContext()
+	{
+		threadLocal.remove();
+	}
+	
 	/**
 	 * Adds attribute object with specified name
 	 * @param name Name of the attribute
@@ -71,6 +80,17 @@ public class WebutilsContext
 		return this;
 	}
 	
+	/**
+	 * Removes the attribute with specified name
+	 * @param name Name of the attribute to remove
+	 * @return Current webutils context
+	 */
+	public WebutilsContext removeAttribute(String name)
+	{
+		attributeMap.remove(name);
+		return this;
+	}
+	
 	/**
 	 * Fetches the attribute with specified name
 	 * @param name Name of the attribute 
@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils;
+
+import java.io.IOException;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.fileupload.FileItemFactory;
+import org.apache.commons.fileupload.FileUpload;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.web.multipart.commons.CommonsMultipartResolver;
+
+import com.yukthi.utils.exceptions.InvalidStateException;
+
+/**
+ * Multipart resolver whose upload limits and spool folder are configured using {@link WebutilsConfiguration}. 
+ * Files bigger than configured in-memory size are spooled to disk by resolver, and are moved (instead of copied)
+ * during attachment processing.
+ * 
+ * @author akiran
+ */
+public class WebutilsMultipartResolver extends CommonsMultipartResolver
+{
+	private static Logger logger = LogManager.getLogger(WebutilsMultipartResolver.class);
+	
+	/**
+	 * Configuration to fetch upload limits.
+	 */
+	@Autowired
+	private WebutilsConfiguration configuration;
+	
+	/**
+	 * Applies upload configurations on this resolver.
+	 */
+	@PostConstruct
+	private void init()
+	{
+		super.setMaxUploadSize(configuration.getMaxUploadSize());
+		super.setMaxInMemorySize(configuration.getMaxInMemoryUploadSize());
+		
+		if(configuration.getUploadTempPath() != null)
+		{
+			try
+			{
+				super.setUploadTempDir(new FileSystemResource(configuration.getUploadTempPath()));
+			}catch(IOException ex)
+			{
+				throw new InvalidStateException(ex, "Failed to use upload temp folder - {}", configuration.getUploadTempPath());
+			}
+		}
+		
+		//file size limit is maintained by file upload instances, so set it on default instance
+		getFileUpload().setFileSizeMax(configuration.getMaxUploadFileSize());
+		
+		logger.debug("Using upload limits [Max request size: {}, Max file size: {}, Max in-memory size: {}]", 
+				configuration.getMaxUploadSize(), configuration.getMaxUploadFileSize(), configuration.getMaxInMemoryUploadSize());
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.springframework.web.multipart.commons.CommonsMultipartResolver#newFileUpload(org.apache.commons.fileupload.FileItemFactory)
+	 */
+	@Override
+	protected FileUpload newFileUpload(FileItemFactory fileItemFactory)
+	{
+		FileUpload fileUpload = super.newFileUpload(fileItemFactory);
+		
+		//configuration will be null during construction, in which case limit is set during init
+		if(configuration != null)
+		{
+			fileUpload.setFileSizeMax(configuration.getMaxUploadFileSize());
+		}
+		
+		return fileUpload;
+	}
+}
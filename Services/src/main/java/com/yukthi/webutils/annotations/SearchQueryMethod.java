@@ -64,5 +64,19 @@ public @interface SearchQueryMethod
 	 */
 	@SuppressWarnings("rawtypes")
 	public Class<? extends ISearchResultCustomizer> customizer() default ISearchResultCustomizer.class;
+	
+	/**
+	 * Time for which search results are cached. If zero or negative (default), results are not cached. Caching
+	 * should be enabled only for queries which return same results for same conditions, till the underlying entity
+	 * is modified. Modifications done by other than crud services are reflected only after this time.
+	 * @return Time in seconds for which results are cached
+	 */
+	public int resultCacheTimeInSec() default 0;
+	
+	/**
+	 * Max number of results (pages) to be cached, when result caching is enabled.
+	 * @return Max number of results to be cached
+	 */
+	public int resultCacheSize() default 100;
 }
 
@@ -26,20 +26,29 @@ package com.yukthi.webutils.controllers;
 import static com.yukthi.webutils.common.IWebUtilsActionConstants.ACTION_PREFIX_FILES;
 import static com.yukthi.webutils.common.IWebUtilsActionConstants.ACTION_TYPE_FETCH;
 import static com.yukthi.webutils.common.IWebUtilsActionConstants.ACTION_TYPE_FETCH_ATTACHMENT;
+import static com.yukthi.webutils.common.IWebUtilsActionConstants.ACTION_TYPE_FETCH_IMAGE;
 import static com.yukthi.webutils.common.IWebUtilsActionConstants.ACTION_TYPE_INSECURE;
 import static com.yukthi.webutils.common.IWebUtilsActionConstants.ACTION_TYPE_UPLOAD;
+import static com.yukthi.webutils.common.IWebUtilsActionConstants.PARAM_FORMAT;
+import static com.yukthi.webutils.common.IWebUtilsActionConstants.PARAM_HEIGHT;
 import static com.yukthi.webutils.common.IWebUtilsActionConstants.PARAM_ID;
+import static com.yukthi.webutils.common.IWebUtilsActionConstants.PARAM_WIDTH;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
@@ -51,10 +60,13 @@ import com.yukthi.webutils.common.FileInfo;
 import com.yukthi.webutils.common.IWebUtilsCommonConstants;
 import com.yukthi.webutils.common.models.BasicSaveResponse;
 import com.yukthi.webutils.common.models.UploadTempFileRequest;
+import com.yukthi.webutils.repository.file.FileContent;
 import com.yukthi.webutils.repository.file.FileEntity;
 import com.yukthi.webutils.security.ISecurityService;
 import com.yukthi.webutils.security.UnauthorizedException;
 import com.yukthi.webutils.services.FileService;
+import com.yukthi.webutils.services.ImageDerivativeService;
+import com.yukthi.webutils.utils.ByteRange;
 import com.yukthi.webutils.utils.WebAttachmentUtils;
 import com.yukthi.webutils.utils.WebUtils;
 
@@ -67,18 +79,41 @@ import com.yukthi.webutils.utils.WebUtils;
 @RequestMapping("/files")
 public class FileController
 {
+	private static final String HEADER_ETAG = "ETag";
+	private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+	private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+	private static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+	private static final String HEADER_RANGE = "Range";
+	private static final String HEADER_CONTENT_RANGE = "Content-Range";
+	private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+	private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+	private static final String HEADER_IF_RANGE = "If-Range";
+	private static final String HEADER_RETRY_AFTER = "Retry-After";
+	
 	/**
 	 * File service to fetch file content based on id.
 	 */
 	@Autowired
 	private FileService fileService;
 	
+	/**
+	 * Service to generate resized images.
+	 */
+	@Autowired
+	private ImageDerivativeService imageDerivativeService;
+	
 	/**
 	 * Service to check authorization for file.
 	 */
 	@Autowired
 	private ISecurityService securityService;
 	
+	/**
+	 * Current http servlet request.
+	 */
+	@Autowired
+	private HttpServletRequest request;
+	
 	/**
 	 * Current http servlet response.
 	 */
@@ -102,24 +137,122 @@ public class FileController
 	}
 	
 	/**
-	 * @param id
-	 * @param response
-	 * @return
-	 * @throws IOException
+	 * Fetches the file with specified id and streams its content to the response. Supports conditional
+	 * requests (based on ETag and last modified time) and single range requests.
+	 * @param id Id of the file
+	 * @param secured Whether secured file is being fetched
+	 * @param asAttachment Whether file should be sent as attachment
+	 * @throws IOException If sending error fails
+	 */
+	private void sendFile(long id, boolean secured, boolean asAttachment) throws IOException
+	{
+		FileEntity fileEntity = fetchFileDetails(id, secured);
+		
+		if(fileEntity == null)
+		{
+			return;
+		}
+		
+		String etag = "\"" + fileEntity.getId() + "-" + fileEntity.getVersion() + "\"";
+		long lastModified = getLastModified(fileEntity);
+		
+		response.setHeader(HEADER_ACCEPT_RANGES, "bytes");
+		
+		if(sendCacheHeaders(etag, lastModified, secured))
+		{
+			return;
+		}
+		
+		try(FileContent content = fileService.openContent(fileEntity))
+		{
+			ByteRange range = isRangeApplicable(etag, lastModified) ? ByteRange.parse(request.getHeader(HEADER_RANGE), content.length()) : null;
+			
+			if(range == ByteRange.UNSATISFIABLE)
+			{
+				response.setHeader(HEADER_CONTENT_RANGE, range.toContentRange(content.length()));
+				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+			
+			FileInfo fileInfo = WebUtils.convertBean(fileEntity, FileInfo.class);
+			WebAttachmentUtils.sendFile(response, fileInfo, content, asAttachment, range);
+		}
+	}
+	
+	/**
+	 * Sends resized version of image file with specified id. Conditional requests are supported, but not 
+	 * range requests.
+	 * @param id Id of the image file
+	 * @param secured Whether secured file is being fetched
+	 * @param width Max width of the image. Zero, if width should not be restricted.
+	 * @param height Max height of the image. Zero, if height should not be restricted.
+	 * @param format Format of the image. If null, format of the original file is used (if supported) or png.
+	 * @throws IOException If sending error fails
 	 */
-	private FileInfo getFileInfo(long id, boolean secured, HttpServletResponse response) throws IOException
+	private void sendImage(long id, boolean secured, int width, int height, String format) throws IOException
 	{
-		FileEntity fileEntity = null;
+		if(width < 0 || height < 0 || width > ImageDerivativeService.MAX_DIMENSION || height > ImageDerivativeService.MAX_DIMENSION 
+				|| (width == 0 && height == 0))
+		{
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid image dimensions specified");
+			return;
+		}
+		
+		String imageFormat = ImageDerivativeService.toSupportedFormat(format);
+		
+		if(format != null && imageFormat == null)
+		{
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unsupported image format specified - " + format);
+			return;
+		}
+		
+		FileEntity fileEntity = fetchFileDetails(id, secured);
 		
-		if(secured)
+		if(fileEntity == null)
 		{
-			fileEntity = fileService.getFileEntity(id);
+			return;
 		}
-		else
+		
+		if(imageFormat == null)
 		{
-			fileEntity = fileService.getFileEntity(id, false);
+			imageFormat = ImageDerivativeService.toSupportedFormat(FilenameUtils.getExtension(fileEntity.getFileName()));
+			imageFormat = (imageFormat != null) ? imageFormat : "png";
 		}
 		
+		String etag = "\"" + fileEntity.getId() + "-" + fileEntity.getVersion() + "-" + width + "x" + height + "." + imageFormat + "\"";
+		
+		if(sendCacheHeaders(etag, getLastModified(fileEntity), secured))
+		{
+			return;
+		}
+		
+		FileInfo fileInfo = new FileInfo(FilenameUtils.getBaseName(fileEntity.getFileName()) + "." + imageFormat, null, 
+				"image/" + ("jpg".equals(imageFormat) ? "jpeg" : imageFormat));
+		
+		try(FileContent content = imageDerivativeService.fetchDerivative(fileEntity, width, height, imageFormat))
+		{
+			WebAttachmentUtils.sendFile(response, fileInfo, content, false);
+		}catch(RejectedExecutionException ex)
+		{
+			//workers are busy, ask client to retry
+			response.setHeader(HEADER_RETRY_AFTER, "1");
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		}
+	}
+	
+	/**
+	 * Fetches details (without content) of the file with specified id and checks current user is authorized 
+	 * to access it. If file is not found, not-found error is sent to the client.
+	 * @param id Id of the file
+	 * @param secured Whether secured file is being fetched
+	 * @return File details. Null, if file is not found.
+	 * @throws IOException If sending error fails
+	 */
+	private FileEntity fetchFileDetails(long id, boolean secured) throws IOException
+	{
+		//fetch file details without content, so that content is not loaded unless it needs to be sent
+		FileEntity fileEntity = fileService.getFileDetails(id, secured);
+		
 		//if file is not found
 		if(fileEntity == null)
 		{
@@ -130,16 +263,135 @@ public class FileController
 		//check authorization of current user
 		if(secured && !securityService.isAuthorized(fileEntity))
 		{
-			//delete the temp file that was created during db read
-			fileEntity.getFile().delete();
-
 			throw new UnauthorizedException("Current user is not authorized to access file with id - {}", id);
 		}
 		
-		FileInfo fileInfo = WebUtils.convertBean(fileEntity, FileInfo.class);
-		fileInfo.setFile(fileEntity.getFile());
+		return fileEntity;
+	}
+	
+	/**
+	 * Fetches last modified time of specified file, in seconds precision (as used by http dates).
+	 * @param fileEntity File whose last modified time is needed
+	 * @return Last modified time in millis. -1, if not available.
+	 */
+	private long getLastModified(FileEntity fileEntity)
+	{
+		Date modifiedOn = (fileEntity.getUpdatedOn() != null) ? fileEntity.getUpdatedOn() : fileEntity.getCreatedOn();
+		return (modifiedOn != null) ? (modifiedOn.getTime() / 1000) * 1000 : -1;
+	}
+	
+	/**
+	 * Sets caching headers on response and checks if client already has current content (based on conditional 
+	 * headers of current request), in which case not-modified status is set on response.
+	 * @param etag Etag of the content
+	 * @param lastModified Last modified time of the content
+	 * @param secured Whether secured file is being fetched
+	 * @return True, if not-modified status is set
+	 */
+	private boolean sendCacheHeaders(String etag, long lastModified, boolean secured)
+	{
+		response.setHeader(HEADER_ETAG, etag);
+		response.setHeader(HEADER_CACHE_CONTROL, secured ? "private, no-cache" : "no-cache");
+		
+		if(lastModified > 0)
+		{
+			response.setDateHeader(HEADER_LAST_MODIFIED, lastModified);
+		}
+		
+		if(isNotModified(etag, lastModified))
+		{
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Fetches specified date header value from current request.
+	 * @param name Name of the header
+	 * @return Header value in millis. -1, if header is not present or invalid.
+	 */
+	private long getDateHeader(String name)
+	{
+		try
+		{
+			return request.getDateHeader(name);
+		}catch(IllegalArgumentException ex)
+		{
+			return -1;
+		}
+	}
+	
+	/**
+	 * Checks if specified etag matches with any of the etags in specified header value. Weak
+	 * comparison is used.
+	 * @param headerValue Header value with etags
+	 * @param etag Etag to check
+	 * @return True, if etag matches
+	 */
+	private boolean matchesEtag(String headerValue, String etag)
+	{
+		for(String value : headerValue.split(","))
+		{
+			value = value.trim();
+			
+			if(value.startsWith("W/"))
+			{
+				value = value.substring(2);
+			}
+			
+			if("*".equals(value) || etag.equals(value))
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Checks if client already has current version of the file, based on conditional headers of current request.
+	 * @param etag Etag of the file
+	 * @param lastModified Last modified time of the file
+	 * @return True, if file is not modified
+	 */
+	private boolean isNotModified(String etag, long lastModified)
+	{
+		String ifNoneMatch = request.getHeader(HEADER_IF_NONE_MATCH);
+		
+		//if etags are specified, if-modified-since should be ignored
+		if(ifNoneMatch != null)
+		{
+			return matchesEtag(ifNoneMatch, etag);
+		}
+		
+		long ifModifiedSince = getDateHeader(HEADER_IF_MODIFIED_SINCE);
+		return (lastModified > 0 && ifModifiedSince > 0 && lastModified <= ifModifiedSince);
+	}
+	
+	/**
+	 * Checks if range specified in current request should be used, based on "If-Range" header.
+	 * @param etag Etag of the file
+	 * @param lastModified Last modified time of the file
+	 * @return True, if range is applicable
+	 */
+	private boolean isRangeApplicable(String etag, long lastModified)
+	{
+		String ifRange = request.getHeader(HEADER_IF_RANGE);
+		
+		if(ifRange == null)
+		{
+			return true;
+		}
+		
+		//strong comparison is required for if-range
+		if(ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+		{
+			return etag.equals(ifRange.trim());
+		}
 		
-		return fileInfo;
+		return (lastModified > 0 && getDateHeader(HEADER_IF_RANGE) == lastModified);
 	}
 
 	/**
@@ -151,14 +403,7 @@ public class FileController
 	@RequestMapping(value = "/fetch/{" + PARAM_ID + "}", method = RequestMethod.GET)
 	public void fetchFile(@PathVariable(PARAM_ID) long id) throws IOException
 	{
-		FileInfo fileInfo = getFileInfo(id, true, response);
-
-		if(fileInfo == null)
-		{
-			return;
-		}
-
-		WebAttachmentUtils.sendFile(response, fileInfo, false, true);
+		sendFile(id, true, false);
 	}
 
 	/**
@@ -169,14 +414,7 @@ public class FileController
 	@RequestMapping(value = "/download/{" + PARAM_ID + "}", method = RequestMethod.GET)
 	public void fetchFileAsAttachment(@PathVariable(PARAM_ID) long id) throws IOException
 	{
-		FileInfo fileInfo = getFileInfo(id, true, response);
-
-		if(fileInfo == null)
-		{
-			return;
-		}
-
-		WebAttachmentUtils.sendFile(response, fileInfo, true, true);
+		sendFile(id, true, true);
 	}
 
 	/**
@@ -189,14 +427,44 @@ public class FileController
 	@RequestMapping(value = "/fetch/insecure/{" + PARAM_ID + "}", method = RequestMethod.GET)
 	public void fetchInsecureFile(@PathVariable(PARAM_ID) long id) throws IOException
 	{
-		FileInfo fileInfo = getFileInfo(id, false, response);
+		sendFile(id, false, false);
+	}
 
-		if(fileInfo == null)
-		{
-			return;
-		}
+	/**
+	 * Fetches resized version of the image file with specified id. Image is scaled down to fit within specified
+	 * width and height, retaining aspect ratio.
+	 * @param id Id of the image file to be fetched
+	 * @param width Max width of the image
+	 * @param height Max height of the image
+	 * @param format Format (png, jpg or gif) of the image. If not specified, original format is used when possible.
+	 */
+	@ActionName(ACTION_TYPE_FETCH_IMAGE)
+	@RequestMapping(value = "/fetch/image/{" + PARAM_ID + "}", method = RequestMethod.GET)
+	public void fetchImage(@PathVariable(PARAM_ID) long id, 
+			@RequestParam(value = PARAM_WIDTH, defaultValue = "0") int width, 
+			@RequestParam(value = PARAM_HEIGHT, defaultValue = "0") int height, 
+			@RequestParam(value = PARAM_FORMAT, required = false) String format) throws IOException
+	{
+		sendImage(id, true, width, height, format);
+	}
 
-		WebAttachmentUtils.sendFile(response, fileInfo, false, true);
+	/**
+	 * Fetches resized version of the insecure image file with specified id. Image is scaled down to fit within 
+	 * specified width and height, retaining aspect ratio.
+	 * @param id Id of the image file to be fetched
+	 * @param width Max width of the image
+	 * @param height Max height of the image
+	 * @param format Format (png, jpg or gif) of the image. If not specified, original format is used when possible.
+	 */
+	@NoAuthentication
+	@ActionName(ACTION_TYPE_FETCH_IMAGE + "." + ACTION_TYPE_INSECURE)
+	@RequestMapping(value = "/fetch/image/insecure/{" + PARAM_ID + "}", method = RequestMethod.GET)
+	public void fetchInsecureImage(@PathVariable(PARAM_ID) long id, 
+			@RequestParam(value = PARAM_WIDTH, defaultValue = "0") int width, 
+			@RequestParam(value = PARAM_HEIGHT, defaultValue = "0") int height, 
+			@RequestParam(value = PARAM_FORMAT, required = false) String format) throws IOException
+	{
+		sendImage(id, false, width, height, format);
 	}
 
 	/**
@@ -208,13 +476,6 @@ public class FileController
 	@RequestMapping(value = "/download/insecure/{" + PARAM_ID + "}", method = RequestMethod.GET)
 	public void fetchInsecureFileAsAttachment(@PathVariable(PARAM_ID) long id) throws IOException
 	{
-		FileInfo fileInfo = getFileInfo(id, false, response);
-
-		if(fileInfo == null)
-		{
-			return;
-		}
-
-		WebAttachmentUtils.sendFile(response, fileInfo, true, true);
+		sendFile(id, false, true);
 	}
 }
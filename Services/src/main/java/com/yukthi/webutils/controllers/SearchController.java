@@ -56,8 +56,12 @@ import com.yukthi.webutils.common.controllers.ISearchController;
 import com.yukthi.webutils.common.models.ModelDefResponse;
 import com.yukthi.webutils.common.models.def.ModelDef;
 import com.yukthi.webutils.common.models.search.ExecuteSearchResponse;
+import com.yukthi.webutils.common.models.search.SearchExportFormat;
 import com.yukthi.webutils.services.SearchService;
 import com.yukthi.webutils.services.ValidationService;
+import com.yukthi.webutils.services.search.CsvSearchExportWriter;
+import com.yukthi.webutils.services.search.SearchExportWriter;
+import com.yukthi.webutils.services.search.XlsxSearchExportWriter;
 import com.yukthi.webutils.utils.WebAttachmentUtils;
 
 /**
@@ -178,13 +182,51 @@ public class SearchController extends BaseController implements ISearchControlle
 		validationService.validate(query);
 		
 		ModelDef searchResultDef = searchService.getSearhResultDefinition(queryName);
-		ExecuteSearchResponse results = searchService.executeSearch(queryName, query, new SearchExecutionModel(1, false, true));
-
-		SearchExcelDataReport searchExcelDataReport = new SearchExcelDataReport("Results", results);
-		File tempFile = File.createTempFile(queryName, ".xls");
+		SearchExportFormat exportFormat = searchExecutionModel.getExportFormat();
+		
+		if(exportFormat == null)
+		{
+			exportFormat = SearchExportFormat.XLS;
+		}
+		
+		// legacy xls format needs complete results in memory
+		if(exportFormat == SearchExportFormat.XLS)
+		{
+			ExecuteSearchResponse results = searchService.executeSearch(queryName, query, new SearchExecutionModel(1, false, true));
+			
+			SearchExcelDataReport searchExcelDataReport = new SearchExcelDataReport("Results", results);
+			File tempFile = File.createTempFile(queryName, ".xls");
+			
+			excelExporter.generateExcelSheet(tempFile.getPath(), searchExcelDataReport);
+			
+			WebAttachmentUtils.sendFile(response, new FileInfo(searchResultDef.getLabel() + ".xls", tempFile, WebAttachmentUtils.MIME_MS_EXCEL_FILE), true, true);
+			return;
+		}
 		
-		excelExporter.generateExcelSheet(tempFile.getPath(), searchExcelDataReport);
+		// for other formats, stream the results directly to the response
+		response.setContentType(exportFormat.getContentType());
+		response.setHeader("Content-Disposition", "attachment; filename=\"" + searchResultDef.getLabel() + exportFormat.getExtension() + "\"");
 		
-		WebAttachmentUtils.sendFile(response, new FileInfo(searchResultDef.getLabel() + ".xls", tempFile, WebAttachmentUtils.MIME_MS_EXCEL_FILE), true, true);
+		try(SearchExportWriter exportWriter = (exportFormat == SearchExportFormat.CSV) ? 
+				new CsvSearchExportWriter(response.getOutputStream()) : 
+				new XlsxSearchExportWriter(response.getOutputStream(), "Results"))
+		{
+			try
+			{
+				searchService.exportSearch(queryName, query, exportWriter);
+			}catch(RuntimeException ex)
+			{
+				// ensure partial export is not finalized as complete document. If nothing is sent yet, clear
+				// the response, so that error response is sent instead
+				exportWriter.abort();
+				
+				if(!response.isCommitted())
+				{
+					response.reset();
+				}
+				
+				throw ex;
+			}
+		}
 	}
 }
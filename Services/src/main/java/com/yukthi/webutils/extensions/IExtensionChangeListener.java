@@ -0,0 +1,42 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.extensions;
+
+import com.yukthi.webutils.services.ExtensionService;
+
+/**
+ * Listener to be implemented by services which cache data derived from extensions or extension fields.
+ * All spring beans implementing this interface are notified by {@link ExtensionService} whenever extensions
+ * or extension fields are modified.
+ * 
+ * @author akiran
+ */
+public interface IExtensionChangeListener
+{
+	/**
+	 * Invoked after extensions or extension fields of specified space are modified.
+	 * @param spaceIdentity Space in which modification happened. Null, if modification is across spaces.
+	 */
+	public void extensionsChanged(String spaceIdentity);
+}
@@ -0,0 +1,46 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository;
+
+import com.yukthi.webutils.services.BaseCrudService;
+
+/**
+ * Listener to be implemented by services which cache data derived from entities. All spring beans
+ * implementing this interface are notified by {@link BaseCrudService} whenever entities are saved, updated
+ * or deleted.
+ * 
+ * @author akiran
+ */
+public interface IEntityChangeListener
+{
+	/**
+	 * Invoked after an entity of specified type is modified in specified space. Notification is sent after
+	 * the outermost crud operation of the thread completes. Data is committed by then, only if the transaction is
+	 * opened by crud operations or is completed within {@link BaseCrudService#executeAsOperation(java.util.concurrent.Callable)}.
+	 * If the caller opens its own transaction outside of it, notification may be sent before that transaction is committed.
+	 * @param entityType Type of entity modified
+	 * @param spaceIdentity Space in which entity was modified. Null, if modification is across spaces.
+	 */
+	public void entityChanged(Class<?> entityType, String spaceIdentity);
+}
@@ -1,10 +1,13 @@
 package com.yukthi.webutils.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import com.yukthi.persistence.ICrudRepository;
 import com.yukthi.persistence.repository.annotations.Condition;
 import com.yukthi.persistence.repository.annotations.ExtendedFieldNames;
+import com.yukthi.persistence.repository.annotations.Operator;
 import com.yukthi.persistence.repository.annotations.SearchResult;
 
 /**
@@ -22,6 +25,14 @@ public interface IWebutilsRepository<E extends WebutilsEntity> extends ICrudRepo
 	 */
 	public E findByIdAndUserSpace(@Condition("id") Object id, @Condition("spaceIdentity") String spaceIdentity);
 	
+	/**
+	 * Fetches entities with specified ids, which are part of specified space.
+	 * @param ids Ids of entities to fetch
+	 * @param spaceIdentity Space identity
+	 * @return Matching entities, in no specific order
+	 */
+	public List<E> findByIdsAndUserSpace(@Condition(value = "id", op = Operator.IN) Collection<?> ids, @Condition("spaceIdentity") String spaceIdentity);
+	
 	/**
 	 * Fetches extended fields for specified entity id.
 	 * @param id Entity id for which extended fields needs to be fetched.
@@ -31,6 +42,15 @@ public interface IWebutilsRepository<E extends WebutilsEntity> extends ICrudRepo
 	@SearchResult
 	public ExtensionFieldsData fetchExtendedFields(@Condition("id") Object id, @ExtendedFieldNames Set<String> fieldNames);
 	
+	/**
+	 * Fetches extended fields of specified entities in single query.
+	 * @param ids Entity ids for which extended fields needs to be fetched.
+	 * @param fieldNames Extended field names to fetch
+	 * @return Extended fields of the entities. Entities without extended data may be missing.
+	 */
+	@SearchResult
+	public List<ExtensionFieldsData> fetchExtendedFieldsByIds(@Condition(value = "id", op = Operator.IN) Collection<?> ids, @ExtendedFieldNames Set<String> fieldNames);
+	
 	/**
 	 * Updates the specified entity restricting to specified space identity.
 	 * @param entity Entity to update.
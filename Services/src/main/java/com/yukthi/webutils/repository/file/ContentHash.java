@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.yukthi.utils.exceptions.InvalidStateException;
+
+/**
+ * SHA-256 hashing of file contents, used by content stores to build content keys. Same content
+ * always results in same key, which lets stores maintain single copy of content uploaded multiple times.
+ * 
+ * @author akiran
+ */
+public final class ContentHash
+{
+	private static final char HEX_CHARS[] = "0123456789abcdef".toCharArray();
+	
+	private static final int BUFFER_SIZE = 8192;
+	
+	private ContentHash()
+	{}
+	
+	/**
+	 * Creates new SHA-256 digest.
+	 * @return New digest
+	 */
+	public static MessageDigest newDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}catch(NoSuchAlgorithmException ex)
+		{
+			throw new InvalidStateException(ex, "SHA-256 algorithm is not supported");
+		}
+	}
+	
+	/**
+	 * Converts specified bytes into hex string.
+	 * @param bytes Bytes to convert
+	 * @return Hex string
+	 */
+	public static String toHex(byte bytes[])
+	{
+		char hex[] = new char[bytes.length * 2];
+		
+		for(int i = 0; i < bytes.length; i++)
+		{
+			hex[i * 2] = HEX_CHARS[(bytes[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX_CHARS[bytes[i] & 0xF];
+		}
+		
+		return new String(hex);
+	}
+	
+	/**
+	 * Computes SHA-256 hash (as hex string) of specified file content.
+	 * @param file File whose hash needs to be computed
+	 * @return Hash of file content
+	 */
+	public static String compute(File file)
+	{
+		MessageDigest digest = newDigest();
+		byte buffer[] = new byte[BUFFER_SIZE];
+		int read = 0;
+		
+		try(InputStream is = new FileInputStream(file))
+		{
+			while((read = is.read(buffer)) > 0)
+			{
+				digest.update(buffer, 0, read);
+			}
+		}catch(IOException ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while computing hash of file - {}", file.getPath());
+		}
+		
+		return toHex(digest.digest());
+	}
+}
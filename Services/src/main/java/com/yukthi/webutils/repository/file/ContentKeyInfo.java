@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import com.yukthi.persistence.repository.annotations.Field;
+
+/**
+ * Content key along with id of the row maintaining it. Used to fetch content keys page by page (using
+ * id as continuation), so that large number of keys are never loaded at once.
+ * 
+ * @author akiran
+ */
+public class ContentKeyInfo
+{
+	/**
+	 * Id of the row.
+	 */
+	@Field("id")
+	private Long id;
+	
+	/**
+	 * Content key.
+	 */
+	@Field("contentKey")
+	private String contentKey;
+
+	/**
+	 * Gets the id of the row.
+	 *
+	 * @return the id of the row
+	 */
+	public Long getId()
+	{
+		return id;
+	}
+
+	/**
+	 * Sets the id of the row.
+	 *
+	 * @param id the new id of the row
+	 */
+	public void setId(Long id)
+	{
+		this.id = id;
+	}
+
+	/**
+	 * Gets the content key.
+	 *
+	 * @return the content key
+	 */
+	public String getContentKey()
+	{
+		return contentKey;
+	}
+
+	/**
+	 * Sets the content key.
+	 *
+	 * @param contentKey the new content key
+	 */
+	public void setContentKey(String contentKey)
+	{
+		this.contentKey = contentKey;
+	}
+}
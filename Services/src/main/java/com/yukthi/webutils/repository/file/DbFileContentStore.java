@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.yukthi.persistence.UniqueConstraintViolationException;
+import com.yukthi.persistence.repository.annotations.Operator;
+import com.yukthi.persistence.repository.search.SearchCondition;
+import com.yukthi.persistence.repository.search.SearchQuery;
+import com.yukthi.utils.exceptions.InvalidStateException;
+
+/**
+ * Content store which stores content in db. Content is stored once per distinct content (as {@link FileContentEntity}), 
+ * keyed by its SHA-256 hash, and is shared by all files having same content. While reading, persistence layer reads 
+ * the BLOB into temporary file, which gets deleted when the content is closed.
+ * <BR/><BR/>
+ * Content stored by older versions, as BLOB of {@link FileEntity}, is also supported for reading.
+ * 
+ * @author akiran
+ */
+public class DbFileContentStore implements IFileContentStore
+{
+	private static Logger logger = LogManager.getLogger(DbFileContentStore.class);
+	
+	/**
+	 * Prefix used for keys of content maintained by this store, to distinguish them from keys of other stores.
+	 */
+	public static final String KEY_PREFIX = "db-";
+	
+	/**
+	 * Repository to maintain contents.
+	 */
+	private IFileContentRepository repository;
+	
+	/**
+	 * Instantiates a new db file content store.
+	 *
+	 * @param repository the repository to maintain contents
+	 */
+	public DbFileContentStore(IFileContentRepository repository)
+	{
+		this.repository = repository;
+	}
+	
+	/**
+	 * Checks if specified content key belongs to content maintained by this store.
+	 * @param contentKey Content key to check
+	 * @return True, if key belongs to this store
+	 */
+	public static boolean isDbContentKey(String contentKey)
+	{
+		return contentKey.startsWith(KEY_PREFIX);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.repository.file.IFileContentStore#store(com.yukthi.webutils.repository.file.FileEntity, java.io.File)
+	 */
+	@Override
+	public void store(FileEntity fileEntity, File content)
+	{
+		String contentKey = KEY_PREFIX + ContentHash.compute(content);
+		Date now = new Date();
+		
+		//if content already exists, mark it as used, so that it does not get deleted till file gets saved
+		if(repository.updateLastUsedOn(contentKey, now))
+		{
+			logger.debug("Content with key {} already exists, reusing existing content", contentKey);
+		}
+		else
+		{
+			FileContentEntity contentEntity = new FileContentEntity();
+			contentEntity.setContentKey(contentKey);
+			contentEntity.setContent(content);
+			contentEntity.setSize(content.length());
+			contentEntity.setLastUsedOn(now);
+			
+			try
+			{
+				repository.save(contentEntity);
+			}catch(UniqueConstraintViolationException ex)
+			{
+				//same content got stored concurrently
+				repository.updateLastUsedOn(contentKey, now);
+			}
+		}
+		
+		fileEntity.setContentKey(contentKey);
+		fileEntity.setFile(null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.repository.file.IFileContentStore#isStoredContent(com.yukthi.webutils.repository.file.FileEntity)
+	 */
+	@Override
+	public boolean isStoredContent(FileEntity fileEntity)
+	{
+		return (fileEntity.getContentKey() == null || isDbContentKey(fileEntity.getContentKey()));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.repository.file.IFileContentStore#fetch(com.yukthi.webutils.repository.file.FileEntity)
+	 */
+	@Override
+	public FileContent fetch(FileEntity fileEntity)
+	{
+		//content stored as part of file entity
+		if(fileEntity.getContentKey() == null)
+		{
+			if(fileEntity.getFile() == null)
+			{
+				throw new InvalidStateException("No content found for file - {}", fileEntity.getId());
+			}
+			
+			return new FileContent(fileEntity.getFile(), true);
+		}
+		
+		FileContentEntity contentEntity = repository.fetchByContentKey(fileEntity.getContentKey());
+		
+		if(contentEntity == null || contentEntity.getContent() == null)
+		{
+			throw new InvalidStateException("No content found for file {} with content key - {}", fileEntity.getId(), fileEntity.getContentKey());
+		}
+		
+		return new FileContent(contentEntity.getContent(), true);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.repository.file.IFileContentStore#delete(java.lang.String, java.util.Date)
+	 */
+	@Override
+	public long delete(String contentKey, Date unusedSince)
+	{
+		Long size = repository.fetchSize(contentKey);
+		
+		if(size == null || repository.deleteUnusedContent(contentKey, unusedSince) <= 0)
+		{
+			return -1;
+		}
+		
+		return size;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.repository.file.IFileContentStore#fetchContentKeys(java.util.Date, int, java.util.function.Consumer)
+	 */
+	@Override
+	public void fetchContentKeys(Date unusedSince, int batchSize, Consumer<List<String>> consumer)
+	{
+		long lastId = 0;
+		List<ContentKeyInfo> keyInfos = null;
+		List<String> contentKeys = null;
+		
+		//keys are fetched page by page, using id as continuation
+		while(true)
+		{
+			SearchQuery searchQuery = new SearchQuery();
+			searchQuery.addCondition(new SearchCondition("lastUsedOn", Operator.LE, unusedSince));
+			searchQuery.addCondition(new SearchCondition("id", Operator.GT, lastId));
+			searchQuery.setResultsLimit(batchSize);
+			
+			keyInfos = repository.searchContentKeys(searchQuery);
+			
+			if(keyInfos == null || keyInfos.isEmpty())
+			{
+				break;
+			}
+			
+			contentKeys = new ArrayList<>(keyInfos.size());
+			
+			for(ContentKeyInfo keyInfo : keyInfos)
+			{
+				contentKeys.add(keyInfo.getContentKey());
+			}
+			
+			lastId = keyInfos.get(keyInfos.size() - 1).getId();
+			consumer.accept(contentKeys);
+			
+			if(keyInfos.size() < batchSize)
+			{
+				break;
+			}
+		}
+	}
+}
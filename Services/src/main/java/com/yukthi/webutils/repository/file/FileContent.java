@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Content of a stored file. Content may be a temporary file (like the one created while reading BLOB from db), 
+ * in which case it is deleted on close.
+ * 
+ * @author akiran
+ */
+public class FileContent implements Closeable
+{
+	/**
+	 * File holding the content.
+	 */
+	private File file;
+	
+	/**
+	 * Flag indicating if the file is temporary and should be deleted on close.
+	 */
+	private boolean temporary;
+	
+	/**
+	 * Action to be executed on close, like releasing the file back to the cache owning it.
+	 */
+	private Runnable closeAction;
+
+	/**
+	 * Instantiates a new file content.
+	 *
+	 * @param file the file holding the content
+	 * @param temporary flag indicating if the file should be deleted on close
+	 */
+	public FileContent(File file, boolean temporary)
+	{
+		this.file = file;
+		this.temporary = temporary;
+	}
+	
+	/**
+	 * Instantiates a new file content for non-temporary file, with an action to be executed on close.
+	 *
+	 * @param file the file holding the content
+	 * @param closeAction action to be executed (only once) on close
+	 */
+	public FileContent(File file, Runnable closeAction)
+	{
+		this.file = file;
+		this.closeAction = closeAction;
+	}
+
+	/**
+	 * Gets the file holding the content. Should not be modified or deleted by the callers.
+	 *
+	 * @return the file holding the content
+	 */
+	public File getFile()
+	{
+		return file;
+	}
+	
+	/**
+	 * Checks if the file is temporary and will be deleted on close.
+	 *
+	 * @return true, if file is temporary
+	 */
+	public boolean isTemporary()
+	{
+		return temporary;
+	}
+	
+	/**
+	 * Fetches the length of the content in bytes.
+	 * @return Content length
+	 */
+	public long length()
+	{
+		return file.length();
+	}
+	
+	/**
+	 * Writes the content to specified stream. The content is transferred using file channel, which lets the
+	 * platform avoid copying content through heap buffers where possible.
+	 * @param outputStream Stream to which content should be written
+	 * @throws IOException If transfer fails
+	 */
+	public void transferTo(OutputStream outputStream) throws IOException
+	{
+		transferTo(outputStream, 0, file.length());
+	}
+	
+	/**
+	 * Writes specified part of the content to specified stream, using file channel.
+	 * @param outputStream Stream to which content should be written
+	 * @param position Position from which content should be written
+	 * @param count Number of bytes to be written
+	 * @throws IOException If transfer fails
+	 */
+	public void transferTo(OutputStream outputStream, long position, long count) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			WritableByteChannel target = Channels.newChannel(outputStream);
+			long end = Math.min(position + count, channel.size());
+			long curPosition = position;
+			
+			while(curPosition < end)
+			{
+				curPosition += channel.transferTo(curPosition, end - curPosition, target);
+			}
+		}
+		
+		outputStream.flush();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close()
+	{
+		if(temporary && file != null)
+		{
+			file.delete();
+		}
+		
+		if(closeAction != null)
+		{
+			Runnable action = closeAction;
+			
+			closeAction = null;
+			action.run();
+		}
+	}
+}
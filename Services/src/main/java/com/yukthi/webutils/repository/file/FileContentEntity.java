@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import java.io.File;
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Table;
+
+import com.yukthi.persistence.annotations.DataType;
+import com.yukthi.persistence.annotations.DataTypeMapping;
+import com.yukthi.persistence.annotations.UniqueConstraint;
+import com.yukthi.persistence.annotations.UniqueConstraints;
+import com.yukthi.webutils.repository.WebutilsEntity;
+
+/**
+ * Entity to store deduplicated file contents in db. Single row is maintained per distinct content and is
+ * referred by all {@link FileEntity} rows with same content key. Content is deleted, once no file refers
+ * to it.
+ * 
+ * @author akiran
+ */
+@Table(name = "FILE_CONTENT")
+@UniqueConstraints({
+	@UniqueConstraint(name = "UQ_FILE_CONTENT_KEY", fields = {"contentKey"})
+	})
+public class FileContentEntity extends WebutilsEntity
+{
+	/**
+	 * Key (hash) of the content.
+	 */
+	@Column(name = "CONTENT_KEY", nullable = false, length = 100)
+	private String contentKey;
+	
+	/**
+	 * File content.
+	 */
+	@DataTypeMapping(type = DataType.BLOB)
+	@Column(name = "CONTENT", nullable = false)
+	private File content;
+	
+	/**
+	 * Size of the content in bytes.
+	 */
+	@Column(name = "SIZE", nullable = false)
+	private long size;
+	
+	/**
+	 * Time when the content was last stored (by new or existing file). Content used recently will not be
+	 * deleted, as the file referring to it might not be committed yet.
+	 */
+	@Column(name = "LAST_USED_ON", nullable = false)
+	@DataTypeMapping(type = DataType.DATE_TIME)
+	private Date lastUsedOn;
+
+	/**
+	 * Gets the key (hash) of the content.
+	 *
+	 * @return the key (hash) of the content
+	 */
+	public String getContentKey()
+	{
+		return contentKey;
+	}
+
+	/**
+	 * Sets the key (hash) of the content.
+	 *
+	 * @param contentKey the new key (hash) of the content
+	 */
+	public void setContentKey(String contentKey)
+	{
+		this.contentKey = contentKey;
+	}
+
+	/**
+	 * Gets the file content.
+	 *
+	 * @return the file content
+	 */
+	public File getContent()
+	{
+		return content;
+	}
+
+	/**
+	 * Sets the file content.
+	 *
+	 * @param content the new file content
+	 */
+	public void setContent(File content)
+	{
+		this.content = content;
+	}
+
+	/**
+	 * Gets the size of the content in bytes.
+	 *
+	 * @return the size of the content in bytes
+	 */
+	public long getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * Sets the size of the content in bytes.
+	 *
+	 * @param size the new size of the content in bytes
+	 */
+	public void setSize(long size)
+	{
+		this.size = size;
+	}
+
+	/**
+	 * Gets the time when the content was last stored.
+	 *
+	 * @return the time when the content was last stored
+	 */
+	public Date getLastUsedOn()
+	{
+		return lastUsedOn;
+	}
+
+	/**
+	 * Sets the time when the content was last stored.
+	 *
+	 * @param lastUsedOn the new time when the content was last stored
+	 */
+	public void setLastUsedOn(Date lastUsedOn)
+	{
+		this.lastUsedOn = lastUsedOn;
+	}
+}
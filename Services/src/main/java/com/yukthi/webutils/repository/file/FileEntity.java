@@ -41,7 +41,8 @@ import com.yukthi.webutils.repository.WebutilsEntity;
  * @author akiran
  */
 @Indexes({
-	@Index(name = "FILE_OWNER_IDX", fields = {"ownerEntityType", "ownerEntityId"})
+	@Index(name = "FILE_OWNER_IDX", fields = {"ownerEntityType", "ownerEntityId"}),
+	@Index(name = "FILE_CONTENT_KEY_IDX", fields = {"contentKey"})
 	})
 @Table(name = "FILE_ENTITY")
 public class FileEntity extends WebutilsEntity
@@ -53,12 +54,19 @@ public class FileEntity extends WebutilsEntity
 	private String fileName;
 
 	/**
-	 * File content
+	 * File content. Null, if content is maintained by external content store.
 	 */
 	@DataTypeMapping(type = DataType.BLOB)
-	@Column(name = "FILE", nullable = false)
+	@Column(name = "FILE")
 	private File file;
 	
+	/**
+	 * Key of the content in content store. Files with same content share same key. Null, if content is 
+	 * stored as part of {@link #file}.
+	 */
+	@Column(name = "CONTENT_KEY", length = 100)
+	private String contentKey;
+	
 	/**
 	 * Size of the file in MB
 	 */
@@ -183,6 +191,26 @@ public class FileEntity extends WebutilsEntity
 		this.file = file;
 	}
 
+	/**
+	 * Gets the key of the content in external content store.
+	 *
+	 * @return the key of the content in external content store
+	 */
+	public String getContentKey()
+	{
+		return contentKey;
+	}
+
+	/**
+	 * Sets the key of the content in external content store.
+	 *
+	 * @param contentKey the new key of the content in external content store
+	 */
+	public void setContentKey(String contentKey)
+	{
+		this.contentKey = contentKey;
+	}
+
 	/**
 	 * Gets the size of the file in MB.
 	 *
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import java.util.Date;
+import java.util.List;
+
+import com.yukthi.persistence.repository.annotations.Condition;
+import com.yukthi.persistence.repository.annotations.Field;
+import com.yukthi.persistence.repository.annotations.Operator;
+import com.yukthi.persistence.repository.annotations.OrderBy;
+import com.yukthi.persistence.repository.annotations.SearchResult;
+import com.yukthi.persistence.repository.search.SearchQuery;
+import com.yukthi.webutils.repository.IWebutilsRepository;
+
+/**
+ * Repository for managing deduplicated file contents in db.
+ * @author akiran
+ */
+public interface IFileContentRepository extends IWebutilsRepository<FileContentEntity>
+{
+	/**
+	 * Fetches content entity with specified key.
+	 * @param contentKey Key of the content
+	 * @return Matching content entity
+	 */
+	public FileContentEntity fetchByContentKey(@Condition("contentKey") String contentKey);
+	
+	/**
+	 * Fetches size of specified content.
+	 * @param contentKey Key of the content
+	 * @return Size of the content in bytes. Null, if content does not exist.
+	 */
+	@Field("size")
+	public Long fetchSize(@Condition("contentKey") String contentKey);
+	
+	/**
+	 * Updates last used time of specified content.
+	 * @param contentKey Key of the content
+	 * @param lastUsedOn Time to set
+	 * @return True, if content exists and is updated
+	 */
+	public boolean updateLastUsedOn(@Condition("contentKey") String contentKey, @Field("lastUsedOn") Date lastUsedOn);
+	
+	/**
+	 * Fetches content keys matching with specified query.
+	 * @param searchQuery Query with conditions and results limit
+	 * @return Matching content keys
+	 */
+	@SearchResult
+	@OrderBy("id")
+	public List<ContentKeyInfo> searchContentKeys(SearchQuery searchQuery);
+	
+	/**
+	 * Deletes specified content, if it is not used after specified time.
+	 * @param contentKey Key of the content to delete
+	 * @param lastUsedOn Time after which content should not have been used
+	 * @return Number of contents deleted
+	 */
+	public int deleteUnusedContent(@Condition("contentKey") String contentKey, @Condition(value = "lastUsedOn", op = Operator.LE) Date lastUsedOn);
+}
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import java.io.File;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Store which maintains content of the files. {@link FileEntity} holds the file details and the store
+ * holds (or tells where to find) the actual content.
+ * 
+ * @author akiran
+ */
+public interface IFileContentStore
+{
+	/**
+	 * Stores specified content as content of specified file entity. The entity is updated with details
+	 * required to fetch the content back, so this should be invoked before the entity is saved.
+	 * @param fileEntity File entity whose content is being stored
+	 * @param content Content to be stored
+	 */
+	public void store(FileEntity fileEntity, File content);
+	
+	/**
+	 * Checks if content of specified file entity is maintained by this store.
+	 * @param fileEntity File entity to check
+	 * @return True, if this store holds the content of the entity
+	 */
+	public boolean isStoredContent(FileEntity fileEntity);
+	
+	/**
+	 * Fetches content of specified file entity. Returned content should be closed once it is used.
+	 * @param fileEntity File entity whose content needs to be fetched
+	 * @return Content of the file
+	 */
+	public FileContent fetch(FileEntity fileEntity);
+	
+	/**
+	 * Deletes content with specified key, if it was not stored (for new or existing file) after specified time. 
+	 * Content stored recently should be retained, as file referring to it may not be committed yet. Caller
+	 * should ensure no file refers to the content.
+	 * @param contentKey Key of the content to delete
+	 * @param unusedSince Time after which content should not have been stored
+	 * @return Size (in bytes) of the deleted content. -1, if content is not deleted.
+	 */
+	public long delete(String contentKey, Date unusedSince);
+	
+	/**
+	 * Fetches keys of contents which were not stored (for new or existing file) after specified time. These
+	 * contents can be deleted, if no file refers to them. Keys are passed to specified consumer in batches,
+	 * so that keys of the complete store are never loaded at once. Consumer may delete the contents.
+	 * @param unusedSince Time after which content should not have been stored
+	 * @param batchSize Max number of keys to be passed to consumer at a time
+	 * @param consumer Consumer to process the keys
+	 */
+	public void fetchContentKeys(Date unusedSince, int batchSize, Consumer<List<String>> consumer);
+}
@@ -23,6 +23,7 @@
 
 package com.yukthi.webutils.repository.file;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -31,7 +32,9 @@ import com.yukthi.persistence.repository.annotations.DefaultCondition;
 import com.yukthi.persistence.repository.annotations.Field;
 import com.yukthi.persistence.repository.annotations.MethodConditions;
 import com.yukthi.persistence.repository.annotations.Operator;
+import com.yukthi.persistence.repository.annotations.OrderBy;
 import com.yukthi.persistence.repository.annotations.SearchResult;
+import com.yukthi.persistence.repository.search.SearchQuery;
 import com.yukthi.webutils.common.FileInfo;
 import com.yukthi.webutils.repository.IWebutilsRepository;
 
@@ -58,6 +61,23 @@ public interface IFileRepository extends IWebutilsRepository<FileEntity>
 	@SearchResult
 	public FileInfo fetchFileInfo(@Condition("id") long id, @Condition("spaceIdentity") String spaceIdentity);
 
+	/**
+	 * Fetches file details (without content) for specified id.
+	 * @param id Id for which details needs to be fetched
+	 * @param spaceIdentity Space to which operation should be restricted
+	 * @return Matching file details
+	 */
+	@SearchResult
+	public FileDetails fetchFileDetails(@Condition("id") long id, @Condition("spaceIdentity") String spaceIdentity);
+
+	/**
+	 * Updates content type of specified file.
+	 * @param id Id of the file
+	 * @param contentType Content type to set
+	 * @return True, if update was successful
+	 */
+	public boolean updateContentType(@Condition("id") long id, @Field("contentType") String contentType);
+
 	/**
 	 * Fetches file information list based on specified owner details.
 	 * @param ownerEntityType Owner entity type
@@ -70,6 +90,19 @@ public interface IFileRepository extends IWebutilsRepository<FileEntity>
 	public List<FileInfo> fetchByOwner(@Condition("ownerEntityType") String ownerEntityType, 
 			@Condition("ownerEntityField") String ownerEntityField, @Condition("ownerEntityId") Long ownerEntityId, @Condition("spaceIdentity") String spaceIdentity);
 
+	/**
+	 * Fetches file information of specified owner fields of specified owner entities.
+	 * @param ownerEntityType Owner entity type
+	 * @param ownerEntityFields Owner entity fields
+	 * @param ownerEntityIds Owner entity ids
+	 * @param spaceIdentity Space to which operation should be restricted
+	 * @return List of matching file information along with owner details
+	 */
+	@SearchResult
+	public List<OwnerFileInfo> fetchByOwners(@Condition("ownerEntityType") String ownerEntityType, 
+			@Condition(value = "ownerEntityField", op = Operator.IN) Collection<String> ownerEntityFields, 
+			@Condition(value = "ownerEntityId", op = Operator.IN) Collection<Long> ownerEntityIds, @Condition("spaceIdentity") String spaceIdentity);
+
 	/**
 	 * Fetches file entity based on specified owner details.
 	 * @param ownerEntityType Owner entity type
@@ -93,6 +126,46 @@ public interface IFileRepository extends IWebutilsRepository<FileEntity>
 	public List<Long> fetchIdsByOwner(@Condition("ownerEntityType") String ownerEntityType, 
 			@Condition("ownerEntityField") String ownerEntityField, @Condition("ownerEntityId") Long ownerEntityId, @Condition("spaceIdentity") String spaceIdentity);
 
+	/**
+	 * Fetches file details (without content) of specified owner.
+	 * @param ownerEntityType Owner entity type
+	 * @param ownerEntityField Owner field
+	 * @param ownerEntityId Owner entity id
+	 * @param spaceIdentity Space to which operation should be restricted
+	 * @return List of matching file details
+	 */
+	@SearchResult
+	public List<FileDetails> fetchFileDetailsByOwner(@Condition("ownerEntityType") String ownerEntityType, 
+			@Condition("ownerEntityField") String ownerEntityField, @Condition("ownerEntityId") Long ownerEntityId, @Condition("spaceIdentity") String spaceIdentity);
+
+	/**
+	 * Fetches content keys of files of specified owner.
+	 * @param ownerEntityType Owner entity type
+	 * @param ownerEntityField Owner field
+	 * @param ownerEntityId Owner entity id
+	 * @param spaceIdentity Space to which operation should be restricted
+	 * @return List of content keys
+	 */
+	@Field("contentKey")
+	public List<String> fetchContentKeysByOwner(@Condition("ownerEntityType") String ownerEntityType, 
+			@Condition("ownerEntityField") String ownerEntityField, @Condition("ownerEntityId") Long ownerEntityId, @Condition("spaceIdentity") String spaceIdentity);
+
+	/**
+	 * Fetches content key of specified file.
+	 * @param id Id of the file
+	 * @return Content key of the file
+	 */
+	@Field("contentKey")
+	public String fetchContentKey(@Condition("id") long id);
+
+	/**
+	 * Fetches content keys, out of specified keys, which are referred by at least one file.
+	 * @param contentKeys Content keys to check
+	 * @return Content keys in use (can have duplicates)
+	 */
+	@Field("contentKey")
+	public List<String> fetchUsedContentKeys(@Condition(value = "contentKey", op = Operator.IN) Collection<String> contentKeys);
+
 	/**
 	 * Fetches file informations based on custom attribute.
 	 * @param customAttribute1 Custom attribute 1
@@ -133,9 +206,34 @@ public interface IFileRepository extends IWebutilsRepository<FileEntity>
 			@Field("ownerEntityField") String ownerEntityField, @Field("ownerEntityId") Long ownerEntityId, @Condition("spaceIdentity") String spaceIdentity);
 	
 	/**
-	 * Deletes all temp files which are created after specified date and time.
-	 * @param createdAfter Date/time after which temp files created should be deleted.
+	 * Deletes files with specified ids.
+	 * @param ids Ids of files to delete
+	 * @param spaceIdentity Space to which operation should be restricted
+	 * @return Number of files deleted
+	 */
+	public int deleteByIds(@Condition(value = "id", op = Operator.IN) Collection<Long> ids, @Condition("spaceIdentity") String spaceIdentity);
+
+	/**
+	 * Deletes all temp files which are created on or before specified date and time.
+	 * @param createdBefore Date/time on or before which created temp files should be deleted.
 	 */
 	@MethodConditions(conditions = @DefaultCondition(field = "ownerEntityId", value = "0"))
-	public void deleteTempFiles(@Condition(value = "createdOn", op = Operator.GE) Date createdAfter);
+	public void deleteTempFiles(@Condition(value = "createdOn", op = Operator.LE) Date createdBefore);
+
+	/**
+	 * Deletes temp files with specified ids. Non temp files are not deleted.
+	 * @param ids Ids of temp files to delete
+	 * @return Number of files deleted
+	 */
+	@MethodConditions(conditions = @DefaultCondition(field = "ownerEntityId", value = "0"))
+	public int deleteTempFilesByIds(@Condition(value = "id", op = Operator.IN) Collection<Long> ids);
+
+	/**
+	 * Fetches file details (without content) matching with specified query.
+	 * @param searchQuery Query with conditions and results limit
+	 * @return Matching file details
+	 */
+	@SearchResult
+	@OrderBy("id")
+	public List<FileDetails> searchFileDetails(SearchQuery searchQuery);
 }
@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import com.yukthi.persistence.repository.annotations.Condition;
+import com.yukthi.persistence.repository.annotations.Field;
+import com.yukthi.persistence.repository.annotations.Operator;
+import com.yukthi.persistence.repository.annotations.OrderBy;
+import com.yukthi.persistence.repository.annotations.SearchResult;
+import com.yukthi.persistence.repository.search.SearchQuery;
+import com.yukthi.webutils.repository.IWebutilsRepository;
+
+/**
+ * Repository for managing keys of released contents.
+ * @author akiran
+ */
+public interface IReleasedContentRepository extends IWebutilsRepository<ReleasedContentEntity>
+{
+	/**
+	 * Updates release time of specified content key.
+	 * @param contentKey Released content key
+	 * @param releasedOn Release time
+	 * @return True, if key is already released and is updated
+	 */
+	public boolean updateReleasedOn(@Condition("contentKey") String contentKey, @Field("releasedOn") Date releasedOn);
+	
+	/**
+	 * Fetches released content keys matching with specified query.
+	 * @param searchQuery Query with conditions and results limit
+	 * @return Matching content keys
+	 */
+	@SearchResult
+	@OrderBy("id")
+	public List<ContentKeyInfo> searchReleasedKeys(SearchQuery searchQuery);
+	
+	/**
+	 * Deletes specified released keys, if they are not released again after specified time.
+	 * @param contentKeys Content keys to delete
+	 * @param releasedOn Time after which keys should not have been released
+	 * @return Number of keys deleted
+	 */
+	public int deleteReleasedKeys(@Condition(value = "contentKey", op = Operator.IN) Collection<String> contentKeys, 
+			@Condition(value = "releasedOn", op = Operator.LE) Date releasedOn);
+}
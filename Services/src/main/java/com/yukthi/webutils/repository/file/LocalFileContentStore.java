@@ -0,0 +1,301 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.yukthi.utils.exceptions.InvalidStateException;
+
+/**
+ * Content addressed store which maintains file content on local file system. Content is stored under
+ * its SHA-256 hash (which acts as content key), so same content uploaded multiple times is stored once. 
+ * Content is read directly from the store, without any temporary copies.
+ * <BR/><BR/>
+ * While storing, the hash is computed by reading the source file. Content which already exists is not written
+ * again. New content is linked into the store (when the source is on same file system), so that spooled uploads
+ * are not copied. Content is copied only when linking is not possible.
+ * <BR/><BR/>
+ * Content with hash "abcdef..." is stored at "root/ab/cd/abcdef...".
+ * 
+ * @author akiran
+ */
+public class LocalFileContentStore implements IFileContentStore
+{
+	private static Logger logger = LogManager.getLogger(LocalFileContentStore.class);
+	
+	/**
+	 * Pattern of valid content keys.
+	 */
+	private static final Pattern CONTENT_KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+	
+	/**
+	 * Depth of content files from root folder.
+	 */
+	private static final int CONTENT_DEPTH = 3;
+	
+	/**
+	 * Number of locks used to synchronize store and delete of contents.
+	 */
+	private static final int LOCK_COUNT = 64;
+	
+	/**
+	 * Root folder of the store.
+	 */
+	private File rootFolder;
+	
+	/**
+	 * Locks used to synchronize store and delete of contents, so that content being reused is
+	 * not deleted concurrently.
+	 */
+	private Object locks[] = new Object[LOCK_COUNT];
+
+	/**
+	 * Instantiates a new local file content store.
+	 *
+	 * @param rootFolder the root folder under which content should be stored
+	 */
+	public LocalFileContentStore(File rootFolder)
+	{
+		if(!rootFolder.exists() && !rootFolder.mkdirs())
+		{
+			throw new InvalidStateException("Failed to create file store folder - {}", rootFolder.getPath());
+		}
+		
+		this.rootFolder = rootFolder;
+		
+		for(int i = 0; i < LOCK_COUNT; i++)
+		{
+			locks[i] = new Object();
+		}
+	}
+	
+	/**
+	 * Fetches lock to be used for storing or deleting content with specified key.
+	 * @param contentKey Content key
+	 * @return Lock for the content
+	 */
+	private Object getLock(String contentKey)
+	{
+		return locks[Math.abs(contentKey.hashCode() % LOCK_COUNT)];
+	}
+	
+	/**
+	 * Fetches path of the content with specified key.
+	 * @param contentKey Content key
+	 * @return Path where content is stored
+	 */
+	private Path getContentPath(String contentKey)
+	{
+		if(!CONTENT_KEY_PATTERN.matcher(contentKey).matches())
+		{
+			throw new InvalidStateException("Invalid content key encountered - {}", contentKey);
+		}
+		
+		return rootFolder.toPath().resolve(contentKey.substring(0, 2)).resolve(contentKey.substring(2, 4)).resolve(contentKey);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.repository.file.IFileContentStore#store(com.yukthi.webutils.repository.file.FileEntity, java.io.File)
+	 */
+	@Override
+	public void store(FileEntity fileEntity, File content)
+	{
+		//compute hash by reading the content once, without writing any copy
+		String contentKey = ContentHash.compute(content);
+		Path contentPath = getContentPath(contentKey);
+		
+		try
+		{
+			synchronized(getLock(contentKey))
+			{
+				if(!Files.exists(contentPath))
+				{
+					Files.createDirectories(contentPath.getParent());
+					addContent(content, contentPath);
+				}
+				else
+				{
+					//mark the content as used, so that it does not get deleted till file gets saved
+					logger.debug("Content with key {} already exists, reusing existing content", contentKey);
+					Files.setLastModifiedTime(contentPath, FileTime.fromMillis(System.currentTimeMillis()));
+				}
+			}
+		}catch(IOException ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while storing file content - {}", content.getPath());
+		}
+		
+		fileEntity.setContentKey(contentKey);
+		fileEntity.setFile(null);
+	}
+	
+	/**
+	 * Adds specified content at specified path. Content is linked (without copying) when possible, otherwise content
+	 * is copied into temp file in store folder and moved atomically, so that partial content is never visible.
+	 * @param content Content to add
+	 * @param contentPath Path at which content should be added
+	 * @throws IOException If content could not be added
+	 */
+	private void addContent(File content, Path contentPath) throws IOException
+	{
+		//link the content, so that content of upload (spooled on same file system) is not copied
+		try
+		{
+			Files.createLink(contentPath, content.toPath());
+			
+			//link shares time with the source, so mark the content as recently stored
+			Files.setLastModifiedTime(contentPath, FileTime.fromMillis(System.currentTimeMillis()));
+			return;
+		}catch(FileAlreadyExistsException ex)
+		{
+			//same content got stored concurrently
+			return;
+		}catch(IOException | UnsupportedOperationException ex)
+		{
+			logger.trace("Failed to link content {} into store, content will be copied", content.getPath(), ex);
+		}
+		
+		Path tempPath = Files.createTempFile(rootFolder.toPath(), "content", ".tmp");
+		
+		try
+		{
+			Files.copy(content.toPath(), tempPath, StandardCopyOption.REPLACE_EXISTING);
+			Files.move(tempPath, contentPath, StandardCopyOption.ATOMIC_MOVE);
+		}catch(FileAlreadyExistsException ex)
+		{
+			//same content got stored concurrently
+		}finally
+		{
+			Files.deleteIfExists(tempPath);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.repository.file.IFileContentStore#isStoredContent(com.yukthi.webutils.repository.file.FileEntity)
+	 */
+	@Override
+	public boolean isStoredContent(FileEntity fileEntity)
+	{
+		return (fileEntity.getContentKey() != null && CONTENT_KEY_PATTERN.matcher(fileEntity.getContentKey()).matches());
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.repository.file.IFileContentStore#fetch(com.yukthi.webutils.repository.file.FileEntity)
+	 */
+	@Override
+	public FileContent fetch(FileEntity fileEntity)
+	{
+		File file = getContentPath(fileEntity.getContentKey()).toFile();
+		
+		if(!file.exists())
+		{
+			throw new InvalidStateException("No content found for file {} with content key - {}", fileEntity.getId(), fileEntity.getContentKey());
+		}
+		
+		return new FileContent(file, false);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.repository.file.IFileContentStore#delete(java.lang.String, java.util.Date)
+	 */
+	@Override
+	public long delete(String contentKey, Date unusedSince)
+	{
+		Path contentPath = getContentPath(contentKey);
+		
+		synchronized(getLock(contentKey))
+		{
+			try
+			{
+				if(!Files.exists(contentPath) || Files.getLastModifiedTime(contentPath).toMillis() > unusedSince.getTime())
+				{
+					return -1;
+				}
+				
+				long size = Files.size(contentPath);
+				
+				Files.delete(contentPath);
+				return size;
+			}catch(IOException ex)
+			{
+				throw new InvalidStateException(ex, "An error occurred while deleting content with key - {}", contentKey);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.repository.file.IFileContentStore#fetchContentKeys(java.util.Date, int, java.util.function.Consumer)
+	 */
+	@Override
+	public void fetchContentKeys(Date unusedSince, int batchSize, Consumer<List<String>> consumer)
+	{
+		List<String> contentKeys = new ArrayList<>(batchSize);
+		long unusedSinceMillis = unusedSince.getTime();
+		
+		//stream is consumed lazily, so that complete store is never loaded at once
+		try(Stream<Path> paths = Files.walk(rootFolder.toPath(), CONTENT_DEPTH))
+		{
+			Iterator<Path> it = paths
+				.filter(path -> CONTENT_KEY_PATTERN.matcher(path.getFileName().toString()).matches())
+				.filter(path -> path.toFile().lastModified() <= unusedSinceMillis)
+				.iterator();
+			
+			while(it.hasNext())
+			{
+				contentKeys.add(it.next().getFileName().toString());
+				
+				if(contentKeys.size() >= batchSize)
+				{
+					consumer.accept(contentKeys);
+					contentKeys = new ArrayList<>(batchSize);
+				}
+			}
+		}catch(IOException | UncheckedIOException ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while fetching content keys from folder - {}", rootFolder.getPath());
+		}
+		
+		if(!contentKeys.isEmpty())
+		{
+			consumer.accept(contentKeys);
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import com.yukthi.persistence.repository.annotations.Field;
+import com.yukthi.webutils.common.FileInfo;
+
+/**
+ * File information along with owner details. Used when files of multiple owner fields/entities
+ * are fetched in single query.
+ * 
+ * @author akiran
+ */
+public class OwnerFileInfo
+{
+	/**
+	 * Id of the file.
+	 */
+	@Field("id")
+	private Long id;
+	
+	/**
+	 * Version of the file.
+	 */
+	@Field("version")
+	private Integer version;
+	
+	/**
+	 * Name of the file.
+	 */
+	@Field("fileName")
+	private String fileName;
+	
+	/**
+	 * Size of the file in mb.
+	 */
+	@Field("sizeInMb")
+	private long sizeInMb;
+	
+	/**
+	 * Http content type of the file.
+	 */
+	@Field("contentType")
+	private String contentType;
+	
+	/**
+	 * Owner entity field to which this file belongs.
+	 */
+	@Field("ownerEntityField")
+	private String ownerEntityField;
+	
+	/**
+	 * Owner entity id to which this file belongs.
+	 */
+	@Field("ownerEntityId")
+	private Long ownerEntityId;
+
+	/**
+	 * Gets the id of the file.
+	 *
+	 * @return the id of the file
+	 */
+	public Long getId()
+	{
+		return id;
+	}
+
+	/**
+	 * Sets the id of the file.
+	 *
+	 * @param id the new id of the file
+	 */
+	public void setId(Long id)
+	{
+		this.id = id;
+	}
+
+	/**
+	 * Gets the version of the file.
+	 *
+	 * @return the version of the file
+	 */
+	public Integer getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * Sets the version of the file.
+	 *
+	 * @param version the new version of the file
+	 */
+	public void setVersion(Integer version)
+	{
+		this.version = version;
+	}
+
+	/**
+	 * Gets the name of the file.
+	 *
+	 * @return the name of the file
+	 */
+	public String getFileName()
+	{
+		return fileName;
+	}
+
+	/**
+	 * Sets the name of the file.
+	 *
+	 * @param fileName the new name of the file
+	 */
+	public void setFileName(String fileName)
+	{
+		this.fileName = fileName;
+	}
+
+	/**
+	 * Gets the size of the file in mb.
+	 *
+	 * @return the size of the file in mb
+	 */
+	public long getSizeInMb()
+	{
+		return sizeInMb;
+	}
+
+	/**
+	 * Sets the size of the file in mb.
+	 *
+	 * @param sizeInMb the new size of the file in mb
+	 */
+	public void setSizeInMb(long sizeInMb)
+	{
+		this.sizeInMb = sizeInMb;
+	}
+
+	/**
+	 * Gets the http content type of the file.
+	 *
+	 * @return the http content type of the file
+	 */
+	public String getContentType()
+	{
+		return contentType;
+	}
+
+	/**
+	 * Sets the http content type of the file.
+	 *
+	 * @param contentType the new http content type of the file
+	 */
+	public void setContentType(String contentType)
+	{
+		this.contentType = contentType;
+	}
+
+	/**
+	 * Gets the owner entity field to which this file belongs.
+	 *
+	 * @return the owner entity field to which this file belongs
+	 */
+	public String getOwnerEntityField()
+	{
+		return ownerEntityField;
+	}
+
+	/**
+	 * Sets the owner entity field to which this file belongs.
+	 *
+	 * @param ownerEntityField the new owner entity field to which this file belongs
+	 */
+	public void setOwnerEntityField(String ownerEntityField)
+	{
+		this.ownerEntityField = ownerEntityField;
+	}
+
+	/**
+	 * Gets the owner entity id to which this file belongs.
+	 *
+	 * @return the owner entity id to which this file belongs
+	 */
+	public Long getOwnerEntityId()
+	{
+		return ownerEntityId;
+	}
+
+	/**
+	 * Sets the owner entity id to which this file belongs.
+	 *
+	 * @param ownerEntityId the new owner entity id to which this file belongs
+	 */
+	public void setOwnerEntityId(Long ownerEntityId)
+	{
+		this.ownerEntityId = ownerEntityId;
+	}
+	
+	/**
+	 * Converts this file information into {@link FileInfo}.
+	 * @return Converted file info
+	 */
+	public FileInfo toFileInfo()
+	{
+		FileInfo fileInfo = new FileInfo();
+		fileInfo.setId(id);
+		fileInfo.setVersion(version);
+		fileInfo.setFileName(fileName);
+		fileInfo.setSizeInMb(sizeInMb);
+		fileInfo.setContentType(contentType);
+		
+		return fileInfo;
+	}
+}
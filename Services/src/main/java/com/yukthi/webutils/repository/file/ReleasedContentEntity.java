@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Table;
+
+import com.yukthi.persistence.annotations.DataType;
+import com.yukthi.persistence.annotations.DataTypeMapping;
+import com.yukthi.persistence.annotations.UniqueConstraint;
+import com.yukthi.persistence.annotations.UniqueConstraints;
+import com.yukthi.webutils.repository.WebutilsEntity;
+
+/**
+ * Entity to maintain keys of contents released by deleted files. These contents may not be referred by
+ * any file anymore and are candidates for garbage collection. As released keys are persisted along with
+ * file deletion, they are not lost on restarts and garbage collection need not scan the complete store.
+ * 
+ * @author akiran
+ */
+@Table(name = "FILE_RELEASED_CONTENT")
+@UniqueConstraints({
+	@UniqueConstraint(name = "UQ_FILE_RELEASED_CONTENT_KEY", fields = {"contentKey"})
+	})
+public class ReleasedContentEntity extends WebutilsEntity
+{
+	/**
+	 * Key of the released content.
+	 */
+	@Column(name = "CONTENT_KEY", nullable = false, length = 100)
+	private String contentKey;
+	
+	/**
+	 * Time when the content was last released.
+	 */
+	@Column(name = "RELEASED_ON", nullable = false)
+	@DataTypeMapping(type = DataType.DATE_TIME)
+	private Date releasedOn;
+
+	/**
+	 * Gets the key of the released content.
+	 *
+	 * @return the key of the released content
+	 */
+	public String getContentKey()
+	{
+		return contentKey;
+	}
+
+	/**
+	 * Sets the key of the released content.
+	 *
+	 * @param contentKey the new key of the released content
+	 */
+	public void setContentKey(String contentKey)
+	{
+		this.contentKey = contentKey;
+	}
+
+	/**
+	 * Gets the time when the content was last released.
+	 *
+	 * @return the time when the content was last released
+	 */
+	public Date getReleasedOn()
+	{
+		return releasedOn;
+	}
+
+	/**
+	 * Sets the time when the content was last released.
+	 *
+	 * @param releasedOn the new time when the content was last released
+	 */
+	public void setReleasedOn(Date releasedOn)
+	{
+		this.releasedOn = releasedOn;
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.security;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.yukthi.webutils.WebutilsConfiguration;
+import com.yukthi.webutils.repository.IEntityChangeListener;
+import com.yukthi.webutils.repository.UserRoleEntity;
+import com.yukthi.webutils.services.CurrentUserService;
+import com.yukthi.webutils.utils.LruCache;
+
+/**
+ * Caches the authorization decisions of {@link ISecurityService#isAuthorized(Method)} per user, space, authorization
+ * fingerprint (see {@link UserDetails#getAuthorizationFingerprint()}) and method. Caching is disabled by default and 
+ * should be enabled only when the security service bases its decisions only on these inputs.
+ * <BR/><BR/>
+ * Decisions of a space are invalidated whenever roles of the space are modified (via {@link com.yukthi.webutils.services.UserRoleService}),
+ * by changing the role version of the space which is part of the cache key. As roles may be maintained outside of
+ * the framework, cached decisions are also limited by configured time-to-live.
+ * 
+ * @author akiran
+ */
+@Component
+public class AuthorizationCache implements IEntityChangeListener
+{
+	/**
+	 * Key of cached authorization decision.
+	 */
+	private static class AuthorizationKey
+	{
+		/**
+		 * User for which decision is made.
+		 */
+		private long userId;
+		
+		/**
+		 * Space of the user.
+		 */
+		private String spaceIdentity;
+		
+		/**
+		 * Role version of the space, when decision is made.
+		 */
+		private long roleVersion;
+		
+		/**
+		 * Fingerprint of authorization inputs (like roles) of the user.
+		 */
+		private Object fingerprint;
+		
+		/**
+		 * Method for which decision is made.
+		 */
+		private Method method;
+		
+		/**
+		 * Instantiates a new authorization key.
+		 *
+		 * @param userId the user id
+		 * @param spaceIdentity the space identity
+		 * @param roleVersion the role version
+		 * @param fingerprint the fingerprint of authorization inputs of the user
+		 * @param method the method
+		 */
+		private AuthorizationKey(long userId, String spaceIdentity, long roleVersion, Object fingerprint, Method method)
+		{
+			this.userId = userId;
+			this.spaceIdentity = spaceIdentity;
+			this.roleVersion = roleVersion;
+			this.fingerprint = fingerprint;
+			this.method = method;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(obj == this)
+			{
+				return true;
+			}
+
+			if(!(obj instanceof AuthorizationKey))
+			{
+				return false;
+			}
+
+			AuthorizationKey other = (AuthorizationKey) obj;
+			return userId == other.userId && roleVersion == other.roleVersion 
+					&& method.equals(other.method) && Objects.equals(spaceIdentity, other.spaceIdentity)
+					&& Objects.equals(fingerprint, other.fingerprint);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(userId, spaceIdentity, roleVersion, fingerprint, method);
+		}
+	}
+	
+	/**
+	 * Security service which makes the actual decisions.
+	 */
+	@Autowired(required = false)
+	private ISecurityService securityService;
+	
+	/**
+	 * Used to fetch current user.
+	 */
+	@Autowired
+	private CurrentUserService currentUserService;
+	
+	/**
+	 * Configuration to fetch cache settings.
+	 */
+	@Autowired
+	private WebutilsConfiguration configuration;
+	
+	/**
+	 * Registry to fetch precomputed security details of methods.
+	 */
+	@Autowired
+	private SecurityDescriptorRegistry securityDescriptorRegistry;
+	
+	/**
+	 * Cached decisions. Null, if caching is disabled.
+	 */
+	private LruCache<AuthorizationKey, Boolean> decisionCache;
+	
+	/**
+	 * Role versions of the spaces. Null space identity is maintained as empty string.
+	 */
+	private Map<String, AtomicLong> roleVersions = new ConcurrentHashMap<>();
+	
+	/**
+	 * Post construct method to initialize cache.
+	 */
+	@PostConstruct
+	private void init()
+	{
+		if(configuration.getAuthorizationCacheSize() > 0)
+		{
+			decisionCache = new LruCache<>("authorizations", configuration.getAuthorizationCacheSize(), configuration.getAuthorizationCacheTimeInSec() * 1000L);
+		}
+	}
+	
+	/**
+	 * Checks if current user is authorized to invoke specified method. The decision is fetched from cache, if available,
+	 * otherwise {@link ISecurityService#isAuthorized(SecurityDescriptor)} is used and the result is cached.
+	 * @param method Method being invoked
+	 * @return True, if user is authorized to invoke the method
+	 */
+	public boolean isAuthorized(Method method)
+	{
+		if(securityService == null)
+		{
+			return true;
+		}
+		
+		UserDetails userDetails = currentUserService.getCurrentUserDetails();
+		SecurityDescriptor descriptor = securityDescriptorRegistry.getDescriptor(method);
+		
+		//decisions of unknown users are not cached
+		if(decisionCache == null || userDetails == null)
+		{
+			return securityService.isAuthorized(descriptor);
+		}
+		
+		String spaceIdentity = securityService.getUserSpaceIdentity();
+		AuthorizationKey key = new AuthorizationKey(userDetails.getUserId(), spaceIdentity, getRoleVersion(spaceIdentity).get(), 
+				userDetails.getAuthorizationFingerprint(), method);
+		Boolean authorized = decisionCache.get(key);
+		
+		if(authorized == null)
+		{
+			authorized = securityService.isAuthorized(descriptor);
+			decisionCache.put(key, authorized);
+		}
+		
+		return authorized;
+	}
+	
+	/**
+	 * Fetches role version of specified space.
+	 * @param spaceIdentity Space identity
+	 * @return Role version of the space
+	 */
+	private AtomicLong getRoleVersion(String spaceIdentity)
+	{
+		return roleVersions.computeIfAbsent(spaceIdentity != null ? spaceIdentity : "", space -> new AtomicLong());
+	}
+	
+	/**
+	 * Invalidates cached decisions of specified space. If space is null, decisions of all spaces are invalidated.
+	 * @param spaceIdentity Space whose decisions should be invalidated
+	 */
+	public void invalidate(String spaceIdentity)
+	{
+		if(spaceIdentity == null)
+		{
+			for(AtomicLong version : roleVersions.values())
+			{
+				version.incrementAndGet();
+			}
+		}
+		else
+		{
+			getRoleVersion(spaceIdentity).incrementAndGet();
+		}
+		
+		//stale entries will never be hit again, remove them to free up the cache 
+		if(decisionCache != null)
+		{
+			decisionCache.removeIf(key -> spaceIdentity == null || spaceIdentity.equals(key.spaceIdentity));
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.repository.IEntityChangeListener#entityChanged(java.lang.Class, java.lang.String)
+	 */
+	@Override
+	public void entityChanged(Class<?> entityType, String spaceIdentity)
+	{
+		if(UserRoleEntity.class.equals(entityType))
+		{
+			invalidate(spaceIdentity);
+		}
+	}
+}
@@ -69,6 +69,23 @@ public interface ISecurityService
 	 */
 	public boolean isAuthorized(Method method);
 	
+	/**
+	 * Invoked by framework to check if current user is authorized to invoke the method of specified descriptor. Descriptor
+	 * holds the annotations of the method (computed at startup), which should be preferred over reading annotations
+	 * from method on every invocation. By default, this delegates to {@link #isAuthorized(Method)}.
+	 * <BR/><BR/>
+	 * When authorization cache is enabled (see {@link com.yukthi.webutils.WebutilsConfiguration#setAuthorizationCacheSize(int)}),
+	 * decisions are cached by user id, space identity, {@link UserDetails#getAuthorizationFingerprint()} and method. In 
+	 * such case, implementations should base their decisions only on these inputs (and on user roles maintained via 
+	 * framework services), and not on request specific data like request parameters, ip address or time.
+	 * @param descriptor Security descriptor of the method being invoked
+	 * @return True, if user is authorized to invoke the method
+	 */
+	public default boolean isAuthorized(SecurityDescriptor descriptor)
+	{
+		return isAuthorized(descriptor.getMethod());
+	}
+	
 	/**
 	 * This method should return true only if current user is authorized to access specified file content.
 	 * @param fileEntity File which needs to be checked for authorization
@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.security;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.annotation.AnnotationUtils;
+
+import com.yukthi.webutils.annotations.NoAuthentication;
+
+/**
+ * Security details of a handler (or search/lov) method, computed when the method is registered. Along with 
+ * framework flags, this provides annotations of the method and its declaring class separately, so that {@link ISecurityService} 
+ * implementations can fetch their role annotations without reflection on every request, and can decide how method and 
+ * class level annotations should be combined.
+ * <BR/><BR/>
+ * Annotations are looked up using spring's {@link AnnotationUtils}, so annotations declared on overridden super class or interface
+ * methods (or types) and meta-annotations are honored. Lookup results are cached per annotation type.
+ * 
+ * @author akiran
+ */
+public class SecurityDescriptor
+{
+	/**
+	 * Method for which this descriptor is built.
+	 */
+	private Method method;
+	
+	/**
+	 * Flag indicating if the method can be invoked without authentication.
+	 */
+	private boolean noAuthentication;
+	
+	/**
+	 * Cache of resolved annotations of the method.
+	 */
+	private Map<Class<? extends Annotation>, Optional<Annotation>> methodAnnotations = new ConcurrentHashMap<>();
+	
+	/**
+	 * Cache of resolved annotations of the declaring class of the method.
+	 */
+	private Map<Class<? extends Annotation>, Optional<Annotation>> typeAnnotations = new ConcurrentHashMap<>();
+	
+	/**
+	 * Instantiates a new security descriptor for specified method.
+	 *
+	 * @param method the method
+	 */
+	public SecurityDescriptor(Method method)
+	{
+		this.method = method;
+		this.noAuthentication = getMethodAnnotation(NoAuthentication.class) != null;
+	}
+
+	/**
+	 * Gets the method for which this descriptor is built.
+	 *
+	 * @return the method for which this descriptor is built
+	 */
+	public Method getMethod()
+	{
+		return method;
+	}
+
+	/**
+	 * Checks if the method can be invoked without authentication.
+	 *
+	 * @return true, if the method can be invoked without authentication
+	 */
+	public boolean isNoAuthentication()
+	{
+		return noAuthentication;
+	}
+	
+	/**
+	 * Fetches annotation of specified type from the method only. Annotations of overridden methods and meta-annotations
+	 * are considered.
+	 * @param annotationType Type of annotation to fetch
+	 * @return Matching method annotation, null if not present on method
+	 */
+	@SuppressWarnings("unchecked")
+	public <A extends Annotation> A getMethodAnnotation(Class<A> annotationType)
+	{
+		return (A) methodAnnotations
+				.computeIfAbsent(annotationType, type -> Optional.ofNullable(AnnotationUtils.findAnnotation(method, type)))
+				.orElse(null);
+	}
+	
+	/**
+	 * Fetches annotation of specified type from the declaring class of the method only. Annotations of super classes, 
+	 * interfaces and meta-annotations are considered.
+	 * @param annotationType Type of annotation to fetch
+	 * @return Matching class annotation, null if not present on declaring class
+	 */
+	@SuppressWarnings("unchecked")
+	public <A extends Annotation> A getTypeAnnotation(Class<A> annotationType)
+	{
+		return (A) typeAnnotations
+				.computeIfAbsent(annotationType, type -> Optional.ofNullable(AnnotationUtils.findAnnotation(method.getDeclaringClass(), type)))
+				.orElse(null);
+	}
+	
+	/**
+	 * Fetches annotation of specified type, where method annotation overrides class annotation. That is, if 
+	 * annotation is present on the method, the class annotation of the same type is ignored (and not merged). 
+	 * If not present on method, annotation of declaring class is returned. Implementations which need to combine
+	 * both (like roles specified at both levels) should use {@link #getMethodAnnotation(Class)} and 
+	 * {@link #getTypeAnnotation(Class)}.
+	 * @param annotationType Type of annotation to fetch
+	 * @return Matching annotation, null if not present on method and declaring class
+	 */
+	public <A extends Annotation> A getAnnotation(Class<A> annotationType)
+	{
+		A annotation = getMethodAnnotation(annotationType);
+		return (annotation != null) ? annotation : getTypeAnnotation(annotationType);
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder(super.toString());
+		builder.append("[");
+
+		builder.append("Method: ").append(method.getDeclaringClass().getName()).append(".").append(method.getName());
+		builder.append(",").append("No Auth: ").append(noAuthentication);
+		builder.append(",").append("Method Annotations: ").append(methodAnnotations.keySet());
+		builder.append(",").append("Type Annotations: ").append(typeAnnotations.keySet());
+
+		builder.append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.security;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of {@link SecurityDescriptor} of methods. Descriptors of controller methods are registered when actions
+ * are scanned at startup (by {@link com.yukthi.webutils.services.ActionsService}), descriptors of other methods
+ * (like search and lov methods) are built and registered on first access.
+ * 
+ * @author akiran
+ */
+@Component
+public class SecurityDescriptorRegistry
+{
+	/**
+	 * Method to its security descriptor.
+	 */
+	private Map<Method, SecurityDescriptor> descriptors = new ConcurrentHashMap<>();
+	
+	/**
+	 * Builds and registers descriptor for specified method, if not already registered.
+	 * @param method Method to register
+	 * @return Descriptor of the method
+	 */
+	public SecurityDescriptor register(Method method)
+	{
+		return descriptors.computeIfAbsent(method, SecurityDescriptor::new);
+	}
+	
+	/**
+	 * Fetches descriptor of specified method. If the method is not registered, the same will be registered.
+	 * @param method Method whose descriptor needs to be fetched
+	 * @return Descriptor of the method
+	 */
+	public SecurityDescriptor getDescriptor(Method method)
+	{
+		SecurityDescriptor descriptor = descriptors.get(method);
+		
+		if(descriptor != null)
+		{
+			return descriptor;
+		}
+		
+		return register(method);
+	}
+}
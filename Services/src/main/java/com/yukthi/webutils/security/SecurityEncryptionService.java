@@ -23,9 +23,22 @@
 
 package com.yukthi.webutils.security;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.annotation.PostConstruct;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,10 +49,14 @@ import com.yukthi.utils.CryptoUtils;
 import com.yukthi.utils.exceptions.InvalidStateException;
 import com.yukthi.webutils.WebutilsConfiguration;
 import com.yukthi.webutils.common.IWebUtilsCommonConstants;
+import com.yukthi.webutils.utils.LruCache;
 import com.yukthi.webutils.utils.WebUtils;
 
 /**
- * Service to enrypt and decrypt auth tokens
+ * Service to enrypt and decrypt auth tokens. Tokens are generated in format - <code>2.&lt;payload&gt;</code>, where
+ * payload is base64url encoded (iv, aes encrypted user details, truncated hmac-sha256 of iv and encrypted data). 
+ * Tokens of older format (<code>&lt;time&gt;-&lt;encrypted-user-details&gt;</code>) are still accepted, when enabled 
+ * in configuration.
  * @author akiran
  */
 @Component
@@ -47,6 +64,36 @@ public class SecurityEncryptionService
 {
 	private static Logger logger = LogManager.getLogger(SecurityEncryptionService.class);
 
+	/**
+	 * Prefix of tokens generated in current format.
+	 */
+	private static final String TOKEN_PREFIX = "2.";
+	
+	/**
+	 * Cipher transformation used for encryption of user details.
+	 */
+	private static final String CIPHER_TRANSFORMATION = "AES/CBC/PKCS5Padding";
+	
+	/**
+	 * Mac algorithm used to authenticate the tokens.
+	 */
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+	
+	/**
+	 * Length of initialization vector.
+	 */
+	private static final int IV_LENGTH = 16;
+	
+	/**
+	 * Number of mac bytes included in token.
+	 */
+	private static final int MAC_LENGTH = 16;
+	
+	/**
+	 * Time (in millis) for which token generated during refresh is reused for requests with the same old token.
+	 */
+	private static final long REFRESH_REUSE_TIME = 60000L;
+	
 	private ObjectMapper objectMapper = new ObjectMapper();
 	
 	
@@ -61,6 +108,150 @@ public class SecurityEncryptionService
 	@Autowired
 	private WebutilsConfiguration configuration;
 	
+	/**
+	 * Cache of verified tokens to corresponding user details in serialized (json) form. As user details
+	 * are mutable, they are cached in serialized form so that every request gets its own copy. 
+	 * Null, if caching is disabled.
+	 */
+	private LruCache<String, byte[]> tokenCache;
+	
+	/**
+	 * Old tokens to the tokens generated while refreshing them, so that concurrent/subsequent requests with the old token
+	 * does not generate new tokens again. Null, if caching is disabled.
+	 */
+	private LruCache<String, String> refreshedTokens;
+	
+	/**
+	 * Key used for encryption of user details.
+	 */
+	private SecretKeySpec encryptionKey;
+	
+	/**
+	 * Key used for generating mac of the tokens.
+	 */
+	private SecretKeySpec macKey;
+	
+	/**
+	 * Flag indicating if keys and caches are initialized.
+	 */
+	private volatile boolean initialized;
+	
+	/**
+	 * Random used to generate initialization vectors.
+	 */
+	private SecureRandom secureRandom = new SecureRandom();
+	
+	/**
+	 * Per thread cipher instance, as cipher instances are not thread safe.
+	 */
+	private ThreadLocal<Cipher> cipher = ThreadLocal.withInitial(() -> 
+	{
+		try
+		{
+			return Cipher.getInstance(CIPHER_TRANSFORMATION);
+		}catch(GeneralSecurityException ex)
+		{
+			throw new InvalidStateException(ex, "Failed to create cipher - {}", CIPHER_TRANSFORMATION);
+		}
+	});
+	
+	/**
+	 * Per thread mac instance, initialized with mac key.
+	 */
+	private ThreadLocal<Mac> mac = ThreadLocal.withInitial(() -> 
+	{
+		try
+		{
+			Mac mac = Mac.getInstance(MAC_ALGORITHM);
+			mac.init(macKey);
+			return mac;
+		}catch(GeneralSecurityException ex)
+		{
+			throw new InvalidStateException(ex, "Failed to create mac - {}", MAC_ALGORITHM);
+		}
+	});
+	
+	/**
+	 * Post construct method to initialize keys and token cache.
+	 */
+	@PostConstruct
+	private void init()
+	{
+		if(!configuration.isAuthEnabled())
+		{
+			return;
+		}
+		
+		initialize();
+	}
+	
+	/**
+	 * Initializes keys and token cache from configuration, if not initialized already. Initialization is done lazily
+	 * (in addition to post construct), so that the service works even when configuration is set without
+	 * post construct invocation (like in test cases).
+	 */
+	private void initialize()
+	{
+		if(initialized)
+		{
+			return;
+		}
+		
+		synchronized(this)
+		{
+			if(initialized)
+			{
+				return;
+			}
+			
+			encryptionKey = new SecretKeySpec(deriveKey("encryption", 16), "AES");
+			macKey = new SecretKeySpec(deriveKey("mac", 32), MAC_ALGORITHM);
+			
+			if(configuration.getAuthTokenCacheSize() > 0)
+			{
+				//tokens are refreshed before session timeout, so cached tokens need not be retained beyond that
+				tokenCache = new LruCache<>("authTokens", configuration.getAuthTokenCacheSize(), configuration.getSessionTimeOutInMin() * 60000L);
+				refreshedTokens = new LruCache<>("refreshedAuthTokens", configuration.getAuthTokenCacheSize(), REFRESH_REUSE_TIME);
+			}
+			
+			initialized = true;
+		}
+	}
+	
+	/**
+	 * Derives key of specified length for specified purpose from configured secret key.
+	 * @param purpose Purpose for which key is being derived
+	 * @param length Length of key required
+	 * @return Derived key
+	 */
+	private byte[] deriveKey(String purpose, int length)
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte key[] = digest.digest((purpose + ":" + configuration.getSecretKey()).getBytes(StandardCharsets.UTF_8));
+			
+			return Arrays.copyOf(key, length);
+		}catch(GeneralSecurityException ex)
+		{
+			throw new InvalidStateException(ex, "Failed to derive {} key", purpose);
+		}
+	}
+	
+	/**
+	 * Computes mac of specified bytes. Only first {@link #MAC_LENGTH} bytes are returned.
+	 * @param data Data for which mac needs to be computed
+	 * @param length Length of data to be used
+	 * @return Truncated mac
+	 */
+	private byte[] computeMac(byte data[], int length)
+	{
+		Mac mac = this.mac.get();
+		mac.update(data, 0, length);
+		
+		return Arrays.copyOf(mac.doFinal(), MAC_LENGTH);
+	}
+	
 	/**
 	 * Generates encrypted string with specified user details
 	 * @param userDetails User details to be encrypted
@@ -73,14 +264,29 @@ public class SecurityEncryptionService
 			return null;
 		}
 		
+		initialize();
+		
 		//get current time in minutes
 		long time = WebUtils.currentTimeInMin();
 		userDetails.setTimeStamp(time);
 		
 		try
 		{
-			String userWithRoles = objectMapper.writeValueAsString(userDetails);
-			String encryptedStr = time + "-" + CryptoUtils.encrypt(configuration.getSecretKey(), userWithRoles);
+			byte iv[] = new byte[IV_LENGTH];
+			secureRandom.nextBytes(iv);
+			
+			Cipher cipher = this.cipher.get();
+			cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+			
+			byte userWithRoles[] = objectMapper.writeValueAsBytes(userDetails);
+			byte token[] = new byte[IV_LENGTH + cipher.getOutputSize(userWithRoles.length) + MAC_LENGTH];
+			
+			System.arraycopy(iv, 0, token, 0, IV_LENGTH);
+			int dataLength = IV_LENGTH + cipher.doFinal(userWithRoles, 0, userWithRoles.length, token, IV_LENGTH);
+			
+			System.arraycopy(computeMac(token, dataLength), 0, token, dataLength, MAC_LENGTH);
+			
+			String encryptedStr = TOKEN_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(token, dataLength + MAC_LENGTH));
 			userDetails.setAuthToken(encryptedStr);
 			
 			return encryptedStr;
@@ -93,6 +299,10 @@ public class SecurityEncryptionService
 	/**
 	 * Converts the encrypted string into user details. If token is going to be expired in a min, new token
 	 * gets generated and will be set in result user details.
+	 * <BR/><BR/>
+	 * Verified tokens are cached (till they are about to expire), so that repeated requests with same token
+	 * need not decrypt and verify the token again. Timeout and expiry of the session are checked on every call. 
+	 * Every call returns its own copy of user details, which can be modified by the caller.
 	 * 
 	 * @param encryptedString Encrypted user details string
 	 * @return decrypted user details
@@ -105,50 +315,22 @@ public class SecurityEncryptionService
 			return null;
 		}
 		
-		String actualEncryptedString = encryptedString;
-		
-		//ensure the pattern is proper
-		Matcher tokenMatcher = TOKEN_PATTERN.matcher(encryptedString);
-		
-		if(!tokenMatcher.matches())
-		{
-			logger.debug("Invalid auth token. No hyphen (-) found");
-			throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_AUTHENTICATION_ERROR, "Invalid security token encountered");
-		}
-		
-		String time = tokenMatcher.group(1);
-		encryptedString = tokenMatcher.group(2);
-		
-		String decryptedStr = CryptoUtils.decrypt(configuration.getSecretKey(), encryptedString);
-		UserDetails userDetails = null;
-		
-		try
-		{
-			userDetails = objectMapper.readValue(decryptedStr, configuration.getUserDetailsType());
-		}catch(Exception ex)
-		{
-			logger.debug("Invalid auth token. Failed to deserialize user details.");
-			throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_AUTHENTICATION_ERROR, "Invalid security token encountered");
-		}
-		
-		//ensure time stamp is proper (which ensures token is not malformed)
-		long reqTime = userDetails.getTimeStamp();
+		initialize();
 		
-		if(!time.equals("" + reqTime))
-		{
-			logger.debug("Invalid auth token. Time stamp did not match");
-			throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_AUTHENTICATION_ERROR, "Malformed security token encountered");
-		}
+		byte cachedUserDetails[] = (tokenCache != null) ? tokenCache.get(encryptedString) : null;
+		boolean cached = (cachedUserDetails != null);
+		UserDetails userDetails = cached ? readUserDetails(cachedUserDetails) : parseToken(encryptedString);
 		
 		//get current time in minutes and ensure token is not time out
 		long currentTime = System.currentTimeMillis() / 60000L;
-		long diff = currentTime - reqTime;
+		long diff = currentTime - userDetails.getTimeStamp();
 		int sessionTimeoutTime = this.configuration.getSessionTimeOutInMin();
 		int sessionExpiryTime = this.configuration.getSessionExpiryInMin();
 		
 		if(diff > sessionTimeoutTime)
 		{
 			logger.debug("Invalid auth token. Session timed out.");
+			removeCachedToken(encryptedString, cached);
 			throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_SESSION_TIMEOUT_ERROR, "Session timed out");
 		}
 
@@ -162,6 +344,7 @@ public class SecurityEncryptionService
 			if(sessionDuration > sessionExpiryTime)
 			{
 				logger.debug("Invalid auth token. Session expired.");
+				removeCachedToken(encryptedString, cached);
 				throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_SESSION_TIMEOUT_ERROR, "Session expired");
 			}
 		}
@@ -169,11 +352,203 @@ public class SecurityEncryptionService
 		//when time is about to expire reset the response token
 		if(diff >= (sessionTimeoutTime - 1))
 		{
-			userDetails.setAuthToken(encrypt(userDetails));
+			return refreshToken(encryptedString, userDetails);
+		}
+
+		userDetails.setAuthToken(encryptedString);
+		
+		if(!cached && tokenCache != null)
+		{
+			tokenCache.put(encryptedString, writeUserDetails(userDetails));
+		}
+		
+		return userDetails;
+	}
+	
+	/**
+	 * Generates new token for user details of specified token. If the token was refreshed recently, the 
+	 * token generated earlier is reused, so that concurrent and subsequent requests of the same session does
+	 * not generate new tokens again and again.
+	 * @param encryptedString Token to be refreshed
+	 * @param userDetails Parsed user details of the token, which will be modified
+	 * @return User details with new token
+	 */
+	private UserDetails refreshToken(String encryptedString, UserDetails userDetails)
+	{
+		if(refreshedTokens != null)
+		{
+			String newToken = refreshedTokens.get(encryptedString);
+			byte newUserDetails[] = (newToken != null) ? tokenCache.get(newToken) : null;
+			
+			if(newUserDetails != null)
+			{
+				UserDetails result = readUserDetails(newUserDetails);
+				result.setAuthToken(newToken);
+				
+				return result;
+			}
+		}
+		
+		String newToken = encrypt(userDetails);
+		
+		if(refreshedTokens != null)
+		{
+			tokenCache.put(newToken, writeUserDetails(userDetails));
+			refreshedTokens.put(encryptedString, newToken);
+		}
+		
+		return userDetails;
+	}
+	
+	/**
+	 * Serializes specified user details, for caching.
+	 * @param userDetails User details to serialize
+	 * @return Serialized user details
+	 */
+	private byte[] writeUserDetails(UserDetails userDetails)
+	{
+		try
+		{
+			return objectMapper.writeValueAsBytes(userDetails);
+		}catch(IOException ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while serializing user details - {}", userDetails);
+		}
+	}
+	
+	/**
+	 * Deserializes cached user details into new user details instance.
+	 * @param userDetails Serialized user details
+	 * @return New user details instance
+	 */
+	private UserDetails readUserDetails(byte userDetails[])
+	{
+		try
+		{
+			return objectMapper.readValue(userDetails, configuration.getUserDetailsType());
+		}catch(IOException ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while deserializing cached user details");
+		}
+	}
+	
+	/**
+	 * Removes specified token from cache, if it was cached.
+	 * @param token Token to remove
+	 * @param cached Flag indicating if token was cached
+	 */
+	private void removeCachedToken(String token, boolean cached)
+	{
+		if(cached)
+		{
+			tokenCache.remove(token);
+		}
+	}
+	
+	/**
+	 * Decrypts and parses specified token into user details and ensures token is not malformed. Timeout/expiry
+	 * is not checked by this method.
+	 * @param encryptedString Token to parse
+	 * @return Parsed user details
+	 * @throws SecurityException When invalid token is specified.
+	 */
+	private UserDetails parseToken(String encryptedString) throws SecurityException
+	{
+		if(encryptedString.startsWith(TOKEN_PREFIX))
+		{
+			return parseCurrentToken(encryptedString);
+		}
+		
+		if(!configuration.isLegacyAuthTokenEnabled())
+		{
+			logger.debug("Invalid auth token. Token of older format is specified");
+			throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_AUTHENTICATION_ERROR, "Invalid security token encountered");
+		}
+		
+		return parseLegacyToken(encryptedString);
+	}
+	
+	/**
+	 * Verifies and parses token of current format into user details.
+	 * @param encryptedString Token to parse
+	 * @return Parsed user details
+	 * @throws SecurityException When invalid token is specified.
+	 */
+	private UserDetails parseCurrentToken(String encryptedString) throws SecurityException
+	{
+		byte token[] = null;
+		
+		try
+		{
+			token = Base64.getUrlDecoder().decode(encryptedString.substring(TOKEN_PREFIX.length()));
+		}catch(IllegalArgumentException ex)
+		{
+			logger.debug("Invalid auth token. Failed to decode token.");
+			throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_AUTHENTICATION_ERROR, "Invalid security token encountered");
+		}
+		
+		int dataLength = token.length - MAC_LENGTH;
+		
+		//ensure token is not tampered, mac is compared in constant time
+		if(dataLength <= IV_LENGTH || !MessageDigest.isEqual(computeMac(token, dataLength), Arrays.copyOfRange(token, dataLength, token.length)))
+		{
+			logger.debug("Invalid auth token. Mac did not match");
+			throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_AUTHENTICATION_ERROR, "Malformed security token encountered");
 		}
-		else
+		
+		try
+		{
+			Cipher cipher = this.cipher.get();
+			cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new IvParameterSpec(token, 0, IV_LENGTH));
+			
+			byte userWithRoles[] = cipher.doFinal(token, IV_LENGTH, dataLength - IV_LENGTH);
+			return objectMapper.readValue(userWithRoles, configuration.getUserDetailsType());
+		}catch(Exception ex)
 		{
-			userDetails.setAuthToken(actualEncryptedString);
+			logger.debug("Invalid auth token. Failed to deserialize user details.");
+			throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_AUTHENTICATION_ERROR, "Invalid security token encountered");
+		}
+	}
+	
+	/**
+	 * Decrypts and parses token of older format (&lt;time&gt;-&lt;encrypted-user-details&gt;) into user details.
+	 * @param encryptedString Token to parse
+	 * @return Parsed user details
+	 * @throws SecurityException When invalid token is specified.
+	 */
+	private UserDetails parseLegacyToken(String encryptedString) throws SecurityException
+	{
+		//ensure the pattern is proper
+		Matcher tokenMatcher = TOKEN_PATTERN.matcher(encryptedString);
+		
+		if(!tokenMatcher.matches())
+		{
+			logger.debug("Invalid auth token. No hyphen (-) found");
+			throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_AUTHENTICATION_ERROR, "Invalid security token encountered");
+		}
+		
+		String time = tokenMatcher.group(1);
+		encryptedString = tokenMatcher.group(2);
+		
+		String decryptedStr = CryptoUtils.decrypt(configuration.getSecretKey(), encryptedString);
+		UserDetails userDetails = null;
+		
+		try
+		{
+			userDetails = objectMapper.readValue(decryptedStr, configuration.getUserDetailsType());
+		}catch(Exception ex)
+		{
+			logger.debug("Invalid auth token. Failed to deserialize user details.");
+			throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_AUTHENTICATION_ERROR, "Invalid security token encountered");
+		}
+		
+		//ensure time stamp is proper (which ensures token is not malformed)
+		long reqTime = userDetails.getTimeStamp();
+		
+		if(!time.equals("" + reqTime))
+		{
+			logger.debug("Invalid auth token. Time stamp did not match");
+			throw new SecurityException(IWebUtilsCommonConstants.RESPONSE_CODE_AUTHENTICATION_ERROR, "Malformed security token encountered");
 		}
 		
 		return userDetails;
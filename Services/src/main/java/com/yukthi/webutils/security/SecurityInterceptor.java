@@ -43,7 +43,6 @@ import com.yukthi.utils.exceptions.InvalidStateException;
 import com.yukthi.webutils.IWebUtilsInternalConstants;
 import com.yukthi.webutils.WebutilsConfiguration;
 import com.yukthi.webutils.WebutilsContext;
-import com.yukthi.webutils.annotations.NoAuthentication;
 import com.yukthi.webutils.common.IWebUtilsCommonConstants;
 import com.yukthi.webutils.common.models.BaseResponse;
 
@@ -64,6 +63,12 @@ public class SecurityInterceptor extends HandlerInterceptorAdapter
 	@Autowired(required = false)
 	private ISecurityService securityService;
 	
+	@Autowired
+	private AuthorizationCache authorizationCache;
+	
+	@Autowired
+	private SecurityDescriptorRegistry securityDescriptorRegistry;
+	
 	private ObjectMapper objectMapper = new ObjectMapper();
 	
 	@PostConstruct
@@ -154,7 +159,7 @@ public class SecurityInterceptor extends HandlerInterceptorAdapter
 	 */
 	private boolean isAuthorized(UserDetails userDetails, HandlerMethod handlerMethod, HttpServletResponse response)
 	{
-		if(!securityService.isAuthorized(handlerMethod.getMethod()))
+		if(!authorizationCache.isAuthorized(handlerMethod.getMethod()))
 		{
 			sendError(response, IWebUtilsCommonConstants.RESPONSE_CODE_AUTHORIZATION_ERROR, "Authorization failed. User is not authorized to invoke current action.");
 			return false;
@@ -174,10 +179,17 @@ public class SecurityInterceptor extends HandlerInterceptorAdapter
 	@Override
 	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception
 	{
+		//ensure user data of previous request processed by this thread is not used. Only attributes
+		// owned by this interceptor are removed, so that attributes set by filters are retained
+		WebutilsContext.getContext()
+			.removeAttribute(IWebUtilsInternalConstants.CONTEXT_ATTR_CURRENT_USER)
+			.removeAttribute(IWebUtilsInternalConstants.CONTEXT_ATTR_USER_ROLE_MAP);
+		
 		 HandlerMethod handlerMethod = (HandlerMethod)handler;
+		 SecurityDescriptor descriptor = securityDescriptorRegistry.getDescriptor(handlerMethod.getMethod());
 		 
 		//if the api call is for authentication, dont perform any authorization check
-		if(handlerMethod.getMethodAnnotation(NoAuthentication.class) != null)
+		if(descriptor.isNoAuthentication())
 		{
 			return true;
 		}
@@ -204,5 +216,18 @@ public class SecurityInterceptor extends HandlerInterceptorAdapter
 		
 		return true;
 	}
-
+	
+	/**
+	 * Spring after completion method, which is used to clear request specific data from webutils context.
+	 * @param request Request
+	 * @param response Response
+	 * @param handler Handler method
+	 * @param ex Exception, if any, thrown by handler
+	 * @throws Exception
+	 */
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception
+	{
+		WebutilsContext.clearContext();
+	}
 }
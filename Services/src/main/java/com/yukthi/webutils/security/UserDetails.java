@@ -155,4 +155,18 @@ public class UserDetails
 	{
 		this.timeStamp = timeStamp;
 	}
+	
+	/**
+	 * Fetches the fingerprint of authorization inputs (like roles) carried by this user details, which is used as part of 
+	 * key of cached authorization decisions. Sub classes carrying roles should return them (or their fingerprint), so that
+	 * decisions cached for one set of roles are not used for another. Returned value should be immutable and should
+	 * implement equals() and hashCode(). By default, null is returned.
+	 *
+	 * @return the fingerprint of authorization inputs of the user
+	 */
+	@JsonIgnore
+	public Object getAuthorizationFingerprint()
+	{
+		return null;
+	}
 }
@@ -63,6 +63,7 @@ import com.yukthi.webutils.common.models.ActionParamModel;
 import com.yukthi.webutils.common.models.def.FieldDef;
 import com.yukthi.webutils.common.models.def.FieldType;
 import com.yukthi.webutils.common.models.def.ModelDef;
+import com.yukthi.webutils.security.SecurityDescriptorRegistry;
 
 /**
  * Service to maintain actions that can be invoked from client.
@@ -88,6 +89,12 @@ public class ActionsService
 	 */
 	@Autowired
 	private ModelDetailsService modelDetailsService;
+	
+	/**
+	 * Registry to which security details of action methods are registered.
+	 */
+	@Autowired
+	private SecurityDescriptorRegistry securityDescriptorRegistry;
 
 	/**
 	 * List of actions information resulted from scanning.
@@ -388,6 +395,9 @@ public class ActionsService
 			action.setUrl(url);
 			
 			nameToModel.put(actionName, action);
+			
+			//precompute security details, so that annotations need not be read on every request
+			securityDescriptorRegistry.register(method);
 		}
 	}
 	
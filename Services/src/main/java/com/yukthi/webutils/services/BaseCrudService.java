@@ -23,6 +23,16 @@
 
 package com.yukthi.webutils.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
 import javax.annotation.PostConstruct;
 
 import org.apache.logging.log4j.LogManager;
@@ -34,6 +44,7 @@ import com.yukthi.persistence.PersistenceException;
 import com.yukthi.persistence.repository.RepositoryFactory;
 import com.yukthi.utils.exceptions.InvalidStateException;
 import com.yukthi.webutils.common.IExtendableModel;
+import com.yukthi.webutils.repository.IEntityChangeListener;
 import com.yukthi.webutils.repository.IWebutilsRepository;
 import com.yukthi.webutils.repository.WebutilsEntity;
 import com.yukthi.webutils.repository.WebutilsExtendableEntity;
@@ -50,6 +61,23 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 {
 	private static Logger logger = LogManager.getLogger(BaseCrudService.class);
 	
+	/**
+	 * Maximum number of ids to be used in single IN condition, while fetching entities in batch.
+	 */
+	private static final int MAX_IDS_PER_QUERY = 500;
+	
+	/**
+	 * Number of crud operations in progress on current thread. As crud operations join existing transaction,
+	 * only the outermost operation completes the actual transaction.
+	 */
+	private static ThreadLocal<int[]> operationDepth = ThreadLocal.withInitial(() -> new int[1]);
+	
+	/**
+	 * Entity changes (service to modified spaces) made on current thread, whose notification is deferred till
+	 * the outermost crud operation completes.
+	 */
+	private static ThreadLocal<Map<BaseCrudService<?, ?>, Set<String>>> pendingChanges = ThreadLocal.withInitial(LinkedHashMap::new);
+	
 	/**
 	 * Autowired repository factory, used to fetch repository.
 	 */
@@ -86,6 +114,12 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 	@Autowired
 	protected ImageService imageService;
 	
+	/**
+	 * Listeners to be notified when entities are modified.
+	 */
+	@Autowired(required = false)
+	private List<IEntityChangeListener> entityChangeListeners;
+	
 	/**
 	 * Repository type.
 	 */
@@ -122,6 +156,109 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 		repository = repositoryFactory.getRepository(repositoryType);
 	}
 	
+	/**
+	 * Marks the start of a crud operation on current thread.
+	 */
+	private static void beginOperation()
+	{
+		operationDepth.get()[0]++;
+	}
+	
+	/**
+	 * Marks the end of a crud operation on current thread. When the outermost operation ends (that is, after
+	 * the transaction opened by it, if any, is committed or rolled back), deferred entity change notifications are sent.
+	 */
+	private static void endOperation()
+	{
+		int[] depth = operationDepth.get();
+		depth[0]--;
+		
+		if(depth[0] > 0)
+		{
+			return;
+		}
+		
+		Map<BaseCrudService<?, ?>, Set<String>> changes = pendingChanges.get();
+		
+		if(changes.isEmpty())
+		{
+			return;
+		}
+		
+		//copy the changes, so that operations performed by listeners are not mixed up with current changes
+		Map<BaseCrudService<?, ?>, Set<String>> changesToNotify = new LinkedHashMap<>(changes);
+		changes.clear();
+		
+		for(Map.Entry<BaseCrudService<?, ?>, Set<String>> entry : changesToNotify.entrySet())
+		{
+			for(String spaceIdentity : entry.getValue())
+			{
+				entry.getKey().notifyEntityChange(spaceIdentity);
+			}
+		}
+	}
+	
+	/**
+	 * Executes specified action as single crud operation. Entity change notifications of the crud operations performed by
+	 * the action are deferred till the action completes. 
+	 * <BR/><BR/>
+	 * Crud operations join the existing transaction, if any, and hence can not detect when the caller's transaction is committed.
+	 * So callers which open their own transaction spanning crud operations should open and commit (close) the transaction 
+	 * within this action. Otherwise, listeners get notified before the caller's transaction is committed and concurrent readers
+	 * may cache uncommitted (stale) data.
+	 * 
+	 * @param action Action to execute
+	 * @return Result of the action
+	 */
+	public static <T> T executeAsOperation(Callable<T> action)
+	{
+		beginOperation();
+		
+		try
+		{
+			return action.call();
+		}catch(RuntimeException ex)
+		{
+			throw ex;
+		}catch(Exception ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while executing crud operation");
+		}finally
+		{
+			endOperation();
+		}
+	}
+	
+	/**
+	 * Marks entity of this service type as modified in specified space. Listeners are notified once the
+	 * outermost crud operation of current thread (see {@link #executeAsOperation(Callable)}) completes, so that caches 
+	 * are not invalidated before the data is actually committed. Notifications are sent even if the transaction is 
+	 * rolled back, in which case the invalidation is just redundant.
+	 * @param spaceIdentity Space in which entity is modified
+	 */
+	protected void markEntityChanged(String spaceIdentity)
+	{
+		pendingChanges.get().computeIfAbsent(this, service -> new LinkedHashSet<>()).add(spaceIdentity);
+	}
+	
+	/**
+	 * Notifies entity change listeners about modification of entity of this service type. Invoked
+	 * for changes marked by {@link #markEntityChanged(String)} after the outermost crud operation completes.
+	 * @param spaceIdentity Space in which entity is modified
+	 */
+	protected void notifyEntityChange(String spaceIdentity)
+	{
+		if(entityChangeListeners == null)
+		{
+			return;
+		}
+		
+		for(IEntityChangeListener listener : entityChangeListeners)
+		{
+			listener.entityChanged(entityType, spaceIdentity);
+		}
+	}
+	
 	/**
 	 * Converts the specified model into entity and saves the converted entity.
 	 * @param model Model to be converted and saved
@@ -145,6 +282,8 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 	 */
 	public void save(E entity, Object model)
 	{
+		beginOperation();
+		
 		try(ITransaction transaction = repository.newOrExistingTransaction())
 		{
 			logger.trace("Trying to save entity - {}", entity);
@@ -179,6 +318,8 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 			}
 			
 			transaction.commit();
+			
+			markEntityChanged(entity.getSpaceIdentity());
 		}catch(Exception ex)
 		{
 			logger.error("An error occurred while saving entity - " + entity, ex);
@@ -189,6 +330,9 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 			}
 			
 			throw new IllegalStateException("An error occurred while saving entity - " + entity, ex);
+		}finally
+		{
+			endOperation();
 		}
 	}
 	
@@ -216,6 +360,7 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 	public void update(E entity, Object model)
 	{
 		WebUtils.validateEntityForUpdate(entity);
+		beginOperation();
 		
 		try(ITransaction transaction = repository.newOrExistingTransaction())
 		{
@@ -246,6 +391,8 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 			}
 
 			transaction.commit();
+			
+			markEntityChanged(getUserSpace(entity, model));
 		}catch(Exception ex)
 		{
 			logger.error("An error occurred while updating entity - " + entity, ex);
@@ -256,6 +403,9 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 			}
 			
 			throw new IllegalStateException("An error occurred while updating entity - " + entity, ex);
+		}finally
+		{
+			endOperation();
 		}
 	}
 	
@@ -295,6 +445,51 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 		return model;
 	}
 	
+	/**
+	 * List counterpart of {@link #fetchFullModel(long, Class)}. Entities are fetched in batch and their extension 
+	 * fields, files and images are populated in batch, instead of entity by entity.
+	 * @param ids Ids of entities to be fetched
+	 * @param modelType Corresponding entity's model type which can hold extension fields
+	 * @param <M> Model type
+	 * @return Converted models, in the order of specified ids. Ids with no matching entity are skipped.
+	 */
+	public <M> List<M> fetchFullModels(Collection<Long> ids, Class<M> modelType)
+	{
+		if(ids == null || ids.isEmpty())
+		{
+			return new ArrayList<>();
+		}
+		
+		String spaceIdentity = securityService.getUserSpaceIdentity();
+		List<Long> idLst = new ArrayList<>(ids);
+		Map<Long, E> idToEntity = new HashMap<>();
+		
+		//fetch entities in chunks, to keep the size of IN condition under control
+		for(int i = 0; i < idLst.size(); i += MAX_IDS_PER_QUERY)
+		{
+			for(E entity : repository.findByIdsAndUserSpace(idLst.subList(i, Math.min(i + MAX_IDS_PER_QUERY, idLst.size())), spaceIdentity))
+			{
+				idToEntity.put(entity.getId(), entity);
+			}
+		}
+		
+		List<E> entities = new ArrayList<>(idLst.size());
+		E entity = null;
+		
+		for(Long id : idLst)
+		{
+			entity = idToEntity.get(id);
+			
+			if(entity != null)
+			{
+				entities.add(entity);
+			}
+		}
+		
+		logger.trace("Entity fetch full mode for ids '{}' resulted in {} entities", ids, entities.size());
+		return toModels(entities, modelType);
+	}
+	
 	/**
 	 * Converts the specified entity into specified model-type's model and populates.
 	 * the extension fields and file, image fields as required.
@@ -317,14 +512,69 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 			extensionService.mapExtendedFieldsToModel( repository, entity.getId(), (IExtendableModel) model); 
 		}
 
-		//fetch file information
-		fileService.readFilesForModel(model, entityType, entity.getId());
-		
-		//fetch image information
-		imageService.readImagesForModel(model, entityType, entity.getId());
+		//fetch file and image information
+		fileService.readAttachmentsForModel(model, entityType, entity.getId());
 		
 		return model;
 	}
+	
+	/**
+	 * Converts the specified entities into specified model-type's models, similar to {@link #toModel(WebutilsEntity, Class)}.
+	 * Instead of fetching extension fields, files and images entity by entity, they are fetched in batch for all entities.
+	 * @param entities Entities to be converted
+	 * @param modelType Model type
+	 * @param <M> Model type
+	 * @return Converted models, in the order of entities
+	 */
+	protected <M> List<M> toModels(List<E> entities, Class<M> modelType)
+	{
+		if(entities == null || entities.isEmpty())
+		{
+			return new ArrayList<>();
+		}
+		
+		List<M> models = new ArrayList<>(entities.size());
+		List<Long> ownerIds = new ArrayList<>(entities.size());
+		Map<Long, IExtendableModel> extendableModels = new LinkedHashMap<>();
+		List<IExtendableModel> duplicateModels = new ArrayList<>();
+		List<Long> duplicateIds = new ArrayList<>();
+		M model = null;
+		
+		for(E entity : entities)
+		{
+			model = (entity != null) ? WebUtils.convertBean(entity, modelType) : null;
+			models.add(model);
+			ownerIds.add((entity != null) ? entity.getId() : null);
+			
+			if(!(model instanceof IExtendableModel))
+			{
+				continue;
+			}
+			
+			//when same entity occurs multiple times, extension fields are fetched once and copied to the duplicates
+			if(extendableModels.putIfAbsent(entity.getId(), (IExtendableModel) model) != null)
+			{
+				duplicateModels.add((IExtendableModel) model);
+				duplicateIds.add(entity.getId());
+			}
+		}
+		
+		//fetch extension fields of all models in batch
+		extensionService.mapExtendedFieldsToModels(repository, extendableModels);
+		
+		Map<String, String> extendedFields = null;
+		
+		for(int i = 0; i < duplicateModels.size(); i++)
+		{
+			extendedFields = extendableModels.get(duplicateIds.get(i)).getExtendedFields();
+			duplicateModels.get(i).setExtendedFields(extendedFields == null ? null : new HashMap<>(extendedFields));
+		}
+		
+		//fetch file and image information of all models in batch
+		fileService.readAttachmentsForModels(models, entityType, ownerIds);
+		
+		return models;
+	}
 
 	/**
 	 * Fetches number of entities in DB.
@@ -345,6 +595,8 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 	 */
 	public boolean deleteById(long id)
 	{
+		beginOperation();
+		
 		try(ITransaction transaction = repository.newOrExistingTransaction())
 		{
 			boolean res = repository.deleteByIdAndUserSpace(id, securityService.getUserSpaceIdentity());
@@ -356,6 +608,8 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 			
 			transaction.commit();
 			
+			markEntityChanged(securityService.getUserSpaceIdentity());
+			
 			return res;
 		}catch(Exception ex)
 		{
@@ -367,6 +621,9 @@ public abstract class BaseCrudService<E extends WebutilsEntity, R extends IWebut
 			}
 			
 			throw new IllegalStateException("An error occurred while deleting entity with id - " + id, ex);
+		}finally
+		{
+			endOperation();
 		}
 	}
 	
@@ -24,18 +24,20 @@
 package com.yukthi.webutils.services;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 
 import com.yukthi.persistence.repository.RepositoryFactory;
@@ -51,6 +53,7 @@ import com.yukthi.webutils.common.annotations.ExtendableModel;
 import com.yukthi.webutils.common.extensions.LovOption;
 import com.yukthi.webutils.controllers.IExtensionContextProvider;
 import com.yukthi.webutils.extensions.ExtensionEntityDetails;
+import com.yukthi.webutils.extensions.IExtensionChangeListener;
 import com.yukthi.webutils.repository.ExtensionEntity;
 import com.yukthi.webutils.repository.ExtensionFieldEntity;
 import com.yukthi.webutils.repository.ExtensionFieldsData;
@@ -59,6 +62,7 @@ import com.yukthi.webutils.repository.IExtensionRepository;
 import com.yukthi.webutils.repository.IWebutilsRepository;
 import com.yukthi.webutils.repository.WebutilsExtendableEntity;
 import com.yukthi.webutils.security.ISecurityService;
+import com.yukthi.webutils.utils.LruCache;
 import com.yukthi.webutils.utils.WebUtils;
 
 /**
@@ -80,6 +84,74 @@ public class ExtensionService
 	 */
 	private static final long DEF_OWNER_ID = 0L;
 	
+	/**
+	 * Max number of spaces for which extension metadata is cached.
+	 */
+	private static final int MAX_CACHED_SPACES = 1000;
+	
+	/**
+	 * Time after which cached extension metadata expires. Acts as safety net for changes done outside this service.
+	 */
+	private static final long METADATA_TTL = 30 * 60 * 1000L;
+
+	/**
+	 * Max number of entity ids used in single query while fetching extended fields of multiple entities.
+	 */
+	private static final int MAX_IDS_PER_QUERY = 500;
+	
+	/**
+	 * Extension metadata of single space. Extension fields of all extendable entities are loaded together
+	 * when space is accessed first time. Extension entities are loaded on demand.
+	 * @author akiran
+	 */
+	private static class ExtensionMetadata
+	{
+		/**
+		 * Extension fields by extension name.
+		 */
+		private Map<String, List<ExtensionFieldEntity>> fieldsByExtensionName = new HashMap<>();
+		
+		/**
+		 * Extension fields by extension id.
+		 */
+		private Map<Long, List<ExtensionFieldEntity>> fieldsByExtensionId = new HashMap<>();
+		
+		/**
+		 * Extension fields by target entity type.
+		 */
+		private Map<String, List<ExtensionFieldEntity>> fieldsByEntityType = new HashMap<>();
+		
+		/**
+		 * Extension entities by name. Absent extensions are maintained as empty values.
+		 */
+		private Map<String, Optional<ExtensionEntity>> extensions = new ConcurrentHashMap<>();
+		
+		/**
+		 * Adds specified fields of specified entity type to this metadata.
+		 * @param entityType Target entity type of fields
+		 * @param fields Fields to add
+		 */
+		private void addFields(String entityType, List<ExtensionFieldEntity> fields)
+		{
+			fieldsByEntityType.put(entityType, Collections.unmodifiableList(new ArrayList<>(fields)));
+			
+			for(ExtensionFieldEntity field : fields)
+			{
+				fieldsByExtensionName.computeIfAbsent(field.getExtension().getName(), name -> new ArrayList<>()).add(field);
+				fieldsByExtensionId.computeIfAbsent(field.getExtension().getId(), id -> new ArrayList<>()).add(field);
+			}
+		}
+		
+		/**
+		 * Makes the field lists unmodifiable, so that they can be shared safely.
+		 */
+		private void seal()
+		{
+			fieldsByExtensionName.replaceAll((name, fields) -> Collections.unmodifiableList(fields));
+			fieldsByExtensionId.replaceAll((id, fields) -> Collections.unmodifiableList(fields));
+		}
+	}
+	
 	/**
 	 * Used to fetch repository instances.
 	 */
@@ -124,12 +196,23 @@ public class ExtensionService
 	 */
 	private IExtensionFieldRepository extensionFieldRepository;
 	
+	/**
+	 * Cache of extension metadata by space identity.
+	 */
+	private LruCache<String, ExtensionMetadata> metadataCache = new LruCache<>("extensionMetadata", MAX_CACHED_SPACES, METADATA_TTL);
+	
 	/**
 	 * Used to fetch extension name of the required models.
 	 */
 	@Autowired
 	private IExtensionContextProvider extensionContextProvider;
 	
+	/**
+	 * Listeners to be notified when extensions or extension fields are modified.
+	 */
+	@Autowired(required = false)
+	private List<IExtensionChangeListener> extensionChangeListeners;
+	
 	/**
 	 * Fetches repositories from autowired repository factory.
 	 */
@@ -162,6 +245,57 @@ public class ExtensionService
 		}
 	}
 	
+	/**
+	 * Fetches extension metadata of current user space. If metadata of the space is not cached, extension
+	 * fields of all extendable entities of the space are loaded together.
+	 * @return Extension metadata of current space
+	 */
+	private ExtensionMetadata getMetadata()
+	{
+		String spaceIdentity = securityService.getUserSpaceIdentity();
+		return metadataCache.get(String.valueOf(spaceIdentity), key -> loadMetadata(spaceIdentity));
+	}
+	
+	/**
+	 * Loads extension metadata of current user space.
+	 * @param spaceIdentity Current user space
+	 * @return Loaded metadata
+	 */
+	private ExtensionMetadata loadMetadata(String spaceIdentity)
+	{
+		logger.debug("Loading extension metadata of space - {}", spaceIdentity);
+		
+		ExtensionMetadata metadata = new ExtensionMetadata();
+		
+		for(String entityType : typeToExtension.keySet())
+		{
+			metadata.addFields(entityType, extensionFieldRepository.findExtensionFieldsByEntity(entityType));
+		}
+		
+		metadata.seal();
+		return metadata;
+	}
+	
+	/**
+	 * Reloads extension metadata of current user space. Can be used when extensions are modified without
+	 * using this service.
+	 */
+	public void refreshExtensionMetadata()
+	{
+		String spaceIdentity = securityService.getUserSpaceIdentity();
+		
+		metadataCache.remove(String.valueOf(spaceIdentity));
+		getMetadata();
+	}
+	
+	/**
+	 * Removes cached extension metadata of all spaces. Metadata gets reloaded when accessed next time.
+	 */
+	public void clearExtensionMetadata()
+	{
+		metadataCache.clear();
+	}
+	
 	/**
 	 * Fetches extensions as LOV list. This method returns extensions which are current user
 	 * is authorized for.
@@ -211,7 +345,7 @@ public class ExtensionService
 	{
 		logger.trace("Fetching extension entity - [Name: {}]", name);
 		
-		return extensionRepository.findExtensionByName(name);
+		return getMetadata().extensions.computeIfAbsent(name, extName -> Optional.ofNullable(extensionRepository.findExtensionByName(extName))).orElse(null);
 	}
 	
 	/**
@@ -228,7 +362,33 @@ public class ExtensionService
 			return true;
 		}
 		
-		return extensionRepository.isValidExtension(name);
+		return (getExtensionEntity(name) != null);
+	}
+	
+	/**
+	 * Notifies extension change listeners about modification in specified space.
+	 * @param spaceIdentity Space in which modification happened. Null, if modification is across spaces.
+	 */
+	private void notifyExtensionChange(String spaceIdentity)
+	{
+		if(spaceIdentity == null)
+		{
+			metadataCache.clear();
+		}
+		else
+		{
+			metadataCache.remove(spaceIdentity);
+		}
+		
+		if(extensionChangeListeners == null)
+		{
+			return;
+		}
+		
+		for(IExtensionChangeListener listener : extensionChangeListeners)
+		{
+			listener.extensionsChanged(spaceIdentity);
+		}
 	}
 	
 	/**
@@ -261,6 +421,8 @@ public class ExtensionService
 		{
 			throw new ServiceException("Failed to save extension - {}", extension);
 		}
+		
+		notifyExtensionChange(extension.getSpaceIdentity());
 	}
 	
 	/**
@@ -272,7 +434,7 @@ public class ExtensionService
 	{
 		logger.trace("Fetching extension fields for extension - {}", extensionName);
 		
-		return extensionFieldRepository.findExtensionFields(extensionName);
+		return getMetadata().fieldsByExtensionName.getOrDefault(extensionName, Collections.emptyList());
 	}
 	
 	/**
@@ -284,7 +446,7 @@ public class ExtensionService
 	{
 		logger.trace("Fetching extension fields for extension - {}", extensionId);
 		
-		return extensionFieldRepository.findExtensionFieldsByExtensionId(extensionId);
+		return getMetadata().fieldsByExtensionId.getOrDefault(extensionId, Collections.emptyList());
 	}
 
 	/**
@@ -298,7 +460,16 @@ public class ExtensionService
 	{
 		logger.trace("Fetching extension fields for entity type - {}", entityType);
 		
-		return extensionFieldRepository.findExtensionFieldsByEntity(entityType);
+		ExtensionMetadata metadata = getMetadata();
+		List<ExtensionFieldEntity> fields = metadata.fieldsByEntityType.get(entityType);
+		
+		// for types which are not registered as extendable entities, fallback to db
+		if(fields == null)
+		{
+			return extensionFieldRepository.findExtensionFieldsByEntity(entityType);
+		}
+		
+		return fields;
 	}
 	
 	/**
@@ -325,7 +496,15 @@ public class ExtensionService
 	{
 		logger.trace("Fetching extension fields for extension - {}", extensionName);
 		
-		return extensionFieldRepository.findExtensionField(extensionName, fieldId);
+		for(ExtensionFieldEntity field : getExtensionFields(extensionName))
+		{
+			if(field.getId() == fieldId)
+			{
+				return field;
+			}
+		}
+		
+		return null;
 	}
 
 	/**
@@ -333,7 +512,6 @@ public class ExtensionService
 	 * @param extensionId Extension id under which field should be save
 	 * @param extensionFieldEntity Extension field to be saved
 	 */
-	@CacheEvict(value = "extensionFields", key = "#root.args[0]")
 	public void saveExtensionField(long extensionId, ExtensionFieldEntity extensionFieldEntity)
 	{
 		logger.trace("Saving new extension field for extension - {}", extensionId);
@@ -376,6 +554,8 @@ public class ExtensionService
 		{
 			throw new ServiceException("Failed to save extension field entity.");
 		}
+		
+		notifyExtensionChange(extensionFieldEntity.getSpaceIdentity());
 	}
 	
 	/**
@@ -394,6 +574,8 @@ public class ExtensionService
 		{
 			throw new ServiceException("Failed to update extension field details");
 		}
+		
+		notifyExtensionChange(securityService.getUserSpaceIdentity());
 	}
 	
 	/**
@@ -418,24 +600,27 @@ public class ExtensionService
 		{
 			throw new ServiceException("Failed to delete extension field with id '{}'", extensionFieldId);
 		}
+		
+		notifyExtensionChange(securityService.getUserSpaceIdentity());
 	}
 	
 	/**
 	 * Deletes all extended fields. Expected to be used by test cases for cleanup
 	 */
-	@CacheEvict(value = "extensionFields")
 	public void deleteAllExtensionFields()
 	{
 		logger.trace("Deleting all extensions");
 		extensionFieldRepository.deleteAll();
+		
+		notifyExtensionChange(null);
 	}
 	
 	/**
-	 * Maps data from specified model to entity.
-	 * @param model model from which extended field data needs to be mapped.
-	 * @param entity Entity to which extended field data needs to be set.
+	 * Fetches extension name of specified model.
+	 * @param model Model whose extension name needs to be fetched
+	 * @return Extension name of the model
 	 */
-	public void mapExtendedFieldsToEntity(IExtendableModel model, WebutilsExtendableEntity entity)
+	private String getExtensionName(IExtendableModel model)
 	{
 		//fetch extension name of the model
 		String extensionName = extensionContextProvider.getExtensionName(model);
@@ -447,8 +632,18 @@ public class ExtensionService
 			extensionName = extendableModel.name();
 		}
 		
+		return extensionName;
+	}
+	
+	/**
+	 * Maps data from specified model to entity.
+	 * @param model model from which extended field data needs to be mapped.
+	 * @param entity Entity to which extended field data needs to be set.
+	 */
+	public void mapExtendedFieldsToEntity(IExtendableModel model, WebutilsExtendableEntity entity)
+	{
 		//get extended field details
-		List<ExtensionFieldEntity> fields = getExtensionFields(extensionName);
+		List<ExtensionFieldEntity> fields = getExtensionFields(getExtensionName(model));
 		
 		if(fields == null || fields.isEmpty())
 		{
@@ -465,6 +660,41 @@ public class ExtensionService
 		}
 	}
 	
+	/**
+	 * Builds column names of specified extension fields, which can be used to fetch extended field data.
+	 * @param fields Fields whose column names are needed
+	 * @return Column names of the fields
+	 */
+	private Set<String> toColumnNames(List<ExtensionFieldEntity> fields)
+	{
+		Set<String> extendedFieldNames = new HashSet<>();
+		fields.stream().map(extFld -> extFld.getColumnName()).forEach(name -> extendedFieldNames.add(name));
+		
+		return extendedFieldNames;
+	}
+	
+	/**
+	 * Converts extended field data fetched from db (column name to value) into model extended field data (field name to value).
+	 * @param fields Extension fields
+	 * @param extensionFieldsData Data fetched from db. Can be null.
+	 * @return Model extended field data
+	 */
+	private Map<String, String> toModelExtendedFields(List<ExtensionFieldEntity> fields, ExtensionFieldsData extensionFieldsData)
+	{
+		//get extended field data, maps from column name to value
+		Map<String, String> extFieldData = (extensionFieldsData != null) ? extensionFieldsData.getExtendedFields() : null;
+		Map<String, String> modelExtFieldData = new HashMap<>();
+		
+		//set data mapping name to value
+		for(ExtensionFieldEntity field : fields)
+		{
+			modelExtFieldData.put(field.getName(), 
+					(extFieldData != null) ? extFieldData.get(IWebUtilsInternalConstants.EXTENSIONS_FIELD_NAME + "." + field.getColumnName()) : null);
+		}
+		
+		return modelExtFieldData;
+	}
+	
 	/**
 	 * Maps the data from specified entity to model.
 	 * @param repository Repository to be used for fetching extended field values
@@ -473,41 +703,80 @@ public class ExtensionService
 	 */
 	public void mapExtendedFieldsToModel(IWebutilsRepository<?> repository, long entityId, IExtendableModel model)
 	{
-		//fetch extension name of the model
-		String extensionName = extensionContextProvider.getExtensionName(model);
+		//get extended field details
+		List<ExtensionFieldEntity> fields = getExtensionFields(getExtensionName(model));
 		
-		//if context provider is not able to provide the name, fall back to default way of fetching
-		if(extensionName == null)
+		if(fields == null || fields.isEmpty())
 		{
-			ExtendableModel extendableModel = model.getClass().getAnnotation(ExtendableModel.class);
-			extensionName = extendableModel.name();
+			return;
 		}
 		
-		//get extended field details
-		List<ExtensionFieldEntity> fields = getExtensionFields(extensionName);
-		
-		if(fields == null || fields.isEmpty())
+		//fetch extension field data
+		ExtensionFieldsData extensionFieldsData = repository.fetchExtendedFields(entityId, toColumnNames(fields));
+		model.setExtendedFields(toModelExtendedFields(fields, extensionFieldsData));
+	}
+	
+	/**
+	 * Maps the extended field data of specified entities to corresponding models. Instead of fetching data
+	 * entity by entity, extended fields are fetched with single query per extension (per {@link #MAX_IDS_PER_QUERY} ids).
+	 * @param repository Repository to be used for fetching extended field values
+	 * @param entityIdToModel Entity id to model mapping, to which extended fields needs to be mapped
+	 */
+	public void mapExtendedFieldsToModels(IWebutilsRepository<?> repository, Map<Long, ? extends IExtendableModel> entityIdToModel)
+	{
+		if(entityIdToModel == null || entityIdToModel.isEmpty())
 		{
 			return;
 		}
 		
-		//build extension field names and fetch extension field data
-		Set<String> extendedFieldNames = new HashSet<>(); 
-		fields.stream().map(extFld -> extFld.getColumnName()).forEach(name -> extendedFieldNames.add(name));
+		//group the models based on extension, as different models can belong to different extensions
+		Map<String, Map<Long, IExtendableModel>> extensionToModels = new HashMap<>();
 		
-		ExtensionFieldsData extensionFieldsData = repository.fetchExtendedFields(entityId, extendedFieldNames);
+		for(Map.Entry<Long, ? extends IExtendableModel> entry : entityIdToModel.entrySet())
+		{
+			extensionToModels.computeIfAbsent(getExtensionName(entry.getValue()), name -> new HashMap<>()).put(entry.getKey(), entry.getValue());
+		}
 		
-		//get extended field data, maps from column name to value
-		Map<String, String> extFieldData = extensionFieldsData.getExtendedFields();
-		Map<String, String> modelExtFieldData = new HashMap<>();
+		List<ExtensionFieldEntity> fields = null;
+		Set<String> extendedFieldNames = null;
+		List<Long> ids = null;
+		Map<Long, ExtensionFieldsData> idToData = new HashMap<>();
 		
-		//set data mapping name to value
-		for(ExtensionFieldEntity field : fields)
+		for(Map.Entry<String, Map<Long, IExtendableModel>> extEntry : extensionToModels.entrySet())
 		{
-			modelExtFieldData.put(field.getName(), extFieldData.get(IWebUtilsInternalConstants.EXTENSIONS_FIELD_NAME + "." + field.getColumnName()));
+			//get extended field details
+			fields = getExtensionFields(extEntry.getKey());
+			
+			if(fields == null || fields.isEmpty())
+			{
+				continue;
+			}
+			
+			extendedFieldNames = toColumnNames(fields);
+			ids = new ArrayList<>(extEntry.getValue().keySet());
+			idToData.clear();
+			
+			//fetch extended data in chunks, to keep the size of IN condition under control
+			for(int i = 0; i < ids.size(); i += MAX_IDS_PER_QUERY)
+			{
+				List<ExtensionFieldsData> dataLst = repository.fetchExtendedFieldsByIds(ids.subList(i, Math.min(i + MAX_IDS_PER_QUERY, ids.size())), extendedFieldNames);
+				
+				if(dataLst == null)
+				{
+					continue;
+				}
+				
+				for(ExtensionFieldsData data : dataLst)
+				{
+					idToData.put(data.getId(), data);
+				}
+			}
+			
+			for(Map.Entry<Long, IExtendableModel> modelEntry : extEntry.getValue().entrySet())
+			{
+				modelEntry.getValue().setExtendedFields(toModelExtendedFields(fields, idToData.get(modelEntry.getKey())));
+			}
 		}
-		
-		model.setExtendedFields(modelExtFieldData);
 	}
 	
 	/**
@@ -521,6 +790,8 @@ public class ExtensionService
 		{
 			throw new InvalidStateException("Failed to update extension '{}' to name - {}", extensionId, newName);
 		}
+		
+		notifyExtensionChange(securityService.getUserSpaceIdentity());
 	}
 	
 	/**
@@ -530,5 +801,7 @@ public class ExtensionService
 	public void deleteExtension(long id)
 	{
 		extensionRepository.deleteById(id);
+		
+		notifyExtensionChange(securityService.getUserSpaceIdentity());
 	}
 }
@@ -25,8 +25,6 @@ package com.yukthi.webutils.services;
 
 import java.util.Date;
 
-import javax.annotation.PostConstruct;
-
 import org.apache.commons.lang3.time.DateUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -34,44 +32,42 @@ import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import com.yukthi.persistence.repository.RepositoryFactory;
+import com.yukthi.webutils.WebutilsConfiguration;
 import com.yukthi.webutils.annotations.CronJob;
-import com.yukthi.webutils.repository.file.IFileRepository;
 import com.yukthi.webutils.services.job.IJob;
 
 /**
- * Job to delete temporaty files. Expected to run once every day.
+ * Job to delete stale temporary files and file contents which are not referred by any file. Temp files 
+ * older than configured ttl are deleted in bounded batches, so the job is expected to run frequently. Full sweep of 
+ * content store(s) for unreferred contents is done once a day.
  * @author akiran
  */
-@CronJob(name = "Temp File Cleaner", cronExpression = "0 0 23 * * ?")
+@CronJob(name = "Temp File Cleaner", cronExpression = "0 0/10 * * * ?")
 public class FileCleanerJob implements IJob
 {
 	private static Logger logger = LogManager.getLogger(FileCleanerJob.class);
 	
 	/**
-	 * 12 hours time.
+	 * Interval (in hours) between full sweeps of content store(s).
 	 */
-	private static final int HOUR_12 = 12;
+	private static final int FULL_SWEEP_INTERVAL_HOURS = 24;
 	
 	/**
-	 * Repository factory to get file repository.
+	 * Time of last full sweep. Static, as new job instance is created for every execution.
 	 */
-	@Autowired
-	private RepositoryFactory repositoryFactory;
+	private static volatile Date lastFullSweepTime;
 	
 	/**
-	 * File repository to delete temp files.
+	 * File service to delete temp files and unused file contents.
 	 */
-	private IFileRepository fileRepository;
+	@Autowired
+	private FileService fileService;
 	
 	/**
-	 * Post constructor to get file repository.
+	 * Configuration for temp file cleanup.
 	 */
-	@PostConstruct
-	private void init()
-	{
-		fileRepository = repositoryFactory.getRepository(IFileRepository.class);
-	}
+	@Autowired
+	private WebutilsConfiguration configuration;
 	
 	/* (non-Javadoc)
 	 * @see com.yukthi.webutils.services.job.IJob#execute(java.lang.Object, org.quartz.JobExecutionContext)
@@ -81,10 +77,23 @@ public class FileCleanerJob implements IJob
 	{
 		logger.debug("Deleting temporary files");
 		
-		//delete temp files which are 12 hours older or greater
-		Date createdAfter = new Date();
-		createdAfter = DateUtils.addHours(createdAfter, -HOUR_12);
+		//delete temp files which are older than configured ttl
+		Date createdBefore = DateUtils.addMinutes(new Date(), -configuration.getTempFileTtlInMin());
+		
+		int fileCount = fileService.deleteTempFiles(createdBefore, configuration.getTempFileCleanupBatchSize(), 
+				configuration.getTempFileCleanupPauseMillis(), configuration.getTempFileCleanupMaxBatches());
+		
+		Date now = new Date();
+		boolean fullSweep = (lastFullSweepTime == null || DateUtils.addHours(lastFullSweepTime, FULL_SWEEP_INTERVAL_HOURS).before(now));
+		
+		logger.debug("Deleting unused file contents. Full sweep: {}", fullSweep);
+		int contentCount = fileService.collectUnusedContents(fullSweep);
+		
+		if(fullSweep)
+		{
+			lastFullSweepTime = now;
+		}
 		
-		fileRepository.deleteTempFiles(createdAfter);
+		logger.info("File cleanup deleted {} temp files and {} unused contents. Overall metrics - {}", fileCount, contentCount, fileService.getCleanupMetrics());
 	}
 }
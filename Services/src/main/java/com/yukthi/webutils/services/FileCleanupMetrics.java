@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cumulative metrics of file cleanup (temp files and unused contents) done by {@link FileService}
+ * since server start.
+ * 
+ * @author akiran
+ */
+public class FileCleanupMetrics
+{
+	/**
+	 * Number of temp files deleted.
+	 */
+	private AtomicLong tempFilesDeleted = new AtomicLong();
+	
+	/**
+	 * Total size (in bytes) of temp files deleted.
+	 */
+	private AtomicLong tempFileBytesDeleted = new AtomicLong();
+	
+	/**
+	 * Number of unused contents deleted from content store(s).
+	 */
+	private AtomicLong contentsDeleted = new AtomicLong();
+	
+	/**
+	 * Total size (in bytes) of unused contents deleted from content store(s).
+	 */
+	private AtomicLong contentBytesDeleted = new AtomicLong();
+	
+	/**
+	 * Time when cleanup was last executed.
+	 */
+	private volatile Date lastCleanupOn;
+	
+	/**
+	 * Adds specified temp files deletion to the metrics.
+	 * @param count Number of temp files deleted
+	 * @param bytes Size of deleted temp files
+	 */
+	void addTempFiles(long count, long bytes)
+	{
+		tempFilesDeleted.addAndGet(count);
+		tempFileBytesDeleted.addAndGet(bytes);
+		lastCleanupOn = new Date();
+	}
+	
+	/**
+	 * Adds specified content deletion to the metrics.
+	 * @param count Number of contents deleted
+	 * @param bytes Size of deleted contents
+	 */
+	void addContents(long count, long bytes)
+	{
+		contentsDeleted.addAndGet(count);
+		contentBytesDeleted.addAndGet(bytes);
+		lastCleanupOn = new Date();
+	}
+
+	/**
+	 * Gets the number of temp files deleted.
+	 *
+	 * @return the number of temp files deleted
+	 */
+	public long getTempFilesDeleted()
+	{
+		return tempFilesDeleted.get();
+	}
+
+	/**
+	 * Gets the total size (in bytes) of temp files deleted.
+	 *
+	 * @return the total size (in bytes) of temp files deleted
+	 */
+	public long getTempFileBytesDeleted()
+	{
+		return tempFileBytesDeleted.get();
+	}
+
+	/**
+	 * Gets the number of unused contents deleted from content store(s).
+	 *
+	 * @return the number of unused contents deleted from content store(s)
+	 */
+	public long getContentsDeleted()
+	{
+		return contentsDeleted.get();
+	}
+
+	/**
+	 * Gets the total size (in bytes) of unused contents deleted from content store(s).
+	 *
+	 * @return the total size (in bytes) of unused contents deleted from content store(s)
+	 */
+	public long getContentBytesDeleted()
+	{
+		return contentBytesDeleted.get();
+	}
+
+	/**
+	 * Gets the time when cleanup was last executed.
+	 *
+	 * @return the time when cleanup was last executed
+	 */
+	public Date getLastCleanupOn()
+	{
+		return lastCleanupOn;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder(super.toString());
+		builder.append("[");
+
+		builder.append("Temp files: ").append(tempFilesDeleted.get());
+		builder.append(",").append("Temp file bytes: ").append(tempFileBytesDeleted.get());
+		builder.append(",").append("Contents: ").append(contentsDeleted.get());
+		builder.append(",").append("Content bytes: ").append(contentBytesDeleted.get());
+
+		builder.append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.yukthi.webutils.annotations.CronJob;
+import com.yukthi.webutils.services.job.IJob;
+
+/**
+ * Job to detect and set content type of files which were saved without content type (before content
+ * type detection during save was added). Each run inspects limited number of files which are still without
+ * content type, so that the progress is derived from data and downloads never need to inspect file content.
+ * @author akiran
+ */
+@CronJob(name = "File Content Type Backfill", cronExpression = "0 0/15 * * * ?")
+public class FileContentTypeBackfillJob implements IJob
+{
+	private static Logger logger = LogManager.getLogger(FileContentTypeBackfillJob.class);
+	
+	/**
+	 * Max number of files whose content can be inspected in single run.
+	 */
+	private static final int MAX_FILES_PER_RUN = 200;
+	
+	/**
+	 * File service to update content types.
+	 */
+	@Autowired
+	private FileService fileService;
+	
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.services.job.IJob#execute(java.lang.Object, org.quartz.JobExecutionContext)
+	 */
+	@Override
+	public void execute(Object jobData, JobExecutionContext context) throws JobExecutionException
+	{
+		//serialize the runs, so that same files are not inspected by overlapping runs
+		synchronized(FileContentTypeBackfillJob.class)
+		{
+			long lastId = fileService.fillMissingContentTypes(0, MAX_FILES_PER_RUN);
+			
+			if(lastId < 0)
+			{
+				logger.debug("No files found with missing content type");
+				return;
+			}
+			
+			logger.debug("Content type is filled for files till file id - {}", lastId);
+		}
+	}
+}
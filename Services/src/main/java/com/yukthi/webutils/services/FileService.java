@@ -23,29 +23,59 @@
 
 package com.yukthi.webutils.services;
 
-import java.lang.reflect.Field;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.DateUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.yukthi.persistence.ITransaction;
+import com.yukthi.persistence.UniqueConstraintViolationException;
 import com.yukthi.persistence.repository.RepositoryFactory;
+import com.yukthi.persistence.repository.annotations.Operator;
+import com.yukthi.persistence.repository.search.SearchCondition;
+import com.yukthi.persistence.repository.search.SearchQuery;
 import com.yukthi.utils.exceptions.InvalidStateException;
+import com.yukthi.webutils.WebutilsConfiguration;
 import com.yukthi.webutils.common.FileInfo;
+import com.yukthi.webutils.common.ImageInfo;
 import com.yukthi.webutils.common.models.def.FieldDef;
 import com.yukthi.webutils.common.models.def.FieldType;
 import com.yukthi.webutils.common.models.def.ModelDef;
+import com.yukthi.webutils.repository.file.ContentKeyInfo;
+import com.yukthi.webutils.repository.file.DbFileContentStore;
+import com.yukthi.webutils.repository.file.FileContent;
+import com.yukthi.webutils.repository.file.FileDetails;
 import com.yukthi.webutils.repository.file.FileEntity;
+import com.yukthi.webutils.repository.file.IFileContentRepository;
+import com.yukthi.webutils.repository.file.IFileContentStore;
 import com.yukthi.webutils.repository.file.IFileRepository;
+import com.yukthi.webutils.repository.file.IReleasedContentRepository;
+import com.yukthi.webutils.repository.file.LocalFileContentStore;
+import com.yukthi.webutils.repository.file.OwnerFileInfo;
+import com.yukthi.webutils.repository.file.ReleasedContentEntity;
 import com.yukthi.webutils.security.ISecurityService;
+import com.yukthi.webutils.utils.WebAttachmentUtils;
 import com.yukthi.webutils.utils.WebUtils;
 
 /**
@@ -57,6 +87,27 @@ public class FileService
 {
 	private static Logger logger = LogManager.getLogger(FileService.class);
 	
+	/**
+	 * Max number of owner ids used in single query while fetching attachments of multiple owners.
+	 */
+	private static final int MAX_OWNERS_PER_QUERY = 500;
+	
+	/**
+	 * Max number of content keys used in single query while checking content references.
+	 */
+	private static final int MAX_CONTENT_KEYS_PER_QUERY = 500;
+	
+	/**
+	 * Max number of file ids used in single query while deleting multiple files.
+	 */
+	private static final int MAX_FILE_IDS_PER_QUERY = 500;
+	
+	/**
+	 * Time (in minutes) after last use, till which unreferenced content is retained. This ensures content
+	 * reused by a file, which is not yet committed, does not get deleted.
+	 */
+	private static final int CONTENT_RETENTION_MIN = 60;
+	
 	/**
 	 * Autowired repository factory, used to fetch repository.
 	 */
@@ -81,6 +132,36 @@ public class FileService
 	@Autowired
 	private ModelDetailsService modelDetailsService;
 
+	/**
+	 * Configuration used to fetch file store settings.
+	 */
+	@Autowired
+	private WebutilsConfiguration configuration;
+	
+	/**
+	 * Store used to maintain file contents. Applications can customize this by defining
+	 * a bean of this type. If not defined, based on configuration, file system store or
+	 * db store is used.
+	 */
+	@Autowired(required = false)
+	private IFileContentStore contentStore;
+	
+	/**
+	 * Db content store, used for reading contents stored in db when a different content
+	 * store is being used.
+	 */
+	private DbFileContentStore dbContentStore;
+	
+	/**
+	 * Repository to maintain keys of contents released by deleted files.
+	 */
+	private IReleasedContentRepository releasedContentRepository;
+	
+	/**
+	 * Metrics of temp files and contents deleted by this service.
+	 */
+	private FileCleanupMetrics cleanupMetrics = new FileCleanupMetrics();
+
 	/**
 	 * File repository.
 	 */
@@ -93,6 +174,21 @@ public class FileService
 	private void init()
 	{
 		this.repository = repositoryFactory.getRepository(IFileRepository.class);
+		this.dbContentStore = new DbFileContentStore(repositoryFactory.getRepository(IFileContentRepository.class));
+		this.releasedContentRepository = repositoryFactory.getRepository(IReleasedContentRepository.class);
+		
+		if(contentStore == null)
+		{
+			if(configuration.getFileStorePath() != null)
+			{
+				logger.debug("Using file system store for file contents at - {}", configuration.getFileStorePath());
+				contentStore = new LocalFileContentStore(new File(configuration.getFileStorePath()));
+			}
+			else
+			{
+				contentStore = dbContentStore;
+			}
+		}
 	}
 	
 	/**
@@ -150,7 +246,8 @@ public class FileService
 
 	/**
 	 * Saves files for specified owner. Also deletes existing files of specified owner, which are not 
-	 * mentioned in specified list.
+	 * mentioned in specified list. Existing files are fetched with single query and stale files are deleted
+	 * with single query (per {@link #MAX_FILE_IDS_PER_QUERY} files), expected to be invoked within a transaction.
 	 * @param ownerEntityType Owner entity type
 	 * @param fileInfoLst Files to save or retain
 	 * @param ownerField Owning field
@@ -158,33 +255,63 @@ public class FileService
 	 */
 	private void saveFilesForOwner(Collection<FileInfo> fileInfoLst, Class<?> ownerEntityType, String ownerField, long ownerId)
 	{
-		//collection to keep track of file ids to delete, by default this will all existing files
-		List<Long> idsToRemove = repository.fetchIdsByOwner(ownerEntityType.getName(), ownerField, ownerId, securityService.getUserSpaceIdentity());
+		String spaceIdentity = securityService.getUserSpaceIdentity();
+		List<FileDetails> existingFiles = repository.fetchFileDetailsByOwner(ownerEntityType.getName(), ownerField, ownerId, spaceIdentity);
 		
-		//if no files are currently present, use empty collection
-		if(idsToRemove == null)
-		{
-			idsToRemove = new ArrayList<>();
-		}
+		//ids of existing files to be retained
+		Set<Long> retainedIds = new HashSet<>();
+		List<FileInfo> newFiles = new ArrayList<>();
 		
-		//loop through the file list to retain or add
+		//segregate the files to be added and to be retained
 		for(FileInfo info : fileInfoLst)
 		{
 			//if new content is being specified add new file
 			if(info.getFile() != null)
 			{
-				this.save(info, ownerEntityType, ownerField, ownerId);
+				newFiles.add(info);
 				continue;
 			}
 			
-			//if no content is specified, delete info id from id list to remove
-			idsToRemove.remove(info.getId());
+			//if no content is specified, existing file needs to be retained
+			if(info.getId() != null)
+			{
+				retainedIds.add(info.getId());
+			}
+		}
+		
+		//existing files which are not mentioned as part of input list should be deleted
+		if(existingFiles != null && !existingFiles.isEmpty())
+		{
+			List<Long> idsToRemove = new ArrayList<>(existingFiles.size());
+			List<String> contentKeys = new ArrayList<>(existingFiles.size());
+			
+			for(FileDetails file : existingFiles)
+			{
+				if(retainedIds.contains(file.getId()))
+				{
+					continue;
+				}
+				
+				idsToRemove.add(file.getId());
+				
+				if(file.getContentKey() != null)
+				{
+					contentKeys.add(file.getContentKey());
+				}
+			}
+			
+			for(int i = 0; i < idsToRemove.size(); i += MAX_FILE_IDS_PER_QUERY)
+			{
+				repository.deleteByIds(idsToRemove.subList(i, Math.min(i + MAX_FILE_IDS_PER_QUERY, idsToRemove.size())), spaceIdentity);
+			}
+			
+			//contents are deleted later (by cleaner job) once it is confirmed they are not referred anymore
+			releaseContents(contentKeys);
 		}
 		
-		//existing ids are which are not mentioned as part of input list should be deleted
-		for(Long id : idsToRemove)
+		for(FileInfo info : newFiles)
 		{
-			repository.deleteById(id);
+			this.save(info, ownerEntityType, ownerField, ownerId);
 		}
 	}
 
@@ -217,31 +344,24 @@ public class FileService
 		}
 		
 		Object fieldValue = null;
-		Field field = null;
+		FieldDef fieldDef = null;
 
 		try(ITransaction transaction = repository.newOrExistingTransaction())
 		{
 			//loop through fields and save file information from file fields
-			for(FieldDef fieldDef : modelDef.getFields())
+			for(ModelAttachmentField attachmentField : modelDetailsService.getAttachmentFields(modelType))
 			{
 				//ignore non file fields
-				if(fieldDef.getFieldType() != FieldType.FILE)
+				if(attachmentField.getFieldType() != FieldType.FILE)
 				{
 					continue;
 				}
 				
 				//fetch file information
-				try
-				{
-					field = modelType.getDeclaredField(fieldDef.getName());
-					field.setAccessible(true);
-					fieldValue = field.get(model);
-				}catch(Exception ex)
-				{
-					throw new InvalidStateException(ex, "An error occurred while fetching file information from field - {}.{}", model.getClass().getName(), fieldDef.getName());
-				}
+				fieldDef = attachmentField.getFieldDef();
+				fieldValue = attachmentField.getValue(model);
 				
-				logger.debug("Saving file(s) specified on model field - {}.{}", model.getClass().getName(), field.getName()); 
+				logger.debug("Saving file(s) specified on model field - {}.{}", model.getClass().getName(), fieldDef.getName()); 
 				
 				//save file informations
 				if(fieldDef.isMultiValued())
@@ -287,7 +407,15 @@ public class FileService
 		userService.populateTrackingFieldForCreate(fileEntity);
 
 		//set extra file info
-		fileEntity.setSizeInMb(fileEntity.getFile().length());
+		fileEntity.setSizeInMb(file.getFile().length());
+		
+		//detect content type once, so that it need not be detected during downloads
+		if(StringUtils.isBlank(fileEntity.getContentType()) || WebAttachmentUtils.MIME_BINARY_FILE.equals(fileEntity.getContentType()))
+		{
+			fileEntity.setContentType(WebAttachmentUtils.detectContentType(file.getFile(), file.getFileName()));
+		}
+		
+		contentStore.store(fileEntity, file.getFile());
 		fileEntity.setVersion(1);
 		fileEntity.setOwnerEntityType(ownerEntityType.getName());
 		fileEntity.setOwnerEntityField(ownerEntityField);
@@ -317,7 +445,6 @@ public class FileService
 	 * @param entityType Owner entity type
 	 * @param ownerId Owner id
 	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public void readFilesForModel(Object model, Class<?> entityType, Long ownerId)
 	{
 		if(model == null || ownerId == null)
@@ -325,62 +452,161 @@ public class FileService
 			return;
 		}
 		
-		logger.trace("Trying to save files specified on model - {} under ownership - {}, {}", model, entityType, ownerId);
+		readAttachments(Collections.singletonList(model), entityType, Collections.singletonList(ownerId), EnumSet.of(FieldType.FILE));
+	}
+	
+	/**
+	 * Reads file and image information of specified model under specified entity ownership, using single
+	 * query for all attachment fields, and sets them on the model.
+	 * @param model Model for which attachments needs to be fetched
+	 * @param entityType Owner entity type
+	 * @param ownerId Owner id
+	 */
+	public void readAttachmentsForModel(Object model, Class<?> entityType, Long ownerId)
+	{
+		if(model == null || ownerId == null)
+		{
+			return;
+		}
 		
-		Class<?> modelType = model.getClass();
+		readAttachments(Collections.singletonList(model), entityType, Collections.singletonList(ownerId), EnumSet.of(FieldType.FILE, FieldType.IMAGE));
+	}
+	
+	/**
+	 * Reads file and image information of specified models, using single query for all models (per {@link #MAX_OWNERS_PER_QUERY} owners), 
+	 * and sets them on the models.
+	 * @param models Models for which attachments needs to be fetched. Null models are ignored.
+	 * @param entityType Owner entity type
+	 * @param ownerIds Owner ids of the models, in the same order of models
+	 */
+	public void readAttachmentsForModels(List<?> models, Class<?> entityType, List<Long> ownerIds)
+	{
+		readAttachments(models, entityType, ownerIds, EnumSet.of(FieldType.FILE, FieldType.IMAGE));
+	}
+	
+	/**
+	 * Reads attachments of specified field types for specified models and sets them on the models. Files of all the matching
+	 * fields of all models are fetched together and grouped by owner id and owner field.
+	 * @param models Models for which attachments needs to be fetched. Null models are ignored.
+	 * @param entityType Owner entity type
+	 * @param ownerIds Owner ids of the models, in the same order of models
+	 * @param fieldTypes Attachment field types to be read
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	void readAttachments(List<?> models, Class<?> entityType, List<Long> ownerIds, Set<FieldType> fieldTypes)
+	{
+		if(models == null || models.isEmpty())
+		{
+			return;
+		}
 		
-		//fetch model details
-		ModelDef modelDef = modelDetailsService.getModelDef(modelType);
+		//collect the attachment fields and owners to be fetched
+		Set<String> fieldNames = new HashSet<>();
+		Set<Long> ownerIdSet = new LinkedHashSet<>();
+		Object model = null;
 		
-		//if specified model is not marked as Model, ignore
-		if(modelDef == null)
+		for(int i = 0; i < models.size(); i++)
+		{
+			model = models.get(i);
+			
+			if(model == null || ownerIds.get(i) == null)
+			{
+				continue;
+			}
+			
+			for(ModelAttachmentField attachmentField : modelDetailsService.getAttachmentFields(model.getClass()))
+			{
+				if(fieldTypes.contains(attachmentField.getFieldType()))
+				{
+					fieldNames.add(attachmentField.getName());
+					ownerIdSet.add(ownerIds.get(i));
+				}
+			}
+		}
+		
+		if(fieldNames.isEmpty())
 		{
-			logger.trace("Specified model {} is not marked as @Model", model.getClass().getName());
 			return;
 		}
-
-		Field field = null;
-		List<FileInfo> filesFromDb = null;
-
-		//loop through fields and save file information from file fields
-		for(FieldDef fieldDef : modelDef.getFields())
+		
+		logger.trace("Fetching attachments of fields {} for owners - {}, {}", fieldNames, entityType.getName(), ownerIdSet);
+		
+		//fetch the files and group them by owner id and owner field
+		Map<Long, Map<String, List<FileInfo>>> ownerFiles = new HashMap<>();
+		List<Long> ownerIdLst = new ArrayList<>(ownerIdSet);
+		List<OwnerFileInfo> filesFromDb = null;
+		
+		for(int i = 0; i < ownerIdLst.size(); i += MAX_OWNERS_PER_QUERY)
 		{
-			//ignore non file fields
-			if(fieldDef.getFieldType() != FieldType.FILE)
+			filesFromDb = repository.fetchByOwners(entityType.getName(), fieldNames, 
+					ownerIdLst.subList(i, Math.min(i + MAX_OWNERS_PER_QUERY, ownerIdLst.size())), securityService.getUserSpaceIdentity());
+			
+			if(filesFromDb == null)
 			{
 				continue;
 			}
 			
-			//fetch files from db
-			filesFromDb = repository.fetchByOwner(entityType.getName(), fieldDef.getName(), ownerId, securityService.getUserSpaceIdentity());
+			//sort by id, so that multi valued fields retain file order
+			filesFromDb = new ArrayList<>(filesFromDb);
+			filesFromDb.sort((file1, file2) -> Long.compare(file1.getId(), file2.getId()));
 			
-			if(filesFromDb == null || filesFromDb.isEmpty())
+			for(OwnerFileInfo file : filesFromDb)
+			{
+				ownerFiles
+					.computeIfAbsent(file.getOwnerEntityId(), id -> new HashMap<>())
+					.computeIfAbsent(file.getOwnerEntityField(), field -> new ArrayList<>())
+					.add(file.toFileInfo());
+			}
+		}
+		
+		//set the files on model fields
+		Map<String, List<FileInfo>> fieldFiles = null;
+		List<FileInfo> files = null;
+		
+		for(int i = 0; i < models.size(); i++)
+		{
+			model = models.get(i);
+			fieldFiles = (model != null) ? ownerFiles.get(ownerIds.get(i)) : null;
+			
+			if(fieldFiles == null)
 			{
 				continue;
 			}
 			
-			logger.debug("Saving file(s) specified on model field - {}.{}", model.getClass().getName(), fieldDef.getName()); 
-
-			//set the files on field
-			try
+			for(ModelAttachmentField attachmentField : modelDetailsService.getAttachmentFields(model.getClass()))
 			{
-				field = modelType.getDeclaredField(fieldDef.getName());
-				field.setAccessible(true);
-
-				if(fieldDef.isMultiValued())
+				files = fieldFiles.get(attachmentField.getName());
+				
+				if(files == null || !fieldTypes.contains(attachmentField.getFieldType()))
+				{
+					continue;
+				}
+				
+				logger.debug("Setting attachment(s) on model field - {}.{}", model.getClass().getName(), attachmentField.getName()); 
+				
+				if(attachmentField.getFieldType() == FieldType.IMAGE)
+				{
+					attachmentField.setValue(model, new ImageInfo( files.get(0).getId() ));
+				}
+				else if(attachmentField.getFieldDef().isMultiValued())
 				{
-					Collection<Object> resCollection = (Collection) fieldDef.getCompatibleCollectionType().newInstance();
-					resCollection.addAll(filesFromDb);
+					Collection<Object> resCollection = null;
 					
-					field.set(model, resCollection);
+					try
+					{
+						resCollection = (Collection) attachmentField.getFieldDef().getCompatibleCollectionType().newInstance();
+					}catch(Exception ex)
+					{
+						throw new InvalidStateException(ex, "An error occurred while creating collection for field - {}.{}", model.getClass().getName(), attachmentField.getName());
+					}
+					
+					resCollection.addAll(files);
+					attachmentField.setValue(model, resCollection);
 				}
 				else
 				{
-					field.set(model, filesFromDb.get(0));
+					attachmentField.setValue(model, files.get(0));
 				}
-			}catch(Exception ex)
-			{
-				throw new InvalidStateException(ex, "An error occurred while setting file information to field - {}.{}", model.getClass().getName(), field.getName());
 			}
 		}
 	}
@@ -418,8 +644,14 @@ public class FileService
 	{
 		logger.trace("Deleting file with id - {}", id);
 		
+		String contentKey = repository.fetchContentKey(id);
 		boolean res = repository.deleteById(id);
 		
+		if(res && contentKey != null)
+		{
+			releaseContents(Collections.singletonList(contentKey));
+		}
+		
 		return res;
 	}
 	
@@ -434,12 +666,260 @@ public class FileService
 	{
 		logger.trace("Deleting file matching with owner - {}, {}, {}", ownerEntityType.getName(), ownerEntityField, ownerEntityId);
 		
-		int count = repository.deleteByOwner(ownerEntityType.getName(), ownerEntityField, ownerEntityId, securityService.getUserSpaceIdentity());
+		String spaceIdentity = securityService.getUserSpaceIdentity();
+		List<String> contentKeys = repository.fetchContentKeysByOwner(ownerEntityType.getName(), ownerEntityField, ownerEntityId, spaceIdentity);
+		int count = repository.deleteByOwner(ownerEntityType.getName(), ownerEntityField, ownerEntityId, spaceIdentity);
 		
 		logger.debug("Number of files deleted - " + count);
 		
+		//contents are deleted later (by cleaner job) once it is confirmed they are not referred anymore
+		if(count > 0 && contentKeys != null)
+		{
+			releaseContents(contentKeys);
+		}
+		
 		return (count > 0);
 	}
+	
+	/**
+	 * Deletes temp files (files without owner) which are created on or before specified time. Files
+	 * are deleted in batches of specified size, pausing between the batches, so that the cleanup does not
+	 * hold locks or load the db for long. Contents of deleted files are released, to be deleted by 
+	 * {@link #collectUnusedContents(boolean)}.
+	 * @param createdBefore Temp files created on or before this time are deleted
+	 * @param batchSize Max number of files to delete in single batch
+	 * @param pauseMillis Time to pause between the batches
+	 * @param maxBatches Max number of batches to execute. Remaining files are expected to be deleted in next invocation.
+	 * @return Number of temp files deleted
+	 */
+	public int deleteTempFiles(Date createdBefore, int batchSize, long pauseMillis, int maxBatches)
+	{
+		List<FileDetails> files = null;
+		List<Long> ids = new ArrayList<>(batchSize);
+		long lastId = 0, bytes = 0;
+		int count = 0, batchCount = 0;
+		
+		for(int batch = 0; batch < maxBatches; batch++)
+		{
+			if(batch > 0 && pauseMillis > 0)
+			{
+				try
+				{
+					Thread.sleep(pauseMillis);
+				}catch(InterruptedException ex)
+				{
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			
+			SearchQuery searchQuery = new SearchQuery();
+			searchQuery.addCondition(new SearchCondition("ownerEntityId", Operator.EQ, 0L));
+			searchQuery.addCondition(new SearchCondition("createdOn", Operator.LE, createdBefore));
+			searchQuery.addCondition(new SearchCondition("id", Operator.GT, lastId));
+			searchQuery.setResultsLimit(batchSize);
+			
+			files = repository.searchFileDetails(searchQuery);
+			
+			if(files == null || files.isEmpty())
+			{
+				break;
+			}
+			
+			ids.clear();
+			bytes = 0;
+			
+			for(FileDetails file : files)
+			{
+				ids.add(file.getId());
+				bytes += file.getSizeInMb();
+				lastId = Math.max(lastId, file.getId());
+			}
+			
+			//files converted to permanent files in the meantime, will not get deleted
+			batchCount = repository.deleteTempFilesByIds(ids);
+			
+			//contents are released even if file deletion is not confirmed, as they are deleted only when unreferred
+			List<String> contentKeys = new ArrayList<>(files.size());
+			
+			for(FileDetails file : files)
+			{
+				contentKeys.add(file.getContentKey());
+			}
+			
+			releaseContents(contentKeys);
+			
+			//when few files are not deleted, bytes are approximated proportionally
+			if(batchCount < ids.size())
+			{
+				bytes = (bytes * batchCount) / ids.size();
+			}
+			
+			cleanupMetrics.addTempFiles(batchCount, bytes);
+			count += batchCount;
+			
+			if(files.size() < batchSize)
+			{
+				break;
+			}
+		}
+		
+		logger.debug("Deleted {} temp files created on or before - {}", count, createdBefore);
+		return count;
+	}
+	
+	/**
+	 * Gets the metrics of temp files and contents deleted by this service.
+	 *
+	 * @return the metrics of temp files and contents deleted by this service
+	 */
+	public FileCleanupMetrics getCleanupMetrics()
+	{
+		return cleanupMetrics;
+	}
+	
+	/**
+	 * Fetches the store which maintains content with specified key.
+	 * @param contentKey Content key
+	 * @return Store maintaining the content
+	 */
+	private IFileContentStore getContentStore(String contentKey)
+	{
+		return DbFileContentStore.isDbContentKey(contentKey) ? dbContentStore : contentStore;
+	}
+	
+	/**
+	 * Persists specified content keys as released, so that they get checked (and deleted when not referred) by
+	 * {@link #collectUnusedContents(boolean)}. As keys are persisted as part of current transaction, keys released
+	 * by rolled back deletions are discarded automatically.
+	 * @param contentKeys Keys of the contents released. Null keys are ignored.
+	 */
+	private void releaseContents(Collection<String> contentKeys)
+	{
+		Date now = new Date();
+		
+		for(String contentKey : contentKeys)
+		{
+			if(contentKey == null || releasedContentRepository.updateReleasedOn(contentKey, now))
+			{
+				continue;
+			}
+			
+			ReleasedContentEntity releasedContent = new ReleasedContentEntity();
+			releasedContent.setContentKey(contentKey);
+			releasedContent.setReleasedOn(now);
+			
+			try
+			{
+				releasedContentRepository.save(releasedContent);
+			}catch(UniqueConstraintViolationException ex)
+			{
+				//same content got released concurrently
+				releasedContentRepository.updateReleasedOn(contentKey, now);
+			}
+		}
+	}
+	
+	/**
+	 * Deletes contents which are not referred by any file. Contents released by deleted files are checked, 
+	 * and when full sweep is requested all contents of the store(s) are checked. Keys are processed in batches,
+	 * so that large number of keys are never loaded at once. Contents which are released or used recently
+	 * are retained, as the files referring them might not be committed yet.
+	 * @param fullSweep If true, all contents of store(s) are checked
+	 * @return Number of contents deleted
+	 */
+	public int collectUnusedContents(boolean fullSweep)
+	{
+		Date unusedSince = DateUtils.addMinutes(new Date(), -CONTENT_RETENTION_MIN);
+		List<ContentKeyInfo> keyInfos = null;
+		List<String> contentKeys = null;
+		long lastId = 0;
+		int count = 0;
+		
+		while(true)
+		{
+			SearchQuery searchQuery = new SearchQuery();
+			searchQuery.addCondition(new SearchCondition("releasedOn", Operator.LE, unusedSince));
+			searchQuery.addCondition(new SearchCondition("id", Operator.GT, lastId));
+			searchQuery.setResultsLimit(MAX_CONTENT_KEYS_PER_QUERY);
+			
+			keyInfos = releasedContentRepository.searchReleasedKeys(searchQuery);
+			
+			if(keyInfos == null || keyInfos.isEmpty())
+			{
+				break;
+			}
+			
+			contentKeys = new ArrayList<>(keyInfos.size());
+			
+			for(ContentKeyInfo keyInfo : keyInfos)
+			{
+				contentKeys.add(keyInfo.getContentKey());
+			}
+			
+			lastId = keyInfos.get(keyInfos.size() - 1).getId();
+			count += deleteUnusedContents(contentKeys, unusedSince);
+			
+			//keys released again in the meantime are retained, so that they are checked again
+			releasedContentRepository.deleteReleasedKeys(contentKeys, unusedSince);
+			
+			if(keyInfos.size() < MAX_CONTENT_KEYS_PER_QUERY)
+			{
+				break;
+			}
+		}
+		
+		if(fullSweep)
+		{
+			AtomicInteger sweepCount = new AtomicInteger();
+			
+			contentStore.fetchContentKeys(unusedSince, MAX_CONTENT_KEYS_PER_QUERY, keys -> sweepCount.addAndGet(deleteUnusedContents(keys, unusedSince)));
+			
+			if(contentStore != dbContentStore)
+			{
+				dbContentStore.fetchContentKeys(unusedSince, MAX_CONTENT_KEYS_PER_QUERY, keys -> sweepCount.addAndGet(deleteUnusedContents(keys, unusedSince)));
+			}
+			
+			count += sweepCount.get();
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Deletes specified contents which are not referred by any file and are not used after specified time.
+	 * @param contentKeys Keys of contents to check. Expected to be within {@link #MAX_CONTENT_KEYS_PER_QUERY} limit.
+	 * @param unusedSince Time after which content should not have been used
+	 * @return Number of contents deleted
+	 */
+	private int deleteUnusedContents(List<String> contentKeys, Date unusedSince)
+	{
+		List<String> usedKeyLst = repository.fetchUsedContentKeys(contentKeys);
+		Set<String> usedKeys = (usedKeyLst != null) ? new HashSet<>(usedKeyLst) : Collections.<String>emptySet();
+		int count = 0;
+		long size = 0, bytes = 0;
+		
+		for(String contentKey : contentKeys)
+		{
+			if(usedKeys.contains(contentKey))
+			{
+				continue;
+			}
+			
+			size = getContentStore(contentKey).delete(contentKey, unusedSince);
+			
+			if(size >= 0)
+			{
+				count++;
+				bytes += size;
+			}
+		}
+		
+		cleanupMetrics.addContents(count, bytes);
+		
+		logger.debug("Deleted {} unused contents ({} bytes) out of {} checked contents", count, bytes, contentKeys.size());
+		return count;
+	}
 
 	/**
 	 * Fetches file entity for specified id.
@@ -465,7 +945,98 @@ public class FileService
 	}
 	
 	/**
-	 * Fetches file entity with specified ownership details.
+	 * Opens the content of specified file entity. Returned content should be closed once it is used.
+	 * @param fileEntity File entity whose content is needed
+	 * @return Content of the file
+	 */
+	public FileContent openContent(FileEntity fileEntity)
+	{
+		if(contentStore != dbContentStore && contentStore.isStoredContent(fileEntity))
+		{
+			return contentStore.fetch(fileEntity);
+		}
+		
+		//content stored as part of file entity is not loaded for file details, load complete entity
+		if(fileEntity.getContentKey() == null && fileEntity.getFile() == null)
+		{
+			FileEntity fullEntity = repository.findByIdAndUserSpace(fileEntity.getId(), fileEntity.getSpaceIdentity());
+			
+			if(fullEntity == null)
+			{
+				throw new InvalidStateException("No file found with id - {}", fileEntity.getId());
+			}
+			
+			return dbContentStore.fetch(fullEntity);
+		}
+		
+		//content stored in db (or stored before switching to current store)
+		return dbContentStore.fetch(fileEntity);
+	}
+
+	/**
+	 * Fetches file details (as file entity without content) based on id and secured flag. Content of the 
+	 * file can be opened using {@link #openContent(FileEntity)}.
+	 * @param id Id of the file to be fetched.
+	 * @param secured Specifies whether the file is secured file or not.
+	 * @return Matching file without content.
+	 */
+	public FileEntity getFileDetails(Long id, boolean secured)
+	{
+		logger.trace("Fetching file details for id - {} and security flag - {}", id, secured);
+		
+		FileDetails fileDetails = repository.fetchFileDetails(id, secured ? securityService.getUserSpaceIdentity() : "");
+		return (fileDetails != null) ? fileDetails.toFileEntity() : null;
+	}
+
+	/**
+	 * Detects and sets content type of files which were saved without content type. Files are checked
+	 * in the order of their ids. As checked files get content type, the progress is maintained by data itself
+	 * and calling this method again continues with the remaining files.
+	 * @param afterId Files with id greater than this id are checked
+	 * @param maxFiles Max number of files whose content can be inspected
+	 * @return Id of the last file checked. -1, if no files are found.
+	 */
+	public long fillMissingContentTypes(long afterId, int maxFiles)
+	{
+		//null value results in IS NULL check
+		SearchQuery searchQuery = new SearchQuery();
+		searchQuery.addCondition(new SearchCondition("contentType", Operator.EQ, null));
+		searchQuery.addCondition(new SearchCondition("id", Operator.GT, afterId));
+		searchQuery.setResultsLimit(maxFiles);
+		
+		List<FileDetails> filesDetails = repository.searchFileDetails(searchQuery);
+		
+		if(filesDetails == null || filesDetails.isEmpty())
+		{
+			return -1;
+		}
+		
+		long lastId = -1;
+		String contentType = null;
+		
+		for(FileDetails details : filesDetails)
+		{
+			lastId = details.getId();
+			
+			try(FileContent content = openContent(details.toFileEntity()))
+			{
+				contentType = WebAttachmentUtils.detectContentType(content.getFile(), details.getFileName());
+			}catch(RuntimeException ex)
+			{
+				logger.warn("Failed to read content of file {} for content type detection", details.getId(), ex);
+				contentType = WebAttachmentUtils.MIME_BINARY_FILE;
+			}
+			
+			repository.updateContentType(details.getId(), contentType);
+		}
+		
+		logger.debug("Content type got updated for {} files till file id - {}", filesDetails.size(), lastId);
+		return lastId;
+	}
+
+	/**
+	 * Fetches file entity with specified ownership details. The file set on returned info will be
+	 * owned by the caller.
 	 * @param entityType Entity owner type
 	 * @param field Entity field with which file is associated
 	 * @param ownerId Entity owner id.
@@ -481,7 +1052,25 @@ public class FileService
 		}
 		
 		FileInfo fileInfo = WebUtils.convertBean(file, FileInfo.class);
-		fileInfo.setFile(file.getFile());
+		FileContent content = openContent(file);
+		
+		//content maintained by store should not be exposed, as caller owns the returned file
+		if(content.isTemporary())
+		{
+			fileInfo.setFile(content.getFile());
+			return fileInfo;
+		}
+		
+		try
+		{
+			File tempFile = File.createTempFile("file", ".tmp");
+			Files.copy(content.getFile().toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			
+			fileInfo.setFile(tempFile);
+		}catch(IOException ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while copying content of file - {}", file.getId());
+		}
 		
 		return fileInfo;
 	}
@@ -0,0 +1,370 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.yukthi.utils.exceptions.InvalidStateException;
+import com.yukthi.webutils.WebutilsConfiguration;
+import com.yukthi.webutils.repository.file.FileContent;
+import com.yukthi.webutils.repository.file.FileEntity;
+import com.yukthi.webutils.utils.DiskLruCache;
+
+/**
+ * Service to generate resized versions (derivatives) of image files. Derivatives are generated on demand by
+ * bounded worker pool and are cached on disk (with LRU eviction). Derivatives are keyed by file id and version,
+ * so that derivatives of updated files are not used (and get evicted eventually).
+ * 
+ * @author akiran
+ */
+@Service
+public class ImageDerivativeService
+{
+	private static Logger logger = LogManager.getLogger(ImageDerivativeService.class);
+	
+	/**
+	 * Max width or height of derivatives.
+	 */
+	public static final int MAX_DIMENSION = 2048;
+	
+	/**
+	 * Max time (in seconds) to wait for derivative generation.
+	 */
+	private static final int GENERATION_TIMEOUT_SEC = 30;
+	
+	/**
+	 * Formats in which derivatives can be generated.
+	 */
+	private static final Set<String> SUPPORTED_FORMATS = new HashSet<>(Arrays.asList("png", "jpg", "gif"));
+	
+	/**
+	 * File service to read image content.
+	 */
+	@Autowired
+	private FileService fileService;
+	
+	/**
+	 * Configuration to fetch cache and worker settings.
+	 */
+	@Autowired
+	private WebutilsConfiguration configuration;
+	
+	/**
+	 * Disk cache of generated derivatives.
+	 */
+	private DiskLruCache cache;
+	
+	/**
+	 * Worker pool used to generate derivatives.
+	 */
+	private ThreadPoolExecutor executor;
+	
+	/**
+	 * Derivatives being generated currently, so that concurrent requests of same derivative
+	 * are served by single generation. Entries are removed by the generation task itself on completion.
+	 */
+	private ConcurrentMap<String, Future<File>> pendingDerivatives = new ConcurrentHashMap<>();
+	
+	/**
+	 * Initializes the cache and worker pool.
+	 */
+	@PostConstruct
+	private void init()
+	{
+		File cacheFolder = (configuration.getImageCachePath() != null) ? 
+				new File(configuration.getImageCachePath()) : new File(System.getProperty("java.io.tmpdir"), "webutils-image-cache");
+		
+		logger.debug("Using image derivative cache folder - {}", cacheFolder.getPath());
+		cache = new DiskLruCache(cacheFolder, configuration.getImageCacheSizeInMb() * 1024L * 1024L);
+		
+		AtomicInteger threadCount = new AtomicInteger();
+		int poolSize = configuration.getImageResizeThreadCount();
+		
+		executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(configuration.getImageResizeQueueSize()), runnable -> 
+		{
+			Thread thread = new Thread(runnable, "image-resize-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Stops the worker pool.
+	 */
+	@PreDestroy
+	private void destroy()
+	{
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Converts specified format into derivative format.
+	 * @param format Format to convert (like png, jpg, jpeg)
+	 * @return Derivative format. Null, if format is not supported.
+	 */
+	public static String toSupportedFormat(String format)
+	{
+		if(format == null)
+		{
+			return null;
+		}
+		
+		format = format.toLowerCase();
+		
+		if("jpeg".equals(format))
+		{
+			return "jpg";
+		}
+		
+		return SUPPORTED_FORMATS.contains(format) ? format : null;
+	}
+	
+	/**
+	 * Fetches content of derivative of specified image file, with specified size and format. Image is scaled to fit 
+	 * within specified size, retaining aspect ratio. Images are not scaled up.
+	 * @param fileEntity Image file whose derivative is needed
+	 * @param width Max width of the derivative. Zero, if width should not be restricted.
+	 * @param height Max height of the derivative. Zero, if height should not be restricted.
+	 * @param format Format of derivative, should be one of the supported formats
+	 * @return Derivative content. Should be closed by the caller, till then the derivative file is not evicted from the cache.
+	 * @throws RejectedExecutionException If derivative can not be generated currently, as workers are busy
+	 */
+	public FileContent fetchDerivative(FileEntity fileEntity, int width, int height, String format)
+	{
+		if(width < 0 || height < 0 || width > MAX_DIMENSION || height > MAX_DIMENSION || (width == 0 && height == 0))
+		{
+			throw new InvalidStateException("Invalid derivative dimensions specified - {}x{}", width, height);
+		}
+		
+		if(!SUPPORTED_FORMATS.contains(format))
+		{
+			throw new InvalidStateException("Unsupported derivative format specified - {}", format);
+		}
+		
+		String key = fileEntity.getId() + "-" + fileEntity.getVersion() + "-" + width + "x" + height + "." + format;
+		File file = cache.acquire(key);
+		
+		if(file != null)
+		{
+			return new FileContent(file, () -> cache.release(key));
+		}
+		
+		FutureTask<File> task = new FutureTask<>(() -> generate(fileEntity, width, height, format, key));
+		Future<File> future = pendingDerivatives.putIfAbsent(key, task);
+		
+		//if generation is not already in progress, submit the new task
+		if(future == null)
+		{
+			future = task;
+			
+			try
+			{
+				executor.execute(() -> 
+				{
+					try
+					{
+						task.run();
+					}finally
+					{
+						pendingDerivatives.remove(key, task);
+					}
+				});
+			}catch(RejectedExecutionException ex)
+			{
+				pendingDerivatives.remove(key, task);
+				throw ex;
+			}
+		}
+		
+		try
+		{
+			future.get(GENERATION_TIMEOUT_SEC, TimeUnit.SECONDS);
+		}catch(ExecutionException ex)
+		{
+			throw new InvalidStateException(ex.getCause(), "An error occurred while generating derivative of file - {}", fileEntity.getId());
+		}catch(TimeoutException ex)
+		{
+			throw new RejectedExecutionException("Derivative of file " + fileEntity.getId() + " is not generated in expected time", ex);
+		}catch(InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InvalidStateException(ex, "Thread got interrupted while waiting for derivative of file - {}", fileEntity.getId());
+		}
+		
+		file = cache.acquire(key);
+		
+		//generated derivative can get evicted before it is acquired, when cache is under heavy load
+		if(file == null)
+		{
+			throw new RejectedExecutionException("Derivative of file " + fileEntity.getId() + " got evicted before it could be served");
+		}
+		
+		return new FileContent(file, () -> cache.release(key));
+	}
+	
+	/**
+	 * Generates derivative of specified image and adds it to cache.
+	 * @param fileEntity Image file
+	 * @param width Max width of the derivative
+	 * @param height Max height of the derivative
+	 * @param format Format of the derivative
+	 * @param key Cache key of the derivative
+	 * @return Cached derivative file
+	 * @throws IOException If image read or write fails
+	 */
+	private File generate(FileEntity fileEntity, int width, int height, String format, String key) throws IOException
+	{
+		BufferedImage image = null;
+		
+		try(FileContent content = fileService.openContent(fileEntity); 
+				ImageInputStream imageStream = ImageIO.createImageInputStream(content.getFile()))
+		{
+			Iterator<ImageReader> readers = (imageStream != null) ? ImageIO.getImageReaders(imageStream) : null;
+			
+			if(readers == null || !readers.hasNext())
+			{
+				throw new InvalidStateException("Content of file {} is not a supported image", fileEntity.getId());
+			}
+			
+			ImageReader reader = readers.next();
+			
+			try
+			{
+				reader.setInput(imageStream, true, true);
+				
+				//check dimensions from image header, before decoding the pixels into memory
+				long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+				
+				if(pixels > configuration.getImageMaxPixels())
+				{
+					throw new InvalidStateException("Image file {} is too large ({} pixels) for generating derivatives. Max allowed pixels: {}", 
+							fileEntity.getId(), pixels, configuration.getImageMaxPixels());
+				}
+				
+				image = reader.read(0);
+			}finally
+			{
+				reader.dispose();
+			}
+		}
+		
+		double scale = 1;
+		
+		if(width > 0)
+		{
+			scale = Math.min(scale, (double) width / image.getWidth());
+		}
+		
+		if(height > 0)
+		{
+			scale = Math.min(scale, (double) height / image.getHeight());
+		}
+		
+		int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+		int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+		boolean alpha = !"jpg".equals(format);
+		
+		//scale down in steps (halving the size), as single step bilinear scaling results in poor quality 
+		//	for large reductions
+		while(image.getWidth() / 2 >= targetWidth && image.getHeight() / 2 >= targetHeight)
+		{
+			image = scale(image, image.getWidth() / 2, image.getHeight() / 2, alpha);
+		}
+		
+		image = scale(image, targetWidth, targetHeight, alpha);
+		
+		File tempFile = cache.createTempFile();
+		
+		try
+		{
+			if(!ImageIO.write(image, format, tempFile))
+			{
+				throw new InvalidStateException("No image writer found for format - {}", format);
+			}
+			
+			logger.debug("Generated derivative {} of size {}x{} for file - {}", key, targetWidth, targetHeight, fileEntity.getId());
+			return cache.put(key, tempFile);
+		}finally
+		{
+			tempFile.delete();
+		}
+	}
+	
+	/**
+	 * Scales specified image to specified size.
+	 * @param image Image to scale
+	 * @param width Target width
+	 * @param height Target height
+	 * @param alpha Whether transparency should be retained. If false, transparent areas are filled with white.
+	 * @return Scaled image
+	 */
+	private static BufferedImage scale(BufferedImage image, int width, int height, boolean alpha)
+	{
+		BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = target.createGraphics();
+		
+		try
+		{
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(image, 0, 0, width, height, alpha ? null : Color.WHITE, null);
+		}finally
+		{
+			graphics.dispose();
+		}
+		
+		return target;
+	}
+}
@@ -1,7 +1,7 @@
 package com.yukthi.webutils.services;
 
-import java.lang.reflect.Field;
-import java.util.List;
+import java.util.Collections;
+import java.util.EnumSet;
 
 import javax.annotation.PostConstruct;
 
@@ -13,9 +13,7 @@ import org.springframework.stereotype.Service;
 import com.yukthi.persistence.ITransaction;
 import com.yukthi.persistence.repository.RepositoryFactory;
 import com.yukthi.utils.exceptions.InvalidStateException;
-import com.yukthi.webutils.common.FileInfo;
 import com.yukthi.webutils.common.ImageInfo;
-import com.yukthi.webutils.common.models.def.FieldDef;
 import com.yukthi.webutils.common.models.def.FieldType;
 import com.yukthi.webutils.common.models.def.ModelDef;
 import com.yukthi.webutils.repository.file.IFileRepository;
@@ -48,6 +46,12 @@ public class ImageService
 	 */
 	@Autowired
 	private ISecurityService securityService;
+	
+	/**
+	 * File service used to read image information.
+	 */
+	@Autowired
+	private FileService fileService;
 
 	/**
 	 * File repository.
@@ -92,38 +96,31 @@ public class ImageService
 		}
 		
 		Object fieldValue = null;
-		Field field = null;
+		String fieldName = null;
 		
 		ImageInfo imageInfo = null;
 		
 		try(ITransaction transaction = repository.newOrExistingTransaction())
 		{
 			//loop through fields and save file information from file fields
-			for(FieldDef fieldDef : modelDef.getFields())
+			for(ModelAttachmentField attachmentField : modelDetailsService.getAttachmentFields(modelType))
 			{
-				//ignore non file fields
-				if(fieldDef.getFieldType() != FieldType.IMAGE)
+				//ignore non image fields
+				if(attachmentField.getFieldType() != FieldType.IMAGE)
 				{
 					continue;
 				}
 				
-				//fetch file information
-				try
-				{
-					field = modelType.getDeclaredField(fieldDef.getName());
-					field.setAccessible(true);
-					fieldValue = field.get(model);
-				}catch(Exception ex)
-				{
-					throw new InvalidStateException(ex, "An error occurred while fetching image information from field - {}.{}", model.getClass().getName(), fieldDef.getName());
-				}
+				//fetch image information
+				fieldName = attachmentField.getName();
+				fieldValue = attachmentField.getValue(model);
 				
 				if(fieldValue == null)
 				{
 					continue;
 				}
 				
-				logger.debug("Saving image specified on model field - {}.{}", model.getClass().getName(), field.getName()); 
+				logger.debug("Saving image specified on model field - {}.{}", model.getClass().getName(), fieldName); 
 				
 				imageInfo = (ImageInfo) fieldValue;
 				
@@ -132,8 +129,9 @@ public class ImageService
 					continue;
 				}
 
-				repository.deleteByOwner(entityType.getName(), field.getName(), ownerId, securityService.getUserSpaceIdentity());
-				repository.updateToPermanentFile(imageInfo.getFileId(), entityType.getName(), field.getName(), ownerId, securityService.getUserSpaceIdentity());
+				//delete through file service, so that content of old image gets released
+				fileService.delete(entityType, fieldName, ownerId);
+				repository.updateToPermanentFile(imageInfo.getFileId(), entityType.getName(), fieldName, ownerId, securityService.getUserSpaceIdentity());
 			}
 			
 			transaction.commit();
@@ -157,53 +155,6 @@ public class ImageService
 			return;
 		}
 		
-		logger.trace("Trying to save files specified on model - {} under ownership - {}, {}", model, entityType, ownerId);
-		
-		Class<?> modelType = model.getClass();
-		
-		//fetch model details
-		ModelDef modelDef = modelDetailsService.getModelDef(modelType);
-		
-		//if specified model is not marked as Model, ignore
-		if(modelDef == null)
-		{
-			logger.trace("Specified model {} is not marked as @Model ", model.getClass().getName());
-			return;
-		}
-
-		Field field = null;
-		List<FileInfo> filesFromDb = null;
-
-		//loop through fields and save image information to image fields
-		for(FieldDef fieldDef : modelDef.getFields())
-		{
-			//ignore non file fields
-			if(fieldDef.getFieldType() != FieldType.IMAGE)
-			{
-				continue;
-			}
-			
-			//fetch files from db
-			filesFromDb = repository.fetchByOwner(entityType.getName(), fieldDef.getName(), ownerId, securityService.getUserSpaceIdentity());
-			
-			if(filesFromDb == null || filesFromDb.isEmpty())
-			{
-				continue;
-			}
-			
-			logger.debug("Setting image on model field - {}.{}", model.getClass().getName(), fieldDef.getName()); 
-
-			//set the files on field
-			try
-			{
-				field = modelType.getDeclaredField(fieldDef.getName());
-				field.setAccessible(true);
-
-				field.set(model, new ImageInfo( filesFromDb.get(0).getId() ));
-			}catch(Exception ex)
-			{
-				throw new InvalidStateException(ex, "An error occurred while setting file information to field - {}.{}", model.getClass().getName(), field.getName());
-			}
-		}
+		fileService.readAttachments(Collections.singletonList(model), entityType, Collections.singletonList(ownerId), EnumSet.of(FieldType.IMAGE));
 	}
 }
@@ -57,6 +57,7 @@ import com.yukthi.webutils.annotations.LovMethod;
 import com.yukthi.webutils.annotations.LovQuery;
 import com.yukthi.webutils.common.annotations.Label;
 import com.yukthi.webutils.common.models.ValueLabel;
+import com.yukthi.webutils.security.AuthorizationCache;
 import com.yukthi.webutils.security.ISecurityService;
 import com.yukthi.webutils.security.UnauthorizedException;
 import com.yukthi.webutils.services.dynamic.DynamicMethod;
@@ -84,6 +85,12 @@ public class LovService implements IRepositoryMethodRegistry<LovQuery>
 	@Autowired(required = false)
 	private ISecurityService securityService;
 	
+	/**
+	 * Used to check (cached) authorization of target method.
+	 */
+	@Autowired
+	private AuthorizationCache authorizationCache;
+	
 	@Autowired
 	private ApplicationContext applicationContext;
 
@@ -297,7 +304,7 @@ public class LovService implements IRepositoryMethodRegistry<LovQuery>
 		//if security service is specified, check user authorization for target search method
 		if(securityService != null)
 		{
-			if(!securityService.isAuthorized(method.getMethod()))
+			if(!authorizationCache.isAuthorized(method.getMethod()))
 			{
 				throw new UnauthorizedException("Current user is not authorized to execute lov query - {}", name);
 			}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services;
+
+import java.lang.reflect.Field;
+
+import com.yukthi.utils.exceptions.InvalidStateException;
+import com.yukthi.webutils.common.models.def.FieldDef;
+import com.yukthi.webutils.common.models.def.FieldType;
+
+/**
+ * Attachment (file or image) field of a model, along with its java field accessor. These are built once
+ * per model type by {@link ModelDetailsService}, so that reading/writing attachments does not need field lookups.
+ * 
+ * @author akiran
+ */
+public class ModelAttachmentField
+{
+	/**
+	 * Definition of the field.
+	 */
+	private FieldDef fieldDef;
+	
+	/**
+	 * Java field (made accessible) used to read/write field value.
+	 */
+	private Field field;
+
+	/**
+	 * Instantiates a new model attachment field.
+	 *
+	 * @param fieldDef the field def
+	 * @param field the field
+	 */
+	public ModelAttachmentField(FieldDef fieldDef, Field field)
+	{
+		this.fieldDef = fieldDef;
+		this.field = field;
+		
+		field.setAccessible(true);
+	}
+	
+	/**
+	 * Checks if specified field type is attachment type.
+	 * @param fieldType Field type to check
+	 * @return True, if specified type is attachment type
+	 */
+	public static boolean isAttachmentType(FieldType fieldType)
+	{
+		return (fieldType == FieldType.FILE || fieldType == FieldType.IMAGE);
+	}
+
+	/**
+	 * Gets the definition of the field.
+	 *
+	 * @return the definition of the field
+	 */
+	public FieldDef getFieldDef()
+	{
+		return fieldDef;
+	}
+	
+	/**
+	 * Gets the name of the field.
+	 *
+	 * @return the name of the field
+	 */
+	public String getName()
+	{
+		return fieldDef.getName();
+	}
+	
+	/**
+	 * Gets the type of the field.
+	 *
+	 * @return the type of the field
+	 */
+	public FieldType getFieldType()
+	{
+		return fieldDef.getFieldType();
+	}
+	
+	/**
+	 * Fetches value of this field from specified model.
+	 * @param model Model from which value needs to be fetched
+	 * @return Field value
+	 */
+	public Object getValue(Object model)
+	{
+		try
+		{
+			return field.get(model);
+		}catch(Exception ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while fetching value of field - {}.{}", model.getClass().getName(), field.getName());
+		}
+	}
+	
+	/**
+	 * Sets value of this field on specified model.
+	 * @param model Model on which value needs to be set
+	 * @param value Value to set
+	 */
+	public void setValue(Object model, Object value)
+	{
+		try
+		{
+			field.set(model, value);
+		}catch(Exception ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while setting value of field - {}.{}", model.getClass().getName(), field.getName());
+		}
+	}
+}
@@ -23,7 +23,11 @@
 
 package com.yukthi.webutils.services;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -36,6 +40,7 @@ import org.springframework.stereotype.Service;
 
 import com.yukthi.utils.exceptions.InvalidStateException;
 import com.yukthi.webutils.common.annotations.Model;
+import com.yukthi.webutils.common.models.def.FieldDef;
 import com.yukthi.webutils.common.models.def.ModelDef;
 import com.yukthi.webutils.services.def.ModelDefBuilder;
 
@@ -80,6 +85,11 @@ public class ModelDetailsService
 	 */
 	private Map<Class<?>, ModelDef> typeToModel = new HashMap<>();
 	
+	/**
+	 * Maintains mapping from model type to its attachment (file/image) fields.
+	 */
+	private Map<Class<?>, List<ModelAttachmentField>> typeToAttachmentFields = new HashMap<>();
+	
 	/**
 	 * Post construct method which scans for models and loads their definitions into map.
 	 */
@@ -103,7 +113,60 @@ public class ModelDetailsService
 			
 			nameToModel.put(modelDef.getName(), modelDef); 
 			typeToModel.put(type, modelDef);
+			typeToAttachmentFields.put(type, buildAttachmentFields(type, modelDef));
+		}
+	}
+	
+	/**
+	 * Builds attachment fields of specified model type.
+	 * @param type Model type
+	 * @param modelDef Model definition of the type
+	 * @return Attachment fields of the model
+	 */
+	private List<ModelAttachmentField> buildAttachmentFields(Class<?> type, ModelDef modelDef)
+	{
+		if(modelDef.getFields() == null)
+		{
+			return Collections.emptyList();
+		}
+		
+		List<ModelAttachmentField> attachmentFields = new ArrayList<>();
+		
+		for(FieldDef fieldDef : modelDef.getFields())
+		{
+			if(!ModelAttachmentField.isAttachmentType(fieldDef.getFieldType()))
+			{
+				continue;
+			}
+			
+			attachmentFields.add(new ModelAttachmentField(fieldDef, getField(type, fieldDef.getName())));
+		}
+		
+		return attachmentFields.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(attachmentFields);
+	}
+	
+	/**
+	 * Fetches field with specified name from specified type or its super types.
+	 * @param type Type from which field needs to be fetched
+	 * @param name Name of the field
+	 * @return Matching field
+	 */
+	private Field getField(Class<?> type, String name)
+	{
+		Class<?> curType = type;
+		
+		while(curType != null)
+		{
+			try
+			{
+				return curType.getDeclaredField(name);
+			}catch(NoSuchFieldException ex)
+			{
+				curType = curType.getSuperclass();
+			}
 		}
+		
+		throw new InvalidStateException("No field '{}' found in model type - {}", name, type.getName());
 	}
 	
 	/**
@@ -125,4 +188,15 @@ public class ModelDetailsService
 	{
 		return typeToModel.get(type);
 	}
+	
+	/**
+	 * Fetches attachment (file/image) fields of specified model type, along with their accessors.
+	 * @param type Type of model
+	 * @return Attachment fields of the model. Empty list, if type is not a model or has no attachment fields.
+	 */
+	public List<ModelAttachmentField> getAttachmentFields(Class<?> type)
+	{
+		List<ModelAttachmentField> attachmentFields = typeToAttachmentFields.get(type);
+		return (attachmentFields != null) ? attachmentFields : Collections.emptyList();
+	}
 }
@@ -23,19 +23,28 @@
 
 package com.yukthi.webutils.services;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -44,7 +53,6 @@ import org.springframework.stereotype.Service;
 
 import com.yukthi.persistence.ICrudRepository;
 import com.yukthi.persistence.OrderByField;
-import com.yukthi.persistence.repository.annotations.Condition;
 import com.yukthi.persistence.repository.annotations.Operator;
 import com.yukthi.persistence.repository.annotations.OrderBy;
 import com.yukthi.persistence.repository.annotations.OrderByType;
@@ -58,9 +66,7 @@ import com.yukthi.webutils.WebutilsContext;
 import com.yukthi.webutils.annotations.SearchQueryMethod;
 import com.yukthi.webutils.common.IExtendedSearchResult;
 import com.yukthi.webutils.common.SearchExecutionModel;
-import com.yukthi.webutils.common.annotations.ContextAttribute;
 import com.yukthi.webutils.common.annotations.Model;
-import com.yukthi.webutils.common.models.def.FieldType;
 import com.yukthi.webutils.common.models.def.ModelDef;
 import com.yukthi.webutils.common.models.search.ExecuteSearchResponse;
 import com.yukthi.webutils.common.models.search.SearchColumn;
@@ -68,12 +74,21 @@ import com.yukthi.webutils.common.models.search.SearchField;
 import com.yukthi.webutils.common.models.search.SearchRow;
 import com.yukthi.webutils.common.models.search.SearchSettingsColumn;
 import com.yukthi.webutils.controllers.IExtensionContextProvider;
+import com.yukthi.webutils.extensions.IExtensionChangeListener;
+import com.yukthi.webutils.repository.IEntityChangeListener;
 import com.yukthi.webutils.repository.WebutilsExtendableEntity;
 import com.yukthi.webutils.repository.search.ISearchResultCustomizer;
 import com.yukthi.webutils.repository.search.SearchSettingsEntity;
+import com.yukthi.webutils.security.AuthorizationCache;
 import com.yukthi.webutils.security.ISecurityService;
 import com.yukthi.webutils.security.UnauthorizedException;
 import com.yukthi.webutils.services.dynamic.DynamicMethod;
+import com.yukthi.webutils.services.search.SearchConditionBinder;
+import com.yukthi.webutils.services.search.SearchContinuationToken;
+import com.yukthi.webutils.services.search.SearchExportWriter;
+import com.yukthi.webutils.services.search.SearchKeysetPaginator;
+import com.yukthi.webutils.services.search.SearchRowProjector;
+import com.yukthi.webutils.utils.LruCache;
 import com.yukthi.webutils.utils.WebUtils;
 
 /**
@@ -82,7 +97,7 @@ import com.yukthi.webutils.utils.WebUtils;
  * @author akiran
  */
 @Service
-public class SearchService implements IRepositoryMethodRegistry<SearchQueryMethod>
+public class SearchService implements IRepositoryMethodRegistry<SearchQueryMethod>, IEntityChangeListener, IExtensionChangeListener
 {
 	private static Logger logger = LogManager.getLogger(SearchService.class);
 
@@ -92,6 +107,7 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 		private ICrudRepository<?> repository;
 
 		private Class<?> queryType;
+		private Class<?> resultType;
 
 		private String resultTypeModelName;
 		private String queryTypeModelName;
@@ -100,12 +116,39 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 
 		private Class<? extends ISearchResultCustomizer<?>> customizerType;
 
+		/**
+		 * Binder used to convert query beans into search conditions.
+		 */
+		private SearchConditionBinder conditionBinder;
+
+		/**
+		 * Leading order-by field used for keyset pagination. Null, if keyset pagination is not supported.
+		 */
+		private String keysetField;
+
+		/**
+		 * Paginator used for keyset pagination. Null, if keyset pagination is not supported.
+		 */
+		private SearchKeysetPaginator keysetPaginator;
+
+		/**
+		 * Order-by fields to be used during keyset pagination, which has id as final tie breaker.
+		 */
+		private OrderByField keysetOrderByFields[];
+
+		/**
+		 * Cache of search responses, keyed by conditions, settings and page. Null, if result caching is not enabled.
+		 */
+		private LruCache<String, ExecuteSearchResponse> resultCache;
+
 		public SearchQueryDetails(Method method, ICrudRepository<?> repository, Class<?> resultType, Class<?> queryType, OrderByField orderByFields[], Class<? extends ISearchResultCustomizer<?>> customizerType)
 		{
 			this.method = method;
 			this.repository = repository;
 
 			this.queryType = queryType;
+			this.resultType = resultType;
+			this.conditionBinder = new SearchConditionBinder(queryType);
 
 			this.resultTypeModelName = resultType.getAnnotation(Model.class).name();
 			this.queryTypeModelName = queryType.getAnnotation(Model.class).name();
@@ -125,11 +168,46 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 		}
 	}
 
+	/**
+	 * Max number of row projectors to be cached.
+	 */
+	private static final int MAX_ROW_PROJECTORS = 500;
+
+	/**
+	 * Number of results fetched per page during export of search results.
+	 */
+	public static final int EXPORT_PAGE_SIZE = 1000;
+
+	/**
+	 * Max number of count queries that can wait for count executor threads.
+	 */
+	private static final int MAX_PENDING_COUNT_QUERIES = 100;
+
+	/**
+	 * Max number of search counts to be cached.
+	 */
+	private static final int MAX_CACHED_COUNTS = 2000;
+
 	/**
 	 * Search method details cache.
 	 */
 	private Map<String, SearchQueryDetails> nameToSearchMet = new HashMap<>();
 
+	/**
+	 * Cache of row projectors, keyed by search query and effective settings.
+	 */
+	private LruCache<String, SearchRowProjector> rowProjectors = new LruCache<>("searchRowProjectors", MAX_ROW_PROJECTORS);
+
+	/**
+	 * Executor used to execute count queries in parallel to data queries.
+	 */
+	private ExecutorService countExecutor;
+
+	/**
+	 * Cache of search counts, keyed by query conditions. Null, if count caching is disabled.
+	 */
+	private LruCache<String, Long> countCache;
+
 	/**
 	 * Model details service to fetch model details of query and result types.
 	 */
@@ -141,6 +219,12 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 	 */
 	@Autowired(required = false)
 	private ISecurityService securityService;
+	
+	/**
+	 * Used to check (cached) authorization of target search method.
+	 */
+	@Autowired
+	private AuthorizationCache authorizationCache;
 
 	/**
 	 * Used to fetch date format.
@@ -160,6 +244,39 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 	@Autowired
 	private IExtensionContextProvider extensionContextProvider;
 
+	/**
+	 * Initializes the count executor and count cache based on configuration.
+	 */
+	@PostConstruct
+	private void init()
+	{
+		AtomicInteger threadIndex = new AtomicInteger();
+		
+		// bounded pool and queue. When queue is full, count is executed by the request thread itself
+		countExecutor = new ThreadPoolExecutor(webutilsConfiguration.getSearchCountThreadCount(), webutilsConfiguration.getSearchCountThreadCount(), 
+				60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_PENDING_COUNT_QUERIES), 
+				runnable -> {
+					Thread thread = new Thread(runnable, "search-count-" + threadIndex.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, 
+				new ThreadPoolExecutor.CallerRunsPolicy());
+
+		if(webutilsConfiguration.getSearchCountCacheTimeInSec() > 0)
+		{
+			countCache = new LruCache<>("searchCounts", MAX_CACHED_COUNTS, webutilsConfiguration.getSearchCountCacheTimeInSec() * 1000L);
+		}
+	}
+
+	/**
+	 * Shuts down the count executor.
+	 */
+	@PreDestroy
+	private void destroy()
+	{
+		countExecutor.shutdownNow();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -220,47 +337,97 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 		logger.info("Loading search method - {}.{}", method.getDeclaringClass().getName(), method.getName());
 
 		OrderBy orderByAnnot = method.getAnnotation(OrderBy.class);
-		OrderByField orderByFields[] = null;
+		List<String> orderByNames = new ArrayList<>();
+		List<OrderByType> orderByTypes = new ArrayList<>();
 
 		if(orderByAnnot != null)
 		{
 			com.yukthi.persistence.repository.annotations.OrderByField fieldsAnnot[] = orderByAnnot.fields();
 
-			if(fieldsAnnot != null)
+			if(fieldsAnnot != null && fieldsAnnot.length > 0)
 			{
-				orderByFields = new OrderByField[fieldsAnnot.length];
-				int idx = 0;
-
 				for(com.yukthi.persistence.repository.annotations.OrderByField annot : fieldsAnnot)
 				{
-					orderByFields[idx] = new OrderByField(annot.name(), annot.type());
-					idx++;
+					orderByNames.add(annot.name());
+					orderByTypes.add(annot.type());
 				}
 			}
 			else
 			{
-				orderByFields = new OrderByField[orderByAnnot.value().length];
-				int idx = 0;
-				String fieldNames[] = orderByAnnot.value();
-
-				for(String field : fieldNames)
+				for(String field : orderByAnnot.value())
 				{
-					orderByFields[idx] = new OrderByField(field, OrderByType.ASC);
-					idx++;
+					orderByNames.add(field);
+					orderByTypes.add(OrderByType.ASC);
 				}
 			}
 		}
-		else
+		
+		if(orderByNames.isEmpty())
+		{
+			orderByNames.add("id");
+			orderByTypes.add(OrderByType.ASC);
+		}
+
+		OrderByField orderByFields[] = new OrderByField[orderByNames.size()];
+
+		for(int i = 0; i < orderByFields.length; i++)
 		{
-			orderByFields = new OrderByField[] { new OrderByField("id", OrderByType.ASC) };
+			orderByFields[i] = new OrderByField(orderByNames.get(i), orderByTypes.get(i));
 		}
 
 		// customizer
 
 		Class<? extends ISearchResultCustomizer> customizer = annotation.customizer();
 
+		SearchQueryDetails searchQueryDetails = new SearchQueryDetails(method, repository, returnModelType, queryModelType, orderByFields, (Class) customizer);
+		initKeyset(searchQueryDetails, orderByNames, orderByTypes);
+
 		// register the annotation
-		nameToSearchMet.put(annotation.name(), new SearchQueryDetails(method, repository, returnModelType, queryModelType, orderByFields, (Class) customizer));
+		if(annotation.resultCacheTimeInSec() > 0)
+		{
+			searchQueryDetails.resultCache = new LruCache<>("searchResults-" + queryName, annotation.resultCacheSize(), annotation.resultCacheTimeInSec() * 1000L);
+		}
+
+		nameToSearchMet.put(annotation.name(), searchQueryDetails);
+	}
+
+	/**
+	 * Initializes keyset pagination details of specified search query. Keyset pagination is supported only when
+	 * supported by {@link SearchKeysetPaginator}, that is, when ordering is on single non-nullable field (optionally
+	 * followed by id) which is readable from the search result.
+	 * 
+	 * @param searchQueryDetails
+	 *            Search query details to be initialized
+	 * @param orderByNames
+	 *            Order-by fields of the query
+	 * @param orderByTypes
+	 *            Order-by types of the query
+	 */
+	private void initKeyset(SearchQueryDetails searchQueryDetails, List<String> orderByNames, List<OrderByType> orderByTypes)
+	{
+		SearchKeysetPaginator paginator = SearchKeysetPaginator.build(searchQueryDetails.resultType, 
+				searchQueryDetails.repository.getEntityDetails().getEntityType(), orderByNames, orderByTypes);
+
+		if(paginator == null)
+		{
+			logger.debug("Keyset pagination is not supported by search method {}.{} with order-by fields - {}", 
+					searchQueryDetails.method.getDeclaringClass().getName(), searchQueryDetails.method.getName(), orderByNames);
+			return;
+		}
+
+		searchQueryDetails.keysetPaginator = paginator;
+		searchQueryDetails.keysetField = paginator.getField();
+
+		// ensure ordering is deterministic by using id as final tie breaker
+		if(orderByNames.contains("id"))
+		{
+			searchQueryDetails.keysetOrderByFields = searchQueryDetails.orderByFields;
+		}
+		else
+		{
+			searchQueryDetails.keysetOrderByFields = Arrays.copyOf(searchQueryDetails.orderByFields, searchQueryDetails.orderByFields.length + 1);
+			searchQueryDetails.keysetOrderByFields[searchQueryDetails.orderByFields.length] = new OrderByField("id", OrderByType.ASC);
+		}
 	}
 
 	/*
@@ -334,20 +501,16 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 	}
 
 	/**
-	 * Executes search query method with name specified by "searchQueryName" by
-	 * passing query-object "query". The number of results will be limited to
-	 * "resultLimit".
+	 * Fetches search query details of specified query and validates the query bean and
+	 * current user authorization against it.
 	 * 
 	 * @param searchQueryName
-	 *            Search query name to execute
+	 *            Search query name
 	 * @param query
 	 *            Query object containing conditions
-	 * @param searchExecutionModel
-	 *            Search execution params
-	 * @return Results of search query execution
+	 * @return Matching search query details
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
-	public ExecuteSearchResponse executeSearch(String searchQueryName, Object query, SearchExecutionModel searchExecutionModel)
+	private SearchQueryDetails fetchSearchQueryDetails(String searchQueryName, Object query)
 	{
 		// validate inputs
 		SearchQueryDetails searchQueryDetails = nameToSearchMet.get(searchQueryName);
@@ -366,97 +529,49 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 		// search method
 		if(securityService != null)
 		{
-			if(!securityService.isAuthorized(searchQueryDetails.method))
+			if(!authorizationCache.isAuthorized(searchQueryDetails.method))
 			{
 				throw new UnauthorizedException("Current user is not authorized to execute search query - {}", searchQueryName);
 			}
 		}
 
-		com.yukthi.persistence.repository.search.SearchQuery repoSearchQuery = new com.yukthi.persistence.repository.search.SearchQuery();
-		Field queryFields[] = searchQueryDetails.queryType.getDeclaredFields();
-		Condition condition = null;
-		Object value = null;
-		String strValue = null;
+		return searchQueryDetails;
+	}
 
-		SearchCondition searchCondition = null;
-		ContextAttribute contextAttribute = null;
-		WebutilsContext context = WebutilsContext.getContext();
+	/**
+	 * Builds repository search query for specified query object and search settings. Results limits
+	 * are not set on returned query.
+	 * 
+	 * @param searchQueryDetails
+	 *            Search query details
+	 * @param conditions
+	 *            Conditions bound from query object
+	 * @param spaceIdentity
+	 *            Current user space
+	 * @param searchSettings
+	 *            Effective search settings
+	 * @param keysetPaging
+	 *            If true, keyset ordering is used and keyset field and id are not excluded from results
+	 * @return Repository search query
+	 */
+	private com.yukthi.persistence.repository.search.SearchQuery buildRepoSearchQuery(SearchQueryDetails searchQueryDetails, List<SearchCondition> conditions, 
+			String spaceIdentity, SearchSettingsEntity searchSettings, boolean keysetPaging)
+	{
+		com.yukthi.persistence.repository.search.SearchQuery repoSearchQuery = new com.yukthi.persistence.repository.search.SearchQuery();
 
-		// loop through query object fields and extract conditions and add it
-		// repo search query
-		for(Field field : queryFields)
+		// add conditions bound from query object to repo search query
+		for(SearchCondition searchCondition : conditions)
 		{
-			condition = field.getAnnotation(Condition.class);
-
-			if(condition == null)
-			{
-				continue;
-			}
-
-			field.setAccessible(true);
-			contextAttribute = field.getAnnotation(ContextAttribute.class);
-
-			if(contextAttribute == null)
-			{
-				try
-				{
-					value = field.get(query);
-				} catch(Exception ex)
-				{
-					throw new InvalidStateException("An error occurred while fetching field value - {}", field.getName());
-				}
-			}
-			else
-			{
-				try
-				{
-					value = PropertyUtils.getProperty(context.getAttributeMap(), contextAttribute.value());
-				} catch(Exception ex)
-				{
-					throw new InvalidStateException(ex, "An error occurred while fetching context attribute - {}", contextAttribute.value());
-				}
-			}
-
-			// ignore nulls
-			if(value == null)
-			{
-				continue;
-			}
-
-			// ignore blank value
-			if(value instanceof String)
-			{
-				strValue = (String) value;
-
-				if(strValue.trim().length() == 0)
-				{
-					continue;
-				}
-
-				strValue = strValue.replace("*", "%");
-				value = strValue;
-			}
-
-			if(value instanceof Enum)
-			{
-				value = value.toString();
-			}
-
-			searchCondition = new SearchCondition(condition.value(), condition.op(), value);
-			searchCondition.setIgnoreCase(condition.ignoreCase());
-
 			repoSearchQuery.addCondition(searchCondition);
 		}
 
-		repoSearchQuery.addCondition(new SearchCondition("spaceIdentity", Operator.EQ, securityService.getUserSpaceIdentity()));
+		repoSearchQuery.addCondition(new SearchCondition("spaceIdentity", Operator.EQ, spaceIdentity));
 
 		// set ordering
-		repoSearchQuery.setOrderByFields(Arrays.asList(searchQueryDetails.orderByFields));
+		repoSearchQuery.setOrderByFields(Arrays.asList(keysetPaging ? searchQueryDetails.keysetOrderByFields : searchQueryDetails.orderByFields));
 
 		///////////////////////////////////////////////////////////
 		// Add result fields
-		SearchSettingsEntity searchSettings = searchSettingsService.fetchSettings(searchQueryName);
-
 		for(SearchSettingsColumn column : searchSettings.getSearchColumns())
 		{
 			// if the field is required or displayable
@@ -475,8 +590,8 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 			// if the column is not needed
 			else
 			{
-				// and if it is fixed field
-				if(!column.isExtended())
+				// and if it is fixed field (keyset field and id values are needed for continuation token)
+				if(!column.isExtended() && !(keysetPaging && (column.getFieldName().equals(searchQueryDetails.keysetField) || "id".equals(column.getFieldName()))))
 				{
 					// add it to exclusion list
 					repoSearchQuery.addExcludedField(column.getFieldName());
@@ -484,23 +599,110 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 			}
 		}
 
-		// set limit on repo search query
-		int pageSize = searchExecutionModel.isFetchAll() ? -1 : searchSettings.getPageSize();
-		int pageNo = searchExecutionModel.getPageNumber();
+		return repoSearchQuery;
+	}
+
+	/**
+	 * Executes search query method with name specified by "searchQueryName" by
+	 * passing query-object "query". The number of results will be limited to
+	 * "resultLimit".
+	 * 
+	 * @param searchQueryName
+	 *            Search query name to execute
+	 * @param query
+	 *            Query object containing conditions
+	 * @param searchExecutionModel
+	 *            Search execution params
+	 * @return Results of search query execution
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public ExecuteSearchResponse executeSearch(String searchQueryName, Object query, SearchExecutionModel searchExecutionModel)
+	{
+		SearchQueryDetails searchQueryDetails = fetchSearchQueryDetails(searchQueryName, query);
+		boolean keysetPaging = searchExecutionModel.isKeysetPaging();
 
-		repoSearchQuery.setResultsOffset((pageNo - 1) * pageSize);
-		repoSearchQuery.setResultsLimit(pageSize);
+		if(keysetPaging && searchQueryDetails.keysetPaginator == null)
+		{
+			throw new InvalidRequestParameterException("Keyset pagination is not supported by search query - {}", searchQueryName);
+		}
+
+		SearchSettingsEntity searchSettings = searchSettingsService.fetchSettings(searchQueryName);
+		String spaceIdentity = securityService.getUserSpaceIdentity();
+		
+		// convert query object into conditions
+		StringBuilder conditionKey = new StringBuilder(buildKeyPrefix(searchQueryName, spaceIdentity));
+		List<SearchCondition> conditions = searchQueryDetails.conditionBinder.bind(query, WebutilsContext.getContext().getAttributeMap(), conditionKey);
+		
+		int pageSize = searchExecutionModel.isFetchAll() ? -1 : searchSettings.getPageSize();
+		
+		// if result caching is enabled, check for cached response
+		String resultKey = null;
+		long cacheGeneration = 0;
+		
+		if(searchQueryDetails.resultCache != null)
+		{
+			resultKey = buildResultKey(conditionKey, searchQueryName, searchSettings, pageSize, searchExecutionModel);
+			
+			// generation is noted before search, so that results fetched across an invalidation are not cached
+			cacheGeneration = searchQueryDetails.resultCache.getGeneration();
+			ExecuteSearchResponse cachedResponse = searchQueryDetails.resultCache.get(resultKey);
+			
+			if(cachedResponse != null)
+			{
+				logger.trace("Returning cached results for search query - {}", searchQueryName);
+				return copyResponse(cachedResponse);
+			}
+		}
 
 		// execute search and return results
 		try
 		{
-			List<Object> results = (List) searchQueryDetails.method.invoke(searchQueryDetails.repository, repoSearchQuery);
 			long count = 0;
+			Future<Long> countFuture = null;
 
-			// if fetch count is enabled
+			// if fetch count is enabled, start count query in parallel to data query, unless count is cached
 			if(searchExecutionModel.isFetchCount())
 			{
-				count = searchQueryDetails.repository.searchCount(repoSearchQuery);
+				Long cachedCount = (countCache != null) ? countCache.get(conditionKey.toString()) : null;
+				
+				if(cachedCount != null)
+				{
+					count = cachedCount;
+				}
+				else
+				{
+					// count query is built separately, as data query gets paging conditions
+					com.yukthi.persistence.repository.search.SearchQuery countQuery = buildRepoSearchQuery(searchQueryDetails, conditions, spaceIdentity, searchSettings, false);
+					countFuture = countExecutor.submit(() -> searchQueryDetails.repository.searchCount(countQuery));
+				}
+			}
+
+			List<Object> results = null;
+			SearchContinuationToken nextToken = null;
+			
+			if(keysetPaging)
+			{
+				SearchContinuationToken continuationToken = null;
+				
+				if(searchExecutionModel.getContinuationToken() != null)
+				{
+					continuationToken = SearchContinuationToken.decode(searchExecutionModel.getContinuationToken(), searchQueryName);
+				}
+				
+				// continuation token is computed on raw results, as customizer may change the results
+				SearchKeysetPaginator.Page page = searchQueryDetails.keysetPaginator.fetchPage(searchQueryName, continuationToken, pageSize, 
+						(seek, limit) -> fetchKeysetResults(searchQueryDetails, conditions, spaceIdentity, searchSettings, seek, limit));
+				
+				results = page.getResults();
+				nextToken = page.getNextToken();
+			}
+			else
+			{
+				com.yukthi.persistence.repository.search.SearchQuery repoSearchQuery = buildRepoSearchQuery(searchQueryDetails, conditions, spaceIdentity, searchSettings, false);
+				repoSearchQuery.setResultsOffset((searchExecutionModel.getPageNumber() - 1) * pageSize);
+				repoSearchQuery.setResultsLimit(pageSize);
+
+				results = (List) searchQueryDetails.method.invoke(searchQueryDetails.repository, repoSearchQuery);
 			}
 			
 			// instance of customizer
@@ -510,7 +712,24 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 				results = customizerResult.customize(results);
 			}
 			
-			return toResponse(searchQueryName, results, searchSettings, searchExecutionModel, count);
+			if(countFuture != null)
+			{
+				count = awaitCount(countFuture, searchQueryName, conditionKey.toString());
+			}
+			
+			ExecuteSearchResponse response = toResponse(getRowProjector(searchQueryDetails, searchQueryName, searchSettings), results, searchExecutionModel, count);
+			response.setContinuationToken(nextToken == null ? null : nextToken.encode());
+			
+			// cache a copy of the response, unless count is not available, so that changes by caller are not cached
+			if(resultKey != null && count >= 0)
+			{
+				searchQueryDetails.resultCache.put(resultKey, copyResponse(response), cacheGeneration);
+			}
+			
+			return response;
+		} catch(InvalidRequestParameterException ex)
+		{
+			throw ex;
 		} catch(Exception ex)
 		{
 			throw new InvalidStateException(ex, "An error occurred while executing search query - {}", searchQueryName);
@@ -518,112 +737,439 @@ public class SearchService implements IRepositoryMethodRegistry<SearchQueryMetho
 	}
 
 	/**
-	 * Converts specified results into response.
+	 * Builds key for caching search response. Key consists of query conditions (which includes query name and space),
+	 * effective settings and the requested page.
 	 * 
+	 * @param conditionKey
+	 *            Key representing query conditions
 	 * @param searchQueryName
-	 *            Search query for which conversion should be done.
-	 * @param results
-	 *            Search results to be converted.
+	 *            Search query name
 	 * @param searchSettings
-	 *            Search settings to be used
+	 *            Effective search settings
+	 * @param pageSize
+	 *            Page size being used
 	 * @param searchExecutionModel
 	 *            Search execution params
-	 * @return Converted response.
+	 * @return Result cache key
 	 */
-	private ExecuteSearchResponse toResponse(String searchQueryName, List<Object> results, SearchSettingsEntity searchSettings, SearchExecutionModel searchExecutionModel, long count) throws Exception
+	private String buildResultKey(StringBuilder conditionKey, String searchQueryName, SearchSettingsEntity searchSettings, int pageSize, SearchExecutionModel searchExecutionModel)
 	{
-		ExecuteSearchResponse response = new ExecuteSearchResponse();
-		response.setPageNumber(searchExecutionModel.getPageNumber());
+		StringBuilder builder = new StringBuilder(conditionKey);
+		builder.append('#').append(SearchRowProjector.buildKey(searchQueryName, searchSettings.getSearchColumns()));
+		builder.append('#').append(pageSize).append(searchExecutionModel.isFetchCount() ? 'C' : 'N');
+		
+		if(searchExecutionModel.isKeysetPaging())
+		{
+			builder.append("#K").append(searchExecutionModel.getContinuationToken());
+		}
+		else
+		{
+			builder.append("#P").append(searchExecutionModel.getPageNumber());
+		}
+		
+		return builder.toString();
+	}
 
-		response.setTotalCount(count);
+	/**
+	 * Creates a copy of specified search response, which does not share any mutable state with the
+	 * specified response. Used to ensure cached responses are not modified by the callers.
+	 * 
+	 * @param response
+	 *            Response to copy
+	 * @return Copy of the response
+	 */
+	private ExecuteSearchResponse copyResponse(ExecuteSearchResponse response)
+	{
+		ExecuteSearchResponse copy = new ExecuteSearchResponse();
+		copy.setCode(response.getCode());
+		copy.setMessage(response.getMessage());
+		copy.setPageNumber(response.getPageNumber());
+		copy.setTotalCount(response.getTotalCount());
+		copy.setContinuationToken(response.getContinuationToken());
+		
+		if(response.getSearchColumns() != null)
+		{
+			List<SearchColumn> columns = new ArrayList<>(response.getSearchColumns().size());
+			
+			for(SearchColumn column : response.getSearchColumns())
+			{
+				columns.add(new SearchColumn(column.getName(), column.getHeading(), column.isDisplayable(), column.getType()));
+			}
+			
+			copy.setSearchColumns(columns);
+		}
+		
+		if(response.getSearchResults() != null)
+		{
+			List<SearchRow> rows = new ArrayList<>(response.getSearchResults().size());
+			
+			for(SearchRow row : response.getSearchResults())
+			{
+				rows.add(new SearchRow(row.getData() == null ? null : new ArrayList<>(row.getData())));
+			}
+			
+			copy.setSearchResults(rows);
+		}
+		
+		return copy;
+	}
 
-		// add search result headers
-		for(SearchSettingsColumn column : searchSettings.getSearchColumns())
+	/**
+	 * Builds prefix of the cache keys of specified search query and space. Space is length prefixed, so that
+	 * invalidation of a space does not affect cached results of other spaces.
+	 * 
+	 * @param searchQueryName
+	 *            Search query name
+	 * @param spaceIdentity
+	 *            Space identity
+	 * @return Key prefix
+	 */
+	private static String buildKeyPrefix(String searchQueryName, String spaceIdentity)
+	{
+		StringBuilder builder = new StringBuilder(searchQueryName).append('|');
+		return SearchConditionBinder.appendKeyValue(builder, spaceIdentity).append('|').toString();
+	}
+
+	/**
+	 * Removes cached results of search queries on specified entity type in specified space.
+	 * 
+	 * @param entityType
+	 *            Modified entity type
+	 * @param spaceIdentity
+	 *            Space in which entity is modified. Null, if modification is across spaces.
+	 */
+	@Override
+	public void entityChanged(Class<?> entityType, String spaceIdentity)
+	{
+		for(Map.Entry<String, SearchQueryDetails> entry : nameToSearchMet.entrySet())
 		{
-			// if the field is required or displayable
-			if(column.isRequired() || column.isDisplayed())
+			SearchQueryDetails searchQueryDetails = entry.getValue();
+			
+			if(searchQueryDetails.resultCache == null || !entityType.equals(searchQueryDetails.repository.getEntityDetails().getEntityType()))
 			{
-				if(column.isExtended())
-				{
-					response.addSearchColumn(new SearchColumn("Ext_" + column.getLabel().replaceAll("\\s+", "_"), column.getLabel(), column.isDisplayed(), FieldType.STRING));
-				}
-				else
-				{
-					response.addSearchColumn(new SearchColumn(column.getPropertyName(), column.getLabel(), column.isDisplayed(), FieldType.STRING));
-				}
+				continue;
+			}
+			
+			if(spaceIdentity == null)
+			{
+				searchQueryDetails.resultCache.clear();
+				continue;
 			}
+			
+			String prefix = buildKeyPrefix(entry.getKey(), spaceIdentity);
+			searchQueryDetails.resultCache.removeIf(key -> key.startsWith(prefix));
 		}
+	}
 
-		if(results == null || results.isEmpty())
+	/**
+	 * Removes cached results of the specified space, as results may include extended fields.
+	 * 
+	 * @param spaceIdentity
+	 *            Space whose extensions are modified. Null, if modification is across spaces.
+	 */
+	@Override
+	public void extensionsChanged(String spaceIdentity)
+	{
+		for(Map.Entry<String, SearchQueryDetails> entry : nameToSearchMet.entrySet())
 		{
-			response.setSearchResults(new ArrayList<>());
-			return response;
+			SearchQueryDetails searchQueryDetails = entry.getValue();
+			
+			if(searchQueryDetails.resultCache == null)
+			{
+				continue;
+			}
+			
+			if(spaceIdentity == null)
+			{
+				searchQueryDetails.resultCache.clear();
+				continue;
+			}
+			
+			String prefix = buildKeyPrefix(entry.getKey(), spaceIdentity);
+			searchQueryDetails.resultCache.removeIf(key -> key.startsWith(prefix));
 		}
+	}
 
-		// Build the rows
-		SearchRow searchRow = null;
-		Object value = null;
-		String extensionName = null;
+	/**
+	 * Fetches number of times cached results are used for specified search query.
+	 * 
+	 * @param searchQueryName
+	 *            Search query name
+	 * @return Number of cache hits. -1, if result caching is not enabled for the query.
+	 */
+	public long getResultCacheHitCount(String searchQueryName)
+	{
+		SearchQueryDetails searchQueryDetails = nameToSearchMet.get(searchQueryName);
+		
+		if(searchQueryDetails == null || searchQueryDetails.resultCache == null)
+		{
+			return -1;
+		}
+		
+		return searchQueryDetails.resultCache.getHitCount();
+	}
 
-		for(Object result : results)
+	/**
+	 * Fetches number of times results are not found in cache for specified search query.
+	 * 
+	 * @param searchQueryName
+	 *            Search query name
+	 * @return Number of cache misses. -1, if result caching is not enabled for the query.
+	 */
+	public long getResultCacheMissCount(String searchQueryName)
+	{
+		SearchQueryDetails searchQueryDetails = nameToSearchMet.get(searchQueryName);
+		
+		if(searchQueryDetails == null || searchQueryDetails.resultCache == null)
 		{
-			searchRow = new SearchRow();
+			return -1;
+		}
+		
+		return searchQueryDetails.resultCache.getMissCount();
+	}
 
-			for(SearchSettingsColumn column : searchSettings.getSearchColumns())
-			{
-				// ignore fields which will not be part of results
-				if(!column.isRequired() && !column.isDisplayed())
-				{
-					continue;
-				}
+	/**
+	 * Waits for the count query to complete, within configured time out. On success, count
+	 * is cached, if count caching is enabled.
+	 * 
+	 * @param countFuture
+	 *            Future of count query
+	 * @param searchQueryName
+	 *            Search query name
+	 * @param conditionKey
+	 *            Key representing query conditions
+	 * @return Count of results. -1, if count query did not complete in time.
+	 */
+	private long awaitCount(Future<Long> countFuture, String searchQueryName, String conditionKey) throws Exception
+	{
+		Long count = null;
+		
+		try
+		{
+			count = countFuture.get(webutilsConfiguration.getSearchCountTimeOutInMillis(), TimeUnit.MILLISECONDS);
+		} catch(TimeoutException ex)
+		{
+			logger.warn("Count query of search query '{}' did not complete in {} millis. Returning results without count", 
+					searchQueryName, webutilsConfiguration.getSearchCountTimeOutInMillis());
+			
+			countFuture.cancel(true);
+			return -1;
+		} catch(ExecutionException ex)
+		{
+			throw new InvalidStateException(ex.getCause(), "An error occurred while fetching count of search query - {}", searchQueryName);
+		}
+		
+		if(countCache != null)
+		{
+			countCache.put(conditionKey, count);
+		}
+		
+		return count;
+	}
 
-				// if column belong to extended field
-				if(column.isExtended())
+	/**
+	 * Fetches results of specified keyset seek, used by {@link SearchKeysetPaginator}. Seek is converted into conditions on
+	 * keyset field and id, so that equality and ordering of values is decided by the database.
+	 * 
+	 * @param searchQueryDetails
+	 *            Search query details
+	 * @param conditions
+	 *            Conditions bound from query object
+	 * @param spaceIdentity
+	 *            Current user space
+	 * @param searchSettings
+	 *            Effective search settings
+	 * @param seek
+	 *            Seek to be applied. Null, for first page.
+	 * @param limit
+	 *            Max number of results to fetch
+	 * @return Matching results
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private List<Object> fetchKeysetResults(SearchQueryDetails searchQueryDetails, List<SearchCondition> conditions, String spaceIdentity, 
+			SearchSettingsEntity searchSettings, SearchKeysetPaginator.Seek seek, int limit) throws Exception
+	{
+		com.yukthi.persistence.repository.search.SearchQuery repoSearchQuery = buildRepoSearchQuery(searchQueryDetails, conditions, spaceIdentity, searchSettings, true);
+		SearchKeysetPaginator paginator = searchQueryDetails.keysetPaginator;
+
+		if(seek != null && seek.isTies())
+		{
+			// (field = value and id after last id)
+			repoSearchQuery.addCondition(new SearchCondition(paginator.getField(), Operator.EQ, seek.getValue()));
+			repoSearchQuery.addCondition(new SearchCondition("id", paginator.isIdDescending() ? Operator.LT : Operator.GT, seek.getLastId()));
+		}
+		else if(seek != null)
+		{
+			// (field after value)
+			repoSearchQuery.addCondition(new SearchCondition(paginator.getField(), paginator.isDescending() ? Operator.LT : Operator.GT, seek.getValue()));
+		}
+
+		repoSearchQuery.setResultsOffset(0);
+		repoSearchQuery.setResultsLimit(limit);
+
+		return (List) searchQueryDetails.method.invoke(searchQueryDetails.repository, repoSearchQuery);
+	}
+
+	/**
+	 * Executes search query method with name specified by "searchQueryName" and streams all the
+	 * matching results to specified writer. Results are fetched page by page (of size {@link #EXPORT_PAGE_SIZE}) 
+	 * and each page is written and released before next page is fetched, so that memory usage is bounded 
+	 * by single page irrespective of number of results. When supported by the query, pages are fetched using
+	 * keyset pagination.
+	 * 
+	 * @param searchQueryName
+	 *            Search query name to execute
+	 * @param query
+	 *            Query object containing conditions
+	 * @param exportWriter
+	 *            Writer to which results should be written
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void exportSearch(String searchQueryName, Object query, SearchExportWriter exportWriter)
+	{
+		SearchQueryDetails searchQueryDetails = fetchSearchQueryDetails(searchQueryName, query);
+		boolean keysetPaging = (searchQueryDetails.keysetPaginator != null);
+
+		SearchSettingsEntity searchSettings = searchSettingsService.fetchSettings(searchQueryName);
+		String spaceIdentity = securityService.getUserSpaceIdentity();
+		List<SearchCondition> conditions = searchQueryDetails.conditionBinder.bind(query, WebutilsContext.getContext().getAttributeMap());
+		
+		SearchRowProjector projector = getRowProjector(searchQueryDetails, searchQueryName, searchSettings);
+		DateTimeFormatter dateFormatter = webutilsConfiguration.getDateFormatter();
+
+		try
+		{
+			ISearchResultCustomizer customizer = null;
+			
+			if(!ISearchResultCustomizer.class.equals(searchQueryDetails.customizerType))
+			{
+				customizer = searchQueryDetails.customizerType.newInstance();
+			}
+			
+			exportWriter.writeHeadings(projector.getSearchColumns());
+			
+			SearchContinuationToken continuationToken = null;
+			int offset = 0;
+			int fetchedCount = 0;
+			List<Object> results = null;
+			
+			do
+			{
+				// query is rebuilt for every page, as seek conditions differ for each page
+				if(keysetPaging)
 				{
-					// if it is simple extension field
-					if(!column.isMixedField())
-					{
-						value = ((IExtendedSearchResult) result).getDynamicFieldValue(column.getFieldName());
-					}
-					// if multiple extension fields (of different extensions)
-					// point to same column
-					else
-					{
-						extensionName = extensionContextProvider.getExtensionName(result);
-
-						if(extensionName != null)
-						{
-							value = ((IExtendedSearchResult) result).getDynamicFieldValue(column.getMixedFieldName(extensionName));
-						}
-						else
-						{
-							value = ((IExtendedSearchResult) result).getDynamicFieldValue(column.getFieldName());
-						}
-					}
+					SearchKeysetPaginator.Page page = searchQueryDetails.keysetPaginator.fetchPage(searchQueryName, continuationToken, EXPORT_PAGE_SIZE, 
+							(seek, limit) -> fetchKeysetResults(searchQueryDetails, conditions, spaceIdentity, searchSettings, seek, limit));
+					
+					results = page.getResults();
+					continuationToken = page.getNextToken();
 				}
-				// if column belong to static field
 				else
 				{
-					value = PropertyUtils.getProperty(result, column.getPropertyName());
+					com.yukthi.persistence.repository.search.SearchQuery repoSearchQuery = buildRepoSearchQuery(searchQueryDetails, conditions, spaceIdentity, searchSettings, false);
+					repoSearchQuery.setResultsOffset(offset);
+					repoSearchQuery.setResultsLimit(EXPORT_PAGE_SIZE);
+					
+					results = (List) searchQueryDetails.method.invoke(searchQueryDetails.repository, repoSearchQuery);
 				}
-
-				if(value == null)
+				
+				// page size check is done on raw results, as customizer may change the result count
+				fetchedCount = (results == null) ? 0 : results.size();
+				offset += fetchedCount;
+				
+				if(customizer != null && fetchedCount > 0)
 				{
-					searchRow.addValue(null);
-					continue;
+					results = customizer.customize(results);
 				}
-
-				if(value instanceof Date)
+				
+				if(results != null)
 				{
-					value = webutilsConfiguration.getDateFormat().format(value);
+					for(Object result : results)
+					{
+						exportWriter.writeRow(projector.project(result, dateFormatter));
+					}
 				}
+				
+				exportWriter.flush();
+			} while(fetchedCount >= EXPORT_PAGE_SIZE);
+			
+			logger.debug("Exported {} results of search query - {}", offset, searchQueryName);
+		} catch(Exception ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while exporting search query - {}", searchQueryName);
+		}
+	}
 
-				searchRow.addValue(value.toString());
-			}
+	/**
+	 * Fetches the row projector for specified search query and settings. Projectors are cached
+	 * against query name and effective settings columns, so that they are reused across requests.
+	 * 
+	 * @param searchQueryDetails
+	 *            Search query details
+	 * @param searchQueryName
+	 *            Search query name
+	 * @param searchSettings
+	 *            Effective search settings
+	 * @return Matching row projector
+	 */
+	private SearchRowProjector getRowProjector(SearchQueryDetails searchQueryDetails, String searchQueryName, SearchSettingsEntity searchSettings)
+	{
+		List<SearchSettingsColumn> columns = searchSettings.getSearchColumns();
+
+		return rowProjectors.get(SearchRowProjector.buildKey(searchQueryName, columns), 
+				key -> new SearchRowProjector(searchQueryDetails.resultType, columns, extensionContextProvider));
+	}
+
+	/**
+	 * Removes the cached row projectors of specified search query. Expected to be invoked when search
+	 * settings are modified.
+	 * 
+	 * @param searchQueryName
+	 *            Search query name
+	 */
+	public void invalidateRowProjectors(String searchQueryName)
+	{
+		String prefix = searchQueryName + "|";
+		rowProjectors.removeIf(key -> key.equals(searchQueryName) || key.startsWith(prefix));
+	}
 
-			response.addSearchResult(searchRow);
+	/**
+	 * Converts specified results into response.
+	 * 
+	 * @param projector
+	 *            Row projector to be used for conversion.
+	 * @param results
+	 *            Search results to be converted.
+	 * @param searchExecutionModel
+	 *            Search execution params
+	 * @return Converted response.
+	 */
+	private ExecuteSearchResponse toResponse(SearchRowProjector projector, List<Object> results, SearchExecutionModel searchExecutionModel, long count)
+	{
+		ExecuteSearchResponse response = new ExecuteSearchResponse();
+		response.setPageNumber(searchExecutionModel.getPageNumber());
+
+		response.setTotalCount(count);
+
+		// add search result headers
+		response.setSearchColumns(new ArrayList<>(projector.getSearchColumns()));
+
+		if(results == null || results.isEmpty())
+		{
+			response.setSearchResults(new ArrayList<>());
+			return response;
+		}
+
+		// Build the rows
+		List<SearchRow> rows = new ArrayList<>(results.size());
+		DateTimeFormatter dateFormatter = webutilsConfiguration.getDateFormatter();
+
+		for(Object result : results)
+		{
+			rows.add(projector.project(result, dateFormatter));
 		}
 
+		response.setSearchResults(rows);
 		return response;
 	}
 
@@ -3,6 +3,7 @@ package com.yukthi.webutils.services;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -20,10 +21,12 @@ import com.yukthi.webutils.common.models.def.FieldDef;
 import com.yukthi.webutils.common.models.def.ModelDef;
 import com.yukthi.webutils.common.models.search.SearchField;
 import com.yukthi.webutils.common.models.search.SearchSettingsColumn;
+import com.yukthi.webutils.extensions.IExtensionChangeListener;
 import com.yukthi.webutils.repository.ExtensionFieldEntity;
 import com.yukthi.webutils.repository.UserEntity;
 import com.yukthi.webutils.repository.search.ISearchSettingsRespository;
 import com.yukthi.webutils.repository.search.SearchSettingsEntity;
+import com.yukthi.webutils.utils.LruCache;
 import com.yukthi.webutils.utils.WebUtils;
 
 /**
@@ -31,7 +34,7 @@ import com.yukthi.webutils.utils.WebUtils;
  * @author akiran
  */
 @Service
-public class SearchSettingsService extends BaseCrudService<SearchSettingsEntity, ISearchSettingsRespository>
+public class SearchSettingsService extends BaseCrudService<SearchSettingsEntity, ISearchSettingsRespository> implements IExtensionChangeListener
 {
 	private static Logger logger = LogManager.getLogger(SearchSettingsService.class);
 	
@@ -40,6 +43,62 @@ public class SearchSettingsService extends BaseCrudService<SearchSettingsEntity,
 	 */
 	private static final int DEFAULT_PAGE_SIZE = 20;
 	
+	/**
+	 * Max number of effective settings to be cached.
+	 */
+	private static final int MAX_CACHED_SETTINGS = 1000;
+	
+	/**
+	 * Time after which cached settings expire. Acts as safety net for changes done outside this service.
+	 */
+	private static final long CACHED_SETTINGS_TTL = 10 * 60 * 1000L;
+	
+	/**
+	 * Key of cached settings.
+	 * @author akiran
+	 */
+	private static class SettingsKey
+	{
+		private long userId;
+		private String spaceIdentity;
+		private String searchQueryName;
+		
+		public SettingsKey(long userId, String spaceIdentity, String searchQueryName)
+		{
+			this.userId = userId;
+			this.spaceIdentity = spaceIdentity;
+			this.searchQueryName = searchQueryName;
+		}
+		
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(obj == this)
+			{
+				return true;
+			}
+
+			if(!(obj instanceof SettingsKey))
+			{
+				return false;
+			}
+
+			SettingsKey other = (SettingsKey) obj;
+			return userId == other.userId && Objects.equals(spaceIdentity, other.spaceIdentity) && searchQueryName.equals(other.searchQueryName);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(userId, spaceIdentity, searchQueryName);
+		}
+	}
+	
+	/**
+	 * Cache of effective settings (after resolving columns) of users.
+	 */
+	private LruCache<SettingsKey, SearchSettingsEntity> settingsCache = new LruCache<>("searchSettings", MAX_CACHED_SETTINGS, CACHED_SETTINGS_TTL);
+	
 	/**
 	 * Current user service used to fetch current user id.
 	 */
@@ -214,6 +273,9 @@ public class SearchSettingsService extends BaseCrudService<SearchSettingsEntity,
 		validateColumns(entity.getSearchQueryName(), entity);
 		
 		super.save(entity, model);
+		
+		invalidateSettings(currentUserId, entity.getSearchQueryName());
+		searchService.invalidateRowProjectors(entity.getSearchQueryName());
 	}
 
 	@Override
@@ -240,6 +302,9 @@ public class SearchSettingsService extends BaseCrudService<SearchSettingsEntity,
 			}
 			
 			transaction.commit();
+			
+			invalidateSettings(currentUserId, entity.getSearchQueryName());
+			searchService.invalidateRowProjectors(entity.getSearchQueryName());
 		}catch(Exception ex)
 		{
 			logger.error("An error occurred while updating entity - " + entity, ex);
@@ -264,7 +329,8 @@ public class SearchSettingsService extends BaseCrudService<SearchSettingsEntity,
 	}
 	
 	/**
-	 * Fetches search settings for current user for specified search query.
+	 * Fetches search settings for current user for specified search query. Effective settings are cached
+	 * per user, space and query. As the returned settings are shared, they should not be modified by the caller.
 	 * @param searchQueryName Search query name.
 	 * @return Matching search settings entity of current user.
 	 */
@@ -272,6 +338,18 @@ public class SearchSettingsService extends BaseCrudService<SearchSettingsEntity,
 	{
 		long currentUserId = currentUserService.getCurrentUserDetails().getUserId();
 		
+		return settingsCache.get(new SettingsKey(currentUserId, securityService.getUserSpaceIdentity(), searchQueryName), 
+				key -> loadSettings(currentUserId, searchQueryName));
+	}
+	
+	/**
+	 * Loads effective search settings of specified user for specified search query.
+	 * @param currentUserId User for which settings needs to be loaded
+	 * @param searchQueryName Search query name.
+	 * @return Matching search settings entity of the user.
+	 */
+	private SearchSettingsEntity loadSettings(long currentUserId, String searchQueryName)
+	{
 		SearchSettingsEntity entity = super.repository.fetchByName(currentUserId, searchQueryName);
 		
 		if(entity == null)
@@ -293,7 +371,25 @@ public class SearchSettingsService extends BaseCrudService<SearchSettingsEntity,
 	public void deleteByName(String queryName)
 	{
 		long currentUserId = currentUserService.getCurrentUserDetails().getUserId();
-		super.repository.deleteByName(currentUserId, queryName);		
+		super.repository.deleteByName(currentUserId, queryName);
+		
+		invalidateSettings(currentUserId, queryName);
+		searchService.invalidateRowProjectors(queryName);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.services.BaseCrudService#deleteById(long)
+	 */
+	@Override
+	public boolean deleteById(long id)
+	{
+		boolean res = super.deleteById(id);
+		
+		//as query of deleted settings is not known, remove all cached settings of current user
+		long currentUserId = currentUserService.getCurrentUserDetails().getUserId();
+		settingsCache.removeIf(key -> key.userId == currentUserId);
+		
+		return res;
 	}
 
 	/**
@@ -302,5 +398,32 @@ public class SearchSettingsService extends BaseCrudService<SearchSettingsEntity,
 	public void deleteAll()
 	{
 		repository.deleteAll();
+		settingsCache.clear();
+	}
+	
+	/**
+	 * Removes cached settings of specified user for specified query.
+	 * @param userId User whose settings are modified
+	 * @param searchQueryName Search query name
+	 */
+	private void invalidateSettings(long userId, String searchQueryName)
+	{
+		settingsCache.removeIf(key -> key.userId == userId && key.searchQueryName.equals(searchQueryName));
+	}
+
+	/**
+	 * Removes cached settings of the specified space, as settings columns are derived from extension fields.
+	 * @param spaceIdentity Space whose extensions are modified. Null, if modification is across spaces.
+	 */
+	@Override
+	public void extensionsChanged(String spaceIdentity)
+	{
+		if(spaceIdentity == null)
+		{
+			settingsCache.clear();
+			return;
+		}
+		
+		settingsCache.removeIf(key -> spaceIdentity.equals(key.spaceIdentity));
 	}
 }
@@ -1,15 +1,25 @@
 package com.yukthi.webutils.services;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.yukthi.webutils.IWebUtilsInternalConstants;
 import com.yukthi.webutils.UserRoleKey;
+import com.yukthi.webutils.WebutilsConfiguration;
+import com.yukthi.webutils.WebutilsContext;
 import com.yukthi.webutils.repository.IUserRoleRepository;
 import com.yukthi.webutils.repository.UserRoleEntity;
+import com.yukthi.webutils.utils.LruCache;
 
 /**
  * Service to different types of roles.
@@ -18,6 +28,77 @@ import com.yukthi.webutils.repository.UserRoleEntity;
 @Service
 public class UserRoleService extends BaseCrudService<UserRoleEntity, IUserRoleRepository>
 {
+	/**
+	 * Role map of a user loaded at specific role version of the space.
+	 */
+	private static class UserRoleMapEntry
+	{
+		/**
+		 * User whose roles are loaded.
+		 */
+		private long userId;
+		
+		/**
+		 * Space in which roles are loaded.
+		 */
+		private String spaceIdentity;
+		
+		/**
+		 * Role version of the space when roles are loaded.
+		 */
+		private long roleVersion;
+		
+		/**
+		 * Loaded role map.
+		 */
+		private Map<UserRoleKey, UserRoleEntity> roleMap;
+
+		/**
+		 * Instantiates a new user role map entry.
+		 *
+		 * @param userId the user id
+		 * @param spaceIdentity the space identity
+		 * @param roleVersion the role version
+		 * @param roleMap the role map
+		 */
+		private UserRoleMapEntry(long userId, String spaceIdentity, long roleVersion, Map<UserRoleKey, UserRoleEntity> roleMap)
+		{
+			this.userId = userId;
+			this.spaceIdentity = spaceIdentity;
+			this.roleVersion = roleVersion;
+			this.roleMap = roleMap;
+		}
+		
+		/**
+		 * Checks if this entry is loaded for specified user in specified space and is not stale.
+		 * @param userId User id
+		 * @param spaceIdentity Space identity
+		 * @param roleVersion Current role version of the space
+		 * @return True, if entry can be used
+		 */
+		private boolean matches(long userId, String spaceIdentity, long roleVersion)
+		{
+			return this.userId == userId && this.roleVersion == roleVersion && StringUtils.equals(this.spaceIdentity, spaceIdentity);
+		}
+	}
+	
+	/**
+	 * Configuration to fetch role cache settings.
+	 */
+	@Autowired
+	private WebutilsConfiguration configuration;
+	
+	/**
+	 * Role maps cached across requests. Null, if caching is disabled.
+	 */
+	private LruCache<String, UserRoleMapEntry> roleMapCache;
+	
+	/**
+	 * Role versions of the spaces, which gets incremented whenever roles of the space are modified. Null space identity
+	 * is maintained as empty string.
+	 */
+	private Map<String, AtomicLong> roleVersions = new ConcurrentHashMap<>();
+	
 	/**
 	 * Instantiates a new user role service.
 	 */
@@ -26,6 +107,28 @@ public class UserRoleService extends BaseCrudService<UserRoleEntity, IUserRoleRe
 		super(UserRoleEntity.class, IUserRoleRepository.class);
 	}
 	
+	/**
+	 * Post construct method to initialize role map cache.
+	 */
+	@PostConstruct
+	private void initCache()
+	{
+		if(configuration.getUserRoleCacheSize() > 0)
+		{
+			roleMapCache = new LruCache<>("userRoles", configuration.getUserRoleCacheSize(), configuration.getUserRoleCacheTimeInSec() * 1000L);
+		}
+	}
+	
+	/**
+	 * Fetches role version of specified space.
+	 * @param spaceIdentity Space identity
+	 * @return Role version of the space
+	 */
+	private AtomicLong getRoleVersion(String spaceIdentity)
+	{
+		return roleVersions.computeIfAbsent(spaceIdentity != null ? spaceIdentity : "", space -> new AtomicLong());
+	}
+	
 	/**
 	 * Fetches the roles of the user.
 	 * @param userId User for which roles needs to be fetched
@@ -37,26 +140,86 @@ public class UserRoleService extends BaseCrudService<UserRoleEntity, IUserRoleRe
 	}
 	
 	/**
-	 * Fetches user roles map.
+	 * Fetches user roles map. Roles are loaded once per request (and maintained in {@link WebutilsContext}), and
+	 * when enabled, are cached across requests. Roles are reloaded when roles of the space are modified using this service.
 	 * @param userId User for whom roles needs to be fetched
-	 * @return Role map
+	 * @return Copy of role map, which can be modified by the caller without affecting cached roles
 	 */
 	public Map<UserRoleKey, UserRoleEntity> getUserRoleMap(long userId)
 	{
-		Map<UserRoleKey, UserRoleEntity> roleMap = new HashMap<>();
-		List<UserRoleEntity> rolesLst = repository.findRoles(userId, securityService.getUserSpaceIdentity());
+		String spaceIdentity = securityService.getUserSpaceIdentity();
+		long roleVersion = getRoleVersion(spaceIdentity).get();
+		
+		WebutilsContext context = WebutilsContext.getContext();
+		UserRoleMapEntry entry = (UserRoleMapEntry) context.getAttribute(IWebUtilsInternalConstants.CONTEXT_ATTR_USER_ROLE_MAP);
+		
+		if(entry != null && entry.matches(userId, spaceIdentity, roleVersion))
+		{
+			return new HashMap<>(entry.roleMap);
+		}
+		
+		String cacheKey = userId + "|" + spaceIdentity;
+		entry = (roleMapCache != null) ? roleMapCache.get(cacheKey) : null;
+		
+		if(entry == null || !entry.matches(userId, spaceIdentity, roleVersion))
+		{
+			entry = new UserRoleMapEntry(userId, spaceIdentity, roleVersion, loadUserRoleMap(userId, spaceIdentity));
+			
+			if(roleMapCache != null)
+			{
+				roleMapCache.put(cacheKey, entry);
+			}
+		}
+		
+		context.addAttribute(IWebUtilsInternalConstants.CONTEXT_ATTR_USER_ROLE_MAP, entry);
+		return new HashMap<>(entry.roleMap);
+	}
+	
+	/**
+	 * Loads roles of specified user from db.
+	 * @param userId User for whom roles needs to be loaded
+	 * @param spaceIdentity Space in which roles needs to be loaded
+	 * @return Unmodifiable role map
+	 */
+	private Map<UserRoleKey, UserRoleEntity> loadUserRoleMap(long userId, String spaceIdentity)
+	{
+		List<UserRoleEntity> rolesLst = repository.findRoles(userId, spaceIdentity);
 		
 		if(rolesLst == null)
 		{
-			return roleMap;
+			return Collections.emptyMap();
 		}
 		
+		Map<UserRoleKey, UserRoleEntity> roleMap = new HashMap<>();
+		
 		for(UserRoleEntity entity : rolesLst)
 		{
 			roleMap.put(new UserRoleKey(entity.getOwnerType(), entity.getOwnerId(), entity.getRole()), entity);
 		}
 		
-		return roleMap;
+		return Collections.unmodifiableMap(roleMap);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.services.BaseCrudService#notifyEntityChange(java.lang.String)
+	 */
+	@Override
+	protected void notifyEntityChange(String spaceIdentity)
+	{
+		//invalidate loaded role maps of the space, before notifying other listeners
+		if(spaceIdentity == null)
+		{
+			for(AtomicLong version : roleVersions.values())
+			{
+				version.incrementAndGet();
+			}
+		}
+		else
+		{
+			getRoleVersion(spaceIdentity).incrementAndGet();
+		}
+		
+		super.notifyEntityChange(spaceIdentity);
 	}
 
 	/* (non-Javadoc)
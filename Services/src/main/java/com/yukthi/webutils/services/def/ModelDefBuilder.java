@@ -125,7 +125,7 @@ public class ModelDefBuilder
 		}
 		
 		modelDef.setFields(fieldDefLst);
-		modelDef.setDateFormat(configuration.getDateFormat().toPattern());
+		modelDef.setDateFormat(configuration.getDatePattern());
 		modelDef.setJsDateFormat(configuration.getJsDateFormat());
 		
 		return modelDef;
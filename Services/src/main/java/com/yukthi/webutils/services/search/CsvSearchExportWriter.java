@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Export writer which writes search results in CSV format (RFC 4180) directly to target stream.
+ *
+ * @author akiran
+ */
+public class CsvSearchExportWriter extends SearchExportWriter
+{
+	/**
+	 * Writer to which csv data is written.
+	 */
+	private Writer writer;
+
+	/**
+	 * Instantiates a new csv export writer.
+	 *
+	 * @param outputStream Stream to which csv should be written
+	 */
+	public CsvSearchExportWriter(OutputStream outputStream)
+	{
+		this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.services.search.SearchExportWriter#writeValues(java.lang.String[])
+	 */
+	@Override
+	protected void writeValues(String[] values) throws IOException
+	{
+		for(int i = 0; i < values.length; i++)
+		{
+			if(i > 0)
+			{
+				writer.write(',');
+			}
+
+			writeValue(values[i]);
+		}
+
+		writer.write("\r\n");
+	}
+
+	/**
+	 * Writes single value, quoting it if required.
+	 * @param value Value to be written
+	 * @throws IOException If write fails
+	 */
+	private void writeValue(String value) throws IOException
+	{
+		if(value == null || value.isEmpty())
+		{
+			return;
+		}
+
+		boolean quote = false;
+
+		for(int i = 0; i < value.length(); i++)
+		{
+			char ch = value.charAt(i);
+
+			if(ch == ',' || ch == '"' || ch == '\r' || ch == '\n')
+			{
+				quote = true;
+				break;
+			}
+		}
+
+		if(!quote)
+		{
+			writer.write(value);
+			return;
+		}
+
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.services.search.SearchExportWriter#flush()
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		writer.flush();
+	}
+
+	/**
+	 * Flushes and closes the writer. If export is aborted, buffered data is discarded and target stream is 
+	 * left to its owner, so that no further data is written.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if(isAborted())
+		{
+			return;
+		}
+		
+		writer.close();
+	}
+}
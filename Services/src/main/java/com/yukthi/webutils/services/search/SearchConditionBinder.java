@@ -0,0 +1,307 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.beanutils.PropertyUtils;
+
+import com.yukthi.persistence.repository.annotations.Condition;
+import com.yukthi.persistence.repository.annotations.Operator;
+import com.yukthi.persistence.repository.search.SearchCondition;
+import com.yukthi.utils.exceptions.InvalidStateException;
+import com.yukthi.webutils.common.annotations.ContextAttribute;
+
+/**
+ * Converts search query beans into search conditions. The condition fields of the query type
+ * are resolved once (during search method registration) into method handles, so that query beans can be converted
+ * without annotation lookups or reflection during search execution.
+ * 
+ * @author akiran
+ */
+public class SearchConditionBinder
+{
+	/**
+	 * Method type to which field getters are adapted, so that they can be invoked exactly.
+	 */
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	
+	/**
+	 * Binding of single condition field of the query type.
+	 * @author akiran
+	 */
+	private static class ConditionBinding
+	{
+		/**
+		 * Query bean field name, used for error messages.
+		 */
+		private String fieldName;
+		
+		/**
+		 * Entity field on which condition should be applied.
+		 */
+		private String conditionField;
+		
+		/**
+		 * Condition operator.
+		 */
+		private Operator operator;
+		
+		/**
+		 * Flag indicating case to be ignored during comparison.
+		 */
+		private boolean ignoreCase;
+		
+		/**
+		 * Getter of the field value. Null when value has to be fetched from context.
+		 */
+		private MethodHandle getter;
+		
+		/**
+		 * Context attribute expression from which value should be fetched.
+		 */
+		private String contextAttribute;
+		
+		/**
+		 * Flag indicating context attribute is simple name (not a nested expression), in which case
+		 * value can be fetched directly from attribute map.
+		 */
+		private boolean simpleContextAttribute;
+	}
+	
+	/**
+	 * Query type for which this binder is built.
+	 */
+	private Class<?> queryType;
+	
+	/**
+	 * Condition bindings of query type.
+	 */
+	private ConditionBinding bindings[];
+
+	/**
+	 * Instantiates a new binder for specified query type.
+	 *
+	 * @param queryType Search query bean type
+	 */
+	public SearchConditionBinder(Class<?> queryType)
+	{
+		this.queryType = queryType;
+		
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		List<ConditionBinding> bindingLst = new ArrayList<>();
+		Condition condition = null;
+		ContextAttribute contextAttribute = null;
+		ConditionBinding binding = null;
+		
+		for(Field field : queryType.getDeclaredFields())
+		{
+			condition = field.getAnnotation(Condition.class);
+			
+			if(condition == null)
+			{
+				continue;
+			}
+			
+			binding = new ConditionBinding();
+			binding.fieldName = field.getName();
+			binding.conditionField = condition.value();
+			binding.operator = condition.op();
+			binding.ignoreCase = condition.ignoreCase();
+			
+			contextAttribute = field.getAnnotation(ContextAttribute.class);
+			
+			if(contextAttribute != null)
+			{
+				binding.contextAttribute = contextAttribute.value();
+				binding.simpleContextAttribute = !binding.contextAttribute.matches(".*[\\.\\[\\(].*");
+			}
+			else
+			{
+				try
+				{
+					field.setAccessible(true);
+					binding.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+				}catch(Exception ex)
+				{
+					throw new InvalidStateException(ex, "Failed to access search query field - {}.{}", queryType.getName(), field.getName());
+				}
+			}
+			
+			bindingLst.add(binding);
+		}
+		
+		this.bindings = bindingLst.toArray(new ConditionBinding[0]);
+	}
+	
+	/**
+	 * Gets the query type for which this binder is built.
+	 *
+	 * @return the query type for which this binder is built
+	 */
+	public Class<?> getQueryType()
+	{
+		return queryType;
+	}
+	
+	/**
+	 * Fetches value of specified binding from query or context attributes.
+	 * @param binding Binding whose value needs to be fetched
+	 * @param query Query bean
+	 * @param contextAttributes Current context attributes
+	 * @return Binding value
+	 */
+	private Object getValue(ConditionBinding binding, Object query, Map<String, Object> contextAttributes)
+	{
+		if(binding.getter != null)
+		{
+			try
+			{
+				return (Object) binding.getter.invokeExact(query);
+			}catch(Throwable ex)
+			{
+				throw new InvalidStateException(ex, "An error occurred while fetching field value - {}", binding.fieldName);
+			}
+		}
+		
+		if(binding.simpleContextAttribute)
+		{
+			return contextAttributes.get(binding.contextAttribute);
+		}
+		
+		try
+		{
+			return PropertyUtils.getProperty(contextAttributes, binding.contextAttribute);
+		}catch(Exception ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while fetching context attribute - {}", binding.contextAttribute);
+		}
+	}
+	
+	/**
+	 * Converts specified query bean into search conditions. Null and blank values are ignored, "*" in string values
+	 * are converted into "%" and enums are converted into strings.
+	 * @param query Query bean to convert. Can be null, in which case only context attribute conditions will be considered.
+	 * @param contextAttributes Current context attributes
+	 * @return Search conditions
+	 */
+	public List<SearchCondition> bind(Object query, Map<String, Object> contextAttributes)
+	{
+		return bind(query, contextAttributes, null);
+	}
+	
+	/**
+	 * Converts specified query bean into search conditions, similar to {@link #bind(Object, Map)}. Additionally
+	 * appends a key uniquely representing the bound conditions to specified key builder, which can be used to
+	 * cache data specific to the conditions. Values are length prefixed in the key, so that values containing
+	 * separators can not produce the same key for different conditions.
+	 * @param query Query bean to convert. Can be null, in which case only context attribute conditions will be considered.
+	 * @param contextAttributes Current context attributes
+	 * @param keyBuilder Builder to which condition key should be appended. Can be null.
+	 * @return Search conditions
+	 */
+	public List<SearchCondition> bind(Object query, Map<String, Object> contextAttributes, StringBuilder keyBuilder)
+	{
+		List<SearchCondition> conditions = new ArrayList<>(bindings.length);
+		Object value = null;
+		String strValue = null;
+		SearchCondition searchCondition = null;
+		
+		for(ConditionBinding binding : bindings)
+		{
+			//field values can not be fetched without query bean
+			if(binding.getter != null && query == null)
+			{
+				continue;
+			}
+			
+			value = getValue(binding, query, contextAttributes);
+			
+			// ignore nulls
+			if(value == null)
+			{
+				continue;
+			}
+			
+			// ignore blank value
+			if(value instanceof String)
+			{
+				strValue = (String) value;
+				
+				if(strValue.trim().length() == 0)
+				{
+					continue;
+				}
+				
+				value = strValue.replace("*", "%");
+			}
+			else if(value instanceof Enum)
+			{
+				value = value.toString();
+			}
+			
+			searchCondition = new SearchCondition(binding.conditionField, binding.operator, value);
+			searchCondition.setIgnoreCase(binding.ignoreCase);
+			
+			conditions.add(searchCondition);
+			
+			if(keyBuilder != null)
+			{
+				keyBuilder.append(binding.conditionField).append(binding.operator).append(binding.ignoreCase ? "~" : "=");
+				appendKeyValue(keyBuilder, (value instanceof Date) ? ((Date) value).getTime() : value);
+			}
+		}
+		
+		return conditions;
+	}
+	
+	/**
+	 * Appends specified value to key builder, prefixed with its length. As the length is part of the key, the value
+	 * can contain any characters (including the separators used in keys) without clashing with other keys.
+	 * @param keyBuilder Builder to which value should be appended
+	 * @param value Value to append. Can be null.
+	 * @return Specified key builder
+	 */
+	public static StringBuilder appendKeyValue(StringBuilder keyBuilder, Object value)
+	{
+		String strValue = String.valueOf(value);
+		
+		//null is differentiated from "null" string by using negative length
+		keyBuilder.append(value == null ? -1 : strValue.length()).append(':');
+		
+		if(value != null)
+		{
+			keyBuilder.append(strValue);
+		}
+		
+		return keyBuilder.append(';');
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import com.yukthi.webutils.InvalidRequestParameterException;
+
+/**
+ * Continuation token used by keyset pagination of search queries. The token carries the value of
+ * leading order-by field and the id of the last result returned, so that next page can seek from that
+ * (value, id) pair instead of skipping all previous rows. For clients the token is opaque.
+ *
+ * @author akiran
+ */
+public class SearchContinuationToken
+{
+	/**
+	 * Version of token format.
+	 */
+	private static final String VERSION = "2";
+
+	/**
+	 * Separator used between token parts.
+	 */
+	private static final String SEPARATOR = "\n";
+
+	/**
+	 * Search query for which token is generated.
+	 */
+	private String searchQueryName;
+
+	/**
+	 * Value of leading order-by field of last result.
+	 */
+	private String value;
+
+	/**
+	 * Id of the last result.
+	 */
+	private String lastId;
+
+	/**
+	 * Instantiates a new search continuation token.
+	 *
+	 * @param searchQueryName the search query name
+	 * @param value the value of leading order-by field of last result
+	 * @param lastId the id of last result
+	 */
+	public SearchContinuationToken(String searchQueryName, String value, String lastId)
+	{
+		this.searchQueryName = searchQueryName;
+		this.value = value;
+		this.lastId = lastId;
+	}
+
+	/**
+	 * Gets the value of leading order-by field of last result.
+	 *
+	 * @return the value of leading order-by field of last result
+	 */
+	public String getValue()
+	{
+		return value;
+	}
+
+	/**
+	 * Gets the id of the last result.
+	 *
+	 * @return the id of the last result
+	 */
+	public String getLastId()
+	{
+		return lastId;
+	}
+
+	/**
+	 * Encodes this token into opaque string form.
+	 * @return Encoded token
+	 */
+	public String encode()
+	{
+		StringBuilder builder = new StringBuilder(VERSION);
+		builder.append(SEPARATOR).append(searchQueryName);
+		builder.append(SEPARATOR).append(lastId);
+		builder.append(SEPARATOR).append(value);
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes specified token string and ensures it was generated for specified search query.
+	 * @param token Token to decode
+	 * @param searchQueryName Search query for which token is being used
+	 * @return Decoded token
+	 */
+	public static SearchContinuationToken decode(String token, String searchQueryName)
+	{
+		String parts[] = null;
+
+		try
+		{
+			parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+		}catch(IllegalArgumentException ex)
+		{
+			throw new InvalidRequestParameterException(ex, "Invalid continuation token specified - {}", token);
+		}
+
+		if(parts.length != 4 || !VERSION.equals(parts[0]) || parts[2].isEmpty())
+		{
+			throw new InvalidRequestParameterException("Invalid continuation token specified - {}", token);
+		}
+
+		if(!parts[1].equals(searchQueryName))
+		{
+			throw new InvalidRequestParameterException("Continuation token of search query '{}' is used for search query - {}", parts[1], searchQueryName);
+		}
+
+		return new SearchContinuationToken(searchQueryName, parts[3], parts[2]);
+	}
+
+	/**
+	 * Checks if values of specified type can be carried by continuation tokens.
+	 * @param type Type to check
+	 * @return True, if type is supported
+	 */
+	public static boolean isSupportedType(Class<?> type)
+	{
+		return String.class.equals(type) || Long.class.equals(type) || long.class.equals(type)
+				|| Integer.class.equals(type) || int.class.equals(type) || Short.class.equals(type) || short.class.equals(type)
+				|| Double.class.equals(type) || double.class.equals(type) || Float.class.equals(type) || float.class.equals(type)
+				|| BigDecimal.class.equals(type) || BigInteger.class.equals(type)
+				|| Date.class.isAssignableFrom(type) || type.isEnum();
+	}
+
+	/**
+	 * Converts specified order-by field value into token value.
+	 * @param value Value to convert
+	 * @return Token value
+	 */
+	public static String toTokenValue(Object value)
+	{
+		if(value == null)
+		{
+			return null;
+		}
+
+		if(value instanceof Date)
+		{
+			return Long.toString(((Date) value).getTime());
+		}
+
+		return value.toString();
+	}
+
+	/**
+	 * Converts specified token value into value to be used in search condition. Enum values are
+	 * used as strings, same as in search query conditions.
+	 * @param value Token value
+	 * @param type Type of order-by field
+	 * @return Condition value
+	 */
+	public static Object toConditionValue(String value, Class<?> type)
+	{
+		try
+		{
+			if(Long.class.equals(type) || long.class.equals(type))
+			{
+				return Long.valueOf(value);
+			}
+
+			if(Integer.class.equals(type) || int.class.equals(type))
+			{
+				return Integer.valueOf(value);
+			}
+
+			if(Short.class.equals(type) || short.class.equals(type))
+			{
+				return Short.valueOf(value);
+			}
+
+			if(Double.class.equals(type) || double.class.equals(type))
+			{
+				return Double.valueOf(value);
+			}
+
+			if(Float.class.equals(type) || float.class.equals(type))
+			{
+				return Float.valueOf(value);
+			}
+
+			if(BigDecimal.class.equals(type))
+			{
+				return new BigDecimal(value);
+			}
+
+			if(BigInteger.class.equals(type))
+			{
+				return new BigInteger(value);
+			}
+
+			if(Date.class.isAssignableFrom(type))
+			{
+				return new Date(Long.parseLong(value));
+			}
+		}catch(NumberFormatException ex)
+		{
+			throw new InvalidRequestParameterException(ex, "Invalid value '{}' specified in continuation token", value);
+		}
+
+		return value;
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.yukthi.webutils.common.models.search.SearchColumn;
+import com.yukthi.webutils.common.models.search.SearchRow;
+
+/**
+ * Base class for writers used to stream search results during export. Writers are expected to write
+ * the data directly to target stream, without holding written rows in memory. Non-displayable columns
+ * are filtered by this base class, so that implementations get only the values to be written.
+ * <BR/><BR/>
+ * When export fails midway, {@link #abort()} should be invoked before closing the writer, so that partial 
+ * export is not finalized into a well-formed (but truncated) document.
+ *
+ * @author akiran
+ */
+public abstract class SearchExportWriter implements Closeable
+{
+	/**
+	 * Indexes of displayable columns in search rows.
+	 */
+	private int displayableIndexes[];
+
+	/**
+	 * Buffer used to pass displayable values of a row to implementation. Reused
+	 * across rows.
+	 */
+	private String values[];
+
+	/**
+	 * Flag indicating the export is aborted.
+	 */
+	private boolean aborted;
+
+	/**
+	 * Writes the headings of the displayable columns among specified columns. Expected to be invoked before
+	 * any row is written.
+	 * @param searchColumns Columns of the search rows being exported
+	 * @throws IOException If write fails
+	 */
+	public void writeHeadings(List<SearchColumn> searchColumns) throws IOException
+	{
+		List<String> headings = new ArrayList<>();
+		displayableIndexes = new int[searchColumns.size()];
+
+		int idx = 0, count = 0;
+
+		for(SearchColumn column : searchColumns)
+		{
+			if(column.isDisplayable())
+			{
+				displayableIndexes[count] = idx;
+				headings.add(column.getHeading());
+				count++;
+			}
+
+			idx++;
+		}
+
+		values = new String[count];
+		writeValues(headings.toArray(values));
+	}
+
+	/**
+	 * Writes displayable values of specified row.
+	 * @param row Row to be written
+	 * @throws IOException If write fails
+	 */
+	public void writeRow(SearchRow row) throws IOException
+	{
+		if(values == null)
+		{
+			throw new IllegalStateException("Headings are not written before writing rows");
+		}
+
+		List<String> data = row.getData();
+
+		for(int i = 0; i < values.length; i++)
+		{
+			values[i] = data.get(displayableIndexes[i]);
+		}
+
+		writeValues(values);
+	}
+
+	/**
+	 * Writes single line (heading or data) with specified values. Null values should be written as empty values.
+	 * @param values Values to be written. The array is reused by caller, so implementations should not hold it.
+	 * @throws IOException If write fails
+	 */
+	protected abstract void writeValues(String values[]) throws IOException;
+
+	/**
+	 * Flushes the data written till now to the target stream. Invoked after every page of results.
+	 * @throws IOException If flush fails
+	 */
+	public abstract void flush() throws IOException;
+
+	/**
+	 * Marks the export as failed. Once aborted, {@link #close()} releases the writer without finalizing the document (like
+	 * writing trailing markup or flushing buffered data), so that the receiver can detect the export is incomplete.
+	 */
+	public void abort()
+	{
+		this.aborted = true;
+	}
+
+	/**
+	 * Checks if the export is aborted.
+	 *
+	 * @return true, if export is aborted
+	 */
+	public boolean isAborted()
+	{
+		return aborted;
+	}
+}
@@ -0,0 +1,430 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+
+import com.yukthi.persistence.repository.annotations.OrderByType;
+import com.yukthi.utils.exceptions.InvalidStateException;
+
+/**
+ * Keyset (seek) pagination of search queries. Pages are fetched by seeking on the pair (leading order-by field, id) of
+ * the last returned result, with id being the final tie breaker. That is, results after (value, lastId) are fetched as - 
+ * results having leading field equal to value and id after lastId, followed by results having leading field after value. 
+ * As both are fetched using database conditions, equality of values is decided by database (collation etc) and not by java.
+ * <BR/><BR/>
+ * Keyset pagination is supported only when leading order-by field is not nullable, as position of nulls in ordering
+ * is database specific and null values can not be sought. Paginators are immutable and can be shared across requests.
+ * 
+ * @author akiran
+ */
+public class SearchKeysetPaginator
+{
+	/**
+	 * Seek conditions to be used for a single fetch.
+	 * @author akiran
+	 */
+	public static class Seek
+	{
+		/**
+		 * Value of leading order-by field from which results should be fetched.
+		 */
+		private Object value;
+		
+		/**
+		 * Id after which results should be fetched, among results with leading field equal to value. Null,
+		 * if results with leading field after value should be fetched.
+		 */
+		private Object lastId;
+
+		/**
+		 * Instantiates a new seek.
+		 *
+		 * @param value the value of leading order-by field
+		 * @param lastId the id after which results should be fetched
+		 */
+		private Seek(Object value, Object lastId)
+		{
+			this.value = value;
+			this.lastId = lastId;
+		}
+		
+		/**
+		 * Gets the value of leading order-by field from which results should be fetched.
+		 *
+		 * @return the value of leading order-by field
+		 */
+		public Object getValue()
+		{
+			return value;
+		}
+		
+		/**
+		 * Gets the id after which results should be fetched. Null, if results with leading field after value should be fetched.
+		 *
+		 * @return the id after which results should be fetched
+		 */
+		public Object getLastId()
+		{
+			return lastId;
+		}
+		
+		/**
+		 * Checks if this seek is for results having leading field equal to value (and id after last id).
+		 *
+		 * @return true, if results with equal value should be fetched
+		 */
+		public boolean isTies()
+		{
+			return (lastId != null);
+		}
+	}
+	
+	/**
+	 * Fetches results from database for a seek.
+	 * @author akiran
+	 */
+	@FunctionalInterface
+	public static interface IFetcher
+	{
+		/**
+		 * Fetches results matching specified seek, in keyset order.
+		 * @param seek Seek conditions to be used. Null, for first page.
+		 * @param limit Max number of results to fetch. Zero or negative value indicates all results.
+		 * @return Matching results
+		 * @throws Exception If fetch fails
+		 */
+		public List<Object> fetch(Seek seek, int limit) throws Exception;
+	}
+	
+	/**
+	 * Single page of results.
+	 * @author akiran
+	 */
+	public static class Page
+	{
+		/**
+		 * Results of the page.
+		 */
+		private List<Object> results;
+		
+		/**
+		 * Token for next page. Null, if there are no more results.
+		 */
+		private SearchContinuationToken nextToken;
+
+		/**
+		 * Instantiates a new page.
+		 *
+		 * @param results the results of the page
+		 * @param nextToken the token for next page
+		 */
+		private Page(List<Object> results, SearchContinuationToken nextToken)
+		{
+			this.results = results;
+			this.nextToken = nextToken;
+		}
+		
+		/**
+		 * Gets the results of the page.
+		 *
+		 * @return the results of the page
+		 */
+		public List<Object> getResults()
+		{
+			return results;
+		}
+		
+		/**
+		 * Gets the token for next page. Null, if there are no more results.
+		 *
+		 * @return the token for next page
+		 */
+		public SearchContinuationToken getNextToken()
+		{
+			return nextToken;
+		}
+	}
+	
+	/**
+	 * Leading order-by field.
+	 */
+	private String field;
+	
+	/**
+	 * Getter of leading order-by field on search result.
+	 */
+	private Method fieldGetter;
+	
+	/**
+	 * Type of leading order-by field.
+	 */
+	private Class<?> fieldType;
+	
+	/**
+	 * Flag indicating leading field is ordered in descending order.
+	 */
+	private boolean descending;
+	
+	/**
+	 * Getter of id on search result.
+	 */
+	private Method idGetter;
+	
+	/**
+	 * Type of id.
+	 */
+	private Class<?> idType;
+	
+	/**
+	 * Flag indicating id is ordered in descending order.
+	 */
+	private boolean idDescending;
+
+	/**
+	 * Instantiates a new search keyset paginator.
+	 */
+	private SearchKeysetPaginator()
+	{}
+	
+	/**
+	 * Builds paginator for specified search result type, entity type and ordering. Null is returned, if keyset pagination is not
+	 * supported for specified details. Keyset pagination is supported only when
+	 * <UL>
+	 * 	<LI>Ordering is on single field, optionally followed by id (id is used as final tie breaker)</LI>
+	 * 	<LI>Leading order-by field is not nullable in the entity</LI>
+	 * 	<LI>Leading order-by field and id are readable from search result and are of type supported by continuation tokens</LI>
+	 * </UL>
+	 * @param resultType Search result type
+	 * @param entityType Entity type of the search query
+	 * @param orderByNames Order-by fields of the query
+	 * @param orderByTypes Order-by types of the query
+	 * @return Paginator, null if keyset pagination is not supported
+	 */
+	public static SearchKeysetPaginator build(Class<?> resultType, Class<?> entityType, List<String> orderByNames, List<OrderByType> orderByTypes)
+	{
+		String field = orderByNames.get(0);
+		boolean idLeading = "id".equals(field);
+		
+		if(orderByNames.size() > 2 || (orderByNames.size() == 2 && (idLeading || !"id".equals(orderByNames.get(1)))))
+		{
+			return null;
+		}
+		
+		if(!isNonNullable(entityType, field))
+		{
+			return null;
+		}
+		
+		PropertyDescriptor fieldProperty = getProperty(resultType, field);
+		PropertyDescriptor idProperty = idLeading ? fieldProperty : getProperty(resultType, "id");
+		
+		if(fieldProperty == null || idProperty == null 
+				|| !SearchContinuationToken.isSupportedType(fieldProperty.getPropertyType()) || !SearchContinuationToken.isSupportedType(idProperty.getPropertyType()))
+		{
+			return null;
+		}
+		
+		SearchKeysetPaginator paginator = new SearchKeysetPaginator();
+		paginator.field = field;
+		paginator.fieldGetter = fieldProperty.getReadMethod();
+		paginator.fieldType = fieldProperty.getPropertyType();
+		paginator.descending = (orderByTypes.get(0) == OrderByType.DESC);
+		paginator.idGetter = idProperty.getReadMethod();
+		paginator.idType = idProperty.getPropertyType();
+		paginator.idDescending = idLeading ? paginator.descending : (orderByNames.size() == 2 && orderByTypes.get(1) == OrderByType.DESC);
+		
+		return paginator;
+	}
+	
+	/**
+	 * Fetches readable property of specified name from specified type.
+	 * @param type Type from which property needs to be fetched
+	 * @param name Name of the property
+	 * @return Matching property, null if not found or not readable
+	 */
+	private static PropertyDescriptor getProperty(Class<?> type, String name)
+	{
+		try
+		{
+			for(PropertyDescriptor descriptor : Introspector.getBeanInfo(type).getPropertyDescriptors())
+			{
+				if(name.equals(descriptor.getName()) && descriptor.getReadMethod() != null)
+				{
+					return descriptor;
+				}
+			}
+		}catch(Exception ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while fetching bean details of search result type - {}", type.getName());
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Checks if specified field of specified entity type is not nullable. Fields of primitive type, id fields and 
+	 * columns marked as non-nullable are considered as not nullable.
+	 * @param entityType Entity type
+	 * @param fieldName Field to check
+	 * @return True, if field is not nullable. False, if field is nullable or not found.
+	 */
+	public static boolean isNonNullable(Class<?> entityType, String fieldName)
+	{
+		for(Class<?> type = entityType; type != null && !Object.class.equals(type); type = type.getSuperclass())
+		{
+			Field field = null;
+			
+			try
+			{
+				field = type.getDeclaredField(fieldName);
+			}catch(NoSuchFieldException ex)
+			{
+				continue;
+			}
+			
+			Column column = field.getAnnotation(Column.class);
+			return field.getType().isPrimitive() || field.getAnnotation(Id.class) != null || (column != null && !column.nullable());
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Gets the leading order-by field.
+	 *
+	 * @return the leading order-by field
+	 */
+	public String getField()
+	{
+		return field;
+	}
+	
+	/**
+	 * Checks if leading field is ordered in descending order.
+	 *
+	 * @return true, if leading field is ordered in descending order
+	 */
+	public boolean isDescending()
+	{
+		return descending;
+	}
+	
+	/**
+	 * Checks if id is ordered in descending order.
+	 *
+	 * @return true, if id is ordered in descending order
+	 */
+	public boolean isIdDescending()
+	{
+		return idDescending;
+	}
+	
+	/**
+	 * Fetches the page following specified continuation token. At most two fetches are done per page - first for results having
+	 * same leading value as last result (with id after last id) and then, if page is not full, for results having leading value 
+	 * after last value.
+	 * @param searchQueryName Search query name, used for generating next token
+	 * @param continuationToken Token returned with previous page. Null, for first page.
+	 * @param pageSize Page size. Zero or negative value indicates all results should be fetched.
+	 * @param fetcher Fetcher to fetch results from database
+	 * @return Fetched page
+	 * @throws Exception If fetching fails
+	 */
+	public Page fetchPage(String searchQueryName, SearchContinuationToken continuationToken, int pageSize, IFetcher fetcher) throws Exception
+	{
+		List<Object> results = new ArrayList<>();
+		
+		if(continuationToken == null)
+		{
+			addAll(results, fetcher.fetch(null, pageSize));
+		}
+		else
+		{
+			Object value = SearchContinuationToken.toConditionValue(continuationToken.getValue(), fieldType);
+			
+			// when id is leading field, values are unique and there will not be any ties
+			if(fieldGetter != idGetter)
+			{
+				Object lastId = SearchContinuationToken.toConditionValue(continuationToken.getLastId(), idType);
+				addAll(results, fetcher.fetch(new Seek(value, lastId), pageSize));
+			}
+			
+			if(pageSize <= 0 || results.size() < pageSize)
+			{
+				addAll(results, fetcher.fetch(new Seek(value, null), pageSize <= 0 ? pageSize : pageSize - results.size()));
+			}
+		}
+		
+		return new Page(results, nextToken(searchQueryName, results, pageSize));
+	}
+	
+	/**
+	 * Adds specified fetched results (which can be null) to specified list.
+	 * @param results List to which results should be added
+	 * @param fetched Fetched results
+	 */
+	private static void addAll(List<Object> results, List<Object> fetched)
+	{
+		if(fetched != null)
+		{
+			results.addAll(fetched);
+		}
+	}
+	
+	/**
+	 * Builds continuation token for the page following specified results.
+	 * @param searchQueryName Search query name
+	 * @param results Raw results of current page
+	 * @param pageSize Page size used to fetch current page
+	 * @return Token for next page. Null, if there are no more results.
+	 */
+	private SearchContinuationToken nextToken(String searchQueryName, List<Object> results, int pageSize) throws Exception
+	{
+		if(pageSize <= 0 || results.size() < pageSize)
+		{
+			return null;
+		}
+		
+		Object last = results.get(results.size() - 1);
+		String value = SearchContinuationToken.toTokenValue(fieldGetter.invoke(last));
+		String lastId = SearchContinuationToken.toTokenValue(idGetter.invoke(last));
+		
+		// null values can not be sought, fail instead of silently skipping the results
+		if(value == null || lastId == null)
+		{
+			throw new InvalidStateException("Encountered null value for keyset field '{}' or id of search query - {}", field, searchQueryName);
+		}
+		
+		return new SearchContinuationToken(searchQueryName, value, lastId);
+	}
+}
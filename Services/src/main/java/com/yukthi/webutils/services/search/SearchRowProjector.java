@@ -0,0 +1,317 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.beanutils.PropertyUtils;
+
+import com.yukthi.utils.exceptions.InvalidStateException;
+import com.yukthi.webutils.common.IExtendedSearchResult;
+import com.yukthi.webutils.common.models.def.FieldType;
+import com.yukthi.webutils.common.models.search.SearchColumn;
+import com.yukthi.webutils.common.models.search.SearchField;
+import com.yukthi.webutils.common.models.search.SearchRow;
+import com.yukthi.webutils.common.models.search.SearchSettingsColumn;
+import com.yukthi.webutils.controllers.IExtensionContextProvider;
+
+/**
+ * Converts search result beans into search rows for specific search settings. The columns of the settings
+ * are resolved once into flat array of column accessors, so that rows can be projected without
+ * re-evaluating the settings or using reflection per cell. Projectors are immutable and can be shared across requests.
+ * 
+ * @author akiran
+ */
+public class SearchRowProjector
+{
+	/**
+	 * Method type to which property getters are adapted, so that they can be invoked exactly.
+	 */
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	
+	/**
+	 * Accessor to fetch single column value from search result.
+	 * @author akiran
+	 */
+	private static interface ColumnAccessor
+	{
+		/**
+		 * Fetches column value from specified result.
+		 * @param result Result from which value needs to be fetched
+		 * @return Column value
+		 * @throws Throwable If value fetching fails
+		 */
+		public Object getValue(Object result) throws Throwable;
+	}
+	
+	/**
+	 * Search result columns of the projected rows.
+	 */
+	private List<SearchColumn> searchColumns;
+	
+	/**
+	 * Accessors of the result columns, in the order of search columns.
+	 */
+	private ColumnAccessor accessors[];
+	
+	/**
+	 * Labels of the result columns, used for error messages.
+	 */
+	private String columnLabels[];
+
+	/**
+	 * Builds projector for specified result type and search settings columns.
+	 *
+	 * @param resultType Search result bean type
+	 * @param settingsColumns Effective search settings columns
+	 * @param extensionContextProvider Provider to fetch extension name of the result, used by mixed extension columns
+	 */
+	public SearchRowProjector(Class<?> resultType, List<SearchSettingsColumn> settingsColumns, IExtensionContextProvider extensionContextProvider)
+	{
+		List<SearchColumn> columns = new ArrayList<>();
+		List<ColumnAccessor> accessorLst = new ArrayList<>();
+		List<String> labels = new ArrayList<>();
+		
+		BeanInfo beanInfo = null;
+		
+		try
+		{
+			beanInfo = Introspector.getBeanInfo(resultType);
+		}catch(Exception ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while fetching bean details of search result type - {}", resultType.getName());
+		}
+		
+		for(SearchSettingsColumn column : settingsColumns)
+		{
+			// ignore fields which will not be part of results
+			if(!column.isRequired() && !column.isDisplayed())
+			{
+				continue;
+			}
+			
+			if(column.isExtended())
+			{
+				columns.add(new SearchColumn("Ext_" + column.getLabel().replaceAll("\\s+", "_"), column.getLabel(), column.isDisplayed(), FieldType.STRING));
+				accessorLst.add(buildExtendedAccessor(column, extensionContextProvider));
+			}
+			else
+			{
+				columns.add(new SearchColumn(column.getPropertyName(), column.getLabel(), column.isDisplayed(), FieldType.STRING));
+				accessorLst.add(buildPropertyAccessor(resultType, beanInfo, column.getPropertyName()));
+			}
+			
+			labels.add(column.getLabel());
+		}
+		
+		this.searchColumns = Collections.unmodifiableList(columns);
+		this.accessors = accessorLst.toArray(new ColumnAccessor[0]);
+		this.columnLabels = labels.toArray(new String[0]);
+	}
+	
+	/**
+	 * Builds accessor for extended field column.
+	 * @param column Column for which accessor needs to be built
+	 * @param extensionContextProvider Provider to fetch extension name of the result
+	 * @return Column accessor
+	 */
+	private static ColumnAccessor buildExtendedAccessor(SearchSettingsColumn column, IExtensionContextProvider extensionContextProvider)
+	{
+		final String fieldName = column.getFieldName();
+		
+		// if it is simple extension field
+		if(!column.isMixedField())
+		{
+			return result -> ((IExtendedSearchResult) result).getDynamicFieldValue(fieldName);
+		}
+		
+		// if multiple extension fields (of different extensions) point to same column, field
+		// name has to be resolved based on extension of the result
+		final List<SearchField> fields = new ArrayList<>(column.getFields());
+		
+		return result -> {
+			String extensionName = extensionContextProvider.getExtensionName(result);
+			String mixedFieldName = null;
+			
+			if(extensionName != null)
+			{
+				for(SearchField field : fields)
+				{
+					if(extensionName.equals(field.getExtensionName()))
+					{
+						mixedFieldName = field.getField();
+						break;
+					}
+				}
+			}
+			else
+			{
+				mixedFieldName = fieldName;
+			}
+			
+			return ((IExtendedSearchResult) result).getDynamicFieldValue(mixedFieldName);
+		};
+	}
+	
+	/**
+	 * Builds accessor for static property column. For simple properties getter method handle is used, for nested
+	 * properties bean utils is used.
+	 * @param resultType Search result type
+	 * @param beanInfo Bean info of search result type
+	 * @param propertyName Property to be accessed
+	 * @return Column accessor
+	 */
+	private static ColumnAccessor buildPropertyAccessor(Class<?> resultType, BeanInfo beanInfo, final String propertyName)
+	{
+		MethodHandle getter = null;
+		
+		for(PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors())
+		{
+			if(!propertyName.equals(descriptor.getName()) || descriptor.getReadMethod() == null)
+			{
+				continue;
+			}
+			
+			try
+			{
+				descriptor.getReadMethod().setAccessible(true);
+				getter = MethodHandles.lookup().unreflect(descriptor.getReadMethod()).asType(GETTER_TYPE);
+			}catch(Exception ex)
+			{
+				throw new InvalidStateException(ex, "Failed to access search result property - {}.{}", resultType.getName(), propertyName);
+			}
+			
+			break;
+		}
+		
+		if(getter == null)
+		{
+			return result -> PropertyUtils.getProperty(result, propertyName);
+		}
+		
+		final MethodHandle finalGetter = getter;
+		
+		return result -> {
+			// customizers may return results of different type, for which fallback to bean utils
+			if(!resultType.isInstance(result))
+			{
+				return PropertyUtils.getProperty(result, propertyName);
+			}
+			
+			return (Object) finalGetter.invokeExact(result);
+		};
+	}
+	
+	/**
+	 * Gets the search result columns of the projected rows.
+	 *
+	 * @return the search result columns of the projected rows
+	 */
+	public List<SearchColumn> getSearchColumns()
+	{
+		return searchColumns;
+	}
+	
+	/**
+	 * Projects specified search result into search row.
+	 * @param result Result to be projected
+	 * @param dateFormatter Thread safe formatter to be used for date values
+	 * @return Projected search row
+	 */
+	public SearchRow project(Object result, DateTimeFormatter dateFormatter)
+	{
+		SearchRow searchRow = new SearchRow();
+		Object value = null;
+		
+		for(int i = 0; i < accessors.length; i++)
+		{
+			try
+			{
+				value = accessors[i].getValue(result);
+			}catch(Throwable ex)
+			{
+				throw new InvalidStateException(ex, "An error occurred while fetching value of search column - {}", columnLabels[i]);
+			}
+			
+			if(value == null)
+			{
+				searchRow.addValue(null);
+				continue;
+			}
+			
+			if(value instanceof Date)
+			{
+				// instant is created from time, as java.sql.Date does not support toInstant()
+				searchRow.addValue(dateFormatter.format(Instant.ofEpochMilli(((Date) value).getTime())));
+				continue;
+			}
+			
+			searchRow.addValue(value.toString());
+		}
+		
+		return searchRow;
+	}
+	
+	/**
+	 * Builds the key which uniquely identifies the projection of specified settings columns. Any change in
+	 * settings or extension fields (which are part of settings columns) results in a different key.
+	 * @param searchQueryName Search query name
+	 * @param settingsColumns Effective settings columns
+	 * @return Projection key
+	 */
+	public static String buildKey(String searchQueryName, List<SearchSettingsColumn> settingsColumns)
+	{
+		StringBuilder builder = new StringBuilder(searchQueryName);
+		
+		for(SearchSettingsColumn column : settingsColumns)
+		{
+			if(!column.isRequired() && !column.isDisplayed())
+			{
+				continue;
+			}
+			
+			builder.append('|').append(column.getLabel());
+			builder.append(column.isDisplayed() ? ":D" : ":H");
+			builder.append(column.isExtended() ? "E" : "S");
+			
+			for(SearchField field : column.getFields())
+			{
+				builder.append(':').append(field.getExtensionName()).append('/').append(field.getField()).append('/').append(field.getPropertyName());
+			}
+		}
+		
+		return builder.toString();
+	}
+}
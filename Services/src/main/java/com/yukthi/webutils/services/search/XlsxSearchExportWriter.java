@@ -0,0 +1,223 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Export writer which writes search results as single sheet xlsx (office open xml) workbook
+ * directly to target stream. The sheet xml is streamed as rows are written, using inline strings,
+ * so that no part of the workbook is held in memory.
+ *
+ * @author akiran
+ */
+public class XlsxSearchExportWriter extends SearchExportWriter
+{
+	private static final String CONTENT_TYPES_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+			+ "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+			+ "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+			+ "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+			+ "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+			+ "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+			+ "</Types>";
+
+	private static final String ROOT_RELS_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+			+ "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+			+ "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+			+ "</Relationships>";
+
+	private static final String WORKBOOK_RELS_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+			+ "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+			+ "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+			+ "</Relationships>";
+
+	/**
+	 * Zip stream of the workbook.
+	 */
+	private ZipOutputStream zipOutputStream;
+
+	/**
+	 * Writer of sheet entry.
+	 */
+	private Writer writer;
+
+	/**
+	 * Number of rows written so far.
+	 */
+	private int rowCount = 0;
+
+	/**
+	 * Instantiates a new xlsx export writer.
+	 *
+	 * @param outputStream Stream to which workbook should be written
+	 * @param sheetName Name of the sheet
+	 * @throws IOException If write fails
+	 */
+	public XlsxSearchExportWriter(OutputStream outputStream, String sheetName) throws IOException
+	{
+		this.zipOutputStream = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+		this.writer = new BufferedWriter(new OutputStreamWriter(zipOutputStream, StandardCharsets.UTF_8));
+
+		writeEntry("[Content_Types].xml", CONTENT_TYPES_XML);
+		writeEntry("_rels/.rels", ROOT_RELS_XML);
+		writeEntry("xl/workbook.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+				+ "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+				+ "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">"
+				+ "<sheets><sheet name=\"" + escape(sheetName) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets>"
+				+ "</workbook>");
+		writeEntry("xl/_rels/workbook.xml.rels", WORKBOOK_RELS_XML);
+
+		zipOutputStream.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+				+ "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+	}
+
+	/**
+	 * Writes complete zip entry with specified content.
+	 * @param name Name of the entry
+	 * @param content Content of the entry
+	 * @throws IOException If write fails
+	 */
+	private void writeEntry(String name, String content) throws IOException
+	{
+		zipOutputStream.putNextEntry(new ZipEntry(name));
+		writer.write(content);
+		writer.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.services.search.SearchExportWriter#writeValues(java.lang.String[])
+	 */
+	@Override
+	protected void writeValues(String[] values) throws IOException
+	{
+		rowCount++;
+		writer.write("<row r=\"");
+		writer.write(Integer.toString(rowCount));
+		writer.write("\">");
+
+		for(String value : values)
+		{
+			if(value == null || value.isEmpty())
+			{
+				writer.write("<c/>");
+				continue;
+			}
+
+			writer.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+			writer.write(escape(value));
+			writer.write("</t></is></c>");
+		}
+
+		writer.write("</row>");
+	}
+
+	/**
+	 * Escapes specified value for xml. Characters which are not allowed in xml are skipped.
+	 * @param value Value to be escaped
+	 * @return Escaped value
+	 */
+	private static String escape(String value)
+	{
+		StringBuilder builder = null;
+		char ch = 0;
+
+		for(int i = 0; i < value.length(); i++)
+		{
+			ch = value.charAt(i);
+
+			if(ch != '<' && ch != '>' && ch != '&' && ch != '"' && (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r'))
+			{
+				if(builder != null)
+				{
+					builder.append(ch);
+				}
+
+				continue;
+			}
+
+			if(builder == null)
+			{
+				builder = new StringBuilder(value.length() + 16);
+				builder.append(value, 0, i);
+			}
+
+			switch(ch)
+			{
+				case '<':
+					builder.append("&lt;");
+					break;
+				case '>':
+					builder.append("&gt;");
+					break;
+				case '&':
+					builder.append("&amp;");
+					break;
+				case '"':
+					builder.append("&quot;");
+					break;
+				default:
+					// invalid xml character, skip it
+			}
+		}
+
+		return (builder == null) ? value : builder.toString();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.services.search.SearchExportWriter#flush()
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		writer.flush();
+	}
+
+	/**
+	 * Completes the sheet and the workbook. If export is aborted, the sheet and zip directory are not written, so
+	 * that truncated workbook is not readable as a valid workbook.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if(isAborted())
+		{
+			return;
+		}
+		
+		writer.write("</sheetData></worksheet>");
+		writer.flush();
+
+		zipOutputStream.closeEntry();
+		zipOutputStream.close();
+	}
+}
@@ -0,0 +1,634 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.utils;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.yukthi.utils.annotations.IgnorePropertyDestination;
+import com.yukthi.utils.beans.PropertyMapper;
+import com.yukthi.utils.exceptions.InvalidStateException;
+
+/**
+ * Registry of bean mappers used for converting beans (entity to model and vice versa). For each (source, target)
+ * type pair a specialized mapper is built on first use, with constructor and property accessors generated
+ * using {@link LambdaMetafactory}, so that conversions do not involve reflection.
+ * <BR/><BR/>
+ * Properties with same name and compatible type are copied. Properties whose destination field (or setter)
+ * is marked with {@link IgnorePropertyDestination} are not copied. Similar to {@link PropertyMapper}, null values
+ * are copied (overriding defaults of target bean), except into primitive properties which retain their defaults.
+ * <BR/><BR/>
+ * When a type pair involves mapping which can not be done by simple copy (properties with same name
+ * but different types or different generic types, or other property mapping annotations), mapper of that pair 
+ * falls back to {@link PropertyMapper}.
+ * 
+ * @author akiran
+ */
+public class BeanMapper
+{
+	private static Logger logger = LogManager.getLogger(BeanMapper.class);
+	
+	/**
+	 * Package of property mapping annotations. Annotations from this package, other than {@link IgnorePropertyDestination},
+	 * result in fallback to {@link PropertyMapper}.
+	 */
+	private static final String MAPPING_ANNOTATIONS_PACKAGE = IgnorePropertyDestination.class.getPackage().getName();
+	
+	/**
+	 * Lookup used to generate accessors.
+	 */
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	
+	/**
+	 * Primitive types to wrapper types mapping.
+	 */
+	private static final Map<Class<?>, Class<?>> PRIMITIVE_TO_WRAPPER = new HashMap<>();
+	
+	static
+	{
+		PRIMITIVE_TO_WRAPPER.put(boolean.class, Boolean.class);
+		PRIMITIVE_TO_WRAPPER.put(byte.class, Byte.class);
+		PRIMITIVE_TO_WRAPPER.put(char.class, Character.class);
+		PRIMITIVE_TO_WRAPPER.put(short.class, Short.class);
+		PRIMITIVE_TO_WRAPPER.put(int.class, Integer.class);
+		PRIMITIVE_TO_WRAPPER.put(long.class, Long.class);
+		PRIMITIVE_TO_WRAPPER.put(float.class, Float.class);
+		PRIMITIVE_TO_WRAPPER.put(double.class, Double.class);
+	}
+	
+	/**
+	 * Copies single property from source bean to target bean.
+	 * @author akiran
+	 */
+	private static class PropertyCopier
+	{
+		/**
+		 * Name of the property.
+		 */
+		private String name;
+		
+		/**
+		 * Getter of the property on source bean.
+		 */
+		private Function<Object, Object> getter;
+		
+		/**
+		 * Setter of the property on target bean.
+		 */
+		private BiConsumer<Object, Object> setter;
+		
+		/**
+		 * Flag indicating if target property is primitive, in which case null values are not copied.
+		 */
+		private boolean primitiveTarget;
+
+		/**
+		 * Instantiates a new property copier.
+		 *
+		 * @param name the name
+		 * @param getter the getter
+		 * @param setter the setter
+		 * @param primitiveTarget the primitive target flag
+		 */
+		private PropertyCopier(String name, Function<Object, Object> getter, BiConsumer<Object, Object> setter, boolean primitiveTarget)
+		{
+			this.name = name;
+			this.getter = getter;
+			this.setter = setter;
+			this.primitiveTarget = primitiveTarget;
+		}
+		
+		/**
+		 * Copies the property value from source to target.
+		 * @param source Source bean
+		 * @param target Target bean
+		 */
+		private void copy(Object source, Object target)
+		{
+			Object value = getter.apply(source);
+			
+			if(value != null || !primitiveTarget)
+			{
+				setter.accept(target, value);
+			}
+		}
+	}
+	
+	/**
+	 * Mapper of single (source, target) type pair.
+	 * @author akiran
+	 */
+	private static class Mapper
+	{
+		/**
+		 * Creates new instance of target type.
+		 */
+		private Supplier<Object> constructor;
+		
+		/**
+		 * Property copiers. Null, if {@link PropertyMapper} needs to be used.
+		 */
+		private PropertyCopier copiers[];
+		
+		/**
+		 * Instantiates a new mapper.
+		 *
+		 * @param constructor the constructor
+		 * @param copiers the copiers
+		 */
+		private Mapper(Supplier<Object> constructor, PropertyCopier copiers[])
+		{
+			this.constructor = constructor;
+			this.copiers = copiers;
+		}
+		
+		/**
+		 * Converts specified source into new target bean.
+		 * @param source Source to convert
+		 * @return Converted bean
+		 */
+		private Object map(Object source)
+		{
+			Object target = constructor.get();
+			
+			if(copiers == null)
+			{
+				PropertyMapper.copyProperties(target, source);
+				return target;
+			}
+			
+			for(PropertyCopier copier : copiers)
+			{
+				copier.copy(source, target);
+			}
+			
+			return target;
+		}
+	}
+	
+	/**
+	 * Mappers by source type and target type. Mappers are held by source type (using {@link ClassValue}), so that
+	 * they do not prevent unloading of classes (and their class loaders) of the application.
+	 */
+	private static final ClassValue<ConcurrentMap<Class<?>, Mapper>> mappers = new ClassValue<ConcurrentMap<Class<?>, Mapper>>()
+	{
+		@Override
+		protected ConcurrentMap<Class<?>, Mapper> computeValue(Class<?> type)
+		{
+			return new ConcurrentHashMap<>();
+		}
+	};
+	
+	/**
+	 * Converts specified source bean into new bean of specified target type.
+	 * @param source Source bean to convert
+	 * @param targetType Target bean type
+	 * @param <T> Target type
+	 * @return Converted bean. Null, if source is null
+	 */
+	public static <T> T convert(Object source, Class<T> targetType)
+	{
+		if(source == null)
+		{
+			return null;
+		}
+		
+		try
+		{
+			return targetType.cast(getMapper(source.getClass(), targetType).map(source));
+		}catch(RuntimeException ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while converting {} bean to {} bean", source.getClass().getName(), targetType.getName());
+		}
+	}
+	
+	/**
+	 * Checks if conversion between specified types is done by direct property copy or by falling back to {@link PropertyMapper}.
+	 * @param sourceType Source type
+	 * @param targetType Target type
+	 * @return True, if direct property copy is used
+	 */
+	static boolean isDirectMapping(Class<?> sourceType, Class<?> targetType)
+	{
+		return getMapper(sourceType, targetType).copiers != null;
+	}
+	
+	/**
+	 * Fetches mapper for specified types, building it on first use.
+	 * @param sourceType Source type
+	 * @param targetType Target type
+	 * @return Mapper for specified types
+	 */
+	private static Mapper getMapper(Class<?> sourceType, Class<?> targetType)
+	{
+		ConcurrentMap<Class<?>, Mapper> targetMappers = mappers.get(sourceType);
+		Mapper mapper = targetMappers.get(targetType);
+		
+		if(mapper == null)
+		{
+			mapper = targetMappers.computeIfAbsent(targetType, type -> buildMapper(sourceType, targetType));
+		}
+		
+		return mapper;
+	}
+	
+	/**
+	 * Builds mapper for specified types.
+	 * @param sourceType Source type
+	 * @param targetType Target type
+	 * @return Built mapper
+	 */
+	private static Mapper buildMapper(Class<?> sourceType, Class<?> targetType)
+	{
+		Supplier<Object> constructor = buildConstructor(targetType);
+		
+		if(hasMappingAnnotations(sourceType) || hasMappingAnnotations(targetType))
+		{
+			logger.debug("Using property mapper for conversion of {} to {} as property mapping annotations are used", sourceType.getName(), targetType.getName());
+			return new Mapper(constructor, null);
+		}
+		
+		Map<String, PropertyDescriptor> sourceProperties = getProperties(sourceType);
+		List<PropertyCopier> copiers = new ArrayList<>();
+		PropertyDescriptor sourceProperty = null;
+		Method getter = null, setter = null;
+		
+		for(PropertyDescriptor targetProperty : getProperties(targetType).values())
+		{
+			setter = targetProperty.getWriteMethod();
+			sourceProperty = sourceProperties.get(targetProperty.getName());
+			getter = (sourceProperty != null) ? sourceProperty.getReadMethod() : null;
+			
+			if(setter == null || getter == null || isIgnored(targetType, targetProperty))
+			{
+				continue;
+			}
+			
+			if(!wrap(setter.getParameterTypes()[0]).isAssignableFrom(wrap(getter.getReturnType())))
+			{
+				logger.debug("Using property mapper for conversion of {} to {} as property '{}' type differs", sourceType.getName(), targetType.getName(), targetProperty.getName());
+				return new Mapper(constructor, null);
+			}
+			
+			//raw types being compatible is not enough, as copying List<Entity> into List<Model> by reference would be wrong
+			if(!isGenericTypeCompatible(getter.getGenericReturnType(), setter.getGenericParameterTypes()[0]))
+			{
+				logger.debug("Using property mapper for conversion of {} to {} as property '{}' generic type differs", sourceType.getName(), targetType.getName(), targetProperty.getName());
+				return new Mapper(constructor, null);
+			}
+			
+			copiers.add(new PropertyCopier(targetProperty.getName(), buildGetter(getter), buildSetter(setter), 
+					setter.getParameterTypes()[0].isPrimitive()));
+		}
+		
+		logger.debug("Built mapper for conversion of {} to {} with properties - {}", sourceType.getName(), targetType.getName(), 
+				copiers.stream().map(copier -> copier.name).collect(Collectors.toList()));
+		
+		return new Mapper(constructor, copiers.toArray(new PropertyCopier[0]));
+	}
+	
+	/**
+	 * Checks if value of specified source generic type can be copied by reference to target of specified
+	 * generic type. Target without type parameters accepts any source (as raw types are already compatible), 
+	 * otherwise generic types should be same.
+	 * @param sourceType Generic type of source property
+	 * @param targetType Generic type of target property
+	 * @return True, if value can be copied by reference
+	 */
+	private static boolean isGenericTypeCompatible(Type sourceType, Type targetType)
+	{
+		if(targetType instanceof Class)
+		{
+			return true;
+		}
+		
+		return targetType.equals(sourceType);
+	}
+	
+	/**
+	 * Fetches bean properties of specified type.
+	 * @param type Type whose properties are needed
+	 * @return Properties by name
+	 */
+	private static Map<String, PropertyDescriptor> getProperties(Class<?> type)
+	{
+		try
+		{
+			BeanInfo beanInfo = Introspector.getBeanInfo(type, Object.class);
+			Map<String, PropertyDescriptor> properties = new HashMap<>();
+			
+			for(PropertyDescriptor property : beanInfo.getPropertyDescriptors())
+			{
+				properties.put(property.getName(), property);
+			}
+			
+			return properties;
+		}catch(IntrospectionException ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while fetching properties of type - {}", type.getName());
+		}
+	}
+	
+	/**
+	 * Checks if specified type (or its super types) uses property mapping annotations, other than {@link IgnorePropertyDestination}.
+	 * @param type Type to check
+	 * @return True, if mapping annotations are used
+	 */
+	private static boolean hasMappingAnnotations(Class<?> type)
+	{
+		Class<?> curType = type;
+		
+		while(curType != null && !Object.class.equals(curType))
+		{
+			for(Field field : curType.getDeclaredFields())
+			{
+				if(hasMappingAnnotations(field))
+				{
+					return true;
+				}
+			}
+			
+			for(Method method : curType.getDeclaredMethods())
+			{
+				if(hasMappingAnnotations(method))
+				{
+					return true;
+				}
+			}
+			
+			curType = curType.getSuperclass();
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Checks if specified field or method has property mapping annotations, other than {@link IgnorePropertyDestination}.
+	 * @param element Element to check
+	 * @return True, if mapping annotations are used
+	 */
+	private static boolean hasMappingAnnotations(AccessibleObject element)
+	{
+		Class<? extends Annotation> annotationType = null;
+		
+		for(Annotation annotation : element.getAnnotations())
+		{
+			annotationType = annotation.annotationType();
+			
+			if(!IgnorePropertyDestination.class.equals(annotationType) && MAPPING_ANNOTATIONS_PACKAGE.equals(annotationType.getPackage().getName()))
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Checks if specified target property is marked with {@link IgnorePropertyDestination}, either on field or on setter.
+	 * @param targetType Target type
+	 * @param property Property to check
+	 * @return True, if property should not be set on target
+	 */
+	private static boolean isIgnored(Class<?> targetType, PropertyDescriptor property)
+	{
+		if(property.getWriteMethod().getAnnotation(IgnorePropertyDestination.class) != null)
+		{
+			return true;
+		}
+		
+		Class<?> curType = targetType;
+		
+		while(curType != null && !Object.class.equals(curType))
+		{
+			try
+			{
+				return curType.getDeclaredField(property.getName()).getAnnotation(IgnorePropertyDestination.class) != null;
+			}catch(NoSuchFieldException ex)
+			{
+				curType = curType.getSuperclass();
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Fetches wrapper type of specified type, if it is primitive.
+	 * @param type Type to wrap
+	 * @return Wrapper type or same type
+	 */
+	private static Class<?> wrap(Class<?> type)
+	{
+		Class<?> wrapperType = PRIMITIVE_TO_WRAPPER.get(type);
+		return (wrapperType != null) ? wrapperType : type;
+	}
+	
+	/**
+	 * Checks if accessors for specified type can be generated. Generated accessors are defined in
+	 * class loader of this class, so the types should be public and visible from this class loader.
+	 * @param type Type to check
+	 * @return True, if accessors can be generated
+	 */
+	private static boolean isAccessible(Class<?> type)
+	{
+		if(type.isPrimitive())
+		{
+			return true;
+		}
+		
+		if(type.isArray())
+		{
+			return isAccessible(type.getComponentType());
+		}
+		
+		if(!Modifier.isPublic(type.getModifiers()))
+		{
+			return false;
+		}
+		
+		try
+		{
+			return Class.forName(type.getName(), false, BeanMapper.class.getClassLoader()) == type;
+		}catch(ClassNotFoundException ex)
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * Builds constructor for specified type.
+	 * @param type Type for which constructor is needed
+	 * @return Constructor supplier
+	 */
+	@SuppressWarnings("unchecked")
+	private static Supplier<Object> buildConstructor(Class<?> type)
+	{
+		Constructor<?> constructor = null;
+		
+		try
+		{
+			constructor = type.getDeclaredConstructor();
+		}catch(NoSuchMethodException ex)
+		{
+			throw new InvalidStateException(ex, "No default constructor found for type - {}", type.getName());
+		}
+		
+		if(isAccessible(type) && Modifier.isPublic(constructor.getModifiers()) && !Modifier.isAbstract(type.getModifiers()))
+		{
+			try
+			{
+				CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(Supplier.class), 
+						MethodType.methodType(Object.class), LOOKUP.unreflectConstructor(constructor), MethodType.methodType(type));
+				
+				return (Supplier<Object>) site.getTarget().invoke();
+			}catch(Throwable ex)
+			{
+				logger.debug("Failed to generate constructor for type {}. Using reflection instead. Error - {}", type.getName(), "" + ex);
+			}
+		}
+		
+		Constructor<?> finalConstructor = constructor;
+		finalConstructor.setAccessible(true);
+		
+		return () -> invoke(() -> finalConstructor.newInstance());
+	}
+	
+	/**
+	 * Builds getter function for specified read method.
+	 * @param method Read method
+	 * @return Getter function
+	 */
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object> buildGetter(Method method)
+	{
+		if(isAccessible(method.getDeclaringClass()) && isAccessible(method.getReturnType()))
+		{
+			try
+			{
+				CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class), 
+						MethodType.methodType(Object.class, Object.class), LOOKUP.unreflect(method), 
+						MethodType.methodType(wrap(method.getReturnType()), method.getDeclaringClass()));
+				
+				return (Function<Object, Object>) site.getTarget().invoke();
+			}catch(Throwable ex)
+			{
+				logger.debug("Failed to generate getter for {}. Using reflection instead. Error - {}", method, "" + ex);
+			}
+		}
+		
+		method.setAccessible(true);
+		return bean -> invoke(() -> method.invoke(bean));
+	}
+	
+	/**
+	 * Builds setter function for specified write method.
+	 * @param method Write method
+	 * @return Setter function
+	 */
+	@SuppressWarnings("unchecked")
+	private static BiConsumer<Object, Object> buildSetter(Method method)
+	{
+		Class<?> propertyType = method.getParameterTypes()[0];
+		
+		if(isAccessible(method.getDeclaringClass()) && isAccessible(propertyType))
+		{
+			try
+			{
+				CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(BiConsumer.class), 
+						MethodType.methodType(void.class, Object.class, Object.class), LOOKUP.unreflect(method), 
+						MethodType.methodType(void.class, method.getDeclaringClass(), wrap(propertyType)));
+				
+				return (BiConsumer<Object, Object>) site.getTarget().invoke();
+			}catch(Throwable ex)
+			{
+				logger.debug("Failed to generate setter for {}. Using reflection instead. Error - {}", method, "" + ex);
+			}
+		}
+		
+		method.setAccessible(true);
+		return (bean, value) -> invoke(() -> method.invoke(bean, value));
+	}
+	
+	/**
+	 * Reflective action, used by reflection based accessors.
+	 * @author akiran
+	 */
+	private static interface ReflectiveAction
+	{
+		/**
+		 * Executes the action.
+		 * @return Result of action
+		 * @throws ReflectiveOperationException If action fails
+		 */
+		public Object execute() throws ReflectiveOperationException;
+	}
+	
+	/**
+	 * Executes specified reflective action converting checked exceptions into runtime exceptions.
+	 * @param action Action to execute
+	 * @return Result of action
+	 */
+	private static Object invoke(ReflectiveAction action)
+	{
+		try
+		{
+			return action.execute();
+		}catch(InvocationTargetException ex)
+		{
+			throw new InvalidStateException(ex.getCause(), "An error occurred while invoking bean method");
+		}catch(ReflectiveOperationException ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while invoking bean method");
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.utils;
+
+/**
+ * Single byte range requested using http "Range" header. Only single range requests are supported,
+ * for multi range requests complete content is expected to be sent.
+ * 
+ * @author akiran
+ */
+public class ByteRange
+{
+	/**
+	 * Range used to represent ranges which can not be satisfied for the content.
+	 */
+	public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+	
+	private static final String BYTES_UNIT = "bytes=";
+	
+	/**
+	 * Start position of the range (inclusive).
+	 */
+	private long start;
+	
+	/**
+	 * End position of the range (inclusive).
+	 */
+	private long end;
+
+	/**
+	 * Instantiates a new byte range.
+	 *
+	 * @param start the start position (inclusive)
+	 * @param end the end position (inclusive)
+	 */
+	public ByteRange(long start, long end)
+	{
+		this.start = start;
+		this.end = end;
+	}
+	
+	/**
+	 * Parses specified range header value for content of specified length.
+	 * @param rangeHeader Range header value
+	 * @param length Length of the content
+	 * @return Requested range. Null, if header is not specified, invalid or has multiple ranges (in which case 
+	 * complete content should be sent). {@link #UNSATISFIABLE}, if range is not satisfiable for the content.
+	 */
+	public static ByteRange parse(String rangeHeader, long length)
+	{
+		if(rangeHeader == null || !rangeHeader.startsWith(BYTES_UNIT) || rangeHeader.indexOf(',') >= 0)
+		{
+			return null;
+		}
+		
+		String range = rangeHeader.substring(BYTES_UNIT.length()).trim();
+		int idx = range.indexOf('-');
+		
+		if(idx < 0)
+		{
+			return null;
+		}
+		
+		String startStr = range.substring(0, idx).trim();
+		String endStr = range.substring(idx + 1).trim();
+		
+		try
+		{
+			//suffix range, which specifies number of bytes from end
+			if(startStr.isEmpty())
+			{
+				long suffixLength = Long.parseLong(endStr);
+				
+				if(suffixLength <= 0 || length == 0)
+				{
+					return UNSATISFIABLE;
+				}
+				
+				return new ByteRange(Math.max(0, length - suffixLength), length - 1);
+			}
+			
+			long start = Long.parseLong(startStr);
+			long end = endStr.isEmpty() ? (length - 1) : Math.min(Long.parseLong(endStr), length - 1);
+			
+			if(start >= length)
+			{
+				return UNSATISFIABLE;
+			}
+			
+			if(end < start)
+			{
+				return null;
+			}
+			
+			return new ByteRange(start, end);
+		}catch(NumberFormatException ex)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the start position of the range (inclusive).
+	 *
+	 * @return the start position of the range
+	 */
+	public long getStart()
+	{
+		return start;
+	}
+
+	/**
+	 * Gets the end position of the range (inclusive).
+	 *
+	 * @return the end position of the range
+	 */
+	public long getEnd()
+	{
+		return end;
+	}
+	
+	/**
+	 * Fetches number of bytes in this range.
+	 * @return Number of bytes in this range
+	 */
+	public long getLength()
+	{
+		return end - start + 1;
+	}
+	
+	/**
+	 * Builds value for "Content-Range" header for this range.
+	 * @param totalLength Total length of the content
+	 * @return Content range header value
+	 */
+	public String toContentRange(long totalLength)
+	{
+		if(this == UNSATISFIABLE)
+		{
+			return "bytes */" + totalLength;
+		}
+		
+		return "bytes " + start + "-" + end + "/" + totalLength;
+	}
+}
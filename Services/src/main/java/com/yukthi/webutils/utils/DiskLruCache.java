@@ -0,0 +1,316 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.yukthi.utils.exceptions.InvalidStateException;
+
+/**
+ * Cache of files maintained in a folder, whose total size is bounded. When the size exceeds max size, 
+ * least recently used files are deleted. Files existing in the folder (from previous runs) are loaded during 
+ * construction, in the order of their last modified time.
+ * <BR/><BR/>
+ * Keys are used as file names and hence can contain only alpha-numeric characters, dot, hyphen and underscore.
+ * 
+ * @author akiran
+ */
+public class DiskLruCache
+{
+	private static Logger logger = LogManager.getLogger(DiskLruCache.class);
+	
+	/**
+	 * Prefix of temporary files created in cache folder.
+	 */
+	private static final String TEMP_PREFIX = "_tmp";
+	
+	/**
+	 * Pattern of valid keys.
+	 */
+	private static final Pattern KEY_PATTERN = Pattern.compile("[\\w\\-][\\w\\.\\-]*");
+	
+	/**
+	 * Folder in which files are cached.
+	 */
+	private File folder;
+	
+	/**
+	 * Max size (in bytes) of the cache.
+	 */
+	private long maxSize;
+	
+	/**
+	 * Current size (in bytes) of the cache.
+	 */
+	private long size;
+	
+	/**
+	 * Key to file size mapping, in access order.
+	 */
+	private LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+	
+	/**
+	 * Keys acquired using {@link #acquire(String)} and not yet released, with their acquire count. Files
+	 * of these keys are not deleted during eviction.
+	 */
+	private Map<String, Integer> inUseCounts = new HashMap<>();
+	
+	/**
+	 * Instantiates a new disk lru cache.
+	 *
+	 * @param folder Folder in which files should be cached
+	 * @param maxSize Max size (in bytes) of the cache
+	 */
+	public DiskLruCache(File folder, long maxSize)
+	{
+		if(!folder.exists() && !folder.mkdirs())
+		{
+			throw new InvalidStateException("Failed to create cache folder - {}", folder.getPath());
+		}
+		
+		this.folder = folder;
+		this.maxSize = maxSize;
+		
+		File files[] = folder.listFiles();
+		
+		if(files == null)
+		{
+			return;
+		}
+		
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		
+		for(File file : files)
+		{
+			if(!file.isFile())
+			{
+				continue;
+			}
+			
+			//remove temp files left by previous runs
+			if(file.getName().startsWith(TEMP_PREFIX) || !KEY_PATTERN.matcher(file.getName()).matches())
+			{
+				file.delete();
+				continue;
+			}
+			
+			entries.put(file.getName(), file.length());
+			size += file.length();
+		}
+		
+		synchronized(this)
+		{
+			evict();
+		}
+	}
+	
+	/**
+	 * Fetches file of the specified key.
+	 * @param key Key of the file
+	 * @return File of the key. Null, if key is not present in cache.
+	 */
+	private File getFile(String key)
+	{
+		if(!KEY_PATTERN.matcher(key).matches() || key.startsWith(TEMP_PREFIX))
+		{
+			throw new InvalidStateException("Invalid cache key specified - {}", key);
+		}
+		
+		return new File(folder, key);
+	}
+	
+	/**
+	 * Creates temporary file in cache folder, which can be filled and then added to cache using
+	 * {@link #put(String, File)}.
+	 * @return New temporary file
+	 * @throws IOException If file creation fails
+	 */
+	public File createTempFile() throws IOException
+	{
+		return File.createTempFile(TEMP_PREFIX, ".tmp", folder);
+	}
+	
+	/**
+	 * Fetches cached file of specified key and marks it as recently used.
+	 * @param key Key of the file
+	 * @return Cached file. Null, if file is not cached.
+	 */
+	public synchronized File get(String key)
+	{
+		File file = getFile(key);
+		Long fileSize = entries.get(key);
+		
+		if(fileSize == null)
+		{
+			return null;
+		}
+		
+		//if file is deleted externally
+		if(!file.exists())
+		{
+			entries.remove(key);
+			size -= fileSize;
+			return null;
+		}
+		
+		return file;
+	}
+	
+	/**
+	 * Fetches cached file of specified key, marks it as recently used and marks it as in use. Till
+	 * the file is released using {@link #release(String)}, the file will not be deleted during eviction.
+	 * @param key Key of the file
+	 * @return Cached file. Null, if file is not cached (in which case release should not be called).
+	 */
+	public synchronized File acquire(String key)
+	{
+		File file = get(key);
+		
+		if(file != null)
+		{
+			inUseCounts.merge(key, 1, Integer::sum);
+		}
+		
+		return file;
+	}
+	
+	/**
+	 * Releases the file acquired using {@link #acquire(String)}. Once all acquirers release the file,
+	 * it becomes eligible for eviction again.
+	 * @param key Key of the file
+	 */
+	public synchronized void release(String key)
+	{
+		Integer count = inUseCounts.get(key);
+		
+		if(count == null)
+		{
+			return;
+		}
+		
+		if(count > 1)
+		{
+			inUseCounts.put(key, count - 1);
+			return;
+		}
+		
+		inUseCounts.remove(key);
+		evict();
+	}
+	
+	/**
+	 * Moves specified file into cache with specified key. If cache size exceeds max size, least recently used
+	 * files are deleted.
+	 * @param key Key of the file
+	 * @param file File to be cached. Expected to be created using {@link #createTempFile()}, so that it can be moved.
+	 * @return Cached file
+	 */
+	public synchronized File put(String key, File file)
+	{
+		File target = getFile(key);
+		
+		try
+		{
+			Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}catch(IOException ex)
+		{
+			throw new InvalidStateException(ex, "An error occurred while adding file to cache with key - {}", key);
+		}
+		
+		long fileSize = target.length();
+		Long oldSize = entries.put(key, fileSize);
+		
+		size += fileSize - (oldSize != null ? oldSize : 0);
+		evict();
+		
+		return target;
+	}
+	
+	/**
+	 * Deletes least recently used files till cache size is within max size. Most recently used file
+	 * is always retained. Files which are in use are skipped and get deleted on later eviction after release.
+	 */
+	private void evict()
+	{
+		Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+		Map.Entry<String, Long> entry = null;
+		
+		while(size > maxSize && entries.size() > 1 && it.hasNext())
+		{
+			entry = it.next();
+			
+			//most recently used file is retained
+			if(!it.hasNext())
+			{
+				break;
+			}
+			
+			if(inUseCounts.containsKey(entry.getKey()))
+			{
+				continue;
+			}
+			
+			if(!new File(folder, entry.getKey()).delete())
+			{
+				logger.warn("Failed to delete cached file - {}", entry.getKey());
+			}
+			
+			size -= entry.getValue();
+			it.remove();
+		}
+	}
+	
+	/**
+	 * Gets the current size (in bytes) of the cache.
+	 *
+	 * @return the current size (in bytes) of the cache
+	 */
+	public synchronized long getSize()
+	{
+		return size;
+	}
+	
+	/**
+	 * Gets the number of files in the cache.
+	 *
+	 * @return the number of files in the cache
+	 */
+	public synchronized int getCount()
+	{
+		return entries.size();
+	}
+}
@@ -0,0 +1,348 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Simple thread safe, size bounded cache with least-recently-used eviction and optional time-to-live
+ * for the entries. Keeps track of hits and misses, which can be used for monitoring.
+ * 
+ * @author akiran
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class LruCache<K, V>
+{
+	/**
+	 * Entry of the cache along with its expiry time.
+	 * @param <V> Value type
+	 */
+	private static class CacheEntry<V>
+	{
+		/**
+		 * Cached value.
+		 */
+		private V value;
+		
+		/**
+		 * Time (in millis) at which this entry expires. Zero, if entry never expires.
+		 */
+		private long expiryTime;
+		
+		/**
+		 * Instantiates a new cache entry.
+		 *
+		 * @param value the value
+		 * @param expiryTime the expiry time
+		 */
+		private CacheEntry(V value, long expiryTime)
+		{
+			this.value = value;
+			this.expiryTime = expiryTime;
+		}
+		
+		/**
+		 * Checks if this entry is expired.
+		 * @param currentTime Current time in millis
+		 * @return true if expired
+		 */
+		private boolean isExpired(long currentTime)
+		{
+			return expiryTime > 0 && expiryTime <= currentTime;
+		}
+	}
+	
+	/**
+	 * Name of the cache, used for logging and monitoring.
+	 */
+	private String name;
+	
+	/**
+	 * Max number of entries to be maintained.
+	 */
+	private int maxSize;
+	
+	/**
+	 * Time to live in millis for each entry. Zero or negative value indicates entries never expire.
+	 */
+	private long timeToLiveMillis;
+	
+	/**
+	 * Access ordered map maintaining the entries.
+	 */
+	private LinkedHashMap<K, CacheEntry<V>> entries;
+	
+	/**
+	 * Generation of the cache, which gets incremented whenever entries are removed (invalidated). Used to
+	 * ensure values loaded before an invalidation are not cached after the invalidation.
+	 */
+	private long generation;
+	
+	/**
+	 * Number of cache hits.
+	 */
+	private AtomicLong hitCount = new AtomicLong();
+	
+	/**
+	 * Number of cache misses.
+	 */
+	private AtomicLong missCount = new AtomicLong();
+	
+	/**
+	 * Instantiates a new cache whose entries never expire.
+	 *
+	 * @param name the name
+	 * @param maxSize the max size
+	 */
+	public LruCache(String name, int maxSize)
+	{
+		this(name, maxSize, 0);
+	}
+
+	/**
+	 * Instantiates a new cache.
+	 *
+	 * @param name the name
+	 * @param maxSize the max size
+	 * @param timeToLiveMillis the time to live in millis, zero or negative value indicates no expiry
+	 */
+	@SuppressWarnings("serial")
+	public LruCache(String name, int maxSize, long timeToLiveMillis)
+	{
+		if(maxSize <= 0)
+		{
+			throw new IllegalArgumentException("Invalid max size specified for cache '" + name + "' - " + maxSize);
+		}
+		
+		this.name = name;
+		this.maxSize = maxSize;
+		this.timeToLiveMillis = timeToLiveMillis;
+		
+		this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest)
+			{
+				return size() > LruCache.this.maxSize;
+			}
+		};
+	}
+	
+	/**
+	 * Gets the name of the cache.
+	 *
+	 * @return the name of the cache
+	 */
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * Fetches the value for specified key.
+	 * @param key Key to fetch
+	 * @return Matching value, null if not found or expired
+	 */
+	public synchronized V get(K key)
+	{
+		CacheEntry<V> entry = entries.get(key);
+		
+		if(entry == null)
+		{
+			missCount.incrementAndGet();
+			return null;
+		}
+		
+		if(entry.isExpired(System.currentTimeMillis()))
+		{
+			entries.remove(key);
+			missCount.incrementAndGet();
+			return null;
+		}
+		
+		hitCount.incrementAndGet();
+		return entry.value;
+	}
+	
+	/**
+	 * Fetches the value for specified key. If value is not present, the specified loader will be used
+	 * to load and cache the value. Null values returned by loader are not cached.
+	 * 
+	 * Loading is done outside of cache lock, so that slow loaders does not block other cache users. If entries
+	 * are removed (invalidated) while the value is being loaded, the loaded value is returned but not cached, as
+	 * it may be stale.
+	 * 
+	 * @param key Key to fetch
+	 * @param loader Loader to load value when not present
+	 * @return Matching or loaded value
+	 */
+	public V get(K key, Function<K, V> loader)
+	{
+		long loadGeneration = getGeneration();
+		V value = get(key);
+		
+		if(value != null)
+		{
+			return value;
+		}
+		
+		value = loader.apply(key);
+		
+		if(value != null)
+		{
+			put(key, value, loadGeneration);
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Fetches current generation of the cache. Generation gets incremented whenever entries are removed. The 
+	 * generation fetched before loading a value should be passed to {@link #put(Object, Object, long)}.
+	 * @return Current generation
+	 */
+	public synchronized long getGeneration()
+	{
+		return generation;
+	}
+	
+	/**
+	 * Adds specified value to cache, only if no entries are removed since specified generation.
+	 * @param key Key to use
+	 * @param value Value to cache
+	 * @param loadGeneration Generation of cache fetched before loading the value
+	 * @return True, if value is cached
+	 */
+	public synchronized boolean put(K key, V value, long loadGeneration)
+	{
+		if(loadGeneration != generation)
+		{
+			return false;
+		}
+		
+		put(key, value);
+		return true;
+	}
+	
+	/**
+	 * Adds specified value to cache.
+	 * @param key Key to use
+	 * @param value Value to cache
+	 */
+	public synchronized void put(K key, V value)
+	{
+		long expiryTime = (timeToLiveMillis > 0) ? System.currentTimeMillis() + timeToLiveMillis : 0;
+		entries.put(key, new CacheEntry<>(value, expiryTime));
+	}
+	
+	/**
+	 * Removes the entry with specified key.
+	 * @param key Key to remove
+	 */
+	public synchronized void remove(K key)
+	{
+		generation++;
+		entries.remove(key);
+	}
+	
+	/**
+	 * Removes all entries whose keys matches with specified predicate.
+	 * @param keyPredicate Predicate to test keys.
+	 */
+	public synchronized void removeIf(Predicate<K> keyPredicate)
+	{
+		generation++;
+		Iterator<K> it = entries.keySet().iterator();
+		
+		while(it.hasNext())
+		{
+			if(keyPredicate.test(it.next()))
+			{
+				it.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Removes all entries of the cache.
+	 */
+	public synchronized void clear()
+	{
+		generation++;
+		entries.clear();
+	}
+	
+	/**
+	 * Fetches number of entries in the cache (including expired entries which are not cleaned yet).
+	 * @return Number of entries
+	 */
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Gets the number of cache hits.
+	 *
+	 * @return the number of cache hits
+	 */
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	/**
+	 * Gets the number of cache misses.
+	 *
+	 * @return the number of cache misses
+	 */
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder(super.toString());
+		builder.append("[");
+
+		builder.append("Name: ").append(name);
+		builder.append(",").append("Size: ").append(size()).append("/").append(maxSize);
+		builder.append(",").append("Hits: ").append(hitCount.get());
+		builder.append(",").append("Misses: ").append(missCount.get());
+
+		builder.append("]");
+		return builder.toString();
+	}
+}
@@ -23,10 +23,11 @@
 
 package com.yukthi.webutils.utils;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -42,13 +43,16 @@ import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.disk.DiskFileItem;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
-import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.apache.tika.Tika;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.multipart.commons.CommonsMultipartFile;
 
 import com.yukthi.utils.exceptions.InvalidStateException;
 import com.yukthi.webutils.common.FileInfo;
+import com.yukthi.webutils.repository.file.FileContent;
 
 /**
  * Utils related to web attachments upload and download
@@ -72,6 +76,26 @@ public class WebAttachmentUtils
 	public static final String EXTENSION_MS_EXCEL_FILE = ".xls";
 	
 	private static final Tika tika = new Tika();
+	
+	private static Logger logger = LogManager.getLogger(WebAttachmentUtils.class);
+
+	/**
+	 * Detects content type of specified file, using file content and name.
+	 * @param file File whose content type needs to be detected
+	 * @param fileName Name of the file. Can be null.
+	 * @return Detected content type. Binary file type, if content type can not be detected.
+	 */
+	public static String detectContentType(File file, String fileName)
+	{
+		try(InputStream is = new BufferedInputStream(new FileInputStream(file)))
+		{
+			return tika.detect(is, fileName);
+		}catch(Exception ex)
+		{
+			logger.warn("An error occurred while detecting content type of file - {}", file.getPath(), ex);
+			return MIME_BINARY_FILE;
+		}
+	}
 
 	/**
 	 * Sends file to the client on specified response
@@ -81,24 +105,65 @@ public class WebAttachmentUtils
 	 * @param deleteFile If true, deletes the file once content is sent over the response
 	 */
 	public static void sendFile(HttpServletResponse response, FileInfo fileInfo, boolean asAttachment, boolean deleteFile)
+	{
+		try(FileContent content = new FileContent(fileInfo.getFile(), deleteFile))
+		{
+			sendFile(response, fileInfo, content, asAttachment);
+		}
+	}
+	
+	/**
+	 * Sends specified content to the client on specified response. Content is streamed directly from
+	 * the content file to the response.
+	 * @param response Response on which file needs to be sent
+	 * @param fileInfo File information
+	 * @param content Content to be sent
+	 * @param asAttachment If true, file will be sent as attachment. Otherwise as body content
+	 */
+	public static void sendFile(HttpServletResponse response, FileInfo fileInfo, FileContent content, boolean asAttachment)
+	{
+		sendFile(response, fileInfo, content, asAttachment, null);
+	}
+	
+	/**
+	 * Sends specified range of the content to the client on specified response. If range is specified, 
+	 * response is sent with status 206 (partial content).
+	 * @param response Response on which file needs to be sent
+	 * @param fileInfo File information
+	 * @param content Content to be sent
+	 * @param asAttachment If true, file will be sent as attachment. Otherwise as body content
+	 * @param range Range of content to be sent. If null, complete content is sent.
+	 */
+	public static void sendFile(HttpServletResponse response, FileInfo fileInfo, FileContent content, boolean asAttachment, ByteRange range)
 	{
 		String mimeType = fileInfo.getContentType();
 		
+		//content type is expected to be detected while saving the file, so only file name is used here
 		if(mimeType == null)
 		{
-			try
-			{
-				// set to binary type if MIME mapping not found
-				mimeType = tika.detect(fileInfo.getFile());
-			}catch(Exception ex)
-			{
-				throw new IllegalStateException("An error occurred while fetching file's mime type - " + fileInfo.getFile().getPath(), ex);
-			}
+			mimeType = (fileInfo.getFileName() != null) ? tika.detect(fileInfo.getFileName()) : MIME_BINARY_FILE;
 		}
 
 		// modifies response
+		long totalLength = content.length();
+		long length = (range != null) ? range.getLength() : totalLength;
+		
 		response.setContentType(mimeType);
-		response.setContentLength((int)fileInfo.getFile().length());
+		
+		if(range != null)
+		{
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader("Content-Range", range.toContentRange(totalLength));
+		}
+		
+		if(length <= Integer.MAX_VALUE)
+		{
+			response.setContentLength((int) length);
+		}
+		else
+		{
+			response.setHeader("Content-Length", Long.toString(length));
+		}
 
 		if(asAttachment)
 		{
@@ -111,16 +176,17 @@ public class WebAttachmentUtils
 		try
 		{
 			OutputStream os = response.getOutputStream();
-			FileInputStream fis = new FileInputStream(fileInfo.getFile());
-			IOUtils.copy(fis, os);
-			
-			os.close();
-			fis.close();
 			
-			if(deleteFile)
+			if(range != null)
 			{
-				fileInfo.getFile().delete();
+				content.transferTo(os, range.getStart(), range.getLength());
 			}
+			else
+			{
+				content.transferTo(os);
+			}
+			
+			os.close();
 		}catch(Exception ex)
 		{
 			throw new IllegalStateException("An error occurred while writing content to response", ex);
@@ -181,6 +247,29 @@ public class WebAttachmentUtils
 	}
 	
 	
+	/**
+	 * Fetches the folder in which specified multipart file content is spooled.
+	 * @param file File whose spool folder needs to be fetched
+	 * @return Spool folder. Null, if file content is in memory (in which case default temp folder can be used).
+	 */
+	private static File getSpoolFolder(MultipartFile file)
+	{
+		if(!(file instanceof CommonsMultipartFile))
+		{
+			return null;
+		}
+		
+		FileItem fileItem = ((CommonsMultipartFile) file).getFileItem();
+		
+		if(!(fileItem instanceof DiskFileItem) || fileItem.isInMemory())
+		{
+			return null;
+		}
+		
+		File storeLocation = ((DiskFileItem) fileItem).getStoreLocation();
+		return (storeLocation != null) ? storeLocation.getParentFile() : null;
+	}
+	
 	/**
 	 * Downloads the uploaded files from specified request and returns the file details
 	 * @param request Request from which files need to be downloaded
@@ -200,7 +289,6 @@ public class WebAttachmentUtils
 		File tempFile = null;
 		String fileName = null;
 		int idx = 0;
-		FileOutputStream fos = null;
 		List<FileInfo> fileInfoLst = null;
 		String fieldName = null;
 		
@@ -224,13 +312,12 @@ public class WebAttachmentUtils
 					fileName = fileName.substring(idx + 1);
 				}
 				
-				//copy the content of attachment to temp file
+				//move the content of attachment to temp file. When the attachment is already spooled to disk,
+				//	temp file is created in same folder, so that the content is moved (renamed) instead of copied
 				try
 				{
-					tempFile = File.createTempFile(fileName, ".temp");
-					fos = new FileOutputStream(tempFile);
-					IOUtils.copy(file.getInputStream(), fos);
-					fos.close();
+					tempFile = File.createTempFile("upload", ".temp", getSpoolFolder(file));
+					file.transferTo(tempFile);
 				}catch(IOException ex)
 				{
 					throw new InvalidStateException(ex, "An error occurred while uploading file content to temp file");
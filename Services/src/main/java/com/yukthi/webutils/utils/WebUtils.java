@@ -35,8 +35,6 @@ import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
 
-import com.yukthi.utils.beans.PropertyMapper;
-import com.yukthi.utils.exceptions.InvalidStateException;
 import com.yukthi.webutils.InvalidRequestParameterException;
 import com.yukthi.webutils.repository.WebutilsEntity;
 
@@ -50,7 +48,8 @@ public class WebUtils
 	
 	/**
 	 * Converts "source" bean into bean of type "targetType" by creating new instance,
-	 * and copying properties
+	 * and copying properties. Conversion is done using mapper (from {@link BeanMapper}) specialized for
+	 * source and target type pair.
 	 * @param source Source to be converted
 	 * @param targetType Target type to be converted to
 	 * @return Converted bean
@@ -62,18 +61,7 @@ public class WebUtils
 			return null;
 		}
 		
-		try
-		{
-			T targetBean = targetType.newInstance();
-			
-			//PropertyUtils.copyProperties(targetBean, source);
-			PropertyMapper.copyProperties(targetBean, source);
-			
-			return targetBean;
-		}catch(Exception ex)
-		{
-			throw new InvalidStateException(ex, "An error occurred while converting {} bean to {} bean", source.getClass().getName(), targetType.getName());
-		}
+		return BeanMapper.convert(source, targetType);
 	}
 	
 	/**
@@ -120,7 +120,7 @@ public class ExtendableModelValidator implements Validator
 				continue;
 			}
 			
-			fieldConfig = new FieldConfiguration(webutilsConfiguration.getDateFormat(), field.getLovValues(), field.getMaxLength());
+			fieldConfig = new FieldConfiguration(webutilsConfiguration.getDatePattern(), webutilsConfiguration.getDateParser(), field.getLovValues(), field.getMaxLength());
 			
 			//ensure proper value provided according to data type
 			if( !field.getType().validateValue(value, fieldConfig) )
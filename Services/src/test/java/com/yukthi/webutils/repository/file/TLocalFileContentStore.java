@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.repository.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link LocalFileContentStore}.
+ * @author akiran
+ */
+public class TLocalFileContentStore
+{
+	/**
+	 * Retention window used by the tests.
+	 */
+	private static final long RETENTION_MILLIS = 60 * 60 * 1000L;
+	
+	/**
+	 * Creates temp file with specified content.
+	 */
+	private File newFile(String content) throws IOException
+	{
+		File file = File.createTempFile("content", ".txt");
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		
+		return file;
+	}
+	
+	/**
+	 * Stores specified file and returns the content key.
+	 */
+	private String store(LocalFileContentStore store, File file)
+	{
+		FileEntity fileEntity = new FileEntity();
+		store.store(fileEntity, file);
+		
+		return fileEntity.getContentKey();
+	}
+	
+	/**
+	 * Fetches keys of contents not used since specified time.
+	 */
+	private List<String> fetchKeys(LocalFileContentStore store, Date unusedSince)
+	{
+		List<String> keys = new ArrayList<>();
+		store.fetchContentKeys(unusedSince, 1, keys::addAll);
+		
+		return keys;
+	}
+	
+	/**
+	 * Marks the content with specified key as last used at specified time.
+	 */
+	private void setLastUsed(File folder, String contentKey, long time) throws IOException
+	{
+		File contentFile = new File(new File(new File(folder, contentKey.substring(0, 2)), contentKey.substring(2, 4)), contentKey);
+		Files.setLastModifiedTime(contentFile.toPath(), FileTime.fromMillis(time));
+	}
+	
+	/**
+	 * Ensures same content stored multiple times is maintained once, and the source files are not modified.
+	 */
+	@Test
+	public void testDeduplication() throws IOException
+	{
+		File folder = Files.createTempDirectory("contentStore").toFile();
+		File file1 = newFile("same content");
+		File file2 = newFile("same content");
+		File file3 = newFile("other content");
+		
+		try
+		{
+			LocalFileContentStore store = new LocalFileContentStore(folder);
+			
+			String key1 = store(store, file1);
+			String key2 = store(store, file2);
+			String key3 = store(store, file3);
+			
+			Assert.assertEquals(key1, key2);
+			Assert.assertNotEquals(key1, key3);
+			Assert.assertEquals(key1, ContentHash.compute(file1));
+			
+			//source files should be retained as is
+			Assert.assertEquals(FileUtils.readFileToString(file1, StandardCharsets.UTF_8), "same content");
+			Assert.assertEquals(FileUtils.readFileToString(file2, StandardCharsets.UTF_8), "same content");
+			
+			Assert.assertEquals(fetchKeys(store, new Date(System.currentTimeMillis() + RETENTION_MILLIS)).size(), 2);
+			
+			FileEntity fileEntity = new FileEntity();
+			fileEntity.setContentKey(key1);
+			
+			try(FileContent content = store.fetch(fileEntity))
+			{
+				Assert.assertEquals(FileUtils.readFileToString(content.getFile(), StandardCharsets.UTF_8), "same content");
+			}
+		}finally
+		{
+			FileUtils.deleteDirectory(folder);
+			file1.delete();
+			file2.delete();
+			file3.delete();
+		}
+	}
+	
+	/**
+	 * Ensures unused content is deleted only after retention window, and reuse of content restarts the window.
+	 */
+	@Test
+	public void testRetentionWindow() throws IOException
+	{
+		File folder = Files.createTempDirectory("contentStore").toFile();
+		File file = newFile("retained content");
+		
+		try
+		{
+			LocalFileContentStore store = new LocalFileContentStore(folder);
+			Date unusedSince = new Date(System.currentTimeMillis() - RETENTION_MILLIS);
+			
+			String key = store(store, file);
+			
+			//recently stored content should be retained
+			Assert.assertTrue(fetchKeys(store, unusedSince).isEmpty());
+			Assert.assertEquals(store.delete(key, unusedSince), -1L);
+			
+			//once the window is passed, content becomes deletable
+			setLastUsed(folder, key, unusedSince.getTime() - 1000);
+			Assert.assertEquals(fetchKeys(store, unusedSince).size(), 1);
+			
+			//reuse of content restarts the window
+			Assert.assertEquals(store(store, file), key);
+			Assert.assertTrue(fetchKeys(store, unusedSince).isEmpty());
+			Assert.assertEquals(store.delete(key, unusedSince), -1L);
+			
+			setLastUsed(folder, key, unusedSince.getTime() - 1000);
+			Assert.assertEquals(store.delete(key, unusedSince), file.length());
+			Assert.assertTrue(fetchKeys(store, new Date()).isEmpty());
+			
+			//deleted content can be stored again
+			Assert.assertEquals(store(store, file), key);
+			Assert.assertEquals(fetchKeys(store, new Date(System.currentTimeMillis() + RETENTION_MILLIS)).size(), 1);
+		}finally
+		{
+			FileUtils.deleteDirectory(folder);
+			file.delete();
+		}
+	}
+}
@@ -23,12 +23,16 @@
 
 package com.yukthi.webutils.security;
 
+import java.util.Base64;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yukthi.utils.CommonUtils;
+import com.yukthi.utils.CryptoUtils;
 import com.yukthi.utils.ReflectionUtils;
 import com.yukthi.webutils.WebutilsConfiguration;
 
@@ -40,6 +44,53 @@ public class TSecurityEncryptionService
 {
 	private static Logger logger = LogManager.getLogger(TSecurityEncryptionService.class);
 	
+	private static final String SECRET_KEY = "#AS#$%^Fe135EF@4";
+	
+	/**
+	 * Creates encryption service with specified configuration.
+	 */
+	private SecurityEncryptionService newService(WebutilsConfiguration config)
+	{
+		SecurityEncryptionService securityEncryptionService = new SecurityEncryptionService();
+		ReflectionUtils.setFieldValue(securityEncryptionService, "configuration", config);
+		
+		return securityEncryptionService;
+	}
+	
+	/**
+	 * Creates configuration with test secret key and user details type.
+	 */
+	private WebutilsConfiguration newConfiguration()
+	{
+		WebutilsConfiguration config = new WebutilsConfiguration();
+		config.setSecretKey(SECRET_KEY);
+		config.setUserDetailsType(UserDetails2.class);
+		
+		return config;
+	}
+	
+	/**
+	 * Creates token in older format (&lt;time&gt;-&lt;encrypted-user-details&gt;) with specified time stamp.
+	 */
+	private String newLegacyToken(UserDetails2 userDetails, long timeStamp) throws Exception
+	{
+		userDetails.setTimeStamp(timeStamp);
+		return timeStamp + "-" + CryptoUtils.encrypt(SECRET_KEY, new ObjectMapper().writeValueAsString(userDetails));
+	}
+	
+	/**
+	 * Ensures decryption of specified token fails with security exception.
+	 */
+	private void assertInvalidToken(SecurityEncryptionService securityEncryptionService, String token)
+	{
+		try
+		{
+			securityEncryptionService.decrypt(token);
+			Assert.fail("Invalid token is accepted - " + token);
+		}catch(SecurityException ex)
+		{}
+	}
+	
 	/**
 	 * Tests security token encryption/decryption when security fields are involved
 	 * @throws Exception
@@ -105,4 +156,122 @@ public class TSecurityEncryptionService
 		Assert.assertNotNull(decryptedUserDetails);
 		Assert.assertEquals(decryptedUserDetails.getUserId(), userDetails.getUserId());
 	}
+
+	/**
+	 * Ensures tokens are generated in current format and are decrypted back, with every call getting its
+	 * own copy of user details.
+	 */
+	@Test
+	public void testTokenRoundTrip()
+	{
+		SecurityEncryptionService securityEncryptionService = newService(newConfiguration());
+		
+		UserDetails2 userDetails = new UserDetails2(10, 20L);
+		userDetails.setUserId(1234L);
+		userDetails.setRoles(CommonUtils.toSet(TestRole.ADMIN));
+		
+		String token = securityEncryptionService.encrypt(userDetails);
+		Assert.assertTrue(token.startsWith("2."));
+		Assert.assertEquals(userDetails.getAuthToken(), token);
+		
+		UserDetails2 decryptedUserDetails = (UserDetails2) securityEncryptionService.decrypt(token);
+		
+		Assert.assertEquals(decryptedUserDetails.getUserId(), 1234L);
+		Assert.assertEquals(decryptedUserDetails.getField1(), 10);
+		Assert.assertEquals(decryptedUserDetails.getField2(), 20L);
+		Assert.assertEquals(decryptedUserDetails.getRoles(), userDetails.getRoles());
+		Assert.assertEquals(decryptedUserDetails.getAuthToken(), token);
+		
+		//modification of user details should not affect subsequent (cached) decryption
+		decryptedUserDetails.setUserId(1L);
+		
+		UserDetails2 cachedUserDetails = (UserDetails2) securityEncryptionService.decrypt(token);
+		
+		Assert.assertNotSame(cachedUserDetails, decryptedUserDetails);
+		Assert.assertEquals(cachedUserDetails.getUserId(), 1234L);
+		Assert.assertEquals(cachedUserDetails.getAuthToken(), token);
+	}
+	
+	/**
+	 * Ensures tokens with modified cipher text or mac are rejected.
+	 */
+	@Test
+	public void testTamperedToken()
+	{
+		SecurityEncryptionService securityEncryptionService = newService(newConfiguration());
+		
+		UserDetails2 userDetails = new UserDetails2();
+		userDetails.setUserId(1234L);
+		
+		String token = securityEncryptionService.encrypt(userDetails);
+		byte payload[] = Base64.getUrlDecoder().decode(token.substring(2));
+		
+		//modify a byte of cipher text (which follows 16 byte iv)
+		byte tamperedPayload[] = payload.clone();
+		tamperedPayload[20] ^= 1;
+		assertInvalidToken(securityEncryptionService, "2." + Base64.getUrlEncoder().withoutPadding().encodeToString(tamperedPayload));
+		
+		//modify a byte of mac (at the end)
+		tamperedPayload = payload.clone();
+		tamperedPayload[payload.length - 1] ^= 1;
+		assertInvalidToken(securityEncryptionService, "2." + Base64.getUrlEncoder().withoutPadding().encodeToString(tamperedPayload));
+		
+		assertInvalidToken(securityEncryptionService, "2.invalid+token");
+		
+		//original token should still be valid
+		Assert.assertEquals(securityEncryptionService.decrypt(token).getUserId(), 1234L);
+	}
+	
+	/**
+	 * Ensures tokens of older format are accepted only when enabled in configuration.
+	 */
+	@Test
+	public void testLegacyToken() throws Exception
+	{
+		UserDetails2 userDetails = new UserDetails2();
+		userDetails.setUserId(1234L);
+		
+		String token = newLegacyToken(userDetails, System.currentTimeMillis() / 60000L);
+		
+		WebutilsConfiguration config = newConfiguration();
+		Assert.assertEquals(newService(config).decrypt(token).getUserId(), 1234L);
+		
+		config = newConfiguration();
+		config.setLegacyAuthTokenEnabled(false);
+		assertInvalidToken(newService(config), token);
+	}
+	
+	/**
+	 * Ensures token which is about to expire is refreshed, and the refreshed token is reused for
+	 * subsequent requests with the same old token.
+	 */
+	@Test
+	public void testRefreshReuse() throws Exception
+	{
+		WebutilsConfiguration config = newConfiguration();
+		SecurityEncryptionService securityEncryptionService = newService(config);
+		
+		UserDetails2 userDetails = new UserDetails2();
+		userDetails.setUserId(1234L);
+		
+		//create token which is about to time out
+		String oldToken = newLegacyToken(userDetails, System.currentTimeMillis() / 60000L - config.getSessionTimeOutInMin() + 1);
+		
+		UserDetails refreshedUserDetails = securityEncryptionService.decrypt(oldToken);
+		String newToken = refreshedUserDetails.getAuthToken();
+		
+		Assert.assertNotEquals(newToken, oldToken);
+		Assert.assertTrue(newToken.startsWith("2."));
+		Assert.assertEquals(refreshedUserDetails.getUserId(), 1234L);
+		
+		//subsequent request with old token should get the same new token
+		UserDetails reusedUserDetails = securityEncryptionService.decrypt(oldToken);
+		
+		Assert.assertNotSame(reusedUserDetails, refreshedUserDetails);
+		Assert.assertEquals(reusedUserDetails.getAuthToken(), newToken);
+		Assert.assertEquals(reusedUserDetails.getUserId(), 1234L);
+		
+		//new token should be valid
+		Assert.assertEquals(securityEncryptionService.decrypt(newToken).getUserId(), 1234L);
+	}
 }
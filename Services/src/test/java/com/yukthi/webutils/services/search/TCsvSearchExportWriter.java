@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.yukthi.webutils.common.models.def.FieldType;
+import com.yukthi.webutils.common.models.search.SearchColumn;
+import com.yukthi.webutils.common.models.search.SearchRow;
+
+/**
+ * Test cases for {@link CsvSearchExportWriter}.
+ * @author akiran
+ */
+public class TCsvSearchExportWriter
+{
+	/**
+	 * Ensures values are quoted as per csv format and non-displayable columns are skipped.
+	 */
+	@Test
+	public void testQuoting() throws Exception
+	{
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		
+		try(CsvSearchExportWriter writer = new CsvSearchExportWriter(output))
+		{
+			writer.writeHeadings(Arrays.asList(
+				new SearchColumn("name", "Name", true, FieldType.STRING),
+				new SearchColumn("id", "Id", false, FieldType.STRING),
+				new SearchColumn("desc", "Desc, Details", true, FieldType.STRING)
+			));
+			
+			writer.writeRow(new SearchRow(Arrays.asList("plain", "1", "with, comma")));
+			writer.writeRow(new SearchRow(Arrays.asList("with \"quotes\"", "2", "multi\nline")));
+			writer.writeRow(new SearchRow(Arrays.asList(null, "3", "")));
+		}
+		
+		Assert.assertEquals(new String(output.toByteArray(), StandardCharsets.UTF_8), 
+				"Name,\"Desc, Details\"\r\n"
+				+ "plain,\"with, comma\"\r\n"
+				+ "\"with \"\"quotes\"\"\",\"multi\nline\"\r\n"
+				+ ",\r\n");
+	}
+	
+	/**
+	 * Ensures data buffered after last flush is not written, when export is aborted.
+	 */
+	@Test
+	public void testAbort() throws Exception
+	{
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		
+		try(CsvSearchExportWriter writer = new CsvSearchExportWriter(output))
+		{
+			writer.writeHeadings(Arrays.asList(new SearchColumn("name", "Name", true, FieldType.STRING)));
+			writer.writeRow(new SearchRow(Arrays.asList("one")));
+			writer.flush();
+			
+			writer.writeRow(new SearchRow(Arrays.asList("two")));
+			writer.abort();
+		}
+		
+		Assert.assertEquals(new String(output.toByteArray(), StandardCharsets.UTF_8), "Name\r\none\r\n");
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.yukthi.persistence.repository.annotations.Condition;
+import com.yukthi.persistence.repository.annotations.Operator;
+import com.yukthi.persistence.repository.search.SearchCondition;
+import com.yukthi.webutils.common.annotations.ContextAttribute;
+
+/**
+ * Test cases for {@link SearchConditionBinder}.
+ * @author akiran
+ */
+public class TSearchConditionBinder
+{
+	/**
+	 * Status enum used for testing.
+	 */
+	public static enum Status
+	{
+		ACTIVE, INACTIVE
+	}
+	
+	/**
+	 * Context user bean used for testing nested context attributes.
+	 */
+	public static class ContextUser
+	{
+		private Long id;
+
+		public ContextUser(Long id)
+		{
+			this.id = id;
+		}
+
+		public Long getId()
+		{
+			return id;
+		}
+	}
+	
+	/**
+	 * Search query bean used for testing.
+	 */
+	public static class TestQuery
+	{
+		@Condition(value = "name", op = Operator.LIKE, ignoreCase = true)
+		private String name;
+		
+		@Condition(value = "age", op = Operator.GE)
+		private Integer age;
+		
+		@Condition(value = "status", op = Operator.EQ)
+		private Status status;
+		
+		@Condition(value = "createdOn", op = Operator.LT)
+		private Date createdOn;
+		
+		@Condition(value = "space", op = Operator.EQ)
+		@ContextAttribute("spaceIdentity")
+		private String space;
+		
+		@Condition(value = "owner", op = Operator.EQ)
+		@ContextAttribute("user.id")
+		private Long ownerId;
+		
+		private String ignored;
+		
+		public TestQuery(String name, Integer age, Status status, Date createdOn)
+		{
+			this.name = name;
+			this.age = age;
+			this.status = status;
+			this.createdOn = createdOn;
+		}
+	}
+	
+	/**
+	 * Builds context attributes used for testing.
+	 * @param spaceIdentity Space identity to set
+	 * @param userId User id to set
+	 * @return Context attributes
+	 */
+	private Map<String, Object> context(String spaceIdentity, Long userId)
+	{
+		Map<String, Object> attributes = new HashMap<>();
+		attributes.put("spaceIdentity", spaceIdentity);
+		attributes.put("user", new ContextUser(userId));
+		
+		return attributes;
+	}
+	
+	/**
+	 * Binds specified query and returns the condition key.
+	 * @param binder Binder to use
+	 * @param query Query to bind
+	 * @param attributes Context attributes
+	 * @return Condition key
+	 */
+	private String key(SearchConditionBinder binder, Object query, Map<String, Object> attributes)
+	{
+		StringBuilder keyBuilder = new StringBuilder();
+		binder.bind(query, attributes, keyBuilder);
+		
+		return keyBuilder.toString();
+	}
+	
+	/**
+	 * Ensures field values are converted into conditions, ignoring null and blank values, and values are 
+	 * converted as expected.
+	 */
+	@Test
+	public void testBinding()
+	{
+		SearchConditionBinder binder = new SearchConditionBinder(TestQuery.class);
+		Assert.assertEquals(binder.getQueryType(), TestQuery.class);
+		
+		Date createdOn = new Date();
+		StringBuilder keyBuilder = new StringBuilder();
+		List<SearchCondition> conditions = binder.bind(new TestQuery("ab*c", 10, Status.ACTIVE, createdOn), context(null, null), keyBuilder);
+		
+		Assert.assertEquals(conditions.size(), 4);
+		Assert.assertEquals(keyBuilder.toString(), 
+				"name" + Operator.LIKE + "~4:ab%c;" 
+				+ "age" + Operator.GE + "=2:10;"
+				+ "status" + Operator.EQ + "=6:ACTIVE;"
+				+ "createdOn" + Operator.LT + "=" + String.valueOf(createdOn.getTime()).length() + ":" + createdOn.getTime() + ";");
+		
+		//null and blank values should be ignored
+		keyBuilder.setLength(0);
+		conditions = binder.bind(new TestQuery("  ", null, null, null), context(null, null), keyBuilder);
+		
+		Assert.assertEquals(conditions.size(), 0);
+		Assert.assertEquals(keyBuilder.toString(), "");
+		
+		//key builder is optional
+		Assert.assertEquals(binder.bind(new TestQuery("abc", null, null, null), context(null, null)).size(), 1);
+	}
+	
+	/**
+	 * Ensures values of context attribute fields are fetched from context, including nested attributes.
+	 */
+	@Test
+	public void testContextAttributes()
+	{
+		SearchConditionBinder binder = new SearchConditionBinder(TestQuery.class);
+		
+		StringBuilder keyBuilder = new StringBuilder();
+		List<SearchCondition> conditions = binder.bind(new TestQuery(null, null, null, null), context("space1", 20L), keyBuilder);
+		
+		Assert.assertEquals(conditions.size(), 2);
+		Assert.assertEquals(keyBuilder.toString(), "space" + Operator.EQ + "=6:space1;" + "owner" + Operator.EQ + "=2:20;");
+		
+		//context values should differentiate the key
+		Assert.assertNotEquals(key(binder, null, context("space1", 20L)), key(binder, null, context("space2", 20L)));
+		Assert.assertNotEquals(key(binder, null, context("space1", 20L)), key(binder, null, context("space1", 21L)));
+	}
+	
+	/**
+	 * Ensures null query results in only context attribute conditions, instead of failing.
+	 */
+	@Test
+	public void testNullQuery()
+	{
+		SearchConditionBinder binder = new SearchConditionBinder(TestQuery.class);
+		
+		Assert.assertEquals(binder.bind(null, context("space1", 20L)).size(), 2);
+		Assert.assertEquals(binder.bind(null, context(null, null)).size(), 0);
+		Assert.assertEquals(key(binder, null, context("space1", 20L)), key(binder, new TestQuery(null, null, null, null), context("space1", 20L)));
+	}
+	
+	/**
+	 * Ensures different conditions do not result in same key, even when values contain key separators.
+	 */
+	@Test
+	public void testKeyUniqueness()
+	{
+		SearchConditionBinder binder = new SearchConditionBinder(TestQuery.class);
+		Map<String, Object> attributes = context(null, null);
+		Set<String> keys = new HashSet<>();
+		
+		String names[] = {"a", "a;", "a;age" + Operator.GE + "=2:10;", "1:a", "A", "null", "a%", "a*b", "a%b%"};
+		
+		for(String name : names)
+		{
+			keys.add(key(binder, new TestQuery(name, null, null, null), attributes));
+			keys.add(key(binder, new TestQuery(name, 10, null, null), attributes));
+		}
+		
+		//"a*b" and "a%b" are same after conversion, all others should be unique
+		keys.add(key(binder, new TestQuery("a%b", null, null, null), attributes));
+		Assert.assertEquals(keys.size(), names.length * 2);
+		
+		//values of different fields should not clash
+		Assert.assertNotEquals(key(binder, new TestQuery(null, 10, null, null), attributes), 
+				key(binder, new TestQuery(null, null, null, null), context("10", null)));
+	}
+	
+	/**
+	 * Ensures null values are differentiated from "null" strings and values are length prefixed.
+	 */
+	@Test
+	public void testAppendKeyValue()
+	{
+		Assert.assertEquals(SearchConditionBinder.appendKeyValue(new StringBuilder(), null).toString(), "-1:;");
+		Assert.assertEquals(SearchConditionBinder.appendKeyValue(new StringBuilder(), "null").toString(), "4:null;");
+		Assert.assertEquals(SearchConditionBinder.appendKeyValue(new StringBuilder(), "").toString(), "0:;");
+		Assert.assertEquals(SearchConditionBinder.appendKeyValue(new StringBuilder("x"), "a;b").toString(), "x3:a;b;");
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.util.Date;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.yukthi.webutils.InvalidRequestParameterException;
+
+/**
+ * Test cases for {@link SearchContinuationToken}.
+ * @author akiran
+ */
+public class TSearchContinuationToken
+{
+	/**
+	 * Ensures encoded tokens are decoded back to same values.
+	 */
+	@Test
+	public void testEncodeDecode()
+	{
+		String encoded = new SearchContinuationToken("empSearch", "some\nvalue", "40").encode();
+		SearchContinuationToken token = SearchContinuationToken.decode(encoded, "empSearch");
+
+		Assert.assertEquals(token.getLastId(), "40");
+		Assert.assertEquals(token.getValue(), "some\nvalue");
+
+		//empty value should be retained
+		token = SearchContinuationToken.decode(new SearchContinuationToken("empSearch", "", "20").encode(), "empSearch");
+		Assert.assertEquals(token.getValue(), "");
+		Assert.assertEquals(token.getLastId(), "20");
+	}
+
+	/**
+	 * Ensures token of one query can not be used for other query and invalid tokens are rejected.
+	 */
+	@Test
+	public void testInvalidTokens()
+	{
+		String encoded = new SearchContinuationToken("empSearch", "10", "40").encode();
+
+		try
+		{
+			SearchContinuationToken.decode(encoded, "deptSearch");
+			Assert.fail("Token of different query is accepted");
+		}catch(InvalidRequestParameterException ex)
+		{}
+
+		try
+		{
+			SearchContinuationToken.decode("invalid-token", "empSearch");
+			Assert.fail("Invalid token is accepted");
+		}catch(InvalidRequestParameterException ex)
+		{}
+	}
+
+	/**
+	 * Ensures values are converted back to order-by field types.
+	 */
+	@Test
+	public void testValueConversion()
+	{
+		Date date = new Date();
+
+		Assert.assertEquals(SearchContinuationToken.toConditionValue(SearchContinuationToken.toTokenValue(date), Date.class), date);
+		Assert.assertEquals(SearchContinuationToken.toConditionValue(SearchContinuationToken.toTokenValue(10L), long.class), 10L);
+		Assert.assertEquals(SearchContinuationToken.toConditionValue("abc", String.class), "abc");
+	}
+}
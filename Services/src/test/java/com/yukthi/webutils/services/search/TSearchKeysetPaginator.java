@@ -0,0 +1,245 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.yukthi.persistence.repository.annotations.OrderByType;
+
+/**
+ * Test cases for {@link SearchKeysetPaginator}. Database is simulated by in memory rows, which compares
+ * names case insensitively (similar to case insensitive collation) and orders nulls last.
+ * @author akiran
+ */
+public class TSearchKeysetPaginator
+{
+	/**
+	 * Entity used to check nullability of keyset fields.
+	 */
+	public static class TestEntity
+	{
+		@Id
+		private Long id;
+		
+		@Column(name = "NAME", nullable = false)
+		private String name;
+		
+		@Column(name = "DESCRIPTION")
+		private String description;
+		
+		private int age;
+	}
+	
+	/**
+	 * Search result used for testing.
+	 */
+	public static class TestResult
+	{
+		private Long id;
+		private String name;
+		private String description;
+		
+		public TestResult(long id, String name, String description)
+		{
+			this.id = id;
+			this.name = name;
+			this.description = description;
+		}
+
+		public Long getId()
+		{
+			return id;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+		
+		public String getDescription()
+		{
+			return description;
+		}
+	}
+	
+	/**
+	 * Case insensitive comparison of names, with nulls last.
+	 */
+	private static final Comparator<String> NAME_COMPARATOR = Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER);
+	
+	/**
+	 * Simulates database fetch of specified rows, for specified seek.
+	 */
+	private List<Object> fetch(List<TestResult> rows, boolean descending, SearchKeysetPaginator.Seek seek, int limit)
+	{
+		Comparator<TestResult> comparator = Comparator.comparing(TestResult::getName, NAME_COMPARATOR);
+		comparator = descending ? comparator.reversed() : comparator;
+		comparator = comparator.thenComparing(TestResult::getId);
+		
+		return rows.stream()
+			.filter(row -> 
+			{
+				if(seek == null)
+				{
+					return true;
+				}
+				
+				// null values never match comparison conditions, same as in database
+				if(row.getName() == null)
+				{
+					return false;
+				}
+				
+				int diff = String.CASE_INSENSITIVE_ORDER.compare(row.getName(), (String) seek.getValue());
+				
+				if(seek.isTies())
+				{
+					return diff == 0 && row.getId() > (Long) seek.getLastId();
+				}
+				
+				return descending ? diff < 0 : diff > 0;
+			})
+			.sorted(comparator)
+			.limit(limit > 0 ? limit : Long.MAX_VALUE)
+			.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Fetches all pages using specified paginator and returns ids of the results in fetched order.
+	 */
+	private List<Long> fetchAll(SearchKeysetPaginator paginator, List<TestResult> rows, boolean descending, int pageSize) throws Exception
+	{
+		List<Long> ids = new ArrayList<>();
+		SearchContinuationToken token = null;
+		
+		do
+		{
+			SearchKeysetPaginator.Page page = paginator.fetchPage("test", token, pageSize, (seek, limit) -> fetch(rows, descending, seek, limit));
+			
+			for(Object result : page.getResults())
+			{
+				ids.add(((TestResult) result).getId());
+			}
+			
+			// token is passed in encoded form, same as by clients
+			token = (page.getNextToken() == null) ? null : SearchContinuationToken.decode(page.getNextToken().encode(), "test");
+		} while(token != null);
+		
+		return ids;
+	}
+	
+	/**
+	 * Ensures values which are equal as per database (but not as per java) are neither skipped nor repeated
+	 * across pages.
+	 */
+	@Test
+	public void testCaseInsensitiveTies() throws Exception
+	{
+		List<TestResult> rows = Arrays.asList(
+			new TestResult(5, "abc", null),
+			new TestResult(1, "ABC", null),
+			new TestResult(7, "b", null),
+			new TestResult(2, "abc", null),
+			new TestResult(3, "Abc", null),
+			new TestResult(6, "B", null),
+			new TestResult(4, "a", null)
+		);
+		
+		SearchKeysetPaginator paginator = SearchKeysetPaginator.build(TestResult.class, TestEntity.class, 
+				Arrays.asList("name"), Arrays.asList(OrderByType.ASC));
+		
+		for(int pageSize = 1; pageSize <= 4; pageSize++)
+		{
+			Assert.assertEquals(fetchAll(paginator, rows, false, pageSize), Arrays.asList(4L, 1L, 2L, 3L, 5L, 6L, 7L), "Page size: " + pageSize);
+		}
+		
+		paginator = SearchKeysetPaginator.build(TestResult.class, TestEntity.class, 
+				Arrays.asList("name"), Arrays.asList(OrderByType.DESC));
+		
+		Assert.assertEquals(fetchAll(paginator, rows, true, 2), Arrays.asList(6L, 7L, 1L, 2L, 3L, 5L, 4L));
+		
+		//when page size is not specified, all results should be returned in single page
+		Assert.assertEquals(fetchAll(paginator, rows, true, -1), Arrays.asList(6L, 7L, 1L, 2L, 3L, 5L, 4L));
+	}
+	
+	/**
+	 * Ensures keyset pagination is not supported for nullable fields (null values can not be sought and would 
+	 * be skipped when database orders them last), so that offset pagination is used for them instead.
+	 */
+	@Test
+	public void testNullValues() throws Exception
+	{
+		List<TestResult> rows = Arrays.asList(
+			new TestResult(1, "a", "x"),
+			new TestResult(2, "b", null),
+			new TestResult(3, "c", "y"),
+			new TestResult(4, "d", null)
+		);
+		
+		Assert.assertNull(SearchKeysetPaginator.build(TestResult.class, TestEntity.class, 
+				Arrays.asList("description"), Arrays.asList(OrderByType.ASC)));
+		
+		Assert.assertFalse(SearchKeysetPaginator.isNonNullable(TestEntity.class, "description"));
+		Assert.assertFalse(SearchKeysetPaginator.isNonNullable(TestEntity.class, "unknown"));
+		Assert.assertTrue(SearchKeysetPaginator.isNonNullable(TestEntity.class, "name"));
+		Assert.assertTrue(SearchKeysetPaginator.isNonNullable(TestEntity.class, "id"));
+		Assert.assertTrue(SearchKeysetPaginator.isNonNullable(TestEntity.class, "age"));
+		
+		//null values in non-keyset columns should not affect pagination
+		SearchKeysetPaginator paginator = SearchKeysetPaginator.build(TestResult.class, TestEntity.class, 
+				Arrays.asList("name", "id"), Arrays.asList(OrderByType.ASC, OrderByType.ASC));
+		
+		Assert.assertEquals(fetchAll(paginator, rows, false, 1), Arrays.asList(1L, 2L, 3L, 4L));
+	}
+	
+	/**
+	 * Ensures keyset pagination is supported only for single order-by field, optionally followed by id.
+	 */
+	@Test
+	public void testSupportedOrdering()
+	{
+		Assert.assertNotNull(SearchKeysetPaginator.build(TestResult.class, TestEntity.class, 
+				Arrays.asList("id"), Arrays.asList(OrderByType.DESC)));
+		
+		Assert.assertNull(SearchKeysetPaginator.build(TestResult.class, TestEntity.class, 
+				Arrays.asList("name", "age"), Arrays.asList(OrderByType.ASC, OrderByType.ASC)));
+		
+		Assert.assertNull(SearchKeysetPaginator.build(TestResult.class, TestEntity.class, 
+				Arrays.asList("id", "name"), Arrays.asList(OrderByType.ASC, OrderByType.ASC)));
+		
+		//field not available in results
+		Assert.assertNull(SearchKeysetPaginator.build(TestResult.class, TestEntity.class, 
+				Arrays.asList("age"), Arrays.asList(OrderByType.ASC)));
+	}
+}
@@ -0,0 +1,369 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.yukthi.webutils.common.AbstractExtendedSearchResult;
+import com.yukthi.webutils.common.IExtendedSearchResult;
+import com.yukthi.webutils.common.models.search.SearchColumn;
+import com.yukthi.webutils.common.models.search.SearchField;
+import com.yukthi.webutils.common.models.search.SearchRow;
+import com.yukthi.webutils.common.models.search.SearchSettingsColumn;
+import com.yukthi.webutils.controllers.IExtensionContextProvider;
+import com.yukthi.webutils.extensions.ExtensionDetails;
+import com.yukthi.webutils.extensions.ExtensionEntityDetails;
+
+/**
+ * Test cases for {@link SearchRowProjector}. Projected rows are compared with rows built using the 
+ * per-row projection logic used earlier by search service.
+ * @author akiran
+ */
+public class TSearchRowProjector
+{
+	private static final String DATE_PATTERN = "dd/MM/yyyy HH:mm";
+	
+	/**
+	 * Nested bean used for testing nested properties.
+	 */
+	public static class Department
+	{
+		private String name;
+
+		public Department(String name)
+		{
+			this.name = name;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+	}
+	
+	/**
+	 * Search result bean used for testing.
+	 */
+	public static class TestResult extends AbstractExtendedSearchResult
+	{
+		private Long id;
+		private String name;
+		private Date joinDate;
+		private Department department;
+		private String extensionName;
+		private Map<String, Object> extendedValues = new HashMap<>();
+		
+		public TestResult(Long id, String name, Date joinDate, Department department, String extensionName)
+		{
+			this.id = id;
+			this.name = name;
+			this.joinDate = joinDate;
+			this.department = department;
+			this.extensionName = extensionName;
+		}
+
+		public Long getId()
+		{
+			return id;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public Date getJoinDate()
+		{
+			return joinDate;
+		}
+
+		public Department getDepartment()
+		{
+			return department;
+		}
+		
+		public TestResult setExtendedValue(String field, Object value)
+		{
+			extendedValues.put(field, value);
+			return this;
+		}
+
+		@Override
+		public Object getDynamicFieldValue(String name)
+		{
+			return extendedValues.get(name);
+		}
+	}
+	
+	/**
+	 * Result of different type with same property names, as returned by result customizers.
+	 */
+	public static class CustomizedResult
+	{
+		public Long getId()
+		{
+			return 100L;
+		}
+
+		public String getName()
+		{
+			return "custom";
+		}
+	}
+	
+	/**
+	 * Extension context provider, which fetches extension name from test results.
+	 */
+	private IExtensionContextProvider extensionContextProvider = new IExtensionContextProvider()
+	{
+		@Override
+		public ExtensionDetails getExtensionDetails(String extensionName, ExtensionEntityDetails extensionPointDetails)
+		{
+			return null;
+		}
+		
+		@Override
+		public String getExtensionName(Object modelObj)
+		{
+			return ((TestResult) modelObj).extensionName;
+		}
+	};
+	
+	/**
+	 * Builds static property column.
+	 * @param label Column label
+	 * @param property Property name
+	 * @param displayed Displayed flag
+	 * @param required Required flag
+	 * @return Built column
+	 */
+	private SearchSettingsColumn staticColumn(String label, String property, boolean displayed, boolean required)
+	{
+		SearchSettingsColumn column = new SearchSettingsColumn(label, displayed, false, new SearchField(null, property, property));
+		column.setRequired(required);
+		
+		return column;
+	}
+	
+	/**
+	 * Builds test settings columns covering static, nested, date, extended and mixed extended columns.
+	 * @return Settings columns
+	 */
+	private List<SearchSettingsColumn> buildColumns()
+	{
+		List<SearchSettingsColumn> columns = new ArrayList<>();
+		columns.add(staticColumn("Id", "id", false, true));
+		columns.add(staticColumn("Name", "name", true, false));
+		columns.add(staticColumn("Skipped", "name", false, false));
+		columns.add(staticColumn("Join Date", "joinDate", true, false));
+		columns.add(staticColumn("Department", "department.name", true, false));
+		columns.add(new SearchSettingsColumn("Emp Code", true, true, new SearchField("ext1", "field1", null)));
+		columns.add(new SearchSettingsColumn("Grade", true, true, Arrays.asList(
+				new SearchField("ext1", "field2", null), 
+				new SearchField("ext2", "field3", null))));
+		
+		return columns;
+	}
+	
+	/**
+	 * Projects specified result using the per-row logic used earlier by search service.
+	 * @param result Result to project
+	 * @param columns Settings columns
+	 * @return Projected row data
+	 */
+	private List<String> legacyProject(Object result, List<SearchSettingsColumn> columns) throws Exception
+	{
+		SearchRow searchRow = new SearchRow();
+		Object value = null;
+		String extensionName = null;
+		
+		for(SearchSettingsColumn column : columns)
+		{
+			if(!column.isRequired() && !column.isDisplayed())
+			{
+				continue;
+			}
+			
+			if(column.isExtended())
+			{
+				if(!column.isMixedField())
+				{
+					value = ((IExtendedSearchResult) result).getDynamicFieldValue(column.getFieldName());
+				}
+				else
+				{
+					extensionName = extensionContextProvider.getExtensionName(result);
+
+					if(extensionName != null)
+					{
+						value = ((IExtendedSearchResult) result).getDynamicFieldValue(column.getMixedFieldName(extensionName));
+					}
+					else
+					{
+						value = ((IExtendedSearchResult) result).getDynamicFieldValue(column.getFieldName());
+					}
+				}
+			}
+			else
+			{
+				value = PropertyUtils.getProperty(result, column.getPropertyName());
+			}
+
+			if(value == null)
+			{
+				searchRow.addValue(null);
+				continue;
+			}
+
+			if(value instanceof Date)
+			{
+				value = new SimpleDateFormat(DATE_PATTERN).format(value);
+			}
+
+			searchRow.addValue(value.toString());
+		}
+		
+		return searchRow.getData();
+	}
+	
+	/**
+	 * Ensures search columns are built only for required and displayed columns, with expected names.
+	 */
+	@Test
+	public void testSearchColumns()
+	{
+		SearchRowProjector projector = new SearchRowProjector(TestResult.class, buildColumns(), extensionContextProvider);
+		List<SearchColumn> searchColumns = projector.getSearchColumns();
+		
+		Assert.assertEquals(searchColumns.size(), 6);
+		
+		Assert.assertEquals(searchColumns.get(0).getName(), "id");
+		Assert.assertFalse(searchColumns.get(0).isDisplayable());
+		
+		Assert.assertEquals(searchColumns.get(1).getName(), "name");
+		Assert.assertTrue(searchColumns.get(1).isDisplayable());
+		
+		Assert.assertEquals(searchColumns.get(3).getName(), "department.name");
+		Assert.assertEquals(searchColumns.get(4).getName(), "Ext_Emp_Code");
+		Assert.assertEquals(searchColumns.get(4).getHeading(), "Emp Code");
+		Assert.assertEquals(searchColumns.get(5).getName(), "Ext_Grade");
+	}
+	
+	/**
+	 * Ensures projected rows match the legacy projection for static, nested, date, extended and mixed columns.
+	 */
+	@Test
+	public void testProjection() throws Exception
+	{
+		List<SearchSettingsColumn> columns = buildColumns();
+		SearchRowProjector projector = new SearchRowProjector(TestResult.class, columns, extensionContextProvider);
+		DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern(DATE_PATTERN).withZone(ZoneId.systemDefault());
+		Date date = new Date();
+		
+		List<TestResult> results = Arrays.asList(
+			new TestResult(1L, "emp1", date, new Department("dept1"), "ext1").setExtendedValue("field1", "E1").setExtendedValue("field2", "G1"),
+			new TestResult(2L, "emp2", new java.sql.Date(date.getTime()), new Department("dept2"), "ext2")
+				.setExtendedValue("field1", "E2").setExtendedValue("field3", 3),
+			//no extension, first field of mixed column is used
+			new TestResult(3L, null, null, new Department(null), null).setExtendedValue("field2", "G3"),
+			//unknown extension, mixed column value is not found
+			new TestResult(4L, "emp4", date, new Department("dept4"), "ext3").setExtendedValue("field2", "G4")
+		);
+		
+		for(TestResult result : results)
+		{
+			Assert.assertEquals(projector.project(result, dateFormatter).getData(), legacyProject(result, columns));
+		}
+		
+		List<String> data = projector.project(results.get(1), dateFormatter).getData();
+		Assert.assertEquals(data, Arrays.asList("2", "emp2", new SimpleDateFormat(DATE_PATTERN).format(date), "dept2", "E2", "3"));
+		
+		data = projector.project(results.get(2), dateFormatter).getData();
+		Assert.assertEquals(data, Arrays.asList("3", null, null, null, null, "G3"));
+	}
+	
+	/**
+	 * Ensures results of type different from the result type (as returned by customizers) are projected using
+	 * their properties.
+	 */
+	@Test
+	public void testDifferentResultType()
+	{
+		List<SearchSettingsColumn> columns = Arrays.asList(staticColumn("Id", "id", true, false), staticColumn("Name", "name", true, false));
+		SearchRowProjector projector = new SearchRowProjector(TestResult.class, columns, extensionContextProvider);
+		
+		Assert.assertEquals(projector.project(new CustomizedResult(), DateTimeFormatter.ISO_DATE).getData(), Arrays.asList("100", "custom"));
+	}
+	
+	/**
+	 * Ensures projection keys are same for same settings, and change when any projected part of the settings changes.
+	 */
+	@Test
+	public void testBuildKey()
+	{
+		String key = SearchRowProjector.buildKey("empSearch", buildColumns());
+		
+		Assert.assertEquals(SearchRowProjector.buildKey("empSearch", buildColumns()), key);
+		Assert.assertNotEquals(SearchRowProjector.buildKey("deptSearch", buildColumns()), key);
+		
+		//columns which are not projected should not affect the key
+		List<SearchSettingsColumn> columns = buildColumns();
+		columns.get(2).setLabel("Changed");
+		Assert.assertEquals(SearchRowProjector.buildKey("empSearch", columns), key);
+		
+		columns = buildColumns();
+		columns.get(1).setLabel("Full Name");
+		Assert.assertNotEquals(SearchRowProjector.buildKey("empSearch", columns), key);
+		
+		columns = buildColumns();
+		columns.get(1).setDisplayed(false);
+		columns.get(1).setRequired(true);
+		Assert.assertNotEquals(SearchRowProjector.buildKey("empSearch", columns), key);
+		
+		columns = buildColumns();
+		columns.get(2).setRequired(true);
+		Assert.assertNotEquals(SearchRowProjector.buildKey("empSearch", columns), key);
+		
+		//change in extension fields of column
+		columns = buildColumns();
+		columns.get(6).setFields(Arrays.asList(new SearchField("ext1", "field2", null), new SearchField("ext3", "field3", null)));
+		Assert.assertNotEquals(SearchRowProjector.buildKey("empSearch", columns), key);
+		
+		columns = buildColumns();
+		columns.get(5).setFields(Arrays.asList(new SearchField("ext1", "field5", null)));
+		Assert.assertNotEquals(SearchRowProjector.buildKey("empSearch", columns), key);
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.services.search;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.yukthi.webutils.common.models.def.FieldType;
+import com.yukthi.webutils.common.models.search.SearchColumn;
+import com.yukthi.webutils.common.models.search.SearchRow;
+
+/**
+ * Test cases for {@link XlsxSearchExportWriter}.
+ * @author akiran
+ */
+public class TXlsxSearchExportWriter
+{
+	/**
+	 * Reads content of specified entry from specified workbook.
+	 */
+	private String readEntry(File file, String name) throws Exception
+	{
+		try(ZipFile zipFile = new ZipFile(file); InputStream is = zipFile.getInputStream(zipFile.getEntry(name)))
+		{
+			return IOUtils.toString(is, StandardCharsets.UTF_8);
+		}
+	}
+	
+	/**
+	 * Ensures workbook is written with expected entries and cell values are escaped.
+	 */
+	@Test
+	public void testWorkbook() throws Exception
+	{
+		File file = File.createTempFile("export", ".xlsx");
+		
+		try
+		{
+			try(FileOutputStream fos = new FileOutputStream(file); XlsxSearchExportWriter writer = new XlsxSearchExportWriter(fos, "R&D <Results>"))
+			{
+				writer.writeHeadings(Arrays.asList(
+					new SearchColumn("name", "Name", true, FieldType.STRING),
+					new SearchColumn("id", "Id", false, FieldType.STRING),
+					new SearchColumn("desc", "Desc", true, FieldType.STRING)
+				));
+				
+				writer.writeRow(new SearchRow(Arrays.asList("<a> & \"b\"", "1", "invalid\u0001char")));
+				writer.writeRow(new SearchRow(Arrays.asList(null, "2", "tab\tline\n")));
+			}
+			
+			Assert.assertTrue(readEntry(file, "xl/workbook.xml").contains("<sheet name=\"R&amp;D &lt;Results&gt;\""));
+			Assert.assertNotNull(readEntry(file, "[Content_Types].xml"));
+			
+			String sheet = readEntry(file, "xl/worksheets/sheet1.xml");
+			
+			Assert.assertTrue(sheet.endsWith(
+				"<sheetData>"
+				+ "<row r=\"1\"><c t=\"inlineStr\"><is><t xml:space=\"preserve\">Name</t></is></c><c t=\"inlineStr\"><is><t xml:space=\"preserve\">Desc</t></is></c></row>"
+				+ "<row r=\"2\"><c t=\"inlineStr\"><is><t xml:space=\"preserve\">&lt;a&gt; &amp; &quot;b&quot;</t></is></c><c t=\"inlineStr\"><is><t xml:space=\"preserve\">invalidchar</t></is></c></row>"
+				+ "<row r=\"3\"><c/><c t=\"inlineStr\"><is><t xml:space=\"preserve\">tab\tline\n</t></is></c></row>"
+				+ "</sheetData></worksheet>"), sheet);
+		}finally
+		{
+			file.delete();
+		}
+	}
+	
+	/**
+	 * Ensures aborted export does not result in a valid workbook.
+	 */
+	@Test
+	public void testAbort() throws Exception
+	{
+		File file = File.createTempFile("export", ".xlsx");
+		
+		try
+		{
+			try(FileOutputStream fos = new FileOutputStream(file); XlsxSearchExportWriter writer = new XlsxSearchExportWriter(fos, "Results"))
+			{
+				writer.writeHeadings(Arrays.asList(new SearchColumn("name", "Name", true, FieldType.STRING)));
+				writer.writeRow(new SearchRow(Arrays.asList("one")));
+				writer.flush();
+				writer.abort();
+			}
+			
+			try
+			{
+				new ZipFile(file).close();
+				Assert.fail("Aborted export resulted in valid workbook");
+			}catch(ZipException ex)
+			{}
+		}finally
+		{
+			file.delete();
+		}
+	}
+}
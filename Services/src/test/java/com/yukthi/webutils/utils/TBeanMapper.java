@@ -0,0 +1,344 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.utils;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.List;
+import java.util.Objects;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.yukthi.utils.annotations.IgnorePropertyDestination;
+import com.yukthi.utils.beans.PropertyMapper;
+
+/**
+ * Test cases for {@link BeanMapper}.
+ * @author akiran
+ */
+public class TBeanMapper
+{
+	/**
+	 * Source bean used for testing.
+	 */
+	public static class SourceBean
+	{
+		private Long id;
+		private String name;
+		private int age;
+		private String content;
+		private Integer rank;
+
+		public Long getId()
+		{
+			return id;
+		}
+
+		public void setId(Long id)
+		{
+			this.id = id;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public void setName(String name)
+		{
+			this.name = name;
+		}
+
+		public int getAge()
+		{
+			return age;
+		}
+
+		public void setAge(int age)
+		{
+			this.age = age;
+		}
+
+		public String getContent()
+		{
+			return content;
+		}
+
+		public void setContent(String content)
+		{
+			this.content = content;
+		}
+
+		public Integer getRank()
+		{
+			return rank;
+		}
+
+		public void setRank(Integer rank)
+		{
+			this.rank = rank;
+		}
+	}
+	
+	/**
+	 * Target bean with same properties as source, with differences in primitive/wrapper types.
+	 */
+	public static class TargetBean
+	{
+		private long id;
+		private String name = "defaultName";
+		private Integer age;
+		
+		@IgnorePropertyDestination
+		private String content;
+		
+		private int rank = 10;
+
+		public long getId()
+		{
+			return id;
+		}
+
+		public void setId(long id)
+		{
+			this.id = id;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public void setName(String name)
+		{
+			this.name = name;
+		}
+
+		public Integer getAge()
+		{
+			return age;
+		}
+
+		public void setAge(Integer age)
+		{
+			this.age = age;
+		}
+
+		public String getContent()
+		{
+			return content;
+		}
+
+		public void setContent(String content)
+		{
+			this.content = content;
+		}
+
+		public int getRank()
+		{
+			return rank;
+		}
+
+		public void setRank(int rank)
+		{
+			this.rank = rank;
+		}
+	}
+	
+	/**
+	 * Bean with generic list property, used for testing.
+	 */
+	public static class SourceListBean
+	{
+		private List<SourceBean> items;
+
+		public List<SourceBean> getItems()
+		{
+			return items;
+		}
+
+		public void setItems(List<SourceBean> items)
+		{
+			this.items = items;
+		}
+	}
+	
+	/**
+	 * Bean with list property of different element type from {@link SourceListBean}.
+	 */
+	public static class TargetListBean
+	{
+		private List<TargetBean> items;
+
+		public List<TargetBean> getItems()
+		{
+			return items;
+		}
+
+		public void setItems(List<TargetBean> items)
+		{
+			this.items = items;
+		}
+	}
+	
+	/**
+	 * Bean with property type different from source.
+	 */
+	public static class MismatchBean
+	{
+		private String id;
+
+		public String getId()
+		{
+			return id;
+		}
+
+		public void setId(String id)
+		{
+			this.id = id;
+		}
+	}
+	
+	/**
+	 * Ensures properties are copied directly, including primitive-wrapper conversions, ignored properties are not 
+	 * copied and null values are not copied into primitive properties.
+	 */
+	@Test
+	public void testDirectMapping()
+	{
+		SourceBean source = new SourceBean();
+		source.setId(5L);
+		source.setName("test");
+		source.setAge(30);
+		source.setContent("content");
+		
+		TargetBean target = BeanMapper.convert(source, TargetBean.class);
+		
+		Assert.assertTrue(BeanMapper.isDirectMapping(SourceBean.class, TargetBean.class));
+		Assert.assertEquals(target.getId(), 5L);
+		Assert.assertEquals(target.getName(), "test");
+		Assert.assertEquals(target.getAge(), Integer.valueOf(30));
+		
+		//ignored destination property should not be copied
+		Assert.assertNull(target.getContent());
+		
+		//null value should not override the default
+		Assert.assertEquals(target.getRank(), 10);
+		
+		//convert back
+		SourceBean convertedSource = BeanMapper.convert(target, SourceBean.class);
+		Assert.assertEquals(convertedSource.getId(), Long.valueOf(5L));
+		Assert.assertEquals(convertedSource.getRank(), Integer.valueOf(10));
+		
+		Assert.assertNull(BeanMapper.convert(null, TargetBean.class));
+	}
+	
+	/**
+	 * Ensures null values override defaults of non-primitive target properties.
+	 */
+	@Test
+	public void testNullMapping()
+	{
+		SourceBean source = new SourceBean();
+		source.setAge(20);
+		
+		TargetBean target = BeanMapper.convert(source, TargetBean.class);
+		
+		Assert.assertNull(target.getName());
+		Assert.assertEquals(target.getId(), 0L);
+		Assert.assertEquals(target.getRank(), 10);
+	}
+	
+	/**
+	 * Ensures direct mapping results match the results of {@link PropertyMapper} for same input, covering
+	 * null values, primitive-wrapper conversions and ignored destination properties.
+	 */
+	@Test
+	public void testPropertyMapperParity() throws Exception
+	{
+		SourceBean source = new SourceBean();
+		source.setId(5L);
+		source.setName("test");
+		source.setAge(30);
+		source.setContent("content");
+		source.setRank(3);
+		
+		assertParity(source, TargetBean.class);
+		
+		//null values in source
+		assertParity(new SourceBean(), TargetBean.class);
+		
+		//primitive to wrapper conversion
+		TargetBean target = new TargetBean();
+		target.setId(7L);
+		target.setContent("content");
+		assertParity(target, SourceBean.class);
+	}
+	
+	/**
+	 * Converts specified source using {@link BeanMapper} and {@link PropertyMapper} and ensures properties of both
+	 * the results are same.
+	 * @param source Source to convert
+	 * @param targetType Target type
+	 */
+	private void assertParity(Object source, Class<?> targetType) throws Exception
+	{
+		Assert.assertTrue(BeanMapper.isDirectMapping(source.getClass(), targetType));
+		
+		Object expected = targetType.newInstance();
+		PropertyMapper.copyProperties(expected, source);
+		
+		Object actual = BeanMapper.convert(source, targetType);
+		
+		for(PropertyDescriptor property : Introspector.getBeanInfo(targetType, Object.class).getPropertyDescriptors())
+		{
+			Object expectedValue = property.getReadMethod().invoke(expected);
+			Object actualValue = property.getReadMethod().invoke(actual);
+			
+			Assert.assertTrue(Objects.equals(expectedValue, actualValue), 
+					"Property '" + property.getName() + "' differs. Expected: " + expectedValue + ", Actual: " + actualValue);
+		}
+	}
+	
+	/**
+	 * Ensures mapper falls back to property mapper when property types differ.
+	 */
+	@Test
+	public void testFallbackMapping()
+	{
+		Assert.assertFalse(BeanMapper.isDirectMapping(SourceBean.class, MismatchBean.class));
+	}
+	
+	/**
+	 * Ensures mapper falls back to property mapper when generic types of properties differ, even though
+	 * raw types are same.
+	 */
+	@Test
+	public void testGenericTypeMismatch()
+	{
+		Assert.assertFalse(BeanMapper.isDirectMapping(SourceListBean.class, TargetListBean.class));
+		Assert.assertTrue(BeanMapper.isDirectMapping(SourceListBean.class, SourceListBean.class));
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link ByteRange}.
+ * @author akiran
+ */
+public class TByteRange
+{
+	/**
+	 * Ensures different forms of single ranges are parsed.
+	 */
+	@Test
+	public void testParse()
+	{
+		ByteRange range = ByteRange.parse("bytes=0-99", 1000);
+		Assert.assertEquals(range.getStart(), 0);
+		Assert.assertEquals(range.getEnd(), 99);
+		Assert.assertEquals(range.getLength(), 100);
+		Assert.assertEquals(range.toContentRange(1000), "bytes 0-99/1000");
+		
+		//open ended range
+		range = ByteRange.parse("bytes=500-", 1000);
+		Assert.assertEquals(range.getStart(), 500);
+		Assert.assertEquals(range.getEnd(), 999);
+		
+		//suffix range
+		range = ByteRange.parse("bytes=-100", 1000);
+		Assert.assertEquals(range.getStart(), 900);
+		Assert.assertEquals(range.getEnd(), 999);
+		
+		//end beyond content length
+		range = ByteRange.parse("bytes=900-5000", 1000);
+		Assert.assertEquals(range.getEnd(), 999);
+	}
+	
+	/**
+	 * Ensures invalid, multiple and unsatisfiable ranges are handled.
+	 */
+	@Test
+	public void testInvalidRanges()
+	{
+		Assert.assertNull(ByteRange.parse(null, 1000));
+		Assert.assertNull(ByteRange.parse("bytes=abc-", 1000));
+		Assert.assertNull(ByteRange.parse("bytes=0-10,20-30", 1000));
+		Assert.assertNull(ByteRange.parse("items=0-10", 1000));
+		Assert.assertNull(ByteRange.parse("bytes=50-10", 1000));
+		
+		Assert.assertSame(ByteRange.parse("bytes=1000-", 1000), ByteRange.UNSATISFIABLE);
+		Assert.assertEquals(ByteRange.UNSATISFIABLE.toContentRange(1000), "bytes */1000");
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link DiskLruCache}.
+ * @author akiran
+ */
+public class TDiskLruCache
+{
+	/**
+	 * Creates temp file of specified size in cache folder.
+	 */
+	private File newFile(DiskLruCache cache, int size) throws IOException
+	{
+		File file = cache.createTempFile();
+		Files.write(file.toPath(), new byte[size]);
+		
+		return file;
+	}
+	
+	/**
+	 * Ensures least recently used files are deleted when max size is reached, and existing files
+	 * are loaded back by new cache instance.
+	 */
+	@Test
+	public void testEviction() throws IOException
+	{
+		File folder = Files.createTempDirectory("diskCache").toFile();
+		
+		try
+		{
+			DiskLruCache cache = new DiskLruCache(folder, 25);
+			
+			File one = cache.put("one", newFile(cache, 10));
+			File two = cache.put("two", newFile(cache, 10));
+			
+			//access "one", so that "two" becomes least recently used
+			Assert.assertEquals(cache.get("one"), one);
+			
+			cache.put("three", newFile(cache, 10));
+			
+			Assert.assertEquals(cache.getCount(), 2);
+			Assert.assertEquals(cache.getSize(), 20);
+			Assert.assertNull(cache.get("two"));
+			Assert.assertFalse(two.exists());
+			Assert.assertNotNull(cache.get("one"));
+			Assert.assertNotNull(cache.get("three"));
+			
+			//new instance should load existing files
+			cache = new DiskLruCache(folder, 25);
+			
+			Assert.assertEquals(cache.getCount(), 2);
+			Assert.assertEquals(cache.getSize(), 20);
+			Assert.assertNotNull(cache.get("three"));
+		}finally
+		{
+			FileUtils.deleteDirectory(folder);
+		}
+	}
+	
+	/**
+	 * Ensures files in use are not deleted during eviction, and are evicted once released.
+	 */
+	@Test
+	public void testInUseFiles() throws IOException
+	{
+		File folder = Files.createTempDirectory("diskCache").toFile();
+		
+		try
+		{
+			DiskLruCache cache = new DiskLruCache(folder, 25);
+			
+			File one = cache.put("one", newFile(cache, 10));
+			Assert.assertEquals(cache.acquire("one"), one);
+			
+			cache.put("two", newFile(cache, 10));
+			cache.put("three", newFile(cache, 10));
+			
+			//"one" is least recently used, but in use, so "two" should be evicted
+			Assert.assertTrue(one.exists());
+			Assert.assertNull(cache.get("two"));
+			Assert.assertEquals(cache.getSize(), 20);
+			
+			//once released, "one" should be evicted as least recently used file
+			cache.release("one");
+			Assert.assertTrue(one.exists());
+			
+			cache.put("four", newFile(cache, 10));
+			
+			Assert.assertFalse(one.exists());
+			Assert.assertNull(cache.get("one"));
+			Assert.assertEquals(cache.getSize(), 20);
+		}finally
+		{
+			FileUtils.deleteDirectory(folder);
+		}
+	}
+	
+	/**
+	 * Ensures keys which can refer to files outside cache folder are rejected.
+	 */
+	@Test
+	public void testInvalidKey() throws IOException
+	{
+		File folder = Files.createTempDirectory("diskCache").toFile();
+		
+		try
+		{
+			DiskLruCache cache = new DiskLruCache(folder, 25);
+			
+			try
+			{
+				cache.get("../one");
+				Assert.fail("Invalid key is accepted");
+			}catch(RuntimeException ex)
+			{}
+			
+			try
+			{
+				cache.get("..");
+				Assert.fail("Invalid key is accepted");
+			}catch(RuntimeException ex)
+			{}
+		}finally
+		{
+			FileUtils.deleteDirectory(folder);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2016 "Yukthi Techsoft Pvt. Ltd." (http://yukthi-tech.co.in)
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.yukthi.webutils.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link LruCache}.
+ * @author akiran
+ */
+public class TLruCache
+{
+	/**
+	 * Ensures least recently used entries are evicted when max size is reached.
+	 */
+	@Test
+	public void testEviction()
+	{
+		LruCache<String, Integer> cache = new LruCache<>("test", 2);
+		
+		cache.put("one", 1);
+		cache.put("two", 2);
+		
+		//access "one", so that "two" becomes least recently used
+		Assert.assertEquals(cache.get("one"), Integer.valueOf(1));
+		
+		cache.put("three", 3);
+		
+		Assert.assertEquals(cache.size(), 2);
+		Assert.assertNull(cache.get("two"));
+		Assert.assertEquals(cache.get("one"), Integer.valueOf(1));
+		Assert.assertEquals(cache.get("three"), Integer.valueOf(3));
+	}
+
+	/**
+	 * Ensures expired entries are not returned.
+	 */
+	@Test
+	public void testExpiry() throws Exception
+	{
+		LruCache<String, Integer> cache = new LruCache<>("test", 10, 50);
+		
+		cache.put("one", 1);
+		Assert.assertEquals(cache.get("one"), Integer.valueOf(1));
+		
+		Thread.sleep(100);
+		
+		Assert.assertNull(cache.get("one"));
+		Assert.assertEquals(cache.size(), 0);
+	}
+	
+	/**
+	 * Ensures loader is used only on cache miss and hits/misses are tracked.
+	 */
+	@Test
+	public void testLoaderAndStats()
+	{
+		LruCache<String, Integer> cache = new LruCache<>("test", 10);
+		
+		Assert.assertEquals(cache.get("abc", key -> key.length()), Integer.valueOf(3));
+		Assert.assertEquals(cache.get("abc", key -> -1), Integer.valueOf(3));
+		
+		Assert.assertEquals(cache.getMissCount(), 1);
+		Assert.assertEquals(cache.getHitCount(), 1);
+		
+		cache.removeIf(key -> key.startsWith("a"));
+		Assert.assertNull(cache.get("abc"));
+	}
+	
+	/**
+	 * Ensures values loaded before an invalidation are not cached after the invalidation.
+	 */
+	@Test
+	public void testInvalidationDuringLoad()
+	{
+		LruCache<String, Integer> cache = new LruCache<>("test", 10);
+		
+		//invalidate while the value is being loaded
+		Integer value = cache.get("abc", key -> 
+		{
+			cache.remove("xyz");
+			return 1;
+		});
+		
+		Assert.assertEquals(value, Integer.valueOf(1));
+		Assert.assertNull(cache.get("abc"));
+		
+		//value loaded without invalidation should be cached
+		cache.get("abc", key -> 2);
+		Assert.assertEquals(cache.get("abc"), Integer.valueOf(2));
+		
+		//put with stale generation should be ignored
+		long generation = cache.getGeneration();
+		cache.clear();
+		
+		Assert.assertFalse(cache.put("def", 3, generation));
+		Assert.assertNull(cache.get("def"));
+	}
+}
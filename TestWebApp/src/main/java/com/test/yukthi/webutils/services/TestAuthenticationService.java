@@ -41,6 +41,8 @@ import com.yukthi.webutils.extensions.ExtensionEntityDetails;
 import com.yukthi.webutils.repository.UserEntity;
 import com.yukthi.webutils.repository.file.FileEntity;
 import com.yukthi.webutils.security.ISecurityService;
+import com.yukthi.webutils.security.SecurityDescriptor;
+import com.yukthi.webutils.security.SecurityDescriptorRegistry;
 import com.yukthi.webutils.security.UserDetails;
 import com.yukthi.webutils.services.CurrentUserService;
 
@@ -59,6 +61,10 @@ public class TestAuthenticationService implements ISecurityService
 	@Autowired
 	private CurrentUserService currentUserService;
 	
+	/** Registry of precomputed method security details. */
+	@Autowired
+	private SecurityDescriptorRegistry securityDescriptorRegistry;
+	
 	@Autowired
 	private HttpServletRequest request;
 	
@@ -82,7 +88,16 @@ public class TestAuthenticationService implements ISecurityService
 	@Override
 	public boolean isAuthorized(Method method)
 	{
-		Authorization authorization = method.getAnnotation(Authorization.class);
+		return isAuthorized(securityDescriptorRegistry.getDescriptor(method));
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.yukthi.webutils.security.ISecurityService#isAuthorized(com.yukthi.webutils.security.SecurityDescriptor)
+	 */
+	@Override
+	public boolean isAuthorized(SecurityDescriptor descriptor)
+	{
+		Authorization authorization = descriptor.getAnnotation(Authorization.class);
 		
 		//if target method is not secured, return true
 		if(authorization == null)